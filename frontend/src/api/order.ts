@@ -18,6 +18,9 @@ export const orderApi = {
   // 按订单号查询
   getByOrderNo: (orderNo: string) => api.get<Order>(`/orders/no/${orderNo}`),
 
+  // 取车
+  pickup: (id: number) => api.post<Order>(`/orders/${id}/pickup`),
+
   // 归还车辆
   returnVehicle: (id: number, storeId: number) =>
     api.post<Order>(`/orders/${id}/return`, null, { params: { storeId } }),
@@ -6,7 +6,9 @@ import type {
   MaintenanceCost, 
   OrderTrend, 
   StoreRevenue,
-  ReportPeriod 
+  ReportPeriod,
+  ReportJob,
+  ReportJobRequest
 } from '../types'
 
 export const reportApi = {
@@ -41,4 +43,16 @@ export const reportApi = {
   // 获取门店收入统计
   getStoreRevenue: (params: { startDate: string; endDate: string }) =>
     api.get<StoreRevenue[]>('/reports/store-revenue', { params }),
+
+  // 提交异步报表任务（耗时报表使用，避免请求超时）
+  submitJob: (data: ReportJobRequest) =>
+    api.post<ReportJob>('/reports/jobs', data),
+
+  // 查询异步报表任务状态
+  getJob: (jobId: number) =>
+    api.get<ReportJob>(`/reports/jobs/${jobId}`),
+
+  // 获取异步报表任务结果
+  getJobResult: <T>(jobId: number) =>
+    api.get<T>(`/reports/jobs/${jobId}/result`),
 }
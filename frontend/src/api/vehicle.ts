@@ -1,23 +1,45 @@
 import api from './client'
-import type { Vehicle, VehicleDTO, Category } from '../types'
+import type { Vehicle, VehicleDTO, VehicleImportResult, Category, NearbyStoreVehicles, AvailabilityMatrix, VehicleCalendar } from '../types'
 
 export const vehicleApi = {
   // 搜索可用车辆
   search: (params: { storeId?: number; start?: string; end?: string }) =>
     api.get<Vehicle[]>('/vehicles', { params }),
 
+  // 搜索附近门店的可用车辆（按距离排序）
+  searchNearby: (params: { latitude: number; longitude: number; k?: number; start: string; end: string }) =>
+    api.get<NearbyStoreVehicles[]>('/vehicles/nearby', { params }),
+
+  // 门店 × 分类可用车辆矩阵（首页一次请求）
+  getAvailabilityMatrix: (params: { start: string; end: string }) =>
+    api.get<AvailabilityMatrix>('/vehicles/availability-matrix', { params }),
+
   // 获取所有车辆
   getAll: () => api.get<Vehicle[]>('/vehicles/all'),
 
   // 获取单个车辆
   getById: (id: number) => api.get<Vehicle>(`/vehicles/${id}`),
 
+  // 获取车辆可用日历
+  getCalendar: (id: number, days = 30) =>
+    api.get<VehicleCalendar>(`/vehicles/${id}/calendar`, { params: { days } }),
+
   // 按门店获取车辆
   getByStore: (storeId: number) => api.get<Vehicle[]>(`/vehicles/store/${storeId}`),
 
   // 创建车辆 (管理员)
   create: (data: VehicleDTO) => api.post<Vehicle>('/vehicles', data),
 
+  // 批量导入车辆 CSV (管理员)
+  importCsv: (file: File) => {
+    const form = new FormData()
+    form.append('file', file)
+    return api.post<VehicleImportResult>('/vehicles/import', form, {
+      headers: { 'Content-Type': 'multipart/form-data' },
+      timeout: 300000,
+    })
+  },
+
   // 更新车辆状态 (管理员)
   updateStatus: (id: number, status: number) =>
     api.put<Vehicle>(`/vehicles/${id}/status`, null, { params: { status } }),
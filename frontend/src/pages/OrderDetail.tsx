@@ -83,6 +83,17 @@ export default function OrderDetail() {
     }
   }
 
+  const handlePickup = async () => {
+    if (!order) return
+    try {
+      await orderApi.pickup(order.id)
+      loadData(order.id)
+    } catch (error) {
+      console.error('取车失败', error)
+      alert('取车失败，请稍后重试')
+    }
+  }
+
   const handleCancel = async () => {
     if (!order) return
     if (!confirm('确定要取消此订单吗？')) return
@@ -152,6 +163,23 @@ export default function OrderDetail() {
                 {dayjs(order.endTime).format('YYYY-MM-DD HH:mm')}
               </span>
             </div>
+            {order.overdueAt && !order.actualReturnTime && (
+              <div className="info-item">
+                <span className="info-label">逾期</span>
+                <span className="info-value">
+                  已超过还车时间（{dayjs(order.overdueAt).format('YYYY-MM-DD HH:mm')} 标记）
+                </span>
+              </div>
+            )}
+            {order.status === 1 && !!order.accruedPenalty && (
+              <div className="info-item">
+                <span className="info-label">预计罚金</span>
+                <span className="info-value amount">
+                  ¥{order.accruedPenalty.toFixed(2)}
+                  {order.penaltyAccruedAt && `（截至 ${dayjs(order.penaltyAccruedAt).format('YYYY-MM-DD HH:mm')}）`}
+                </span>
+              </div>
+            )}
             {order.actualReturnTime && (
               <div className="info-item">
                 <span className="info-label">实际还车</span>
@@ -164,6 +192,18 @@ export default function OrderDetail() {
               <span className="info-label">订单金额</span>
               <span className="info-value amount">¥{order.totalAmount?.toFixed(2)}</span>
             </div>
+            {order.paidAmount !== undefined && (
+              <div className="info-item">
+                <span className="info-label">已支付</span>
+                <span className="info-value">¥{order.paidAmount.toFixed(2)}</span>
+              </div>
+            )}
+            {order.outstandingAmount !== undefined && (
+              <div className="info-item">
+                <span className="info-label">{order.outstandingAmount < 0 ? '应退还' : '待支付'}</span>
+                <span className="info-value amount">¥{Math.abs(order.outstandingAmount).toFixed(2)}</span>
+              </div>
+            )}
           </div>
 
           {(order.status === 0 || order.status === 1) && (
@@ -178,6 +218,11 @@ export default function OrderDetail() {
                   支付尾款
                 </button>
               )}
+              {depositPaid && order.status === 0 && (
+                <button className="btn btn-primary" onClick={handlePickup}>
+                  取车
+                </button>
+              )}
               {depositPaid && (
                 <button
                   className="btn btn-warning"
@@ -2,7 +2,7 @@ import { useState, useEffect } from 'react'
 import { useParams, useNavigate, Link } from 'react-router-dom'
 import { vehicleApi, categoryApi } from '../api/vehicle'
 import { storeApi } from '../api/store'
-import type { Vehicle, Store, Category } from '../types'
+import type { Vehicle, Store, Category, VehicleCalendar } from '../types'
 import RentalModal from '../components/RentalModal'
 import './VehicleDetail.css'
 
@@ -13,12 +13,21 @@ const statusMap: Record<number, { label: string; class: string }> = {
   3: { label: '已下架', class: 'badge-secondary' },
 }
 
+const calendarStatusMap: Record<number, { label: string; class: string }> = {
+  0: { label: '可预订', class: 'day-free' },
+  1: { label: '已预订', class: 'day-booked' },
+  2: { label: '维修', class: 'day-maintenance' },
+}
+
+const CALENDAR_DAYS = 30
+
 export default function VehicleDetail() {
   const { id } = useParams<{ id: string }>()
   const navigate = useNavigate()
   const [vehicle, setVehicle] = useState<Vehicle | null>(null)
   const [store, setStore] = useState<Store | null>(null)
   const [category, setCategory] = useState<Category | null>(null)
+  const [calendar, setCalendar] = useState<VehicleCalendar | null>(null)
   const [stores, setStores] = useState<Store[]>([])
   const [loading, setLoading] = useState(true)
   const [showModal, setShowModal] = useState(false)
@@ -29,13 +38,15 @@ export default function VehicleDetail() {
 
   const loadData = async (vehicleId: number) => {
     try {
-      const [vehicleRes, storesRes, categoriesRes] = await Promise.all([
+      const [vehicleRes, storesRes, categoriesRes, calendarRes] = await Promise.all([
         vehicleApi.getById(vehicleId),
         storeApi.getAll(),
         categoryApi.getAll(),
+        vehicleApi.getCalendar(vehicleId, CALENDAR_DAYS),
       ])
       const v = vehicleRes.data
       setVehicle(v)
+      setCalendar(calendarRes.data)
       setStores(storesRes.data)
       setStore(storesRes.data.find((s) => s.id === v.storeId) || null)
       setCategory(categoriesRes.data.find((c) => c.id === v.categoryId) || null)
@@ -100,6 +111,29 @@ export default function VehicleDetail() {
             </div>
           </div>
 
+          {calendar && (
+            <div className="availability-calendar">
+              <div className="calendar-title">未来 {calendar.days.length} 天可用情况</div>
+              <div className="calendar-grid">
+                {calendar.days.map((status, i) => {
+                  // 按本地日期计算，避免 new Date('yyyy-MM-dd') 按 UTC 解析导致错位
+                  const [y, m, d] = calendar.startDate.split('-').map(Number)
+                  const date = new Date(y, m - 1, d + i)
+                  const label = `${date.getMonth() + 1}/${date.getDate()}`
+                  return (
+                    <div
+                      key={i}
+                      className={`calendar-day ${calendarStatusMap[status].class}`}
+                      title={`${label} ${calendarStatusMap[status].label}`}
+                    >
+                      {date.getDate()}
+                    </div>
+                  )
+                })}
+              </div>
+            </div>
+          )}
+
           {vehicle.status === 0 && (
             <button
               className="btn btn-primary btn-lg"
@@ -42,6 +42,8 @@ export interface Store {
   name: string
   address?: string
   phone?: string
+  latitude?: number
+  longitude?: number
 }
 
 // 车辆状态: 0-可用, 1-已租出, 2-维护中, 3-下架
@@ -73,6 +75,47 @@ export interface VehicleDTO {
   dailyRate: number
 }
 
+// 车辆批量导入结果
+export interface VehicleImportResult {
+  totalRows: number
+  importedCount: number
+  failedCount: number
+  errors: { lineNumber: number; plateNumber?: string; message: string }[]
+}
+
+// 附近门店可用车辆
+export interface NearbyStoreVehicles {
+  storeId: number
+  storeName: string
+  address?: string
+  latitude: number
+  longitude: number
+  distanceKm: number
+  availableCount: number
+  vehicles: Vehicle[]
+}
+
+// 门店 × 分类可用车辆矩阵，counts[i][j] 为 stores[i] 中 categories[j] 的可用数
+export interface AvailabilityMatrix {
+  startTime: string
+  endTime: string
+  stores: Store[]
+  categories: Category[]
+  counts: number[][]
+  totalAvailable: number
+  generatedAt: string
+}
+
+// 车辆日历每天状态: 0-空闲, 1-已预订, 2-维修
+export type CalendarDayStatus = 0 | 1 | 2
+
+// 车辆可用日历，days[i] 为 startDate 之后第 i 天的状态
+export interface VehicleCalendar {
+  vehicleId: number
+  startDate: string
+  days: CalendarDayStatus[]
+}
+
 // 订单状态: 0-进行中, 1-已完成, 2-已归还, 3-已取消
 export type OrderStatus = 0 | 1 | 2 | 3
 
@@ -91,7 +134,12 @@ export interface Order {
   startTime: string
   endTime: string
   actualReturnTime?: string
+  overdueAt?: string
   totalAmount: number
+  paidAmount?: number
+  outstandingAmount?: number
+  accruedPenalty?: number
+  penaltyAccruedAt?: string
   status: OrderStatus
   createdAt?: string
 }
@@ -136,6 +184,8 @@ export interface StoreDTO {
   name: string
   address?: string
   phone?: string
+  latitude?: number
+  longitude?: number
 }
 
 // ==================== 报表相关类型 ====================
@@ -238,3 +288,32 @@ export interface StoreRevenue {
   netProfit: number
   averageUtilization: number
 }
+
+// 报表类型（异步报表任务）
+export type ReportType =
+  | 'DASHBOARD'
+  | 'REVENUE'
+  | 'VEHICLE_UTILIZATION'
+  | 'MAINTENANCE_COST'
+  | 'ORDER_TREND'
+  | 'STORE_REVENUE'
+
+// 异步报表任务提交参数
+export interface ReportJobRequest {
+  reportType: ReportType
+  period?: ReportPeriod
+  startDate: string
+  endDate: string
+}
+
+// 异步报表任务状态: 0-排队中, 1-执行中, 2-已完成, 3-失败
+export interface ReportJob {
+  jobId: number
+  reportType: ReportType
+  status: 0 | 1 | 2 | 3
+  progress: number
+  errorMessage?: string
+  createdAt: string
+  startedAt?: string
+  finishedAt?: string
+}
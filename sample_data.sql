@@ -43,20 +43,20 @@ ON CONFLICT (plate_number) DO NOTHING;
 INSERT INTO orders (order_no, user_id, vehicle_id, pickup_store_id, return_store_id, start_time, end_time, status) VALUES
 ('ORD20240101001', 2, 1, 1, 1, '2024-01-15 10:00:00', '2024-01-17 10:00:00', 0),
 ('ORD20240101002', 3, 6, 1, 2, '2024-01-20 09:00:00', '2024-01-22 09:00:00', 0)
-ON CONFLICT (order_no) DO NOTHING;
+ON CONFLICT DO NOTHING;
 
 -- 插入使用中的订单
 INSERT INTO orders (order_no, user_id, vehicle_id, pickup_store_id, return_store_id, start_time, end_time, status) VALUES
 ('ORD20240102001', 2, 2, 1, 1, '2024-01-10 14:00:00', '2024-01-12 14:00:00', 1),
 ('ORD20240102002', 3, 8, 1, 2, '2024-01-08 09:00:00', '2024-01-10 09:00:00', 1)
-ON CONFLICT (order_no) DO NOTHING;
+ON CONFLICT DO NOTHING;
 
 -- 插入已完成的订单
 INSERT INTO orders (order_no, user_id, vehicle_id, pickup_store_id, return_store_id, start_time, end_time, actual_return_time, total_amount, status) VALUES
 ('ORD20240103001', 2, 5, 1, 1, '2024-01-01 10:00:00', '2024-01-03 10:00:00', '2024-01-03 10:30:00', 200.00, 2),
 ('ORD20240103002', 3, 9, 2, 3, '2024-01-02 09:00:00', '2024-01-05 09:00:00', '2024-01-05 08:45:00', 450.00, 2),
 ('ORD20240103003', 2, 11, 1, 1, '2024-01-05 15:00:00', '2024-01-07 15:00:00', '2024-01-07 15:00:00', 500.00, 2)
-ON CONFLICT (order_no) DO NOTHING;
+ON CONFLICT DO NOTHING;
 
 -- ============================================
 -- 插入支付记录
@@ -0,0 +1,37 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 车辆调拨规划配置类
+ * 各车辆分类的调拨方案在独立线程中并行求解
+ */
+@Configuration
+public class FleetRebalanceConfig {
+
+    @Value("${fleet.rebalance.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * 调拨规划线程池
+     * 分类数可能多于线程数，多出的分类排队等待，队列不设上限（分类数量有限）
+     *
+     * @return 调拨规划线程池
+     */
+    @Bean(name = "fleetRebalanceExecutor")
+    public ThreadPoolTaskExecutor fleetRebalanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("fleet-rebalance-");
+        // 各分类的求解任务沿用提交线程的连接池
+        executor.setTaskDecorator(WorkloadRoutingDataSource.taskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,90 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.dto.DashboardDTO;
+import com.java_db.demo.dto.MaintenanceCostDTO;
+import com.java_db.demo.dto.OrderDTO;
+import com.java_db.demo.dto.OrderTrendDTO;
+import com.java_db.demo.dto.RevenueStatisticsDTO;
+import com.java_db.demo.dto.StoreRevenueDTO;
+import com.java_db.demo.dto.VehicleUtilizationDTO;
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Order;
+import com.java_db.demo.entity.Payment;
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.entity.Vehicle;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * GraalVM 原生镜像配置类
+ * 补充 AOT 处理无法自动推断的反射、资源元数据（mvn -Pnative native:compile）
+ *
+ * 控制器方法的参数、返回值类型由 Spring 自动注册；以下两类需要手动声明：
+ * 1. 由 ConditionalResponseService / IdempotencyService / ReportJobService 手动序列化为 JSON 的类型
+ * 2. jjwt：API 模块按类名反射加载实现类，JSON 序列化器通过 ServiceLoader 加载
+ * 3. 通过 Binder 构造器绑定的分片连接配置（sharding.shards.*）
+ *
+ * Hibernate 实体由 Spring Data JPA 的 AOT 处理注册，springdoc 自带运行时提示
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.JjwtRuntimeHints.class)
+@RegisterReflectionForBinding({
+        Category.class, Store.class, Vehicle.class, Order.class, Payment.class, OrderDTO.class,
+        DashboardDTO.class, RevenueStatisticsDTO.class, VehicleUtilizationDTO.class,
+        MaintenanceCostDTO.class, OrderTrendDTO.class, StoreRevenueDTO.class,
+        WorkloadDataSourceConfig.ShardConnection.class
+})
+public class NativeHintsConfig {
+
+    /**
+     * jjwt 0.12 的 Jwts、Keys 等入口按类名实例化 jjwt-impl 中的实现类
+     */
+    static class JjwtRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final List<String> IMPL_CLASSES = List.of(
+                "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+                "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+                "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+                "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+                "io.jsonwebtoken.impl.security.JwksBridge",
+                "io.jsonwebtoken.impl.security.KeysBridge",
+                "io.jsonwebtoken.impl.security.StandardCurves",
+                "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyOperations",
+                "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms"
+        );
+
+        private static final List<String> SERVICE_CLASSES = List.of(
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String className : IMPL_CLASSES) {
+                hints.reflection().registerTypeIfPresent(classLoader, className,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            }
+            for (String className : SERVICE_CLASSES) {
+                hints.reflection().registerTypeIfPresent(classLoader, className,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 罚金累计任务配置类
+ * 各车辆 ID 区间在独立线程中并行处理
+ */
+@Slf4j
+@Configuration
+public class PenaltyAccrualConfig {
+
+    @Value("${order.penalty.partitions:4}")
+    private int partitions;
+
+    /**
+     * 后台任务连接池大小（未单独配置时沿用 spring.datasource.hikari.*，再缺省为 HikariCP 默认值 10）
+     */
+    @Value("${workload.pool.background.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int backgroundPoolSize;
+
+    /**
+     * 罚金累计线程池
+     * 线程数等于区间数，每轮最多提交 partitions 个任务，无需排队
+     * 每个区间线程同时占用一个后台连接，区间数封顶为后台连接池大小减 1，给其他后台任务留出连接
+     *
+     * @return 罚金累计线程池（最大线程数即本实例使用的区间数）
+     */
+    @Bean(name = "penaltyAccrualExecutor")
+    public ThreadPoolTaskExecutor penaltyAccrualExecutor() {
+        int limit = Math.max(1, backgroundPoolSize - 1);
+        if (partitions > limit) {
+            log.warn("order.penalty.partitions={} 超过后台连接池可用连接数，按 {} 个区间执行", partitions, limit);
+            partitions = limit;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setQueueCapacity(partitions);
+        executor.setThreadNamePrefix("penalty-accrual-");
+        executor.setTaskDecorator(WorkloadRoutingDataSource.taskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
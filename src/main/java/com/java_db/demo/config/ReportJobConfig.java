@@ -0,0 +1,43 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 异步报表任务配置类
+ * 为报表任务提供独立的有界线程池，避免耗时报表占用 HTTP 线程
+ */
+@Configuration
+@EnableScheduling
+public class ReportJobConfig {
+
+    @Value("${report.job.pool-size:2}")
+    private int poolSize;
+
+    @Value("${report.job.queue-capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * 报表任务线程池
+     * 固定线程数 + 有界队列，队列满时拒绝提交（由 ReportJobService 转换为业务异常）
+     *
+     * @return 报表任务线程池
+     */
+    @Bean(name = "reportJobExecutor")
+    public ThreadPoolTaskExecutor reportJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-job-");
+        // 报表任务与提交线程一样使用 REPORTING 连接池
+        executor.setTaskDecorator(WorkloadRoutingDataSource.taskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
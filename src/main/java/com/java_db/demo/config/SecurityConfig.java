@@ -1,7 +1,9 @@
 package com.java_db.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -11,6 +13,22 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  */
 @Configuration
 public class SecurityConfig {
+
+    /**
+     * BCrypt 成本因子（每 +1 计算耗时翻倍）
+     * 调高后，旧哈希会在用户下次登录成功时自动升级（见 AuthService.login）
+     */
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    /**
+     * 密码哈希线程数，0 表示 CPU 核数的一半
+     */
+    @Value("${security.password-hash.pool-size:0}")
+    private int passwordHashPoolSize;
+
+    @Value("${security.password-hash.queue-capacity:100}")
+    private int passwordHashQueueCapacity;
     
     /**
      * 密码加密器 Bean
@@ -20,6 +38,28 @@ public class SecurityConfig {
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    /**
+     * 密码哈希线程池
+     * BCrypt 每次校验消耗数十毫秒 CPU，放到独立的有界线程池中执行，
+     * 登录高峰时最多占用 poolSize 个核心，其余核心留给下单等业务请求
+     * 队列满时拒绝提交（由 PasswordHashingService 转换为业务异常）
+     *
+     * @return 密码哈希线程池
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        int poolSize = passwordHashPoolSize > 0
+                ? passwordHashPoolSize
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(passwordHashQueueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+        return executor;
     }
 }
@@ -0,0 +1,85 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 订单分片配置类
+ *
+ * 1. 数据库迁移：先迁移主库，再用同一配置依次迁移其他分片，所有分片表结构一致
+ * 2. ID 分配：订单、支付、维修记录的序列按 sharding.id-stride 步长递增，
+ *    分片 i 生成的 ID 满足 ID % 步长 = i，各分片生成的 ID 不重复，迁移区域时原样搬移；
+ *    首次启用分片时序列从所有分片现有的最大 ID 之后开始
+ *
+ * 只配置主库时与未分片时相同，不修改序列
+ */
+@Slf4j
+@Configuration
+public class ShardingConfig {
+
+    /**
+     * 按分片存储的表（ID 由各分片的序列生成）
+     */
+    private static final List<String> SHARDED_TABLES = List.of("orders", "payments", "maintenance");
+
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRoutingDataSource dataSource,
+                                                                  @Value("${sharding.id-stride:16}") int idStride) {
+        return flyway -> {
+            flyway.migrate();
+            if (!dataSource.isSharded()) {
+                return;
+            }
+            for (String shardId : dataSource.getShardIds()) {
+                if (ShardRoutingDataSource.PRIMARY.equals(shardId)) {
+                    continue;
+                }
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource.getShard(shardId))
+                        .load()
+                        .migrate();
+                log.info("分片 {} 数据库迁移完成", shardId);
+            }
+            for (String table : SHARDED_TABLES) {
+                alignSequences(dataSource, table, idStride);
+            }
+        };
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 将各分片上表的 ID 序列改为按步长递增（已是该步长的序列不修改）
+     */
+    private void alignSequences(ShardRoutingDataSource dataSource, String table, int idStride) {
+        long maxId = 0;
+        for (String shardId : dataSource.getShardIds()) {
+            Long shardMax = new JdbcTemplate(dataSource.getShard(shardId))
+                    .queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            maxId = Math.max(maxId, shardMax);
+        }
+        for (String shardId : dataSource.getShardIds()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource.getShard(shardId));
+            String sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, table);
+            Long increment = jdbcTemplate.queryForObject(
+                    "SELECT seqincrement FROM pg_sequence WHERE seqrelid = ?::regclass", Long.class, sequence);
+            if (increment != null && increment == idStride) {
+                continue;
+            }
+            int index = dataSource.getIndex(shardId);
+            long next = maxId + 1 + Math.floorMod(index - (maxId + 1), idStride);
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + idStride);
+            jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?, false)", Long.class, sequence, next);
+            log.info("分片 {} 的 {} 序列改为步长 {}，下一个 ID 为 {}", shardId, table, idStride, next);
+        }
+    }
+}
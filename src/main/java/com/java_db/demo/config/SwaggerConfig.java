@@ -7,13 +7,16 @@ import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.servers.Server;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.util.List;
 
 /**
  * Swagger/OpenAPI 配置类
  * 配置 API 文档的基本信息
+ * 延迟初始化：接口文档只在首次访问 /v3/api-docs 时需要，不占用启动时间
  */
+@Lazy
 @Configuration
 public class SwaggerConfig {
     
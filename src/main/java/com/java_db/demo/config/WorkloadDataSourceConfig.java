@@ -0,0 +1,115 @@
+package com.java_db.demo.config;
+
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按业务负载隔离的连接池配置类（舱壁）
+ * 每种负载（WorkloadType）一个 HikariCP 连接池，连接信息共用 spring.datasource.*，
+ * 池参数先取 spring.datasource.hikari.*，再由 workload.pool.{负载}.* 覆盖
+ *
+ * 配置了订单分片（sharding.shards.{分片}.*）时，每个分片各有一组同样划分的连接池，
+ * 连接池名称为 workload-{负载}-{分片}（主库保持 workload-{负载}）
+ *
+ * 各连接池注册 Micrometer 指标（按 pool 标签区分）：
+ * hikaricp.connections.acquire 为获取连接的等待时间，hikaricp.connections.pending 为等待中的线程数，
+ * hikaricp.connections.timeout 为等待超时次数
+ */
+@Configuration
+public class WorkloadDataSourceConfig {
+
+    /**
+     * 分片连接信息（用户名、密码未配置时沿用主库）
+     *
+     * @param url JDBC URL
+     * @param username 用户名
+     * @param password 密码
+     * @param index 分片序号（1 ~ sharding.id-stride - 1，主库固定为 0）
+     */
+    record ShardConnection(String url, String username, String password, Integer index) {
+    }
+
+    /**
+     * 按分片、负载路由的主数据源（JPA、JdbcTemplate、Flyway 均使用）
+     *
+     * @param properties 主库连接信息
+     * @param environment 环境配置（读取连接池参数、分片配置）
+     * @param meterRegistry 指标注册表
+     * @return 路由数据源
+     */
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(DataSourceProperties properties,
+                                             Environment environment,
+                                             MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        int stride = binder.bind("sharding.id-stride", Integer.class).orElse(16);
+        Map<String, ShardConnection> connections = binder.bind("sharding.shards",
+                Bindable.mapOf(String.class, ShardConnection.class)).orElse(Map.of());
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        shards.put(ShardRoutingDataSource.PRIMARY, workloadPools(properties, binder, meterRegistry, ""));
+        indexes.put(ShardRoutingDataSource.PRIMARY, 0);
+        connections.forEach((shardId, connection) -> {
+            if (ShardRoutingDataSource.PRIMARY.equals(shardId)) {
+                throw new IllegalStateException("分片 ID " + shardId + " 保留给主库（spring.datasource.*）");
+            }
+            if (connection.url() == null || connection.index() == null) {
+                throw new IllegalStateException("分片 " + shardId + " 需要配置 url 和 index");
+            }
+            if (connection.index() < 1 || connection.index() >= stride || indexes.containsValue(connection.index())) {
+                throw new IllegalStateException("分片 " + shardId + " 的 index 须在 1 ~ " + (stride - 1) + " 之间且不重复");
+            }
+            DataSourceProperties shardProperties = new DataSourceProperties();
+            shardProperties.setDriverClassName(properties.getDriverClassName());
+            shardProperties.setUrl(connection.url());
+            shardProperties.setUsername(connection.username() != null ? connection.username() : properties.getUsername());
+            shardProperties.setPassword(connection.password() != null ? connection.password() : properties.getPassword());
+            shards.put(shardId, workloadPools(shardProperties, binder, meterRegistry, "-" + shardId));
+            indexes.put(shardId, connection.index());
+        });
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource(shards, indexes);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 一个数据库的各负载连接池
+     */
+    private WorkloadRoutingDataSource workloadPools(DataSourceProperties properties, Binder binder,
+                                                    MeterRegistry meterRegistry, String poolSuffix) {
+        Map<Object, Object> pools = new HashMap<>();
+        for (WorkloadType workload : WorkloadType.values()) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            binder.bind("workload.pool." + workload.getKey(), Bindable.ofInstance(pool));
+            pool.setPoolName("workload-" + workload.getKey() + poolSuffix);
+            pool.setMetricRegistry(meterRegistry);
+            pools.put(workload, pool);
+        }
+        WorkloadRoutingDataSource dataSource = new WorkloadRoutingDataSource();
+        dataSource.setTargetDataSources(pools);
+        dataSource.setDefaultTargetDataSource(pools.get(WorkloadType.CUSTOMER_READ));
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+}
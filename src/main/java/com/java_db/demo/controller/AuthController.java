@@ -7,6 +7,7 @@ import com.java_db.demo.entity.User;
 import com.java_db.demo.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -28,12 +29,15 @@ public class AuthController {
      * 用户登录
      * 
      * @param request 登录请求（用户名和密码）
+     * @param httpRequest HTTP 请求（取客户端 IP）
      * @return 登录响应（JWT Token 和用户信息，包含 role 字段）
      */
     @PostMapping("/login")
-    @Operation(summary = "用户登录", description = "验证用户名和密码，返回 JWT Token 和用户信息（含 role 字段供前端判断身份）")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse response = authService.login(request);
+    @Operation(summary = "用户登录", description = "验证用户名和密码，返回 JWT Token 和用户信息（含 role 字段供前端判断身份）；" +
+            "同一账号或 IP 连续失败次数过多时暂时拒绝登录")
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request,
+                                               HttpServletRequest httpRequest) {
+        LoginResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
     
@@ -2,10 +2,13 @@ package com.java_db.demo.controller;
 
 import com.java_db.demo.entity.Category;
 import com.java_db.demo.repository.CategoryRepository;
+import com.java_db.demo.service.ConditionalResponseService;
+import com.java_db.demo.service.ResourceVersionService.Resource;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,18 +25,21 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryRepository categoryRepository;
+    private final ConditionalResponseService conditionalResponseService;
     
     /**
      * 查询所有分类
-     * 用于前端下拉框选择
+     * 用于前端下拉框选择，支持 ETag 条件请求（分类未变化时返回 304）
      * 
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 所有分类列表
      */
     @GetMapping
-    @Operation(summary = "查询所有分类", description = "获取所有车辆分类列表，供用户选择车型")
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
-        return ResponseEntity.ok(categories);
+    @Operation(summary = "查询所有分类", description = "获取所有车辆分类列表，供用户选择车型；支持 If-None-Match 条件请求")
+    public ResponseEntity<byte[]> getAllCategories(
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponseService.respond(ifNoneMatch, "categories",
+                categoryRepository::findAll, Resource.CATEGORIES);
     }
     
     /**
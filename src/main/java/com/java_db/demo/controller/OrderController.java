@@ -1,8 +1,13 @@
 package com.java_db.demo.controller;
 
 import com.java_db.demo.dto.OrderDTO;
+import com.java_db.demo.dto.PenaltyAccrualResultDTO;
 import com.java_db.demo.entity.Order;
+import com.java_db.demo.service.IdempotencyService;
 import com.java_db.demo.service.OrderService;
+import com.java_db.demo.service.PenaltyAccrualService;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,18 +29,26 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final PenaltyAccrualService penaltyAccrualService;
+    private final IdempotencyService idempotencyService;
     
     /**
      * 创建订单
+     * 携带 Idempotency-Key 时，超时重试不会重复下单，返回首次创建的订单
+     * 幂等记录与订单在取车门店所在的分片同一事务提交
      * 
      * @param orderDTO 订单信息
+     * @param idempotencyKey 幂等键（可选）
      * @return 创建的订单
      */
     @PostMapping
-    @Operation(summary = "创建订单", description = "用户创建租车订单，会检查时间冲突并计算金额")
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody OrderDTO orderDTO) {
-        Order order = orderService.createOrder(orderDTO);
-        return ResponseEntity.ok(order);
+    @ShardRoute(by = ShardKey.STORE, key = "#orderDTO.pickupStoreId")
+    @Operation(summary = "创建订单", description = "用户创建租车订单，会检查时间冲突并计算金额；支持 Idempotency-Key 幂等重试")
+    public ResponseEntity<byte[]> createOrder(
+            @Valid @RequestBody OrderDTO orderDTO,
+            @Parameter(description = "幂等键（可选），重试时携带相同的值") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/orders", orderDTO,
+                () -> orderService.createOrder(orderDTO));
     }
     
     /**
@@ -52,6 +65,20 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
     
+    /**
+     * 取车
+     * 
+     * @param id 订单 ID
+     * @return 更新后的订单
+     */
+    @PostMapping("/{id}/pickup")
+    @Operation(summary = "取车", description = "预订订单取车，状态变为使用中；超过取车期限未取车的预订会被自动取消")
+    public ResponseEntity<Order> pickupVehicle(
+            @Parameter(description = "订单ID") @PathVariable Integer id) {
+        Order order = orderService.pickupVehicle(id);
+        return ResponseEntity.ok(order);
+    }
+    
     /**
      * 还车
      * 
@@ -121,4 +148,15 @@ public class OrderController {
         List<Order> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
+    
+    /**
+     * 立即执行逾期罚金累计（管理员功能）
+     * 
+     * @return 执行结果
+     */
+    @PostMapping("/penalties/accrue")
+    @Operation(summary = "累计逾期罚金", description = "按当前时间更新使用中逾期订单的已累计罚金（默认每 15 分钟自动执行），上一轮未完成时从检查点继续")
+    public ResponseEntity<PenaltyAccrualResultDTO> accruePenalties() {
+        return ResponseEntity.ok(penaltyAccrualService.accrue());
+    }
 }
@@ -0,0 +1,64 @@
+package com.java_db.demo.controller;
+
+import com.java_db.demo.service.PartitionMaintenanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分区管理控制器
+ * 查看和维护 orders / payments 的月度分区（管理员功能）
+ */
+@RestController
+@RequestMapping("/api/partitions")
+@RequiredArgsConstructor
+@Tag(name = "分区管理接口", description = "订单、支付表月度分区的查询、创建与历史分区分离")
+public class PartitionController {
+
+    private final PartitionMaintenanceService partitionMaintenanceService;
+
+    /**
+     * 查询所有分区
+     *
+     * @return 表名 -> 分区名列表
+     */
+    @GetMapping
+    @Operation(summary = "查询分区", description = "查询 orders、payments 的所有分区")
+    public ResponseEntity<Map<String, List<String>>> listPartitions() {
+        return ResponseEntity.ok(partitionMaintenanceService.listPartitions());
+    }
+
+    /**
+     * 立即创建未来月份的分区
+     *
+     * @return 创建后的分区列表
+     */
+    @PostMapping("/ensure")
+    @Operation(summary = "创建未来分区", description = "立即创建当前月及未来若干个月的分区（默认每日自动执行）")
+    public ResponseEntity<Map<String, List<String>>> ensureFuturePartitions() {
+        partitionMaintenanceService.ensureFuturePartitions();
+        return ResponseEntity.ok(partitionMaintenanceService.listPartitions());
+    }
+
+    /**
+     * 分离历史分区
+     *
+     * @param before 截止月份（不含），如 2024-01
+     * @return 已分离的分区名
+     */
+    @PostMapping("/detach")
+    @Operation(summary = "分离历史分区", description = "分离早于指定月份的分区，分离后的表保留为独立表供归档")
+    public ResponseEntity<List<String>> detachPartitions(
+            @Parameter(description = "截止月份（不含）", example = "2024-01")
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth before) {
+        return ResponseEntity.ok(partitionMaintenanceService.detachPartitionsBefore(before));
+    }
+}
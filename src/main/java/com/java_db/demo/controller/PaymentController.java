@@ -1,7 +1,12 @@
 package com.java_db.demo.controller;
 
 import com.java_db.demo.entity.Payment;
+import com.java_db.demo.service.IdempotencyService;
+import com.java_db.demo.service.PaymentIngestService;
 import com.java_db.demo.service.PaymentService;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import com.java_db.demo.util.Money;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +20,7 @@ import java.util.List;
 /**
  * 支付控制器
  * 处理支付记录查询、创建等请求
+ * 支付记录与订单在同一分片，创建支付（含幂等记录）在订单所在分片执行
  */
 @RestController
 @RequestMapping("/api/payments")
@@ -23,19 +29,24 @@ import java.util.List;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentIngestService paymentIngestService;
     
     /**
      * 创建押金支付记录
      * 
      * @param orderId 订单 ID
+     * @param idempotencyKey 幂等键（可选）
      * @return 押金支付记录
      */
     @PostMapping("/deposit")
-    @Operation(summary = "创建押金支付", description = "为订单创建押金支付记录（日租金×3）")
-    public ResponseEntity<Payment> createDepositPayment(
-            @Parameter(description = "订单ID") @RequestParam Integer orderId) {
-        Payment payment = paymentService.createDepositPayment(orderId);
-        return ResponseEntity.ok(payment);
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
+    @Operation(summary = "创建押金支付", description = "为订单创建押金支付记录（日租金×3）；支持 Idempotency-Key 幂等重试")
+    public ResponseEntity<byte[]> createDepositPayment(
+            @Parameter(description = "订单ID") @RequestParam Integer orderId,
+            @Parameter(description = "幂等键（可选），重试时携带相同的值") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/payments/deposit", List.of(orderId),
+                () -> paymentIngestService.createDepositPayment(orderId));
     }
     
     /**
@@ -43,15 +54,18 @@ public class PaymentController {
      * 
      * @param orderId 订单 ID
      * @param amount 尾款金额
+     * @param idempotencyKey 幂等键（可选）
      * @return 尾款支付记录
      */
     @PostMapping("/final")
-    @Operation(summary = "创建尾款支付", description = "为订单创建尾款支付记录")
-    public ResponseEntity<Payment> createFinalPayment(
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
+    @Operation(summary = "创建尾款支付", description = "为订单创建尾款支付记录；支持 Idempotency-Key 幂等重试")
+    public ResponseEntity<byte[]> createFinalPayment(
             @Parameter(description = "订单ID") @RequestParam Integer orderId,
-            @Parameter(description = "尾款金额") @RequestParam BigDecimal amount) {
-        Payment payment = paymentService.createFinalPayment(orderId, amount);
-        return ResponseEntity.ok(payment);
+            @Parameter(description = "尾款金额") @RequestParam BigDecimal amount,
+            @Parameter(description = "幂等键（可选），重试时携带相同的值") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/payments/final", List.of(orderId, Money.of(amount)),
+                () -> paymentIngestService.createFinalPayment(orderId, Money.of(amount)));
     }
     
     /**
@@ -59,15 +73,18 @@ public class PaymentController {
      * 
      * @param orderId 订单 ID
      * @param amount 罚金金额
+     * @param idempotencyKey 幂等键（可选）
      * @return 罚金支付记录
      */
     @PostMapping("/penalty")
-    @Operation(summary = "创建罚金支付", description = "为订单创建罚金支付记录（逾期或车损）")
-    public ResponseEntity<Payment> createPenaltyPayment(
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
+    @Operation(summary = "创建罚金支付", description = "为订单创建罚金支付记录（逾期或车损）；支持 Idempotency-Key 幂等重试")
+    public ResponseEntity<byte[]> createPenaltyPayment(
             @Parameter(description = "订单ID") @RequestParam Integer orderId,
-            @Parameter(description = "罚金金额") @RequestParam BigDecimal amount) {
-        Payment payment = paymentService.createPenaltyPayment(orderId, amount);
-        return ResponseEntity.ok(payment);
+            @Parameter(description = "罚金金额") @RequestParam BigDecimal amount,
+            @Parameter(description = "幂等键（可选），重试时携带相同的值") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/payments/penalty", List.of(orderId, Money.of(amount)),
+                () -> paymentIngestService.createPenaltyPayment(orderId, Money.of(amount)));
     }
     
     /**
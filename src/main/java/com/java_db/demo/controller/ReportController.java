@@ -1,15 +1,20 @@
 package com.java_db.demo.controller;
 
 import com.java_db.demo.dto.*;
+import com.java_db.demo.service.ConditionalResponseService;
+import com.java_db.demo.service.ReportQueryGuard;
 import com.java_db.demo.service.ReportService;
+import com.java_db.demo.service.ResourceVersionService.Resource;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 // import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,6 +23,11 @@ import java.util.List;
 /**
  * 报表控制器
  * 提供数据分析和报表相关的API接口（仅限管理员访问）
+ * 
+ * 所有报表支持 ETag 条件请求：订单、支付、车辆、门店、维修数据均未变化时返回 304，
+ * 同一参数的报表在数据未变化期间只计算、序列化一次
+ * 
+ * 报表在查询时限内异步执行（report.query.timeout.*），超时返回 503，客户端断开时取消数据库查询
  */
 @RestController
 @RequestMapping("/api/reports")
@@ -27,24 +37,33 @@ import java.util.List;
 public class ReportController {
     
     private final ReportService reportService;
+    private final ConditionalResponseService conditionalResponseService;
+    private final ReportQueryGuard reportQueryGuard;
+    
+    /**
+     * 报表依赖的资源集合（任一变化即视为报表可能变化）
+     */
+    private static final Resource[] REPORT_RESOURCES = Resource.values();
     
     /**
      * 获取综合仪表盘数据
      * 
      * @param startDate 开始日期时间
      * @param endDate 结束日期时间
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 仪表盘综合数据
      */
     @GetMapping("/dashboard")
     @Operation(summary = "获取综合仪表盘", description = "获取指定时间范围内的综合运营数据，包括收入、订单、车辆等关键指标")
-    public ResponseEntity<DashboardDTO> getDashboard(
+    public WebAsyncTask<ResponseEntity<byte[]>> getDashboard(
             @Parameter(description = "开始日期时间", example = "2025-01-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期时间", example = "2025-01-31T23:59:59")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        DashboardDTO dashboard = reportService.getDashboard(startDate, endDate);
-        return ResponseEntity.ok(dashboard);
+        return reportQueryGuard.execute("dashboard", () -> conditionalResponseService.respond(ifNoneMatch, "reports/dashboard?" + startDate + "&" + endDate,
+                () -> reportService.getDashboard(startDate, endDate), REPORT_RESOURCES));
     }
     
     /**
@@ -53,20 +72,22 @@ public class ReportController {
      * @param period 统计周期（DAY/WEEK/MONTH/YEAR）
      * @param startDate 开始日期时间
      * @param endDate 结束日期时间
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 收入统计列表
      */
     @GetMapping("/revenue")
     @Operation(summary = "收入统计报表", description = "按时间周期统计收入情况，包括押金、尾款、罚金等明细")
-    public ResponseEntity<List<RevenueStatisticsDTO>> getRevenueStatistics(
+    public WebAsyncTask<ResponseEntity<byte[]>> getRevenueStatistics(
             @Parameter(description = "统计周期", example = "MONTH")
             @RequestParam ReportPeriod period,
             @Parameter(description = "开始日期时间", example = "2025-01-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期时间", example = "2025-12-31T23:59:59")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        List<RevenueStatisticsDTO> statistics = reportService.getRevenueStatistics(period, startDate, endDate);
-        return ResponseEntity.ok(statistics);
+        return reportQueryGuard.execute("revenue", () -> conditionalResponseService.respond(ifNoneMatch, "reports/revenue?" + period + "&" + startDate + "&" + endDate,
+                () -> reportService.getRevenueStatistics(period, startDate, endDate), REPORT_RESOURCES));
     }
     
     /**
@@ -74,18 +95,20 @@ public class ReportController {
      * 
      * @param startDate 开始日期时间
      * @param endDate 结束日期时间
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 车辆利用率列表
      */
     @GetMapping("/vehicle-utilization")
     @Operation(summary = "车辆利用率报表", description = "统计各车辆的租赁次数、租赁天数、利用率和收入情况")
-    public ResponseEntity<List<VehicleUtilizationDTO>> getVehicleUtilization(
+    public WebAsyncTask<ResponseEntity<byte[]>> getVehicleUtilization(
             @Parameter(description = "开始日期时间", example = "2025-01-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期时间", example = "2025-12-31T23:59:59")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        List<VehicleUtilizationDTO> utilization = reportService.getVehicleUtilization(startDate, endDate);
-        return ResponseEntity.ok(utilization);
+        return reportQueryGuard.execute("vehicle-utilization", () -> conditionalResponseService.respond(ifNoneMatch, "reports/vehicle-utilization?" + startDate + "&" + endDate,
+                () -> reportService.getVehicleUtilization(startDate, endDate), REPORT_RESOURCES));
     }
     
     /**
@@ -93,18 +116,20 @@ public class ReportController {
      * 
      * @param startDate 开始日期
      * @param endDate 结束日期
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 维修成本统计列表
      */
     @GetMapping("/maintenance-cost")
     @Operation(summary = "维修成本分析", description = "统计各车辆的维修次数、维修成本和净利润（收入-成本）")
-    public ResponseEntity<List<MaintenanceCostDTO>> getMaintenanceCost(
+    public WebAsyncTask<ResponseEntity<byte[]>> getMaintenanceCost(
             @Parameter(description = "开始日期", example = "2025-01-01")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @Parameter(description = "结束日期", example = "2025-12-31")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        List<MaintenanceCostDTO> costs = reportService.getMaintenanceCost(startDate, endDate);
-        return ResponseEntity.ok(costs);
+        return reportQueryGuard.execute("maintenance-cost", () -> conditionalResponseService.respond(ifNoneMatch, "reports/maintenance-cost?" + startDate + "&" + endDate,
+                () -> reportService.getMaintenanceCost(startDate, endDate), REPORT_RESOURCES));
     }
     
     /**
@@ -113,20 +138,22 @@ public class ReportController {
      * @param period 统计周期（DAY/WEEK/MONTH/YEAR）
      * @param startDate 开始日期时间
      * @param endDate 结束日期时间
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 订单趋势列表
      */
     @GetMapping("/order-trend")
     @Operation(summary = "订单趋势分析", description = "按时间周期统计订单数量、状态分布、完成率和取消率")
-    public ResponseEntity<List<OrderTrendDTO>> getOrderTrend(
+    public WebAsyncTask<ResponseEntity<byte[]>> getOrderTrend(
             @Parameter(description = "统计周期", example = "MONTH")
             @RequestParam ReportPeriod period,
             @Parameter(description = "开始日期时间", example = "2025-01-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期时间", example = "2025-12-31T23:59:59")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        List<OrderTrendDTO> trend = reportService.getOrderTrend(period, startDate, endDate);
-        return ResponseEntity.ok(trend);
+        return reportQueryGuard.execute("order-trend", () -> conditionalResponseService.respond(ifNoneMatch, "reports/order-trend?" + period + "&" + startDate + "&" + endDate,
+                () -> reportService.getOrderTrend(period, startDate, endDate), REPORT_RESOURCES));
     }
     
     /**
@@ -134,17 +161,19 @@ public class ReportController {
      * 
      * @param startDate 开始日期时间
      * @param endDate 结束日期时间
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 门店收入统计列表
      */
     @GetMapping("/store-revenue")
     @Operation(summary = "门店收入统计", description = "统计各门店的车辆数、订单数、收入、成本和净利润")
-    public ResponseEntity<List<StoreRevenueDTO>> getStoreRevenue(
+    public WebAsyncTask<ResponseEntity<byte[]>> getStoreRevenue(
             @Parameter(description = "开始日期时间", example = "2025-01-01T00:00:00")
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "结束日期时间", example = "2025-12-31T23:59:59")
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        List<StoreRevenueDTO> revenue = reportService.getStoreRevenue(startDate, endDate);
-        return ResponseEntity.ok(revenue);
+        return reportQueryGuard.execute("store-revenue", () -> conditionalResponseService.respond(ifNoneMatch, "reports/store-revenue?" + startDate + "&" + endDate,
+                () -> reportService.getStoreRevenue(startDate, endDate), REPORT_RESOURCES));
     }
 }
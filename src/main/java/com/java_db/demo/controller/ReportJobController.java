@@ -0,0 +1,69 @@
+package com.java_db.demo.controller;
+
+import com.java_db.demo.dto.ReportJobDTO;
+import com.java_db.demo.dto.ReportJobRequest;
+import com.java_db.demo.service.ReportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 异步报表任务控制器
+ * 耗时报表改为提交任务 + 轮询状态 + 获取结果，避免前端请求超时
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+@RequiredArgsConstructor
+@Tag(name = "报表任务接口", description = "异步生成报表、查询任务状态、获取报表结果")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    /**
+     * 提交报表任务
+     *
+     * @param request 任务参数
+     * @return 任务状态（包含任务 ID）
+     */
+    @PostMapping
+    @Operation(summary = "提交报表任务", description = "异步生成报表，相同参数的进行中任务会直接复用")
+    public ResponseEntity<ReportJobDTO> submitJob(@Valid @RequestBody ReportJobRequest request) {
+        ReportJobDTO job = reportJobService.submit(request);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param id 任务 ID
+     * @return 任务状态和进度
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "查询任务状态", description = "查询报表任务的状态（0:排队中, 1:执行中, 2:已完成, 3:失败）和进度")
+    public ResponseEntity<ReportJobDTO> getJob(
+            @Parameter(description = "任务ID") @PathVariable Integer id) {
+        ReportJobDTO job = reportJobService.getJob(id);
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * 获取任务结果
+     *
+     * @param id 任务 ID
+     * @return 报表结果 JSON（与同步报表接口格式一致）
+     */
+    @GetMapping(value = "/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "获取报表结果", description = "任务完成后获取持久化的报表结果，格式与同步报表接口一致")
+    public ResponseEntity<String> getJobResult(
+            @Parameter(description = "任务ID") @PathVariable Integer id) {
+        String result = reportJobService.getResult(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(result);
+    }
+}
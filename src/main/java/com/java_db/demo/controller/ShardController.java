@@ -0,0 +1,63 @@
+package com.java_db.demo.controller;
+
+import com.java_db.demo.dto.ShardMigrationResultDTO;
+import com.java_db.demo.service.ReshardingService;
+import com.java_db.demo.sharding.ShardDirectory.Entry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 分片管理控制器
+ * 查看区域与分片的对应关系，迁移区域数据（管理员功能）
+ */
+@RestController
+@RequestMapping("/api/shards")
+@RequiredArgsConstructor
+@Tag(name = "分片管理接口", description = "分片目录查询、区域迁移与参考数据同步")
+public class ShardController {
+
+    private final ReshardingService reshardingService;
+
+    /**
+     * 查询分片目录
+     *
+     * @return 区域 -> 分片
+     */
+    @GetMapping
+    @Operation(summary = "查询分片目录", description = "查询每个区域所在的分片及状态（ACTIVE / MIGRATING）")
+    public ResponseEntity<List<Entry>> getDirectory() {
+        return ResponseEntity.ok(reshardingService.getDirectory());
+    }
+
+    /**
+     * 迁移区域到目标分片
+     *
+     * @param region 区域
+     * @param targetShard 目标分片
+     * @return 迁移结果
+     */
+    @PostMapping("/regions/{region}/migrate")
+    @Operation(summary = "迁移区域", description = "把区域的订单、支付、维修记录搬到目标分片；迁移期间该区域拒绝写操作，原分片只读")
+    public ResponseEntity<ShardMigrationResultDTO> migrateRegion(
+            @Parameter(description = "区域", example = "上海") @PathVariable String region,
+            @Parameter(description = "目标分片") @RequestParam String targetShard) {
+        return ResponseEntity.ok(reshardingService.migrateRegion(region, targetShard));
+    }
+
+    /**
+     * 立即全量同步参考数据
+     *
+     * @return 复制的行数
+     */
+    @PostMapping("/reference-sync")
+    @Operation(summary = "同步参考数据", description = "把门店、分类、用户、车辆全量同步到所有分片（默认启动时全量、之后定时增量同步）")
+    public ResponseEntity<Integer> synchronizeReferenceData() {
+        return ResponseEntity.ok(reshardingService.synchronizeReferenceData());
+    }
+}
@@ -2,12 +2,15 @@ package com.java_db.demo.controller;
 
 import com.java_db.demo.dto.StoreDTO;
 import com.java_db.demo.entity.Store;
+import com.java_db.demo.service.ConditionalResponseService;
+import com.java_db.demo.service.ResourceVersionService.Resource;
 import com.java_db.demo.service.StoreService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,18 +27,21 @@ import java.util.List;
 public class StoreController {
     
     private final StoreService storeService;
+    private final ConditionalResponseService conditionalResponseService;
     
     /**
      * 查询所有门店
-     * 用于前端下拉框选择
+     * 用于前端下拉框选择，支持 ETag 条件请求（门店未变化时返回 304）
      * 
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 所有门店列表
      */
     @GetMapping
-    @Operation(summary = "查询所有门店", description = "获取所有门店列表，供用户选择取车/还车门店")
-    public ResponseEntity<List<Store>> getAllStores() {
-        List<Store> stores = storeService.getAllStores();
-        return ResponseEntity.ok(stores);
+    @Operation(summary = "查询所有门店", description = "获取所有门店列表，供用户选择取车/还车门店；支持 If-None-Match 条件请求")
+    public ResponseEntity<byte[]> getAllStores(
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponseService.respond(ifNoneMatch, "stores",
+                storeService::getAllStores, Resource.STORES);
     }
     
     /**
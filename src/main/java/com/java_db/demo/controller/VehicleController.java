@@ -1,7 +1,19 @@
 package com.java_db.demo.controller;
 
+import com.java_db.demo.dto.AvailabilityMatrixDTO;
+import com.java_db.demo.dto.FleetRebalancePlanDTO;
+import com.java_db.demo.dto.NearbyStoreVehiclesDTO;
+import com.java_db.demo.dto.VehicleCalendarDTO;
 import com.java_db.demo.dto.VehicleDTO;
+import com.java_db.demo.dto.VehicleImportResultDTO;
 import com.java_db.demo.entity.Vehicle;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.service.AvailabilityMatrixService;
+import com.java_db.demo.service.ConditionalResponseService;
+import com.java_db.demo.service.FleetRebalanceService;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.service.VehicleCalendarService;
+import com.java_db.demo.service.VehicleImportService;
 import com.java_db.demo.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,9 +21,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,6 +43,11 @@ import java.util.List;
 public class VehicleController {
     
     private final VehicleService vehicleService;
+    private final VehicleImportService vehicleImportService;
+    private final AvailabilityMatrixService availabilityMatrixService;
+    private final VehicleCalendarService vehicleCalendarService;
+    private final ConditionalResponseService conditionalResponseService;
+    private final FleetRebalanceService fleetRebalanceService;
     
     /**
      * 搜索可用车辆（用户端核心功能）
@@ -48,6 +70,72 @@ public class VehicleController {
         return ResponseEntity.ok(vehicles);
     }
     
+    /**
+     * 搜索附近门店的可用车辆
+     * GET /api/vehicles/nearby?latitude=39.9&longitude=116.4&k=5&start=2025-01-01T10:00:00&end=2025-01-03T10:00:00
+     * 
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param k 门店数量
+     * @param start 租赁开始时间
+     * @param end 预计还车时间
+     * @return 按距离排序的门店及其可用车辆
+     */
+    @GetMapping("/nearby")
+    @Operation(summary = "搜索附近可用车辆", description = "查询距离指定坐标最近的 K 个门店在特定时间段内可租赁的车辆，按距离排序")
+    public ResponseEntity<List<NearbyStoreVehiclesDTO>> searchNearbyAvailableVehicles(
+            @Parameter(description = "纬度", example = "39.9087") @RequestParam double latitude,
+            @Parameter(description = "经度", example = "116.3975") @RequestParam double longitude,
+            @Parameter(description = "门店数量（1 ~ 20）") @RequestParam(defaultValue = "5") int k,
+            @Parameter(description = "租赁开始时间", example = "2025-01-01T10:00:00") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "预计还车时间", example = "2025-01-03T10:00:00") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        
+        return ResponseEntity.ok(vehicleService.searchNearbyAvailableVehicles(latitude, longitude, k, start, end));
+    }
+    
+    /**
+     * 查询门店 × 分类可用车辆矩阵（首页使用）
+     * GET /api/vehicles/availability-matrix?start=2025-01-01T10:00:00&end=2025-01-03T10:00:00
+     * 
+     * @param start 租赁开始时间
+     * @param end 预计还车时间
+     * @return 各门店各分类的可用车辆数
+     */
+    @GetMapping("/availability-matrix")
+    @Operation(summary = "查询可用车辆矩阵", description = "一次查询各门店、各分类在特定时间段内的可用车辆数，结果短期缓存")
+    public ResponseEntity<AvailabilityMatrixDTO> getAvailabilityMatrix(
+            @Parameter(description = "租赁开始时间", example = "2025-01-01T10:00:00") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "预计还车时间", example = "2025-01-03T10:00:00") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        
+        return ResponseEntity.ok(availabilityMatrixService.getAvailabilityMatrix(start, end));
+    }
+    
+    /**
+     * 计算门店间车辆调拨方案（管理员功能）
+     * 
+     * @return 调拨方案（不执行）
+     */
+    @GetMapping("/rebalance-plan")
+    @Operation(summary = "计算调拨方案", description = "按各门店各分类的空闲车辆、即将还车、已有预订和历史需求，计算总调拨距离最短的门店间调拨方案")
+    public ResponseEntity<FleetRebalancePlanDTO> getRebalancePlan() {
+        return ResponseEntity.ok(fleetRebalanceService.plan());
+    }
+    
+    /**
+     * 计算并执行门店间车辆调拨（管理员功能）
+     * 
+     * @return 实际执行的调拨方案
+     */
+    @PostMapping("/rebalance-plan/apply")
+    @Operation(summary = "执行调拨方案", description = "重新计算调拨方案，并一次批量将方案中的车辆标记为调拨中、门店改为目的门店")
+    public ResponseEntity<FleetRebalancePlanDTO> applyRebalancePlan() {
+        return ResponseEntity.ok(fleetRebalanceService.apply());
+    }
+    
     /**
      * 查询车辆详情
      * 
@@ -62,6 +150,22 @@ public class VehicleController {
         return ResponseEntity.ok(vehicle);
     }
     
+    /**
+     * 查询车辆可用日历
+     * GET /api/vehicles/{id}/calendar?days=30
+     * 
+     * @param id 车辆 ID
+     * @param days 天数（从今天开始）
+     * @return 每天的状态 (0:空闲, 1:已预订, 2:维修)
+     */
+    @GetMapping("/{id}/calendar")
+    @Operation(summary = "查询车辆可用日历", description = "查询车辆从今天开始若干天内每天的空闲/已预订/维修状态")
+    public ResponseEntity<VehicleCalendarDTO> getVehicleCalendar(
+            @Parameter(description = "车辆ID") @PathVariable Integer id,
+            @Parameter(description = "天数（1 ~ 90）") @RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(vehicleCalendarService.getCalendar(id, days));
+    }
+    
     /**
      * 添加车辆（管理员功能）
      * 
@@ -75,6 +179,25 @@ public class VehicleController {
         return ResponseEntity.ok(vehicle);
     }
     
+    /**
+     * 批量导入车辆（管理员功能）
+     * CSV 格式：plate_number,model,category_id,store_id,daily_rate（首行为表头）
+     * 
+     * @param file CSV 文件
+     * @return 导入结果（含逐行错误明细）
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "批量导入车辆", description = "管理员通过 CSV 批量导入车辆，校验失败的行会在结果中逐行返回")
+    public ResponseEntity<VehicleImportResultDTO> importVehicles(
+            @Parameter(description = "CSV 文件") @RequestParam("file") MultipartFile file) {
+        try (InputStream csv = file.getInputStream()) {
+            VehicleImportResultDTO result = vehicleImportService.importVehicles(csv);
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            throw new BusinessException("读取导入文件失败", e);
+        }
+    }
+    
     /**
      * 更新车辆状态（管理员功能）
      * 
@@ -107,13 +230,16 @@ public class VehicleController {
     
     /**
      * 查询所有车辆（管理员功能）
+     * 车辆未变化时返回 304
      * 
+     * @param ifNoneMatch 请求头 If-None-Match
      * @return 所有车辆列表
      */
     @GetMapping("/all")
-    @Operation(summary = "查询所有车辆", description = "管理员查询系统中所有车辆")
-    public ResponseEntity<List<Vehicle>> getAllVehicles() {
-        List<Vehicle> vehicles = vehicleService.getAllVehicles();
-        return ResponseEntity.ok(vehicles);
+    @Operation(summary = "查询所有车辆", description = "管理员查询系统中所有车辆；支持 If-None-Match 条件请求")
+    public ResponseEntity<byte[]> getAllVehicles(
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalResponseService.respond(ifNoneMatch, "vehicles",
+                vehicleService::getAllVehicles, Resource.VEHICLES);
     }
 }
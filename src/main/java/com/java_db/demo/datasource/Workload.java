@@ -0,0 +1,21 @@
+package com.java_db.demo.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定方法（或类中所有方法）使用的连接池
+ * 方法上的注解优先于类上的注解；未标注时按 @Transactional 属性选择：只读事务使用 CUSTOMER_READ，读写事务使用 BOOKING
+ *
+ * 只在最外层调用生效：连接在事务开始时获取，已处于某个负载中的嵌套调用沿用外层连接池
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadType value();
+}
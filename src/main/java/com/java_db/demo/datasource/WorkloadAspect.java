@@ -0,0 +1,62 @@
+package com.java_db.demo.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+
+/**
+ * 按 @Workload / @Transactional 为最外层调用设置连接池
+ * 优先级最高，在事务拦截器（开启事务并获取连接）之前执行
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadAspect {
+
+    @Around("within(com.java_db.demo..*) && (@within(com.java_db.demo.datasource.Workload) "
+            + "|| @annotation(com.java_db.demo.datasource.Workload) "
+            + "|| @within(org.springframework.transaction.annotation.Transactional) "
+            + "|| @annotation(org.springframework.transaction.annotation.Transactional))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (WorkloadRoutingDataSource.current() != null) {
+            return joinPoint.proceed();
+        }
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(), targetClass);
+        WorkloadType previous = WorkloadRoutingDataSource.enter(resolve(method, targetClass));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            WorkloadRoutingDataSource.restore(previous);
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 方法 @Workload > 类 @Workload > @Transactional(readOnly) > 默认连接池
+     */
+    private WorkloadType resolve(Method method, Class<?> targetClass) {
+        Workload workload = AnnotatedElementUtils.findMergedAnnotation(method, Workload.class);
+        if (workload == null) {
+            workload = AnnotatedElementUtils.findMergedAnnotation(targetClass, Workload.class);
+        }
+        if (workload != null) {
+            return workload.value();
+        }
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+        if (transactional == null) {
+            transactional = AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class);
+        }
+        return transactional != null && !transactional.readOnly() ? WorkloadType.BOOKING : WorkloadType.CUSTOMER_READ;
+    }
+}
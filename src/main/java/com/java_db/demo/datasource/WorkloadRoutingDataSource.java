@@ -0,0 +1,103 @@
+package com.java_db.demo.datasource;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 按业务负载路由的数据源（舱壁隔离）
+ * 获取连接时按当前线程的负载类型选择连接池，报表、后台任务占满自己的连接池时不影响下单
+ *
+ * 当前线程的负载类型由 WorkloadAspect 根据 @Workload / @Transactional 设置，
+ * 也可以用 {@link #callWith} 手动指定（如自建线程）；线程池任务通过 {@link #taskDecorator()} 继承提交线程的负载类型
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 当前线程的负载类型，未指定时为 null（使用默认连接池）
+     */
+    public static WorkloadType current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在指定负载下执行操作，结束后恢复之前的负载类型
+     */
+    public static <T> T callWith(WorkloadType workload, Callable<T> action) throws Exception {
+        WorkloadType previous = enter(workload);
+        try {
+            return action.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在指定负载下执行操作（自建线程的入口等）
+     */
+    public static void runWith(WorkloadType workload, Runnable action) {
+        WorkloadType previous = enter(workload);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 线程池任务装饰器：任务在提交线程的负载类型下执行
+     */
+    public static TaskDecorator taskDecorator() {
+        return task -> {
+            WorkloadType workload = CURRENT.get();
+            if (workload == null) {
+                return task;
+            }
+            return () -> {
+                WorkloadType previous = enter(workload);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        };
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 关闭所有连接池
+     */
+    @Override
+    public void close() throws Exception {
+        for (Object dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * 设置当前线程的负载类型，返回之前的负载类型（用于 {@link #restore} 恢复）
+     */
+    static WorkloadType enter(WorkloadType workload) {
+        WorkloadType previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    static void restore(WorkloadType previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.java_db.demo.datasource;
+
+/**
+ * 业务负载类型，每种负载使用独立的连接池（配置前缀 workload.pool.{key}）
+ */
+public enum WorkloadType {
+
+    /**
+     * 下单、支付、登录注册等用户关键路径
+     */
+    BOOKING("booking"),
+
+    /**
+     * 用户查询（车辆搜索、门店、订单查询等），未指定负载时的默认连接池
+     */
+    CUSTOMER_READ("customer-read"),
+
+    /**
+     * 报表统计（全表扫描、聚合）
+     */
+    REPORTING("reporting"),
+
+    /**
+     * 定时任务、批量导入等后台任务
+     */
+    BACKGROUND("background");
+
+    private final String key;
+
+    WorkloadType(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 配置键，同时用作连接池名称后缀
+     */
+    public String getKey() {
+        return key;
+    }
+}
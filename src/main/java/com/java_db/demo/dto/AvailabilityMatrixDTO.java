@@ -0,0 +1,27 @@
+package com.java_db.demo.dto;
+
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Store;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 门店 × 分类可用车辆矩阵DTO
+ * counts.get(i).get(j) 为 stores[i] 中 categories[j] 的可用车辆数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityMatrixDTO {
+    private LocalDateTime startTime;          // 租赁开始时间
+    private LocalDateTime endTime;            // 预计还车时间
+    private List<Store> stores;               // 行：门店
+    private List<Category> categories;        // 列：分类
+    private List<List<Integer>> counts;       // 可用车辆数矩阵
+    private Integer totalAvailable;           // 可用车辆总数
+    private LocalDateTime generatedAt;        // 计算时间（结果可能来自短期缓存）
+}
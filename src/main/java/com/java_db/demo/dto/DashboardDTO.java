@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,9 +15,9 @@ import java.util.Map;
 @AllArgsConstructor
 public class DashboardDTO {
     // 关键指标
-    private Double totalRevenue;              // 总收入
-    private Double totalMaintenanceCost;      // 总维修成本
-    private Double netProfit;                 // 净利润
+    private Money totalRevenue;               // 总收入
+    private Money totalMaintenanceCost;       // 总维修成本
+    private Money netProfit;                  // 净利润
     private Integer totalOrders;              // 总订单数
     private Integer completedOrders;          // 完成订单数
     private Double averageUtilizationRate;    // 平均车辆利用率
@@ -32,7 +33,7 @@ public class DashboardDTO {
     private Map<String, Integer> vehicleByCategory;    // 按分类统计车辆
     private Map<String, Integer> vehicleByStore;       // 按门店统计车辆
     private Map<String, Integer> orderByStatus;        // 按状态统计订单
-    private Map<String, Double> revenueByStore;        // 按门店统计收入
+    private Map<String, Money> revenueByStore;         // 按门店统计收入
     
     // 趋势数据（最近7天）
     private Double revenueGrowthRate;         // 收入增长率
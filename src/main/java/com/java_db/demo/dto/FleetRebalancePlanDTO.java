@@ -0,0 +1,59 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 车辆调拨方案 DTO
+ * 各分类独立求解最小费用流：空闲车辆从富余门店调往缺车门店，满足尽可能多的缺口且总调拨距离最短
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetRebalancePlanDTO {
+    private LocalDateTime generatedAt;     // 规划时间
+    private Integer horizonHours;          // 规划时段（小时）
+    private Integer lookbackDays;          // 历史需求统计天数
+    private Boolean applied;               // 是否已执行调拨
+    private Integer plannedVehicles;       // 方案中的调拨车辆数
+    private Integer appliedVehicles;       // 实际标记为调拨中的车辆数（执行时车辆已被租出则跳过）
+    private Integer unmetDemand;           // 调拨后仍无法满足的缺口（车辆数）
+    private Double totalDistanceKm;        // 总调拨距离（千米）
+    private List<CategoryPlan> categories; // 各分类的供需与调拨明细
+    private Long elapsedMs;                // 耗时（毫秒）
+
+    /**
+     * 单个分类的调拨方案
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryPlan {
+        private Integer categoryId;
+        private String categoryName;
+        private Integer surplus;           // 各门店富余车辆合计
+        private Integer deficit;           // 各门店缺口合计
+        private Integer moved;             // 调拨车辆数
+        private Double distanceKm;         // 调拨距离合计（千米）
+        private List<Transfer> transfers;  // 调拨明细
+    }
+
+    /**
+     * 一条门店间调拨
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Transfer {
+        private Integer fromStoreId;
+        private String fromStoreName;
+        private Integer toStoreId;
+        private String toStoreName;
+        private Double distanceKm;         // 门店间球面距离（千米）
+        private List<Integer> vehicleIds;  // 调拨车辆
+    }
+}
@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,7 @@ public class MaintenanceCostDTO {
     private Integer repairCount;           // 维修类型次数
     private Integer serviceCount;          // 保养类型次数
     private Integer inspectionCount;       // 年检类型次数
-    private Double totalCost;              // 总维修成本
-    private Double averageCost;            // 平均维修成本
-    private Double revenueMinusCost;       // 净收入（收入-维修成本）
+    private Money totalCost;               // 总维修成本
+    private Money averageCost;             // 平均维修成本
+    private Money revenueMinusCost;        // 净收入（收入-维修成本）
 }
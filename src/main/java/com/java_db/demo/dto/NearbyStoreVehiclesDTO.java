@@ -0,0 +1,26 @@
+package com.java_db.demo.dto;
+
+import com.java_db.demo.entity.Vehicle;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 附近门店可用车辆DTO
+ * 一个门店及其在查询时间段内的可用车辆，结果按距离从近到远排列
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyStoreVehiclesDTO {
+    private Integer storeId;
+    private String storeName;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;             // 与查询坐标的球面距离（千米）
+    private Integer availableCount;        // 可用车辆数
+    private List<Vehicle> vehicles;        // 可用车辆
+}
@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,7 +18,7 @@ public class OrderTrendDTO {
     private Integer activeOrders;          // 使用中
     private Integer completedOrders;       // 已完成
     private Integer cancelledOrders;       // 已取消
-    private Double totalAmount;            // 总金额
+    private Money totalAmount;             // 总金额
     private Double completionRate;         // 完成率（%）
     private Double cancellationRate;       // 取消率（%）
 }
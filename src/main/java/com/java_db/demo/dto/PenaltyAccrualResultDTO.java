@@ -0,0 +1,21 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 罚金累计任务执行结果 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PenaltyAccrualResultDTO {
+    private LocalDateTime asOf;            // 本轮计算时间
+    private Boolean resumed;               // 是否从上次中断的检查点继续
+    private Integer partitions;            // 车辆 ID 区间数
+    private Integer processedOrders;       // 本次执行更新的订单数
+    private Long elapsedMs;                // 耗时（毫秒）
+}
@@ -0,0 +1,25 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步报表任务状态 DTO
+ * 轮询状态时返回，不包含报表结果本身
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private Integer jobId;
+    private String reportType;
+    private Integer status;                // 0:排队中, 1:执行中, 2:已完成, 3:失败
+    private Integer progress;              // 进度（0-100）
+    private String errorMessage;           // 失败原因
+    private LocalDateTime createdAt;       // 提交时间
+    private LocalDateTime startedAt;       // 开始执行时间
+    private LocalDateTime finishedAt;      // 完成时间
+}
@@ -0,0 +1,40 @@
+package com.java_db.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步报表任务提交 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequest {
+
+    @NotNull(message = "报表类型不能为空")
+    private ReportType reportType;
+
+    /**
+     * 统计周期，仅 REVENUE / ORDER_TREND 需要
+     */
+    private ReportPeriod period;
+
+    @NotNull(message = "开始时间不能为空")
+    private LocalDateTime startDate;
+
+    @NotNull(message = "结束时间不能为空")
+    private LocalDateTime endDate;
+
+    /**
+     * 任务去重键：相同类型、周期和时间范围的请求视为同一任务
+     *
+     * @return 去重键
+     */
+    public String toJobKey() {
+        return reportType + "|" + period + "|" + startDate + "|" + endDate;
+    }
+}
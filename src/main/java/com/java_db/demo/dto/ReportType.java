@@ -0,0 +1,24 @@
+package com.java_db.demo.dto;
+
+/**
+ * 报表类型枚举
+ * 用于异步报表任务指定要生成的报表
+ */
+public enum ReportType {
+    DASHBOARD("综合仪表盘"),
+    REVENUE("收入统计"),
+    VEHICLE_UTILIZATION("车辆利用率"),
+    MAINTENANCE_COST("维修成本分析"),
+    ORDER_TREND("订单趋势"),
+    STORE_REVENUE("门店收入统计");
+
+    private final String displayName;
+
+    ReportType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
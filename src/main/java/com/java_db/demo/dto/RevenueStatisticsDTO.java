@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,12 +13,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class RevenueStatisticsDTO {
     private String period;                 // 时间段（如：2025-01-01）
-    private Double totalRevenue;           // 总收入
-    private Double depositAmount;          // 押金总额
-    private Double finalPaymentAmount;     // 尾款总额
-    private Double penaltyAmount;          // 罚金总额
+    private Money totalRevenue;            // 总收入
+    private Money depositAmount;           // 押金总额
+    private Money finalPaymentAmount;      // 尾款总额
+    private Money penaltyAmount;           // 罚金总额
     private Integer orderCount;            // 订单数量
     private Integer completedOrderCount;   // 完成订单数
     private Integer cancelledOrderCount;   // 取消订单数
-    private Double averageOrderAmount;     // 平均订单金额
+    private Money averageOrderAmount;      // 平均订单金额
 }
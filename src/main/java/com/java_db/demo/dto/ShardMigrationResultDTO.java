@@ -0,0 +1,22 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 区域分片迁移结果 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardMigrationResultDTO {
+    private String region;                 // 区域
+    private String sourceShard;            // 原分片
+    private String targetShard;            // 目标分片
+    private Integer stores;                // 区域内门店数
+    private Integer orders;                // 迁移的订单数
+    private Integer payments;              // 迁移的支付记录数
+    private Integer maintenances;          // 迁移的维修记录数
+    private Long elapsedMs;                // 耗时（毫秒，含等待其他实例刷新目录的时间）
+}
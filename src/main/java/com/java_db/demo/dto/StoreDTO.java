@@ -1,6 +1,9 @@
 package com.java_db.demo.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,4 +22,25 @@ public class StoreDTO {
     private String address;
     
     private String phone;
+    
+    /**
+     * 所属区域（可选，如“北京”，默认 default）
+     * 决定该门店订单所在的分片，已有订单后只能通过分片迁移变更所在分片
+     */
+    @Size(max = 50, message = "区域名称不能超过 50 个字符")
+    private String region;
+    
+    /**
+     * 纬度（可选，与经度同时提供）
+     */
+    @DecimalMin(value = "-90", message = "纬度范围为 -90 ~ 90")
+    @DecimalMax(value = "90", message = "纬度范围为 -90 ~ 90")
+    private Double latitude;
+    
+    /**
+     * 经度（可选，与纬度同时提供）
+     */
+    @DecimalMin(value = "-180", message = "经度范围为 -180 ~ 180")
+    @DecimalMax(value = "180", message = "经度范围为 -180 ~ 180")
+    private Double longitude;
 }
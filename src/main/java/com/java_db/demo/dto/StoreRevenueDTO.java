@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,8 +17,8 @@ public class StoreRevenueDTO {
     private String address;
     private Integer vehicleCount;          // 车辆数量
     private Integer orderCount;            // 订单数量
-    private Double totalRevenue;           // 总收入
-    private Double maintenanceCost;        // 维修成本
-    private Double netProfit;              // 净利润
+    private Money totalRevenue;            // 总收入
+    private Money maintenanceCost;         // 维修成本
+    private Money netProfit;               // 净利润
     private Double averageUtilization;     // 平均利用率
 }
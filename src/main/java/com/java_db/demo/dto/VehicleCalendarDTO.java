@@ -0,0 +1,21 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 车辆可用日历DTO
+ * days.get(i) 为 startDate + i 天的状态 (0:空闲, 1:已预订, 2:维修)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleCalendarDTO {
+    private Integer vehicleId;
+    private LocalDate startDate;              // 第一天（今天）
+    private List<Integer> days;               // 每天的状态
+}
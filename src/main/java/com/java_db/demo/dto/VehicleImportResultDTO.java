@@ -0,0 +1,32 @@
+package com.java_db.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 车辆批量导入结果 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleImportResultDTO {
+    private Integer totalRows;             // CSV 数据行数（不含表头）
+    private Integer importedCount;         // 成功导入数
+    private Integer failedCount;           // 失败数
+    private List<RowError> errors;         // 逐行错误明细
+
+    /**
+     * 单行导入错误
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Integer lineNumber;        // CSV 行号（从 1 开始，含表头）
+        private String plateNumber;        // 车牌号
+        private String message;            // 错误原因
+    }
+}
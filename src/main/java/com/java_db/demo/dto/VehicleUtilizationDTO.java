@@ -1,5 +1,6 @@
 package com.java_db.demo.dto;
 
+import com.java_db.demo.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,6 @@ public class VehicleUtilizationDTO {
     private Integer totalOrders;           // 总订单数
     private Long totalRentalDays;          // 总租赁天数
     private Double utilizationRate;        // 利用率（%）
-    private Double totalRevenue;           // 总收入
+    private Money totalRevenue;            // 总收入
     private Integer status;                // 当前状态
 }
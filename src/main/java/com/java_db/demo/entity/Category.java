@@ -1,19 +1,24 @@
 package com.java_db.demo.entity;
 
+import com.java_db.demo.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * 车辆分类实体类
  * 对应数据库表: categories
+ * 
+ * 分类为参考数据（很少修改），启用二级缓存
  */
 @Entity
 @Table(name = "categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,7 +32,7 @@ public class Category {
     private String name;
 
     @Column(name = "basic_rate", nullable = false, precision = 10, scale = 2)
-    private BigDecimal basicRate;
+    private Money basicRate;
 
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,62 @@
+package com.java_db.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * 幂等键记录实体类
+ * 对应数据库表: idempotency_keys
+ * 
+ * 记录携带 Idempotency-Key 请求的首次响应，保留期内的重复请求直接返回该响应
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /**
+     * 客户端提供的幂等键
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    /**
+     * 接口（如 POST /api/orders）
+     */
+    @Column(name = "operation", nullable = false, length = 100)
+    private String operation;
+
+    /**
+     * 请求参数摘要（SHA-256），同一幂等键用于不同请求时拒绝
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    @JdbcTypeCode(SqlTypes.CHAR)
+    private String requestHash;
+
+    @Column(name = "response_status", nullable = false)
+    private Integer responseStatus;
+
+    /**
+     * 首次响应体（JSON）
+     */
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 过期时间，过期后同一幂等键视为新请求
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,11 +1,11 @@
 package com.java_db.demo.entity;
 
+import com.java_db.demo.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -49,7 +49,7 @@ public class Maintenance {
     private LocalDate endDate;
 
     @Column(name = "cost", precision = 10, scale = 2)
-    private BigDecimal cost;
+    private Money cost;
 
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
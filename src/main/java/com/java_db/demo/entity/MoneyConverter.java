@@ -0,0 +1,27 @@
+package com.java_db.demo.entity;
+
+import com.java_db.demo.util.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * 金额 JPA 转换器
+ * 将 Money（分）映射到数据库 DECIMAL(10, 2) 列
+ *
+ * autoApply = true：所有 Money 类型字段自动使用该转换器
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
@@ -1,11 +1,11 @@
 package com.java_db.demo.entity;
 
+import com.java_db.demo.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -14,6 +14,8 @@ import java.time.LocalDateTime;
  * 
  * 注意: Order 是 SQL 保留字，使用 @Table 指定表名
  * 
+ * 分区: 按 created_at 月度范围分区，主键为 (id, created_at)
+ * 
  * 状态说明:
  * 0 - 预订
  * 1 - 使用中
@@ -31,7 +33,11 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(name = "order_no", nullable = false, unique = true, length = 64)
+    /**
+     * 订单流水号
+     * orders 为分区表，唯一约束为 (order_no, created_at)，流水号本身由 UUID 保证唯一
+     */
+    @Column(name = "order_no", nullable = false, length = 64)
     private String orderNo;
 
     /**
@@ -75,8 +81,36 @@ public class Order {
     @Column(name = "actual_return_time")
     private LocalDateTime actualReturnTime;
 
+    /**
+     * 逾期标记时间
+     * 使用中的订单超过预计还车时间未还车时由 OrderDeadlineService 写入
+     */
+    @Column(name = "overdue_at")
+    private LocalDateTime overdueAt;
+
     @Column(name = "total_amount", precision = 10, scale = 2)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
+
+    /**
+     * 已支付金额（押金、尾款、罚金合计）
+     * 由 PaymentService 创建支付记录时通过单条 UPDATE 原子累加，实体中只读，
+     * 避免订单其他字段更新时用旧值覆盖并发写入的支付金额
+     */
+    @Column(name = "paid_amount", precision = 10, scale = 2, insertable = false, updatable = false)
+    private Money paidAmount = Money.ZERO;
+
+    /**
+     * 已累计逾期罚金
+     * 使用中的逾期订单由罚金累计任务定期更新（PenaltyAccrualService），还车时更新为最终罚金
+     */
+    @Column(name = "accrued_penalty", precision = 10, scale = 2)
+    private Money accruedPenalty = Money.ZERO;
+
+    /**
+     * 罚金累计的计算时间
+     */
+    @Column(name = "penalty_accrued_at")
+    private LocalDateTime penaltyAccruedAt;
 
     /**
      * 订单状态
@@ -88,12 +122,25 @@ public class Order {
     @Column(name = "status")
     private Integer status = 0;
 
-    @Column(name = "created_at", updatable = false)
+    /**
+     * 创建时间（分区键，按月范围分区）
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * 待支付金额 = 订单总金额 - 已支付金额（为负表示多付，需退还）
+     */
+    public Money getOutstandingAmount() {
+        if (totalAmount == null || paidAmount == null) {
+            return null;
+        }
+        return totalAmount.minus(paidAmount);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -1,11 +1,11 @@
 package com.java_db.demo.entity;
 
+import com.java_db.demo.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -14,6 +14,8 @@ import java.time.LocalDateTime;
  * 
  * 支付方式: Alipay, WeChat, Card 等
  * 支付类型: Deposit(押金), Final(尾款), Penalty(罚金)
+ * 
+ * 分区: 按 pay_time 月度范围分区，主键为 (id, pay_time)
  */
 @Entity
 @Table(name = "payments")
@@ -29,14 +31,14 @@ public class Payment {
     /**
      * 关联订单
      * 多对一关联 orders 表
-     * 删除订单时级联删除支付记录 (ON DELETE CASCADE)
+     * orders 为分区表（主键含 created_at），数据库层不建外键约束
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id", nullable = false, foreignKey = @ForeignKey(name = "fk_payment_order"))
+    @JoinColumn(name = "order_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Order order;
 
     @Column(name = "amount", nullable = false, precision = 10, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
     /**
      * 支付方式
@@ -54,7 +56,10 @@ public class Payment {
     @Column(name = "pay_type", length = 20)
     private String payType;
 
-    @Column(name = "pay_time")
+    /**
+     * 支付时间（分区键，按月范围分区）
+     */
+    @Column(name = "pay_time", nullable = false)
     private LocalDateTime payTime;
 
     @Column(name = "created_at", updatable = false)
@@ -0,0 +1,96 @@
+package com.java_db.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步报表任务实体类
+ * 对应数据库表: report_jobs
+ * 
+ * 状态说明:
+ * 0 - 排队中
+ * 1 - 执行中
+ * 2 - 已完成
+ * 3 - 失败
+ */
+@Entity
+@Table(name = "report_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    /**
+     * 任务去重键（报表类型 + 周期 + 时间范围）
+     */
+    @Column(name = "job_key", nullable = false, length = 255)
+    private String jobKey;
+
+    @Column(name = "report_type", nullable = false, length = 30)
+    private String reportType;
+
+    /**
+     * 任务状态
+     * 0: 排队中
+     * 1: 执行中
+     * 2: 已完成
+     * 3: 失败
+     */
+    @Column(name = "status")
+    private Integer status = 0;
+
+    @Column(name = "progress")
+    private Integer progress = 0;
+
+    /**
+     * 报表结果（JSON）
+     */
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 所属实例（提交任务的实例）
+     */
+    @Column(name = "owner_instance", length = 32, updatable = false)
+    private String ownerInstance;
+
+    /**
+     * 最近一次心跳，只由续期语句更新（保存实体时不覆盖）
+     */
+    @Column(name = "heartbeat_at", updatable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
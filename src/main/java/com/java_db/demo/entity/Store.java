@@ -4,15 +4,22 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
 /**
  * 门店实体类
  * 对应数据库表: stores
+ * 
+ * 门店为参考数据（很少修改），启用二级缓存
  */
 @Entity
 @Table(name = "stores")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stores")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +38,26 @@ public class Store {
     @Column(name = "phone", length = 20)
     private String phone;
 
+    /**
+     * 所属区域（城市），订单、维修记录按区域分片存储（见 shard_directory）
+     */
+    @Column(name = "region", nullable = false, length = 50)
+    private String region = "default";
+
+    /**
+     * 纬度（WGS84），未设置坐标的门店不参与就近搜索
+     */
+    @Column(name = "latitude", precision = 9, scale = 6)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private Double latitude;
+
+    /**
+     * 经度（WGS84）
+     */
+    @Column(name = "longitude", precision = 9, scale = 6)
+    @JdbcTypeCode(SqlTypes.NUMERIC)
+    private Double longitude;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -17,9 +19,12 @@ import java.time.LocalDateTime;
  * 2 - 门店员工
  * 
  * 注意: 密码字段当前为明文存储
+ * 
+ * 启用二级缓存：下单等流程按 ID 读取用户，用户信息修改频率低
  */
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,11 +1,11 @@
 package com.java_db.demo.entity;
 
+import com.java_db.demo.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -62,7 +62,7 @@ public class Vehicle {
     private Integer status = 0;
 
     @Column(name = "daily_rate", precision = 10, scale = 2)
-    private BigDecimal dailyRate;
+    private Money dailyRate;
 
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -1,9 +1,13 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Category;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * 车辆分类数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
@@ -11,4 +15,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
     // 基础 CRUD 方法由 JpaRepository 提供
+    
+    /**
+     * 查询所有分类（启用查询缓存，分类实体从二级缓存读取）
+     * 
+     * @return 所有分类
+     */
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Category> findAll();
 }
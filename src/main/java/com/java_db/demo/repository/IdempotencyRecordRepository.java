@@ -0,0 +1,51 @@
+package com.java_db.demo.repository;
+
+import com.java_db.demo.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 幂等键记录数据访问层
+ * 继承 JpaRepository 自动获得 CRUD 操作
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * 写入幂等键记录；同一幂等键已有未过期记录时不写入，已过期记录直接覆盖
+     * 与业务写入在同一事务中执行，并发的重复请求只有一个能提交
+     *
+     * @return 写入的行数（0 表示已有未过期记录）
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys " +
+           "(idempotency_key, operation, request_hash, response_status, response_body, created_at, expires_at) " +
+           "VALUES (:key, :operation, :requestHash, :responseStatus, :responseBody, :createdAt, :expiresAt) " +
+           "ON CONFLICT (idempotency_key) DO UPDATE SET operation = EXCLUDED.operation, " +
+           "request_hash = EXCLUDED.request_hash, response_status = EXCLUDED.response_status, " +
+           "response_body = EXCLUDED.response_body, created_at = EXCLUDED.created_at, " +
+           "expires_at = EXCLUDED.expires_at " +
+           "WHERE idempotency_keys.expires_at <= EXCLUDED.created_at", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key,
+                       @Param("operation") String operation,
+                       @Param("requestHash") String requestHash,
+                       @Param("responseStatus") int responseStatus,
+                       @Param("responseBody") String responseBody,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 删除已过期的幂等键记录
+     *
+     * @param now 当前时间
+     * @return 删除的记录数
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
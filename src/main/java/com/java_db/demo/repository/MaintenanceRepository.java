@@ -1,6 +1,7 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Maintenance;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,10 +9,13 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 维修记录数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
+ *
+ * 返回给接口的查询（带 EntityGraph）同时抓取车辆及其分类、门店
  */
 @Repository
 public interface MaintenanceRepository extends JpaRepository<Maintenance, Integer> {
@@ -21,18 +25,55 @@ public interface MaintenanceRepository extends JpaRepository<Maintenance, Intege
      * Spring Data JPA 自动解析方法名生成查询
      * 
      * @param vehicleId 车辆 ID
-     * @return 维修记录列表
+     * @return 维修记录列表（含车辆）
      */
+    @EntityGraph(attributePaths = {"vehicle.category", "vehicle.store"})
     List<Maintenance> findByVehicleId(Integer vehicleId);
+
+    /**
+     * 根据 ID 查询维修记录（含车辆，用于接口返回）
+     *
+     * @param id 维修记录 ID
+     * @return 维修记录
+     */
+    @EntityGraph(attributePaths = {"vehicle.category", "vehicle.store"})
+    Optional<Maintenance> findWithDetailsById(Integer id);
+
+    /**
+     * 查询全部维修记录（含车辆，管理员列表）
+     *
+     * @return 维修记录列表
+     */
+    @EntityGraph(attributePaths = {"vehicle.category", "vehicle.store"})
+    @Query("SELECT m FROM Maintenance m")
+    List<Maintenance> findAllWithDetails();
+    
+    /**
+     * 查询车辆在指定日期范围内的维修记录（含未完成的维修）
+     * 用于车辆可用日历
+     * 
+     * @param vehicleId 车辆 ID
+     * @param fromDate 开始日期（含）
+     * @param toDate 结束日期（含）
+     * @return 与日期范围重叠的维修记录
+     */
+    @Query("SELECT m FROM Maintenance m WHERE m.vehicle.id = :vehicleId " +
+           "AND m.startDate <= :toDate " +
+           "AND (m.endDate IS NULL OR m.endDate >= :fromDate)")
+    List<Maintenance> findOverlappingMaintenance(
+        @Param("vehicleId") Integer vehicleId,
+        @Param("fromDate") LocalDate fromDate,
+        @Param("toDate") LocalDate toDate
+    );
     
     // ==================== 报表统计查询方法 ====================
     
     /**
-     * 按车辆ID统计维修次数和总成本
+     * 按车辆ID统计维修次数和总成本（总成本单位：分）
      */
-    @Query("SELECT m.vehicle.id as vehicleId, COUNT(m) as maintenanceCount, " +
-           "COALESCE(SUM(m.cost), 0) as totalCost FROM Maintenance m " +
-           "GROUP BY m.vehicle.id")
+    @Query(value = "SELECT m.vehicle_id AS vehicleId, COUNT(*) AS maintenanceCount, " +
+           "CAST(COALESCE(SUM(m.cost), 0) * 100 AS BIGINT) AS totalCost FROM maintenance m " +
+           "GROUP BY m.vehicle_id", nativeQuery = true)
     List<Object[]> getVehicleMaintenanceStatistics();
     
     /**
@@ -43,19 +84,19 @@ public interface MaintenanceRepository extends JpaRepository<Maintenance, Intege
     List<Object[]> getVehicleMaintenanceCountByType();
     
     /**
-     * 统计指定时间范围内的维修总成本
+     * 统计指定时间范围内的维修总成本（单位：分）
      */
-    @Query("SELECT COALESCE(SUM(m.cost), 0) FROM Maintenance m " +
-           "WHERE m.startDate BETWEEN :startDate AND :endDate")
-    Double sumTotalCostBetweenDates(@Param("startDate") LocalDate startDate, 
+    @Query(value = "SELECT CAST(COALESCE(SUM(m.cost), 0) * 100 AS BIGINT) FROM maintenance m " +
+           "WHERE m.start_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    Long sumTotalCostBetweenDates(@Param("startDate") LocalDate startDate, 
                                     @Param("endDate") LocalDate endDate);
     
     /**
-     * 按维修类型统计成本
+     * 按维修类型统计成本（单位：分）
      */
-    @Query("SELECT m.type as type, COALESCE(SUM(m.cost), 0) as totalCost FROM Maintenance m " +
-           "WHERE m.startDate BETWEEN :startDate AND :endDate " +
-           "GROUP BY m.type")
+    @Query(value = "SELECT m.type AS type, CAST(COALESCE(SUM(m.cost), 0) * 100 AS BIGINT) AS totalCost " +
+           "FROM maintenance m WHERE m.start_date BETWEEN :startDate AND :endDate " +
+           "GROUP BY m.type", nativeQuery = true)
     List<Object[]> sumCostByTypeBetweenDates(@Param("startDate") LocalDate startDate, 
                                             @Param("endDate") LocalDate endDate);
 }
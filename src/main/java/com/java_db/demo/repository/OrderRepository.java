@@ -1,11 +1,14 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -13,6 +16,9 @@ import java.util.Optional;
 /**
  * 订单数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
+ *
+ * 返回给接口的订单查询（带 EntityGraph）一次抓取用户、车辆（含分类、门店）和取还车门店，
+ * 关联在事务结束后序列化响应时无需再懒加载（未开启 OSIV）
  */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
@@ -24,8 +30,9 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
      * SELECT * FROM orders WHERE user_id = ? ORDER BY created_at DESC
      * 
      * @param userId 用户 ID
-     * @return 该用户的所有订单列表（按创建时间倒序）
+     * @return 该用户的所有订单列表（按创建时间倒序，含关联）
      */
+    @EntityGraph(attributePaths = {"user", "vehicle.category", "vehicle.store", "pickupStore", "returnStore"})
     List<Order> findByUserIdOrderByCreatedAtDesc(Integer userId);
     
     /**
@@ -52,9 +59,28 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
      * 根据订单流水号查询订单
      * 
      * @param orderNo 订单流水号
-     * @return 订单信息
+     * @return 订单信息（含关联）
      */
+    @EntityGraph(attributePaths = {"user", "vehicle.category", "vehicle.store", "pickupStore", "returnStore"})
     Optional<Order> findByOrderNo(String orderNo);
+
+    /**
+     * 根据 ID 查询订单（含关联，用于接口返回）
+     *
+     * @param id 订单 ID
+     * @return 订单信息
+     */
+    @EntityGraph(attributePaths = {"user", "vehicle.category", "vehicle.store", "pickupStore", "returnStore"})
+    Optional<Order> findWithDetailsById(Integer id);
+
+    /**
+     * 查询全部订单（含关联，管理员列表）
+     *
+     * @return 订单列表
+     */
+    @EntityGraph(attributePaths = {"user", "vehicle.category", "vehicle.store", "pickupStore", "returnStore"})
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
     
     /**
      * 根据订单状态查询订单
@@ -105,8 +131,123 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
      */
     List<Order> findByReturnStoreId(Integer returnStoreId);
     
+    /**
+     * 原子累加订单已支付金额（单条 UPDATE，无需先读后写）
+     * 执行后清空持久化上下文，之后加载的订单为累加后的值
+     * 
+     * @param orderId 订单 ID
+     * @param amount 本次支付金额
+     * @return 更新的行数（0 表示订单不存在）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE orders SET paid_amount = paid_amount + :amount, updated_at = LOCALTIMESTAMP " +
+           "WHERE id = :orderId", nativeQuery = true)
+    int addPaidAmount(@Param("orderId") Integer orderId, @Param("amount") BigDecimal amount);
+    
+    // ==================== 订单期限相关方法 ====================
+    
+    /**
+     * 查询需要跟踪期限的进行中订单（启动时重建时间轮）
+     * 预订中的订单跟踪取车期限，使用中且未标记逾期的订单跟踪还车期限
+     * 
+     * @return [订单ID, 车辆ID, 状态, 开始时间, 预计还车时间]
+     */
+    @Query("SELECT o.id, o.vehicle.id, o.status, o.startTime, o.endTime FROM Order o " +
+           "WHERE o.status IN (0, 1) AND (o.status = 0 OR o.overdueAt IS NULL)")
+    List<Object[]> findActiveOrderDeadlines();
+    
+    /**
+     * 仅当订单处于预期状态时更新状态（取车与取车超时释放并发时只有一方成功）
+     * 
+     * @param orderId 订单 ID
+     * @param expectedStatus 预期的当前状态
+     * @param newStatus 新状态
+     * @return 更新的行数（0 表示状态已被并发修改）
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = LOCAL DATETIME " +
+           "WHERE o.id = :orderId AND o.status = :expectedStatus")
+    int compareAndSetStatus(@Param("orderId") Integer orderId,
+                            @Param("expectedStatus") Integer expectedStatus,
+                            @Param("newStatus") Integer newStatus);
+    
+    /**
+     * 标记使用中的订单逾期（已标记或已还车的订单不受影响）
+     * 
+     * @param orderId 订单 ID
+     * @param overdueAt 逾期标记时间
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.overdueAt = :overdueAt, o.updatedAt = LOCAL DATETIME " +
+           "WHERE o.id = :orderId AND o.status = 1 AND o.overdueAt IS NULL")
+    int markOverdue(@Param("orderId") Integer orderId, @Param("overdueAt") LocalDateTime overdueAt);
+    
+    /**
+     * 按 (end_time, id) 键集分批查询车辆 ID 区间内逾期的使用中订单（罚金累计任务）
+     * end_time >= :afterEndTime 为索引 idx_order_status_end_time 提供范围起点
+     * 
+     * @param asOf 计算时间（预计还车时间早于该时间视为逾期）
+     * @param fromVehicleId 车辆 ID 下界（含）
+     * @param toVehicleId 车辆 ID 上界（含）
+     * @param afterEndTime 上一批最后一个订单的预计还车时间
+     * @param afterId 上一批最后一个订单的 ID
+     * @param limit 每批数量
+     * @return [订单ID, 创建时间, 预计还车时间, 日租金]
+     */
+    @Query(value = "SELECT o.id, o.created_at, o.end_time, v.daily_rate FROM orders o " +
+           "JOIN vehicles v ON v.id = o.vehicle_id " +
+           "WHERE o.status = 1 AND o.end_time < :asOf " +
+           "AND o.vehicle_id BETWEEN :fromVehicleId AND :toVehicleId " +
+           "AND o.end_time >= :afterEndTime AND (o.end_time, o.id) > (:afterEndTime, :afterId) " +
+           "ORDER BY o.end_time, o.id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findOverdueChunk(@Param("asOf") LocalDateTime asOf,
+                                    @Param("fromVehicleId") Integer fromVehicleId,
+                                    @Param("toVehicleId") Integer toVehicleId,
+                                    @Param("afterEndTime") LocalDateTime afterEndTime,
+                                    @Param("afterId") Integer afterId,
+                                    @Param("limit") int limit);
+    
+    /**
+     * 按取车门店、车辆分类统计指定时间内创建的订单数（调拨规划的历史需求，不含已取消订单）
+     * 
+     * @param since 开始时间（含）
+     * @param until 结束时间（不含）
+     * @return [取车门店ID, 分类ID, 订单数]
+     */
+    @Query(value = "SELECT o.pickup_store_id, v.category_id, COUNT(*) FROM orders o " +
+           "JOIN vehicles v ON v.id = o.vehicle_id " +
+           "WHERE o.created_at >= :since AND o.created_at < :until AND o.status <> 3 " +
+           "GROUP BY o.pickup_store_id, v.category_id", nativeQuery = true)
+    List<Object[]> countBookingsByPickupStoreAndCategory(@Param("since") LocalDateTime since,
+                                                         @Param("until") LocalDateTime until);
+    
+    /**
+     * 按门店、车辆分类统计指定时间前的待取车预订和待还车订单（调拨规划）
+     * 预订按取车门店统计，使用中订单按还车门店统计
+     * 
+     * @param until 截止时间（预订开始时间、使用中订单预计还车时间早于该时间）
+     * @return [门店ID, 分类ID, 订单状态(0:预订, 1:使用中), 订单数]
+     */
+    @Query(value = "SELECT CASE WHEN o.status = 0 THEN o.pickup_store_id ELSE o.return_store_id END, " +
+           "v.category_id, o.status, COUNT(*) FROM orders o " +
+           "JOIN vehicles v ON v.id = o.vehicle_id " +
+           "WHERE (o.status = 0 AND o.start_time < :until) OR (o.status = 1 AND o.end_time < :until) " +
+           "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<Object[]> countPendingByStoreAndCategory(@Param("until") LocalDateTime until);
+    
     // ==================== 报表统计查询方法 ====================
     
+    /**
+     * 查询创建时间在指定范围内（不含边界）的订单
+     * orders 按 created_at 分区，按范围查询只扫描相关月份分区
+     * 
+     * @param startDate 开始时间（不含）
+     * @param endDate 结束时间（不含）
+     * @return 订单列表
+     */
+    List<Order> findByCreatedAtAfterAndCreatedAtBefore(LocalDateTime startDate, LocalDateTime endDate);
+    
     /**
      * 统计指定时间范围内的订单数量（按状态分组）
      */
@@ -117,30 +258,31 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
                                                     @Param("endDate") LocalDateTime endDate);
     
     /**
-     * 统计指定时间范围内的订单总金额
+     * 统计指定时间范围内的订单总金额（单位：分）
+     * 金额列为 DECIMAL(10,2)，乘以 100 后为整数，转换为 BIGINT 不丢失精度
      */
-    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
-           "WHERE o.createdAt BETWEEN :startDate AND :endDate")
-    Double sumTotalAmountBetweenDates(@Param("startDate") LocalDateTime startDate, 
+    @Query(value = "SELECT CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) FROM orders o " +
+           "WHERE o.created_at BETWEEN :startDate AND :endDate", nativeQuery = true)
+    Long sumTotalAmountBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
     
     /**
-     * 按车辆ID统计订单数量和总收入
+     * 按车辆ID统计订单数量和总收入（总收入单位：分）
      */
-    @Query("SELECT o.vehicle.id as vehicleId, COUNT(o) as orderCount, " +
-           "COALESCE(SUM(o.totalAmount), 0) as totalRevenue FROM Order o " +
-           "WHERE o.createdAt BETWEEN :startDate AND :endDate " +
-           "GROUP BY o.vehicle.id")
+    @Query(value = "SELECT o.vehicle_id AS vehicleId, COUNT(*) AS orderCount, " +
+           "CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) AS totalRevenue FROM orders o " +
+           "WHERE o.created_at BETWEEN :startDate AND :endDate " +
+           "GROUP BY o.vehicle_id", nativeQuery = true)
     List<Object[]> getVehicleOrderStatistics(@Param("startDate") LocalDateTime startDate, 
                                              @Param("endDate") LocalDateTime endDate);
     
     /**
-     * 按门店ID统计订单数量和总收入（基于取车门店）
+     * 按门店ID统计订单数量和总收入（基于取车门店，总收入单位：分）
      */
-    @Query("SELECT o.pickupStore.id as storeId, COUNT(o) as orderCount, " +
-           "COALESCE(SUM(o.totalAmount), 0) as totalRevenue FROM Order o " +
-           "WHERE o.createdAt BETWEEN :startDate AND :endDate " +
-           "GROUP BY o.pickupStore.id")
+    @Query(value = "SELECT o.pickup_store_id AS storeId, COUNT(*) AS orderCount, " +
+           "CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) AS totalRevenue FROM orders o " +
+           "WHERE o.created_at BETWEEN :startDate AND :endDate " +
+           "GROUP BY o.pickup_store_id", nativeQuery = true)
     List<Object[]> getStoreOrderStatistics(@Param("startDate") LocalDateTime startDate, 
                                            @Param("endDate") LocalDateTime endDate);
     
@@ -1,6 +1,7 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Payment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,10 +9,13 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 支付记录数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
+ *
+ * 返回给接口的查询（带 EntityGraph）同时抓取订单及订单的关联，与 OrderRepository 一致
  */
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
@@ -21,35 +25,64 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
      * Spring Data JPA 自动解析方法名生成查询
      * 
      * @param orderId 订单 ID
-     * @return 支付记录列表
+     * @return 支付记录列表（含订单）
      */
+    @EntityGraph(attributePaths = {"order.user", "order.vehicle.category", "order.vehicle.store", "order.pickupStore", "order.returnStore"})
     List<Payment> findByOrderId(Integer orderId);
+
+    /**
+     * 根据 ID 查询支付记录（含订单，用于接口返回）
+     *
+     * @param id 支付记录 ID
+     * @return 支付记录
+     */
+    @EntityGraph(attributePaths = {"order.user", "order.vehicle.category", "order.vehicle.store", "order.pickupStore", "order.returnStore"})
+    Optional<Payment> findWithDetailsById(Integer id);
+
+    /**
+     * 查询全部支付记录（含订单，管理员列表）
+     *
+     * @return 支付记录列表
+     */
+    @EntityGraph(attributePaths = {"order.user", "order.vehicle.category", "order.vehicle.store", "order.pickupStore", "order.returnStore"})
+    @Query("SELECT p FROM Payment p")
+    List<Payment> findAllWithDetails();
     
     // ==================== 报表统计查询方法 ====================
     
     /**
-     * 按支付类型统计指定时间范围内的金额
+     * 查询支付时间在指定范围内（不含边界）的支付记录
+     * payments 按 pay_time 分区，按范围查询只扫描相关月份分区
+     * 
+     * @param startDate 开始时间（不含）
+     * @param endDate 结束时间（不含）
+     * @return 支付记录列表
+     */
+    List<Payment> findByPayTimeAfterAndPayTimeBefore(LocalDateTime startDate, LocalDateTime endDate);
+    
+    /**
+     * 按支付类型统计指定时间范围内的金额（单位：分）
      */
-    @Query("SELECT p.payType as payType, COALESCE(SUM(p.amount), 0) as totalAmount FROM Payment p " +
-           "WHERE p.payTime BETWEEN :startDate AND :endDate " +
-           "GROUP BY p.payType")
+    @Query(value = "SELECT p.pay_type AS payType, CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) AS totalAmount " +
+           "FROM payments p WHERE p.pay_time BETWEEN :startDate AND :endDate " +
+           "GROUP BY p.pay_type", nativeQuery = true)
     List<Object[]> sumAmountByPayTypeBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                                    @Param("endDate") LocalDateTime endDate);
     
     /**
-     * 统计指定时间范围内的总收入
+     * 统计指定时间范围内的总收入（单位：分）
      */
-    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p " +
-           "WHERE p.payTime BETWEEN :startDate AND :endDate")
-    Double sumTotalAmountBetweenDates(@Param("startDate") LocalDateTime startDate, 
+    @Query(value = "SELECT CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) FROM payments p " +
+           "WHERE p.pay_time BETWEEN :startDate AND :endDate", nativeQuery = true)
+    Long sumTotalAmountBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
     
     /**
-     * 按支付方式统计金额
+     * 按支付方式统计金额（单位：分）
      */
-    @Query("SELECT p.payMethod as payMethod, COALESCE(SUM(p.amount), 0) as totalAmount FROM Payment p " +
-           "WHERE p.payTime BETWEEN :startDate AND :endDate " +
-           "GROUP BY p.payMethod")
+    @Query(value = "SELECT p.pay_method AS payMethod, CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) AS totalAmount " +
+           "FROM payments p WHERE p.pay_time BETWEEN :startDate AND :endDate " +
+           "GROUP BY p.pay_method", nativeQuery = true)
     List<Object[]> sumAmountByPayMethodBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                                      @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,57 @@
+package com.java_db.demo.repository;
+
+import com.java_db.demo.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步报表任务数据访问层
+ * 继承 JpaRepository 自动获得 CRUD 操作
+ */
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Integer> {
+
+    /**
+     * 删除早于指定时间完成的任务（结果保留期清理）
+     *
+     * @param cutoff 截止时间
+     * @return 删除的任务数
+     */
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 为实例的未完成任务续期
+     *
+     * @param ownerInstance 实例 ID
+     * @param heartbeatAt 心跳时间
+     * @return 续期的任务数
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.heartbeatAt = :heartbeatAt " +
+           "WHERE j.ownerInstance = :ownerInstance AND j.status IN (0, 1)")
+    int renewLease(@Param("ownerInstance") String ownerInstance,
+                   @Param("heartbeatAt") LocalDateTime heartbeatAt);
+
+    /**
+     * 将心跳已过期的未完成任务标记为失败
+     * 用于清理已停止的实例遗留的排队中/执行中任务（没有心跳的旧任务按创建时间计算）
+     *
+     * @param errorMessage 失败原因
+     * @param finishedAt 完成时间
+     * @param expiredBefore 心跳早于该时间视为过期
+     * @return 更新的任务数
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 3, j.errorMessage = :errorMessage, j.finishedAt = :finishedAt " +
+           "WHERE j.status IN (0, 1) AND COALESCE(j.heartbeatAt, j.createdAt) < :expiredBefore")
+    int failExpiredJobs(@Param("errorMessage") String errorMessage,
+                        @Param("finishedAt") LocalDateTime finishedAt,
+                        @Param("expiredBefore") LocalDateTime expiredBefore);
+}
@@ -1,9 +1,13 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Store;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * 门店数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
@@ -12,8 +16,18 @@ import org.springframework.stereotype.Repository;
 public interface StoreRepository extends JpaRepository<Store, Integer> {
     // 基础 CRUD 方法由 JpaRepository 提供：
     // - save(Store) - 保存/更新
-    // - findById(Integer) - 根据 ID 查询
-    // - findAll() - 查询所有
+    // - findById(Integer) - 根据 ID 查询（二级缓存）
     // - deleteById(Integer) - 删除
     // - count() - 统计数量
+    
+    /**
+     * 查询所有门店
+     * 启用查询缓存：结果 ID 列表缓存在查询缓存中，门店实体从二级缓存读取，
+     * stores 表经 Hibernate 修改后缓存自动失效
+     * 
+     * @return 所有门店
+     */
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Store> findAll();
 }
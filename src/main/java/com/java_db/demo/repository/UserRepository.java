@@ -2,8 +2,12 @@ package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -24,13 +28,13 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByUsername(String username);
     
     /**
-     * 根据手机号查询用户
-     * 可用于注册时检查手机号是否已存在
+     * 检查手机号是否已存在
+     * 用于注册时检查手机号是否已被注册
      * 
      * @param phone 手机号
-     * @return Optional<User> 如果存在返回用户，否则返回空
+     * @return true 如果存在，false 如果不存在
      */
-    Optional<User> findByPhone(String phone);
+    boolean existsByPhone(String phone);
     
     /**
      * 检查用户名是否已存在
@@ -39,4 +43,28 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * @return true 如果存在，false 如果不存在
      */
     boolean existsByUsername(String username);
+    
+    /**
+     * 查询所有用户名和手机号
+     * 用于启动时构建注册布隆过滤器
+     * 
+     * @return [username, phone] 列表
+     */
+    @Query("SELECT u.username, u.phone FROM User u")
+    List<Object[]> findAllUsernamesAndPhones();
+    
+    /**
+     * 仅当密码哈希未被修改时更新为新哈希（登录时的哈希升级）
+     * 
+     * @param userId 用户 ID
+     * @param oldHash 旧哈希
+     * @param newHash 新哈希
+     * @return 更新的行数（0 表示密码已被并发修改）
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash, u.updatedAt = LOCAL DATETIME " +
+           "WHERE u.id = :userId AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("userId") Integer userId,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
 }
@@ -1,17 +1,22 @@
 package com.java_db.demo.repository;
 
 import com.java_db.demo.entity.Vehicle;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 车辆数据访问层
  * 继承 JpaRepository 自动获得 CRUD 操作
+ *
+ * 返回给接口的车辆查询同时抓取分类和门店（EntityGraph 或 JOIN FETCH），序列化响应时无需再懒加载
  */
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
@@ -52,13 +57,15 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
      * 1. 车辆状态为空闲 (status = 0)
      * 2. 车辆不在指定时间段内有进行中的订单 (status IN (0,1))
      * 3. 订单时间判断：NOT (订单开始时间 < 查询结束时间 AND 订单结束时间 > 查询开始时间)
+     * 同时抓取门店和分类；门店条件写成 fk(v.store)，原因见 findAvailableVehiclesInStores
      * 
      * @param storeId 门店 ID
      * @param startTime 租赁开始时间
      * @param endTime 租赁结束时间
      * @return 可用车辆列表
      */
-    @Query("SELECT v FROM Vehicle v WHERE v.store.id = :storeId " +
+    @Query("SELECT v FROM Vehicle v JOIN FETCH v.store JOIN FETCH v.category " +
+           "WHERE fk(v.store) = :storeId " +
            "AND v.status = 0 " +
            "AND v.id NOT IN (" +
            "  SELECT o.vehicle.id FROM Order o " +
@@ -72,13 +79,78 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
         @Param("endTime") LocalDateTime endTime
     );
     
+    /**
+     * 查询多个门店在特定时间段内可用的车辆（附近门店搜索）
+     * 可用性判断与 findAvailableVehicles 相同，一次查询覆盖全部候选门店，
+     * 同时抓取门店和分类，避免按门店逐个查询及 N+1
+     * 门店条件用 fk(v.store) 落在 vehicles.store_id 上；写成 v.store.id 时 Hibernate 把条件放在
+     * 抓取连接的 stores 上，vehicles 无法使用门店索引
+     * 
+     * @param storeIds 门店 ID 集合
+     * @param startTime 租赁开始时间
+     * @param endTime 租赁结束时间
+     * @return 可用车辆列表
+     */
+    @Query("SELECT v FROM Vehicle v JOIN FETCH v.store JOIN FETCH v.category " +
+           "WHERE fk(v.store) IN :storeIds " +
+           "AND v.status = 0 " +
+           "AND v.id NOT IN (" +
+           "  SELECT o.vehicle.id FROM Order o " +
+           "  WHERE o.status IN (0, 1) " +
+           "  AND o.startTime < :endTime " +
+           "  AND o.endTime > :startTime" +
+           ")")
+    List<Vehicle> findAvailableVehiclesInStores(
+        @Param("storeIds") Collection<Integer> storeIds,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
+    
     /**
      * 根据门店查询所有车辆
      * 
      * @param storeId 门店 ID
-     * @return 该门店的所有车辆
+     * @return 该门店的所有车辆（含分类、门店）
      */
+    @EntityGraph(attributePaths = {"category", "store"})
     List<Vehicle> findByStoreId(Integer storeId);
+
+    /**
+     * 根据 ID 查询车辆（含分类、门店，用于接口返回）
+     *
+     * @param id 车辆 ID
+     * @return 车辆信息
+     */
+    @EntityGraph(attributePaths = {"category", "store"})
+    Optional<Vehicle> findWithDetailsById(Integer id);
+
+    /**
+     * 查询全部车辆（含分类、门店，管理员列表）
+     *
+     * @return 车辆列表
+     */
+    @EntityGraph(attributePaths = {"category", "store"})
+    @Query("SELECT v FROM Vehicle v")
+    List<Vehicle> findAllWithDetails();
+    
+    /**
+     * 查询所有车牌号
+     * 用于批量导入前一次性预加载，避免逐行查询
+     * 
+     * @return 所有车牌号
+     */
+    @Query("SELECT v.plateNumber FROM Vehicle v")
+    List<String> findAllPlateNumbers();
+    
+    /**
+     * 查询空闲和调拨中的车辆（调拨规划）
+     * 调拨中车辆的门店为调拨目的门店，计入目的门店的供给，但不再参与调拨
+     * 
+     * @return [车辆ID, 门店ID, 分类ID, 状态]，按车辆 ID 排序
+     */
+    @Query("SELECT v.id, v.store.id, v.category.id, v.status FROM Vehicle v " +
+           "WHERE v.status IN (0, 3) ORDER BY v.id")
+    List<Object[]> findRebalanceFleet();
     
     // ==================== 报表统计查询方法 ====================
     
@@ -101,5 +173,28 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
     @Query("SELECT v.store.id as storeId, v.store.name as storeName, COUNT(v) as count " +
            "FROM Vehicle v GROUP BY v.store.id, v.store.name")
     List<Object[]> countVehiclesByStore();
+    
+    /**
+     * 按门店、分类统计特定时间段内的可用车辆数量（可用性矩阵）
+     * 可用性判断与 findAvailableVehicles 相同，一次分组反连接查询覆盖全部门店和分类
+     * 
+     * @param startTime 租赁开始时间
+     * @param endTime 租赁结束时间
+     * @return [门店ID, 分类ID, 可用数量]，只包含数量大于 0 的组合
+     */
+    @Query("SELECT v.store.id as storeId, v.category.id as categoryId, COUNT(v) as count " +
+           "FROM Vehicle v WHERE v.status = 0 " +
+           "AND NOT EXISTS (" +
+           "  SELECT 1 FROM Order o " +
+           "  WHERE o.vehicle = v " +
+           "  AND o.status IN (0, 1) " +
+           "  AND o.startTime < :endTime " +
+           "  AND o.endTime > :startTime" +
+           ") " +
+           "GROUP BY v.store.id, v.category.id")
+    List<Object[]> countAvailableVehiclesByStoreAndCategory(
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
 }
 
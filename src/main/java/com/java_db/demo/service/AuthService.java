@@ -1,5 +1,7 @@
 package com.java_db.demo.service;
 
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
 import com.java_db.demo.dto.LoginRequest;
 import com.java_db.demo.dto.LoginResponse;
 import com.java_db.demo.dto.RegisterDTO;
@@ -9,9 +11,9 @@ import com.java_db.demo.exception.BusinessException;
 import com.java_db.demo.repository.UserRepository;
 import com.java_db.demo.util.JwtProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * 用户认证服务
@@ -19,29 +21,48 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Service
 @RequiredArgsConstructor
+@Workload(WorkloadType.BOOKING)
 public class AuthService {
     
+    private static final String USERNAME_EXISTS = "用户名已存在";
+    private static final String PHONE_EXISTS = "手机号已被注册";
+    
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
+    private final RegistrationFilterService registrationFilterService;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginAttemptService loginAttemptService;
     private final JwtProvider jwtProvider;
     
     /**
      * 用户登录
      * 验证用户名和密码，成功后返回 JWT Token
      * 
+     * 不开启事务：BCrypt 校验在密码哈希线程池中执行，等待期间不占用数据库连接
+     * 
      * @param request 登录请求（用户名和密码）
+     * @param clientIp 客户端 IP（用于失败次数限制）
      * @return 登录响应（包含 Token 和用户信息）
      */
-    @Transactional(readOnly = true)
-    public LoginResponse login(LoginRequest request) {
+    public LoginResponse login(LoginRequest request, String clientIp) {
+        // 失败次数超限的账号/IP 直接拒绝，不消耗 BCrypt 计算
+        loginAttemptService.checkAllowed(request.getUsername(), clientIp);
+        
         // 查询用户
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new AuthException("用户名或密码错误"));
+        User user = userRepository.findByUsername(request.getUsername()).orElse(null);
         
         // 验证密码（使用 BCrypt）
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (user == null || !passwordHashingService.matches(request.getPassword(), user.getPassword())) {
+            loginAttemptService.recordFailure(request.getUsername(), clientIp);
             throw new AuthException("用户名或密码错误");
         }
+        loginAttemptService.recordSuccess(request.getUsername());
+        
+        // 旧哈希低于当前成本因子时，用本次登录的明文重新加密（无需批量迁移）
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            userService.rehashPassword(user.getId(), user.getPassword(),
+                    passwordHashingService.encode(request.getPassword()));
+        }
         
         // 生成 JWT Token
         String token = jwtProvider.generateToken(user.getId(), user.getRole());
@@ -58,32 +79,76 @@ public class AuthService {
     
     /**
      * 用户注册
-     * 检查用户名是否已存在，使用 BCrypt 加密密码后保存
+     * 检查用户名、手机号是否已存在，使用 BCrypt 加密密码后保存
+     * 
+     * 唯一性检查：
+     * 1. 布隆过滤器判定一定不存在时跳过数据库查询（绝大多数新用户）
+     * 2. 判定可能存在时查库确认
+     * 3. 并发注册同一用户名/手机号时由 UNIQUE 约束拒绝，映射为相同的业务异常
+     * 
+     * 不开启事务：BCrypt 加密期间不占用数据库连接，插入由 saveAndFlush 单独提交
      * 
      * @param registerDTO 注册信息
      * @return 注册成功的用户信息
      */
-    @Transactional
     public User register(RegisterDTO registerDTO) {
+        String username = registerDTO.getUsername();
+        String phone = registerDTO.getPhone();
+        
         // 检查用户名是否已存在
-        if (userRepository.existsByUsername(registerDTO.getUsername())) {
-            throw new BusinessException("用户名已存在");
+        if (registrationFilterService.mightContainUsername(username)) {
+            if (userRepository.existsByUsername(username)) {
+                throw new BusinessException(USERNAME_EXISTS);
+            }
+            registrationFilterService.recordUsernameFalsePositive();
         }
         
         // 检查手机号是否已存在
-        if (registerDTO.getPhone() != null && 
-            userRepository.findByPhone(registerDTO.getPhone()).isPresent()) {
-            throw new BusinessException("手机号已被注册");
+        if (phone != null && registrationFilterService.mightContainPhone(phone)) {
+            if (userRepository.existsByPhone(phone)) {
+                throw new BusinessException(PHONE_EXISTS);
+            }
+            registrationFilterService.recordPhoneFalsePositive();
         }
         
         // 创建新用户
         User user = new User();
-        user.setUsername(registerDTO.getUsername());
+        user.setUsername(username);
         // 使用 BCrypt 加密密码
-        user.setPassword(passwordEncoder.encode(registerDTO.getPassword()));
-        user.setPhone(registerDTO.getPhone());
+        user.setPassword(passwordHashingService.encode(registerDTO.getPassword()));
+        user.setPhone(phone);
         user.setRole(0); // 默认为普通客户
         
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw mapUniqueViolation(e);
+        }
+        registrationFilterService.addUser(username, phone);
+        return saved;
+    }
+    
+    // ==================== 私有辅助方法 ====================
+    
+    /**
+     * 将 users 表唯一约束冲突映射为业务异常
+     * 约束名为 PostgreSQL 默认命名：users_username_key、users_phone_key
+     */
+    private RuntimeException mapUniqueViolation(DataIntegrityViolationException e) {
+        String constraint = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+                break;
+            }
+        }
+        if (constraint != null && constraint.contains("username")) {
+            return new BusinessException(USERNAME_EXISTS, e);
+        }
+        if (constraint != null && constraint.contains("phone")) {
+            return new BusinessException(PHONE_EXISTS, e);
+        }
+        return e;
     }
 }
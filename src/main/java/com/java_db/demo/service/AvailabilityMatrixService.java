@@ -0,0 +1,144 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.dto.AvailabilityMatrixDTO;
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.repository.CategoryRepository;
+import com.java_db.demo.repository.StoreRepository;
+import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 车辆可用性矩阵服务
+ * 计算各门店、各分类在指定时间段内的可用车辆数，供首页一次请求渲染
+ *
+ * 按时间段短期缓存结果（默认 30 秒）：首页请求集中在少数几个常用时间段，
+ * 缓存期内的新订单不会立即反映在矩阵中，下单时仍由 OrderService 做冲突检查
+ *
+ * 多分片时在每个分片上统计，只取该分片区域内门店的结果合并
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityMatrixService {
+
+    private final VehicleRepository vehicleRepository;
+    private final StoreRepository storeRepository;
+    private final CategoryRepository categoryRepository;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
+
+    /**
+     * 时间段 -> 缓存的矩阵
+     */
+    private final Map<Window, CachedMatrix> cache = new ConcurrentHashMap<>();
+
+    @Value("${availability.matrix.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${availability.matrix.cache-max-entries:500}")
+    private int cacheMaxEntries;
+
+    private record Window(LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
+    private record CachedMatrix(AvailabilityMatrixDTO matrix, long expiresAt) {
+    }
+
+    /**
+     * 查询门店 × 分类可用车辆矩阵
+     *
+     * @param startTime 租赁开始时间
+     * @param endTime 预计还车时间
+     * @return 可用车辆矩阵
+     */
+    @Transactional(readOnly = true)
+    public AvailabilityMatrixDTO getAvailabilityMatrix(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime.isAfter(endTime)) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        if (startTime.isBefore(LocalDateTime.now())) {
+            throw new BusinessException("开始时间不能早于当前时间");
+        }
+
+        Window window = new Window(startTime, endTime);
+        long now = System.currentTimeMillis();
+        CachedMatrix cached = cache.get(window);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.matrix();
+        }
+
+        AvailabilityMatrixDTO matrix = buildMatrix(startTime, endTime);
+        putCache(window, new CachedMatrix(matrix, now + cacheTtlSeconds * 1000));
+        return matrix;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private AvailabilityMatrixDTO buildMatrix(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Store> stores = storeRepository.findAll(Sort.by("id"));
+        List<Category> categories = categoryRepository.findAll(Sort.by("id"));
+
+        Map<Integer, Integer> storeIndex = new HashMap<>();
+        for (int i = 0; i < stores.size(); i++) {
+            storeIndex.put(stores.get(i).getId(), i);
+        }
+        Map<Integer, Integer> categoryIndex = new HashMap<>();
+        for (int j = 0; j < categories.size(); j++) {
+            categoryIndex.put(categories.get(j).getId(), j);
+        }
+
+        int[][] counts = new int[stores.size()][categories.size()];
+        int total = 0;
+        List<Object[]> available = shardRouter.scatterByShard(shard ->
+                vehicleRepository.countAvailableVehiclesByStoreAndCategory(startTime, endTime).stream()
+                        .filter(row -> shardDirectory.ownsStore(shard, (Integer) row[0]))
+                        .toList());
+        for (Object[] row : available) {
+            Integer i = storeIndex.get((Integer) row[0]);
+            Integer j = categoryIndex.get((Integer) row[1]);
+            if (i != null && j != null) {
+                int count = ((Number) row[2]).intValue();
+                counts[i][j] = count;
+                total += count;
+            }
+        }
+
+        List<List<Integer>> rows = new ArrayList<>(stores.size());
+        for (int[] storeCounts : counts) {
+            List<Integer> row = new ArrayList<>(storeCounts.length);
+            for (int count : storeCounts) {
+                row.add(count);
+            }
+            rows.add(row);
+        }
+        return new AvailabilityMatrixDTO(startTime, endTime, stores, categories, rows, total, LocalDateTime.now());
+    }
+
+    /**
+     * 写入缓存，超过容量时先清理过期项，仍然超过则不缓存
+     */
+    private void putCache(Window window, CachedMatrix value) {
+        if (cache.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (cache.size() >= cacheMaxEntries) {
+                return;
+            }
+        }
+        cache.put(window, value);
+    }
+}
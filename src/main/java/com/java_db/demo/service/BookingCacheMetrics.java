@@ -0,0 +1,69 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+/**
+ * 下单参考数据缓存指标
+ * 统计每次下单时用户、门店查询有多少由二级缓存命中（即节省的数据库往返次数）
+ *
+ * 指标（/actuator/metrics）：
+ * - booking.reference.lookups{source=cache|database}：参考数据查询次数
+ * - booking.round.trips.saved：每次下单节省的数据库往返次数分布
+ * 全局缓存命中情况见 hibernate.second.level.cache.requests / hibernate.cache.query.requests
+ */
+@Service
+public class BookingCacheMetrics {
+
+    private final Cache cache;
+    private final Counter cacheLookups;
+    private final Counter databaseLookups;
+    private final DistributionSummary roundTripsSaved;
+
+    public BookingCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.cache = entityManagerFactory.getCache();
+        this.cacheLookups = Counter.builder("booking.reference.lookups")
+                .tag("source", "cache").register(meterRegistry);
+        this.databaseLookups = Counter.builder("booking.reference.lookups")
+                .tag("source", "database").register(meterRegistry);
+        this.roundTripsSaved = DistributionSummary.builder("booking.round.trips.saved")
+                .description("每次下单由二级缓存命中的参考数据查询数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在查询参考数据前调用，记录其中已在二级缓存中的数量
+     * 取车、还车门店相同时只计一次（第二次查询由持久化上下文命中）
+     *
+     * @param userId 用户 ID
+     * @param pickupStoreId 取车门店 ID
+     * @param returnStoreId 还车门店 ID
+     */
+    public void recordReferenceLookups(Integer userId, Integer pickupStoreId, Integer returnStoreId) {
+        int lookups = 2;
+        int saved = 0;
+        if (cache.contains(User.class, userId)) {
+            saved++;
+        }
+        if (cache.contains(Store.class, pickupStoreId)) {
+            saved++;
+        }
+        if (!Objects.equals(pickupStoreId, returnStoreId)) {
+            lookups++;
+            if (cache.contains(Store.class, returnStoreId)) {
+                saved++;
+            }
+        }
+        cacheLookups.increment(saved);
+        databaseLookups.increment(lookups - saved);
+        roundTripsSaved.record(saved);
+    }
+}
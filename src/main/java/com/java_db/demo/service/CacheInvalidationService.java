@@ -0,0 +1,481 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.entity.User;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 跨实例缓存失效服务
+ * 多实例部署时，写操作提交后通过 PostgreSQL NOTIFY 通知其他实例清除本地缓存，无需额外的消息中间件
+ *
+ * - 发送：同一事务内的失效合并为一条消息，提交后只放入有界队列（回滚不发送），提交线程不访问数据库；
+ *   发送线程用一个专用连接取出队列中的消息，每批一条语句调用 pg_notify。消息格式：
+ *   实例ID|缓存名[:键,键]|缓存名...，不带键表示清除整个缓存；超过 NOTIFY 长度上限时去掉键。
+ *   队列已满或发送失败时，消息合并为清除整个缓存，随下一批发送
+ * - 接收：每个实例用一个专用连接 LISTEN，收到其他实例的消息后调用订阅该缓存的清除方法（忽略自己发出的消息）
+ * - 断线：按 cache.invalidation.reconnect-ms 重连，重连后清除全部缓存（断线期间的通知已丢失）；
+ *   专用连接设置连接超时和读超时（读超时须大于 poll-ms），数据库无响应时不会一直阻塞
+ *
+ * 缓存名：资源集合（stores、vehicles、orders 等，见 ResourceVersionService.Resource#cacheName）、
+ * users、vehicle-calendar；门店、分类、用户的 Hibernate 二级缓存在这里订阅，其他缓存由所属服务订阅
+ *
+ * 指标：cache.invalidation.messages{direction=sent|received|coalesced}
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService {
+
+    /**
+     * 用户（Hibernate 二级缓存，键为用户 ID）
+     */
+    public static final String USERS = "users";
+
+    /**
+     * 车辆可用日历（键为车辆 ID）
+     */
+    public static final String VEHICLE_CALENDAR = "vehicle-calendar";
+
+    /**
+     * NOTIFY 消息长度上限为 8000 字节，留出余量
+     */
+    static final int MAX_PAYLOAD_BYTES = 7900;
+
+    /**
+     * 线程名，同时作为专用连接的 application_name
+     */
+    static final String LISTENER_NAME = "cache-invalidation-listener";
+    static final String PUBLISHER_NAME = "cache-invalidation-publisher";
+
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong() & 0xffffffffffL);
+
+    /**
+     * 缓存名 -> 清除方法（参数为键，空集合表示清除整个缓存）
+     */
+    private final Map<String, List<Consumer<Set<String>>>> subscribers = new ConcurrentHashMap<>();
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Cache hibernateCache;
+    private final Counter sentMessages;
+    private final Counter receivedMessages;
+    private final Counter coalescedMessages;
+
+    /**
+     * 待发送的消息（每项为一个事务合并后的失效）
+     */
+    private final BlockingQueue<Map<String, Set<String>>> pending;
+
+    /**
+     * 队列已满或发送失败的消息涉及的缓存名，随下一批作为清除整个缓存发送
+     */
+    private final Set<String> coalescedCaches = ConcurrentHashMap.newKeySet();
+
+    private volatile Thread listener;
+    private volatile Thread publisher;
+    private volatile boolean running;
+
+    @Value("${cache.invalidation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.invalidation.channel:cache_invalidation}")
+    private String channel;
+
+    @Value("${cache.invalidation.poll-ms:500}")
+    private int pollMs;
+
+    @Value("${cache.invalidation.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    @Value("${cache.invalidation.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${cache.invalidation.connect-timeout-seconds:5}")
+    private int connectTimeoutSeconds;
+
+    @Value("${cache.invalidation.socket-timeout-seconds:10}")
+    private int socketTimeoutSeconds;
+
+    public CacheInvalidationService(DataSourceProperties dataSourceProperties,
+                                    EntityManagerFactory entityManagerFactory,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${cache.invalidation.queue-capacity:1000}") int queueCapacity) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.hibernateCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.sentMessages = Counter.builder("cache.invalidation.messages")
+                .tag("direction", "sent").register(meterRegistry);
+        this.receivedMessages = Counter.builder("cache.invalidation.messages")
+                .tag("direction", "received").register(meterRegistry);
+        this.coalescedMessages = Counter.builder("cache.invalidation.messages")
+                .tag("direction", "coalesced").register(meterRegistry);
+
+        // 先于资源版本号订阅：其他实例先清除数据缓存，再递增版本号
+        subscribe(Resource.STORES.cacheName(), keys -> evictEntities(Store.class, keys, true));
+        subscribe(Resource.CATEGORIES.cacheName(), keys -> evictEntities(Category.class, keys, true));
+        subscribe(USERS, keys -> evictEntities(User.class, keys, false));
+    }
+
+    /**
+     * 启动监听线程和发送线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || listener != null) {
+            return;
+        }
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("cache.invalidation.channel 只能包含小写字母、数字和下划线：" + channel);
+        }
+        if (TimeUnit.SECONDS.toMillis(socketTimeoutSeconds) <= pollMs) {
+            throw new IllegalStateException("cache.invalidation.socket-timeout-seconds 须大于 poll-ms");
+        }
+        running = true;
+        listener = Thread.ofPlatform().name(LISTENER_NAME).daemon(true).start(this::listenLoop);
+        publisher = Thread.ofPlatform().name(PUBLISHER_NAME).daemon(true).start(this::publishLoop);
+        log.info("跨实例缓存失效已开启：实例 {}，通道 {}", instanceId, channel);
+    }
+
+    /**
+     * 停止监听线程和发送线程（发送线程先发送队列中剩余的消息）
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : new Thread[]{listener, publisher}) {
+            if (thread != null) {
+                thread.join(pollMs * 2L + TimeUnit.SECONDS.toMillis(socketTimeoutSeconds));
+            }
+        }
+    }
+
+    /**
+     * 订阅其他实例发来的缓存失效
+     *
+     * @param cache 缓存名
+     * @param evictor 清除方法，参数为键（空集合表示清除整个缓存）
+     */
+    public void subscribe(String cache, Consumer<Set<String>> evictor) {
+        subscribers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(evictor);
+    }
+
+    /**
+     * 在当前事务提交后通知其他实例清除缓存（无事务时立即通知）
+     * 同一事务内的多次调用合并为一条消息；本实例的缓存仍由调用方自行清除
+     *
+     * @param cache 缓存名
+     * @param keys 失效的键，不传表示整个缓存
+     */
+    public void publishAfterCommit(String cache, Object... keys) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Set<String>> invalidations = new LinkedHashMap<>();
+            merge(invalidations, cache, keys);
+            publish(invalidations);
+            return;
+        }
+        PendingInvalidations pending = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(PendingInvalidations.class::isInstance)
+                .map(PendingInvalidations.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    PendingInvalidations created = new PendingInvalidations();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+        merge(pending.invalidations, cache, keys);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 当前事务中待发送的缓存失效，提交后发送
+     */
+    private class PendingInvalidations implements TransactionSynchronization {
+
+        private final Map<String, Set<String>> invalidations = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            publish(invalidations);
+        }
+    }
+
+    /**
+     * 合并失效的键，已标记清除整个缓存的保持不变
+     */
+    private void merge(Map<String, Set<String>> invalidations, String cache, Object... keys) {
+        Set<String> existing = invalidations.get(cache);
+        if (keys.length == 0) {
+            invalidations.put(cache, Set.of());
+        } else if (existing == null) {
+            Set<String> added = new LinkedHashSet<>();
+            for (Object key : keys) {
+                added.add(String.valueOf(key));
+            }
+            invalidations.put(cache, added);
+        } else if (!existing.isEmpty()) {
+            for (Object key : keys) {
+                existing.add(String.valueOf(key));
+            }
+        }
+    }
+
+    /**
+     * 放入发送队列，队列已满时合并为清除整个缓存
+     */
+    private void publish(Map<String, Set<String>> invalidations) {
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        if (!pending.offer(invalidations)) {
+            coalescedCaches.addAll(invalidations.keySet());
+            coalescedMessages.increment();
+        }
+    }
+
+    /**
+     * 发送线程：每次取出一批消息，一条语句发送；失败时重连，本批合并为清除整个缓存
+     */
+    private void publishLoop() {
+        Connection connection = null;
+        List<Map<String, Set<String>>> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Map<String, Set<String>> first = pending.poll(pollMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch, maxBatchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            List<String> payloads = payloads(batch);
+            if (payloads.isEmpty()) {
+                continue;
+            }
+            try {
+                if (connection == null) {
+                    connection = connect(PUBLISHER_NAME);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload")) {
+                    statement.setString(1, channel);
+                    statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+                    statement.execute();
+                }
+                sentMessages.increment(payloads.size());
+            } catch (SQLException e) {
+                // 下一批清除整个缓存；其他实例在此之前按各自的过期时间兜底
+                log.warn("发送缓存失效通知失败（{} 条），{} ms 后重试：{}", payloads.size(), reconnectMs, e.getMessage());
+                batch.forEach(invalidations -> coalescedCaches.addAll(invalidations.keySet()));
+                closeQuietly(connection);
+                connection = null;
+                if (!running || !sleep(reconnectMs)) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    /**
+     * 本批的消息（相同的消息只发送一次），合并过的缓存名作为一条清除整个缓存的消息
+     */
+    private List<String> payloads(List<Map<String, Set<String>>> batch) {
+        Set<String> payloads = new LinkedHashSet<>();
+        Map<String, Set<String>> coalesced = new LinkedHashMap<>();
+        for (Iterator<String> iterator = coalescedCaches.iterator(); iterator.hasNext(); ) {
+            coalesced.put(iterator.next(), Set.of());
+            iterator.remove();
+        }
+        if (!coalesced.isEmpty()) {
+            payloads.add(encode(instanceId, coalesced));
+        }
+        batch.forEach(invalidations -> payloads.add(encode(instanceId, invalidations)));
+        return new ArrayList<>(payloads);
+    }
+
+    /**
+     * 编码消息，超过 NOTIFY 长度上限时去掉键（清除整个缓存）
+     */
+    static String encode(String instanceId, Map<String, Set<String>> invalidations) {
+        String payload = encode(instanceId, invalidations, true);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            payload = encode(instanceId, invalidations, false);
+        }
+        return payload;
+    }
+
+    private static String encode(String instanceId, Map<String, Set<String>> invalidations, boolean withKeys) {
+        StringBuilder payload = new StringBuilder(instanceId);
+        invalidations.forEach((cache, keys) -> {
+            payload.append('|').append(cache);
+            if (withKeys && !keys.isEmpty()) {
+                payload.append(':').append(String.join(",", keys));
+            }
+        });
+        return payload.toString();
+    }
+
+    private void listenLoop() {
+        boolean lost = false;
+        while (running) {
+            try (Connection connection = connect(LISTENER_NAME)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (lost) {
+                    log.info("缓存失效监听已重连，清除全部本地缓存");
+                    subscribers.values().forEach(evictors -> evictors.forEach(evictor -> evict(evictor, Set.of())));
+                    lost = false;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                lost = true;
+                log.warn("缓存失效监听连接断开，{} ms 后重连：{}", reconnectMs, e.getMessage());
+                if (!sleep(reconnectMs)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理收到的消息（忽略本实例发出的消息）
+     */
+    void receive(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts[0].equals(instanceId)) {
+            return;
+        }
+        receivedMessages.increment();
+        for (int i = 1; i < parts.length; i++) {
+            int colon = parts[i].indexOf(':');
+            String cache = colon < 0 ? parts[i] : parts[i].substring(0, colon);
+            Set<String> keys = colon < 0 ? Set.of() : Set.of(parts[i].substring(colon + 1).split(","));
+            subscribers.getOrDefault(cache, List.of()).forEach(evictor -> evict(evictor, keys));
+        }
+    }
+
+    private void evict(Consumer<Set<String>> evictor, Set<String> keys) {
+        try {
+            evictor.accept(keys);
+        } catch (RuntimeException e) {
+            log.warn("清除本地缓存失败", e);
+        }
+    }
+
+    /**
+     * 清除实体的二级缓存；门店、分类有缓存的查询，同时清除查询缓存
+     */
+    private void evictEntities(Class<?> entityClass, Set<String> keys, boolean queries) {
+        if (keys.isEmpty()) {
+            hibernateCache.evict(entityClass);
+        } else {
+            keys.forEach(key -> hibernateCache.evict(entityClass, Integer.valueOf(key)));
+        }
+        if (queries) {
+            hibernateCache.evictQueryRegions();
+        }
+    }
+
+    /**
+     * 本实例的 ID（消息的第一段）
+     */
+    String instanceId() {
+        return instanceId;
+    }
+
+    /**
+     * 打开专用连接（不占用连接池），设置连接超时、读超时
+     */
+    private Connection connect(String applicationName) throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("connectTimeout", String.valueOf(connectTimeoutSeconds));
+        properties.setProperty("socketTimeout", String.valueOf(socketTimeoutSeconds));
+        properties.setProperty("ApplicationName", applicationName);
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    /**
+     * 等待重试，被中断时返回 false
+     */
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("关闭缓存失效连接失败", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.java_db.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 条件请求服务（ETag / If-None-Match）
+ * 1. ETag 由响应依赖的资源版本号生成（见 ResourceVersionService）
+ * 2. If-None-Match 命中时直接返回 304，不执行查询、不序列化
+ * 3. 未命中时按缓存键缓存序列化后的 JSON 字节，同一版本内的后续请求直接返回字节；
+ *    缓存按条数上限淘汰最近最少使用的键（报表的缓存键含日期参数，一次性的键很多），并在写入后过期
+ *
+ * 响应带 Cache-Control: no-cache，浏览器每次都会携带 ETag 重新验证
+ */
+@Service
+public class ConditionalResponseService {
+
+    private final ResourceVersionService resourceVersionService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 缓存键 -> 序列化后的响应
+     */
+    private final Cache<String, CachedBody> bodies;
+
+    private record CachedBody(String etag, byte[] json) {
+    }
+
+    public ConditionalResponseService(ResourceVersionService resourceVersionService,
+                                      ObjectMapper objectMapper,
+                                      @Value("${http.conditional.cache-max-entries:200}") long cacheMaxEntries,
+                                      @Value("${http.conditional.cache-ttl-seconds:600}") long cacheTtlSeconds) {
+        this.resourceVersionService = resourceVersionService;
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * 生成支持条件请求的 JSON 响应
+     *
+     * @param ifNoneMatch 请求头 If-None-Match（可为空）
+     * @param cacheKey 缓存键，不同参数的响应需使用不同的键
+     * @param body 生成响应体（仅在 ETag 不匹配且无缓存时调用）
+     * @param resources 响应依赖的资源集合
+     * @return 304 或带 ETag 的 200 响应
+     */
+    public ResponseEntity<byte[]> respond(String ifNoneMatch, String cacheKey, Supplier<?> body,
+                                          Resource... resources) {
+        String etag = resourceVersionService.etag(resources);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        CachedBody cached = bodies.getIfPresent(cacheKey);
+        byte[] json;
+        if (cached != null && cached.etag().equals(etag)) {
+            json = cached.json();
+        } else {
+            json = objectMapper.writeValueAsBytes(body.get());
+            bodies.put(cacheKey, new CachedBody(etag, json));
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * If-None-Match 使用弱比较：忽略 W/ 前缀，支持多个值和 *
+     */
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,364 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.dto.FleetRebalancePlanDTO;
+import com.java_db.demo.dto.FleetRebalancePlanDTO.CategoryPlan;
+import com.java_db.demo.dto.FleetRebalancePlanDTO.Transfer;
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.repository.CategoryRepository;
+import com.java_db.demo.repository.OrderRepository;
+import com.java_db.demo.repository.StoreRepository;
+import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ReferenceReplicator;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.util.KdTree;
+import com.java_db.demo.util.MinCostFlow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 车辆调拨规划服务
+ * 异地还车会持续把车辆从部分门店带走，按规划时段内的供需为每个分类计算门店间调拨方案
+ *
+ * 门店 s、分类 c 的供需（规划时段 = 当前时间起 horizon-hours 小时）：
+ * - 供给 = 空闲车辆 + 调往本店的调拨中车辆 + 时段内预计还到本店的使用中车辆
+ * - 需求 = 历史日均订单（最近 lookback-days 天）折算到时段内的订单数 - 时段内已有预订（已占用车辆）
+ * - 只有空闲车辆可以调出：富余 = min(空闲, 供给 - 需求)，缺口 = 需求 - 供给
+ *
+ * 每个分类独立建图求最小费用最大流：源点 → 富余门店 → 缺车门店 → 汇点，
+ * 门店间边的费用为球面距离，超过 max-distance-km 的门店之间不调拨。
+ * 结果是满足尽可能多缺口时总调拨距离最短的方案；各分类在线程池中并行求解。
+ * 没有坐标的门店不参与调拨
+ *
+ * 执行调拨时车辆状态改为调拨中（3）、门店改为目的门店，车辆到店后由管理员将状态改回空闲
+ *
+ * 多分片时供需数据在每个分片上查询后合并（车辆只取归属该分片的门店），
+ * 调拨在调出门店的归属分片上执行，提交后复制到其他分片
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.BACKGROUND)
+public class FleetRebalanceService {
+
+    private static final String TRANSFER_SQL =
+            "UPDATE vehicles SET status = 3, store_id = ?, updated_at = LOCALTIMESTAMP " +
+            "WHERE id = ? AND store_id = ? AND status = 0";
+
+    private static final int SOURCE = 0;
+    private static final int SINK = 1;
+
+    private final StoreRepository storeRepository;
+    private final CategoryRepository categoryRepository;
+    private final VehicleRepository vehicleRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersionService resourceVersionService;
+    private final ThreadPoolTaskExecutor fleetRebalanceExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
+    private final ReferenceReplicator referenceReplicator;
+
+    @Value("${fleet.rebalance.horizon-hours:24}")
+    private int horizonHours;
+
+    @Value("${fleet.rebalance.lookback-days:28}")
+    private int lookbackDays;
+
+    @Value("${fleet.rebalance.max-distance-km:300}")
+    private double maxDistanceKm;
+
+    /**
+     * 有坐标的门店
+     */
+    private record Site(Integer storeId, String name, double latitude, double longitude) {
+    }
+
+    /**
+     * 单个分类各门店的供需数据（门店 ID -> 数量）
+     */
+    private static class CategoryInput {
+        final Map<Integer, List<Integer>> idleVehicles = new HashMap<>();
+        final Map<Integer, Integer> inTransit = new HashMap<>();
+        final Map<Integer, Long> bookings = new HashMap<>();
+        final Map<Integer, Long> reserved = new HashMap<>();
+        final Map<Integer, Long> returning = new HashMap<>();
+    }
+
+    public FleetRebalanceService(StoreRepository storeRepository,
+                                 CategoryRepository categoryRepository,
+                                 VehicleRepository vehicleRepository,
+                                 OrderRepository orderRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 ResourceVersionService resourceVersionService,
+                                 @Qualifier("fleetRebalanceExecutor") ThreadPoolTaskExecutor fleetRebalanceExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 ShardDirectory shardDirectory,
+                                 ShardRouter shardRouter,
+                                 ReferenceReplicator referenceReplicator) {
+        this.storeRepository = storeRepository;
+        this.categoryRepository = categoryRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceVersionService = resourceVersionService;
+        this.fleetRebalanceExecutor = fleetRebalanceExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardDirectory = shardDirectory;
+        this.shardRouter = shardRouter;
+        this.referenceReplicator = referenceReplicator;
+    }
+
+    /**
+     * 计算调拨方案（不执行）
+     *
+     * @return 调拨方案
+     */
+    public FleetRebalancePlanDTO plan() {
+        return compute(false);
+    }
+
+    /**
+     * 计算调拨方案并执行：一次批量更新把方案中的车辆标记为调拨中并改到目的门店
+     * 计算后已被租出或移走的车辆跳过，不影响其他车辆
+     *
+     * @return 执行后的调拨方案（只包含实际调拨的车辆）
+     */
+    public FleetRebalancePlanDTO apply() {
+        return compute(true);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private FleetRebalancePlanDTO compute(boolean apply) {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Site> sites = storeRepository.findAll().stream()
+                .filter(store -> store.getLatitude() != null && store.getLongitude() != null)
+                .map(store -> new Site(store.getId(), store.getName(), store.getLatitude(), store.getLongitude()))
+                .toList();
+        List<Category> categories = categoryRepository.findAll();
+        Map<Integer, CategoryInput> inputs = loadInputs(now);
+
+        List<CompletableFuture<CategoryPlan>> futures = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            CategoryInput input = inputs.getOrDefault(category.getId(), new CategoryInput());
+            futures.add(CompletableFuture.supplyAsync(() -> planCategory(category, input, sites), fleetRebalanceExecutor));
+        }
+        List<CategoryPlan> plans = futures.stream().map(CompletableFuture::join).toList();
+
+        int planned = plans.stream().mapToInt(CategoryPlan::getMoved).sum();
+        int applied = apply ? applyTransfers(plans) : 0;
+
+        int unmet = 0;
+        double distanceKm = 0;
+        for (CategoryPlan plan : plans) {
+            unmet += plan.getDeficit() - plan.getMoved();
+            distanceKm += plan.getDistanceKm();
+        }
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        log.info("调拨规划完成：{} 个分类，计划调拨 {} 辆{}，未满足缺口 {}，耗时 {} ms",
+                plans.size(), planned, apply ? "（实际调拨 " + applied + " 辆）" : "", unmet, elapsedMs);
+        return new FleetRebalancePlanDTO(now, horizonHours, lookbackDays, apply, planned, applied,
+                unmet, roundKm(distanceKm), plans, elapsedMs);
+    }
+
+    /**
+     * 一次加载全部分类的供需数据，按分类分组（各分片的订单统计按门店累加）
+     */
+    private Map<Integer, CategoryInput> loadInputs(LocalDateTime now) {
+        Map<Integer, CategoryInput> inputs = new HashMap<>();
+        List<Object[]> fleet = shardRouter.scatterByShard(shard -> vehicleRepository.findRebalanceFleet().stream()
+                .filter(row -> shardDirectory.ownsStore(shard, (Integer) row[1]))
+                .toList());
+        for (Object[] row : fleet) {
+            CategoryInput input = inputs.computeIfAbsent((Integer) row[2], id -> new CategoryInput());
+            Integer storeId = (Integer) row[1];
+            if ((Integer) row[3] == 0) {
+                input.idleVehicles.computeIfAbsent(storeId, id -> new ArrayList<>()).add((Integer) row[0]);
+            } else {
+                input.inTransit.merge(storeId, 1, Integer::sum);
+            }
+        }
+        for (Object[] row : shardRouter.scatter(() ->
+                orderRepository.countBookingsByPickupStoreAndCategory(now.minusDays(lookbackDays), now))) {
+            inputs.computeIfAbsent((Integer) row[1], id -> new CategoryInput())
+                    .bookings.merge((Integer) row[0], ((Number) row[2]).longValue(), Long::sum);
+        }
+        for (Object[] row : shardRouter.scatter(() ->
+                orderRepository.countPendingByStoreAndCategory(now.plusHours(horizonHours)))) {
+            CategoryInput input = inputs.computeIfAbsent((Integer) row[1], id -> new CategoryInput());
+            Map<Integer, Long> target = (Integer) row[2] == 0 ? input.reserved : input.returning;
+            target.merge((Integer) row[0], ((Number) row[3]).longValue(), Long::sum);
+        }
+        return inputs;
+    }
+
+    /**
+     * 求解单个分类的最小费用调拨方案
+     */
+    private CategoryPlan planCategory(Category category, CategoryInput input, List<Site> sites) {
+        int n = sites.size();
+        int[] surplus = new int[n];
+        int[] deficit = new int[n];
+        double windowRatio = horizonHours / (lookbackDays * 24.0);
+        for (int i = 0; i < n; i++) {
+            Integer storeId = sites.get(i).storeId();
+            int idle = input.idleVehicles.getOrDefault(storeId, List.of()).size();
+            long supply = idle + input.inTransit.getOrDefault(storeId, 0) + input.returning.getOrDefault(storeId, 0L);
+            double forecast = input.bookings.getOrDefault(storeId, 0L) * windowRatio;
+            long demand = (long) Math.ceil(Math.max(0, forecast - input.reserved.getOrDefault(storeId, 0L)));
+            if (supply > demand) {
+                surplus[i] = (int) Math.min(idle, supply - demand);
+            } else {
+                deficit[i] = (int) (demand - supply);
+            }
+        }
+
+        // 节点：0 源点，1 汇点，2 + i 门店 i
+        MinCostFlow network = new MinCostFlow(n + 2);
+        List<int[]> routes = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (surplus[i] > 0) {
+                network.addEdge(SOURCE, 2 + i, surplus[i], 0);
+            }
+            if (deficit[i] > 0) {
+                network.addEdge(2 + i, SINK, deficit[i], 0);
+            }
+        }
+        for (int from = 0; from < n; from++) {
+            if (surplus[from] == 0) {
+                continue;
+            }
+            for (int to = 0; to < n; to++) {
+                if (deficit[to] == 0) {
+                    continue;
+                }
+                Site a = sites.get(from);
+                Site b = sites.get(to);
+                double km = KdTree.distanceKm(a.latitude(), a.longitude(), b.latitude(), b.longitude());
+                if (km <= maxDistanceKm) {
+                    // 费用按米取整
+                    int edge = network.addEdge(2 + from, 2 + to, surplus[from], Math.round(km * 1000));
+                    routes.add(new int[]{edge, from, to});
+                    distances.add(km);
+                }
+            }
+        }
+        network.solve(SOURCE, SINK);
+
+        // 按车辆 ID 顺序从调出门店依次取车
+        int[] taken = new int[n];
+        List<Transfer> transfers = new ArrayList<>();
+        int moved = 0;
+        double distanceKm = 0;
+        for (int r = 0; r < routes.size(); r++) {
+            int[] route = routes.get(r);
+            int count = (int) network.flow(route[0]);
+            if (count == 0) {
+                continue;
+            }
+            Site from = sites.get(route[1]);
+            Site to = sites.get(route[2]);
+            List<Integer> idle = input.idleVehicles.get(from.storeId());
+            List<Integer> vehicleIds = new ArrayList<>(idle.subList(taken[route[1]], taken[route[1]] + count));
+            taken[route[1]] += count;
+            transfers.add(new Transfer(from.storeId(), from.name(), to.storeId(), to.name(),
+                    roundKm(distances.get(r)), vehicleIds));
+            moved += count;
+            distanceKm += distances.get(r) * count;
+        }
+        int totalSurplus = 0;
+        int totalDeficit = 0;
+        for (int i = 0; i < n; i++) {
+            totalSurplus += surplus[i];
+            totalDeficit += deficit[i];
+        }
+        return new CategoryPlan(category.getId(), category.getName(), totalSurplus, totalDeficit,
+                moved, roundKm(distanceKm), transfers);
+    }
+
+    /**
+     * 一次批量更新执行全部调拨（调出门店的每个归属分片一个事务），从方案中移除未能调拨的车辆
+     *
+     * @return 实际调拨的车辆数
+     */
+    private int applyTransfers(List<CategoryPlan> plans) {
+        // 分片 -> 该分片上的调拨在全部调拨中的位置
+        Map<String, List<Integer>> positions = new TreeMap<>();
+        List<Object[]> args = new ArrayList<>();
+        for (CategoryPlan plan : plans) {
+            for (Transfer transfer : plan.getTransfers()) {
+                String shard = shardDirectory.shardForStore(transfer.getFromStoreId(), true);
+                for (Integer vehicleId : transfer.getVehicleIds()) {
+                    positions.computeIfAbsent(shard, key -> new ArrayList<>()).add(args.size());
+                    args.add(new Object[]{transfer.getToStoreId(), vehicleId, transfer.getFromStoreId()});
+                }
+            }
+        }
+        if (args.isEmpty()) {
+            return 0;
+        }
+        int[] updated = new int[args.size()];
+        positions.forEach((shard, shardPositions) -> {
+            List<Object[]> shardArgs = shardPositions.stream().map(args::get).toList();
+            int[] shardUpdated = shardRouter.callOnShard(shard, () -> transactionTemplate.execute(status -> {
+                resourceVersionService.bumpAfterCommit(Resource.VEHICLES);
+                referenceReplicator.replicateAfterCommit("vehicles",
+                        shardArgs.stream().map(arg -> (Integer) arg[1]).toList());
+                return jdbcTemplate.batchUpdate(TRANSFER_SQL, shardArgs);
+            }));
+            for (int i = 0; i < shardUpdated.length; i++) {
+                updated[shardPositions.get(i)] = shardUpdated[i];
+            }
+        });
+
+        int applied = 0;
+        int index = 0;
+        for (CategoryPlan plan : plans) {
+            int moved = 0;
+            double distanceKm = 0;
+            for (Transfer transfer : plan.getTransfers()) {
+                List<Integer> vehicleIds = new ArrayList<>();
+                for (Integer vehicleId : transfer.getVehicleIds()) {
+                    if (updated[index++] > 0) {
+                        vehicleIds.add(vehicleId);
+                    } else {
+                        log.info("车辆 {} 已不在门店 {} 空闲，跳过调拨", vehicleId, transfer.getFromStoreId());
+                    }
+                }
+                transfer.setVehicleIds(vehicleIds);
+                moved += vehicleIds.size();
+                distanceKm += transfer.getDistanceKm() * vehicleIds.size();
+            }
+            plan.getTransfers().removeIf(transfer -> transfer.getVehicleIds().isEmpty());
+            plan.setMoved(moved);
+            plan.setDistanceKm(roundKm(distanceKm));
+            applied += moved;
+        }
+        return applied;
+    }
+
+    private static double roundKm(double km) {
+        return Math.round(km * 10) / 10.0;
+    }
+}
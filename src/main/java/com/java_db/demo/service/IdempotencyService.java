@@ -0,0 +1,204 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.entity.IdempotencyRecord;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.repository.IdempotencyRecordRepository;
+import com.java_db.demo.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务（Idempotency-Key 请求头）
+ * 客户端超时重试下单、支付请求时携带相同的幂等键，重复请求直接返回首次响应，不重复执行事务
+ *
+ * 实现：
+ * 1. 已完成的请求：idempotency_keys 表中有未过期记录，直接返回记录的响应
+ * 2. 处理中的请求：内存中按幂等键哈希分段记录处理中的键，同一实例内的并发重复请求返回 409
+ * 3. 新请求：业务操作与幂等键记录在同一事务中提交；多实例并发时插入冲突的一方回滚并返回已提交的响应
+ * 4. 幂等键已用于其他请求（接口或请求参数不同）：返回 422，不执行业务操作
+ *
+ * 业务失败（抛出异常）时不记录幂等键，客户端可以用同一幂等键重试
+ * 多分片时幂等键记录在业务操作所在的分片（如下单为取车门店所在分片）
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.BOOKING)
+public class IdempotencyService {
+
+    /**
+     * 请求头名称
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    /**
+     * 重放首次响应时附加的响应头
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int STRIPES = 64;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    /**
+     * 处理中的幂等键，按哈希分段，各段独立加锁
+     */
+    private final List<Set<String>> inFlight = new ArrayList<>(STRIPES);
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    /**
+     * 同一幂等键已被其他实例提交，回滚本次事务
+     */
+    private static class KeyTakenException extends RuntimeException {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              ShardRouter shardRouter) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        for (int i = 0; i < STRIPES; i++) {
+            inFlight.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * 执行请求；携带幂等键时保证同一请求只执行一次
+     *
+     * @param key 幂等键（为空时直接执行）
+     * @param operation 接口（如 POST /api/orders）
+     * @param request 请求参数，用于校验重复请求与首次请求一致
+     * @param action 业务操作，返回值序列化为 JSON 响应体
+     * @return 首次执行的响应；重复请求带 Idempotent-Replayed: true
+     */
+    public ResponseEntity<byte[]> execute(String key, String operation, Object request, Supplier<?> action) {
+        if (key == null || key.isBlank()) {
+            return json(HttpStatus.OK, objectMapper.writeValueAsBytes(action.get()), false);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key 长度不能超过 " + MAX_KEY_LENGTH);
+        }
+        String requestHash = hash(operation, request);
+
+        ResponseEntity<byte[]> replay = replay(key, operation, requestHash);
+        if (replay != null) {
+            return replay;
+        }
+        Set<String> stripe = inFlight.get(Math.floorMod(key.hashCode(), STRIPES));
+        synchronized (stripe) {
+            if (!stripe.add(key)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).header("Retry-After", "1").build();
+            }
+        }
+        try {
+            // 加入处理中之前首次请求可能刚好完成
+            replay = replay(key, operation, requestHash);
+            if (replay != null) {
+                return replay;
+            }
+            byte[] body = transactionTemplate.execute(status -> {
+                byte[] json = objectMapper.writeValueAsBytes(action.get());
+                LocalDateTime now = LocalDateTime.now();
+                int inserted = idempotencyRecordRepository.insertIfAbsent(key, operation, requestHash,
+                        HttpStatus.OK.value(), new String(json, StandardCharsets.UTF_8), now, now.plusHours(ttlHours));
+                if (inserted == 0) {
+                    throw new KeyTakenException();
+                }
+                return json;
+            });
+            return json(HttpStatus.OK, body, false);
+        } catch (KeyTakenException e) {
+            log.info("幂等键 {} 已被并发请求提交，返回已提交的响应", key);
+            replay = replay(key, operation, requestHash);
+            if (replay == null) {
+                throw new BusinessException("幂等请求处理冲突，请重试");
+            }
+            return replay;
+        } finally {
+            synchronized (stripe) {
+                stripe.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 定时清理过期的幂等键记录（每个分片）
+     */
+    @Workload(WorkloadType.BACKGROUND)
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        shardRouter.forEachShard(shard -> {
+            int deleted = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            if (deleted > 0) {
+                log.info("清理分片 {} 过期幂等键 {} 条", shard, deleted);
+            }
+        });
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 有未过期记录时返回记录的响应（与记录的请求不一致时返回 422），否则返回 null
+     */
+    private ResponseEntity<byte[]> replay(String key, String operation, String requestHash) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+        if (record == null || !record.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        if (!record.getOperation().equals(operation) || !record.getRequestHash().equals(requestHash)) {
+            log.info("幂等键 {} 已用于其他请求，拒绝 {}", key, operation);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).build();
+        }
+        byte[] body = record.getResponseBody() == null ? new byte[0] : record.getResponseBody().getBytes(StandardCharsets.UTF_8);
+        return json(HttpStatus.valueOf(record.getResponseStatus()), body, true);
+    }
+
+    private ResponseEntity<byte[]> json(HttpStatus status, byte[] body, boolean replayed) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+        if (replayed) {
+            builder.header(REPLAYED_HEADER, "true");
+        }
+        return builder.body(body);
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
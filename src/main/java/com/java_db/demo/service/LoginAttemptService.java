@@ -0,0 +1,109 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.exception.AuthException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录失败次数限制服务
+ * 按账号、按 IP 分别统计固定时间窗口内的失败次数，
+ * 超过上限后在窗口结束前直接拒绝登录，不再进行 BCrypt 校验
+ *
+ * 计数保存在内存中（单实例有效），过期窗口由定时任务清理
+ */
+@Service
+public class LoginAttemptService {
+
+    /**
+     * 账号 -> 失败窗口
+     */
+    private final Map<String, FailureWindow> accountFailures = new ConcurrentHashMap<>();
+
+    /**
+     * IP -> 失败窗口
+     */
+    private final Map<String, FailureWindow> ipFailures = new ConcurrentHashMap<>();
+
+    @Value("${security.login.max-account-failures:5}")
+    private int maxAccountFailures;
+
+    @Value("${security.login.max-ip-failures:20}")
+    private int maxIpFailures;
+
+    @Value("${security.login.lock-minutes:15}")
+    private long lockMinutes;
+
+    /**
+     * 检查是否允许登录
+     *
+     * @param username 用户名
+     * @param clientIp 客户端 IP
+     * @throws AuthException 失败次数超过上限
+     */
+    public void checkAllowed(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        if (isBlocked(accountFailures.get(username), maxAccountFailures, now)
+                || isBlocked(ipFailures.get(clientIp), maxIpFailures, now)) {
+            throw new AuthException("登录失败次数过多，请 " + lockMinutes + " 分钟后再试");
+        }
+    }
+
+    /**
+     * 记录一次登录失败
+     *
+     * @param username 用户名
+     * @param clientIp 客户端 IP
+     */
+    public void recordFailure(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        accountFailures.compute(username, (key, window) -> increment(window, now));
+        ipFailures.compute(clientIp, (key, window) -> increment(window, now));
+    }
+
+    /**
+     * 登录成功后清除该账号的失败计数
+     * IP 计数不清除，避免用一个已知账号为同一 IP 的撞库重置次数
+     *
+     * @param username 用户名
+     */
+    public void recordSuccess(String username) {
+        accountFailures.remove(username);
+    }
+
+    /**
+     * 定时清理已过期的失败窗口
+     */
+    @Scheduled(fixedDelayString = "${security.login.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        accountFailures.values().removeIf(window -> isExpired(window, now));
+        ipFailures.values().removeIf(window -> isExpired(window, now));
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private FailureWindow increment(FailureWindow window, long now) {
+        if (window == null || isExpired(window, now)) {
+            return new FailureWindow(1, now);
+        }
+        return new FailureWindow(window.failures() + 1, window.startedAt());
+    }
+
+    private boolean isBlocked(FailureWindow window, int maxFailures, long now) {
+        return window != null && !isExpired(window, now) && window.failures() >= maxFailures;
+    }
+
+    private boolean isExpired(FailureWindow window, long now) {
+        return now - window.startedAt() >= lockMinutes * 60_000;
+    }
+
+    /**
+     * 失败窗口：窗口内失败次数 + 窗口开始时间
+     */
+    private record FailureWindow(int failures, long startedAt) {
+    }
+}
@@ -5,6 +5,11 @@ import com.java_db.demo.entity.Vehicle;
 import com.java_db.demo.exception.ResourceNotFoundException;
 import com.java_db.demo.repository.MaintenanceRepository;
 import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +25,8 @@ import java.util.List;
  * 集成逻辑：
  * - 创建维修记录时，自动更新车辆状态为"维修中"(2)
  * - 完成维修时，恢复车辆状态为"空闲"(0)
+ * 
+ * 多分片时维修记录存放在车辆归属分片（车辆所在门店的区域），与车辆状态的修改在同一本地事务
  */
 @Service
 @RequiredArgsConstructor
@@ -27,6 +34,9 @@ public class MaintenanceService {
     
     private final MaintenanceRepository maintenanceRepository;
     private final VehicleRepository vehicleRepository;
+    private final VehicleCalendarService vehicleCalendarService;
+    private final ResourceVersionService resourceVersionService;
+    private final ShardRouter shardRouter;
     
     /**
      * 创建维修记录
@@ -39,6 +49,7 @@ public class MaintenanceService {
      * @param description 描述
      * @return 维修记录
      */
+    @ShardRoute(by = ShardKey.VEHICLE, key = "#vehicleId")
     @Transactional
     public Maintenance createMaintenanceRecord(
             Integer vehicleId,
@@ -48,19 +59,21 @@ public class MaintenanceService {
             String description) {
         
         // 查询车辆
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+        Vehicle vehicle = vehicleRepository.findWithDetailsById(vehicleId)
                 .orElseThrow(() -> new ResourceNotFoundException("车辆不存在"));
         
         // 更新车辆状态为"维修中"
         vehicle.setStatus(2);
         vehicleRepository.save(vehicle);
+        vehicleCalendarService.evictAfterCommit(vehicleId);
+        resourceVersionService.bumpAfterCommit(Resource.MAINTENANCE, Resource.VEHICLES);
         
         // 创建维修记录
         Maintenance maintenance = new Maintenance();
         maintenance.setVehicle(vehicle);
         maintenance.setType(type);
         maintenance.setStartDate(startDate);
-        maintenance.setCost(cost);
+        maintenance.setCost(cost != null ? Money.of(cost) : null);
         maintenance.setDescription(description);
         
         return maintenanceRepository.save(maintenance);
@@ -72,9 +85,10 @@ public class MaintenanceService {
      * 
      * @param maintenanceId 维修记录 ID
      */
+    @ShardRoute(by = ShardKey.MAINTENANCE, key = "#maintenanceId")
     @Transactional
     public Maintenance completeMaintenanceRecord(Integer maintenanceId) {
-        Maintenance maintenance = maintenanceRepository.findById(maintenanceId)
+        Maintenance maintenance = maintenanceRepository.findWithDetailsById(maintenanceId)
                 .orElseThrow(() -> new ResourceNotFoundException("维修记录不存在"));
         
         // 设置完成日期
@@ -84,19 +98,21 @@ public class MaintenanceService {
         Vehicle vehicle = maintenance.getVehicle();
         vehicle.setStatus(0);
         vehicleRepository.save(vehicle);
+        vehicleCalendarService.evictAfterCommit(vehicle.getId());
+        resourceVersionService.bumpAfterCommit(Resource.MAINTENANCE, Resource.VEHICLES);
         
         return maintenanceRepository.save(maintenance);
     }
     
     /**
      * 查询车辆的所有维修记录
+     * 车辆换过区域时历史记录可能在其他分片，各分片分别查询后合并
      * 
      * @param vehicleId 车辆 ID
      * @return 维修记录列表
      */
-    @Transactional(readOnly = true)
     public List<Maintenance> getMaintenanceByVehicle(Integer vehicleId) {
-        return maintenanceRepository.findByVehicleId(vehicleId);
+        return shardRouter.scatter(() -> maintenanceRepository.findByVehicleId(vehicleId));
     }
     
     /**
@@ -104,9 +120,8 @@ public class MaintenanceService {
      * 
      * @return 所有维修记录
      */
-    @Transactional(readOnly = true)
     public List<Maintenance> getAllMaintenances() {
-        return maintenanceRepository.findAll();
+        return shardRouter.scatter(maintenanceRepository::findAllWithDetails);
     }
     
     /**
@@ -115,6 +130,7 @@ public class MaintenanceService {
      * @param maintenanceId 维修记录 ID
      * @return 维修记录
      */
+    @ShardRoute(by = ShardKey.MAINTENANCE, key = "#maintenanceId", readOnly = true)
     @Transactional(readOnly = true)
     public Maintenance findById(Integer maintenanceId) {
         return maintenanceRepository.findById(maintenanceId)
@@ -0,0 +1,228 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.entity.Order;
+import com.java_db.demo.repository.OrderRepository;
+import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import com.java_db.demo.util.TimingWheel;
+import com.java_db.demo.util.TimingWheel.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订单期限服务
+ * 用内存中的分层时间轮跟踪进行中订单的期限，到期时立即处理，无需定时全表扫描：
+ * 1. 预订（状态 0）：开始时间 + 宽限期内未取车，自动取消订单并释放车辆
+ * 2. 使用中（状态 1）：超过预计还车时间未还车，标记逾期（overdue_at）
+ *
+ * 时间轮只保存在内存中，启动时从 orders 表重建；订单状态变更时由 OrderService 在事务提交后更新。
+ * 到期处理通过条件更新（状态仍为预期值才更新）保证幂等，与取车、还车并发时只有一方生效
+ * 多分片时从每个分片加载，到期时按订单 ID 定位所在分片（区域迁移后仍能找到）
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.BACKGROUND)
+public class OrderDeadlineService {
+
+    private final OrderRepository orderRepository;
+    private final VehicleRepository vehicleRepository;
+    private final VehicleCalendarService vehicleCalendarService;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
+    private final TimingWheel<Deadline> wheel;
+
+    /**
+     * 订单 ID -> 当前跟踪的期限
+     */
+    private final Map<Integer, Timeout<Deadline>> timeouts = new ConcurrentHashMap<>();
+
+    @Value("${order.deadline.pickup-grace-minutes:60}")
+    private long pickupGraceMinutes;
+
+    /**
+     * 期限类型
+     */
+    enum Kind {
+        /** 取车超时 */
+        PICKUP_EXPIRY,
+        /** 还车逾期 */
+        OVERDUE
+    }
+
+    record Deadline(Integer orderId, Integer vehicleId, Kind kind) {
+    }
+
+    public OrderDeadlineService(OrderRepository orderRepository,
+                                VehicleRepository vehicleRepository,
+                                VehicleCalendarService vehicleCalendarService,
+                                ResourceVersionService resourceVersionService,
+                                PlatformTransactionManager transactionManager,
+                                ShardDirectory shardDirectory,
+                                ShardRouter shardRouter,
+                                @Value("${order.deadline.tick-ms:1000}") long tickMs,
+                                @Value("${order.deadline.wheel-size:64}") int wheelSize) {
+        this.orderRepository = orderRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.vehicleCalendarService = vehicleCalendarService;
+        this.resourceVersionService = resourceVersionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardDirectory = shardDirectory;
+        this.shardRouter = shardRouter;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * 启动时从 orders 表加载进行中订单的期限
+     * 加载期间已由 OrderService 跟踪的订单以其为准
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDeadlines() {
+        List<Object[]> rows = shardRouter.scatter(orderRepository::findActiveOrderDeadlines);
+        for (Object[] row : rows) {
+            Integer orderId = (Integer) row[0];
+            Integer vehicleId = (Integer) row[1];
+            Integer status = (Integer) row[2];
+            LocalDateTime deadline = status == 0
+                    ? pickupDeadline((LocalDateTime) row[3])
+                    : (LocalDateTime) row[4];
+            Kind kind = status == 0 ? Kind.PICKUP_EXPIRY : Kind.OVERDUE;
+            timeouts.computeIfAbsent(orderId, id -> wheel.schedule(toMillis(deadline), new Deadline(id, vehicleId, kind)));
+        }
+        log.info("订单期限时间轮加载完成，跟踪进行中订单 {} 个", rows.size());
+    }
+
+    /**
+     * 取车截止时间（开始时间 + 宽限期）
+     *
+     * @param startTime 租赁开始时间
+     * @return 取车截止时间
+     */
+    public LocalDateTime pickupDeadline(LocalDateTime startTime) {
+        return startTime.plusMinutes(pickupGraceMinutes);
+    }
+
+    /**
+     * 事务提交后按订单当前状态更新期限：
+     * 预订跟踪取车期限，使用中跟踪还车期限，已还车、已取消停止跟踪
+     *
+     * @param order 订单（需已分配 ID）
+     */
+    public void trackAfterCommit(Order order) {
+        Integer orderId = order.getId();
+        Integer vehicleId = order.getVehicle().getId();
+        Integer status = order.getStatus();
+        LocalDateTime startTime = order.getStartTime();
+        LocalDateTime endTime = order.getEndTime();
+        Runnable track = () -> track(orderId, vehicleId, status, startTime, endTime);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    track.run();
+                }
+            });
+        } else {
+            track.run();
+        }
+    }
+
+    /**
+     * 推进时间轮并处理到期的期限
+     */
+    @Scheduled(fixedDelayString = "${order.deadline.tick-ms:1000}")
+    public void advance() {
+        for (Deadline deadline : wheel.advance(System.currentTimeMillis())) {
+            timeouts.computeIfPresent(deadline.orderId(), (id, timeout) -> timeout.task() == deadline ? null : timeout);
+            try {
+                String shard = shardDirectory.locate(ShardKey.ORDER, deadline.orderId(), false);
+                ShardRoutingDataSource.runWith(shard, () -> {
+                    switch (deadline.kind()) {
+                        case PICKUP_EXPIRY -> expirePickup(deadline);
+                        case OVERDUE -> markOverdue(deadline);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("订单 {} 期限处理失败（{}）", deadline.orderId(), deadline.kind(), e);
+            }
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void track(Integer orderId, Integer vehicleId, Integer status, LocalDateTime startTime, LocalDateTime endTime) {
+        if (status == 0 || status == 1) {
+            Kind kind = status == 0 ? Kind.PICKUP_EXPIRY : Kind.OVERDUE;
+            LocalDateTime deadline = status == 0 ? pickupDeadline(startTime) : endTime;
+            timeouts.compute(orderId, (id, previous) -> {
+                if (previous != null) {
+                    previous.cancel();
+                }
+                return wheel.schedule(toMillis(deadline), new Deadline(id, vehicleId, kind));
+            });
+        } else {
+            Timeout<Deadline> previous = timeouts.remove(orderId);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+    }
+
+    /**
+     * 未取车的预订：取消订单并释放车辆（订单已被取车或取消时不处理）
+     */
+    private void expirePickup(Deadline deadline) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (orderRepository.compareAndSetStatus(deadline.orderId(), 0, 3) == 0) {
+                return;
+            }
+            vehicleRepository.findById(deadline.vehicleId()).ifPresent(vehicle -> {
+                if (vehicle.getStatus() == 1) {
+                    vehicle.setStatus(0);
+                    vehicleRepository.save(vehicle);
+                }
+            });
+            vehicleCalendarService.evictAfterCommit(deadline.vehicleId());
+            resourceVersionService.bumpAfterCommit(Resource.ORDERS, Resource.VEHICLES);
+            log.info("订单 {} 超过取车期限未取车，已自动取消并释放车辆 {}", deadline.orderId(), deadline.vehicleId());
+        });
+    }
+
+    /**
+     * 使用中的订单超过预计还车时间：标记逾期（订单已还车时不处理）
+     */
+    private void markOverdue(Deadline deadline) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (orderRepository.markOverdue(deadline.orderId(), LocalDateTime.now()) == 0) {
+                return;
+            }
+            resourceVersionService.bumpAfterCommit(Resource.ORDERS);
+            log.warn("订单 {} 已超过预计还车时间未还车，已标记逾期", deadline.orderId());
+        });
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -11,15 +11,23 @@ import com.java_db.demo.repository.OrderRepository;
 import com.java_db.demo.repository.StoreRepository;
 import com.java_db.demo.repository.UserRepository;
 import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import com.java_db.demo.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +40,9 @@ import java.util.UUID;
  * 2. 并发控制（使用事务隔离级别保证数据一致性）
  * 3. 异地还车逻辑（更新车辆所属门店）
  * 4. 逾期罚金计算
+ * 
+ * 多分片时订单存放在取车门店所在区域的分片，下单、取还车、取消都是该分片内的本地事务；
+ * 车辆只能在其归属分片（所在门店的区域）预订，用户订单、全部订单在各分片查询后合并
  */
 @Service
 @RequiredArgsConstructor
@@ -41,9 +52,16 @@ public class OrderService {
     private final VehicleRepository vehicleRepository;
     private final UserRepository userRepository;
     private final StoreRepository storeRepository;
+    private final VehicleCalendarService vehicleCalendarService;
+    private final BookingCacheMetrics bookingCacheMetrics;
+    private final ResourceVersionService resourceVersionService;
+    private final OrderDeadlineService orderDeadlineService;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
     
-    // 超期费率：日租金的 1.5 倍
-    private static final BigDecimal OVERDUE_RATE = new BigDecimal("1.5");
+    // 超期费率：日租金的 1.5 倍（以分数 3/2 表示，避免 BigDecimal 运算）
+    private static final long OVERDUE_RATE_NUMERATOR = 3;
+    private static final long OVERDUE_RATE_DENOMINATOR = 2;
     
     /**
      * 创建订单（核心功能）
@@ -60,6 +78,7 @@ public class OrderService {
      * @param orderDTO 订单信息
      * @return 创建的订单
      */
+    @ShardRoute(by = ShardKey.STORE, key = "#orderDTO.pickupStoreId")
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public Order createOrder(OrderDTO orderDTO) {
         // 1. 参数验证
@@ -71,11 +90,13 @@ public class OrderService {
             throw new BusinessException("开始时间不能早于当前时间");
         }
         
-        // 2. 查询关联实体
+        // 2. 查询关联实体（用户、门店优先从二级缓存读取）
+        bookingCacheMetrics.recordReferenceLookups(
+                orderDTO.getUserId(), orderDTO.getPickupStoreId(), orderDTO.getReturnStoreId());
         User user = userRepository.findById(orderDTO.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("用户不存在"));
         
-        Vehicle vehicle = vehicleRepository.findById(orderDTO.getVehicleId())
+        Vehicle vehicle = vehicleRepository.findWithDetailsById(orderDTO.getVehicleId())
                 .orElseThrow(() -> new ResourceNotFoundException("车辆不存在"));
         
         Store pickupStore = storeRepository.findById(orderDTO.getPickupStoreId())
@@ -88,6 +109,9 @@ public class OrderService {
         if (vehicle.getStatus() != 0) {
             throw new BusinessException("车辆当前不可租赁（状态：" + getStatusText(vehicle.getStatus()) + "）");
         }
+        if (!shardDirectory.shardForStore(vehicle.getStore().getId(), false).equals(ShardRoutingDataSource.currentShard())) {
+            throw new BusinessException("车辆所在门店与取车门店不在同一区域，请在车辆所在区域的门店取车");
+        }
         
         // 4. 检查时间冲突（核心逻辑）
         List<Order> conflictingOrders = orderRepository.findConflictingOrders(
@@ -106,7 +130,7 @@ public class OrderService {
         if (days == 0) {
             days = 1; // 至少按1天计算
         }
-        BigDecimal totalAmount = vehicle.getDailyRate().multiply(BigDecimal.valueOf(days));
+        Money totalAmount = vehicle.getDailyRate().times(days);
         
         // 6. 创建订单
         Order order = new Order();
@@ -123,8 +147,45 @@ public class OrderService {
         // 7. 更新车辆状态为"已租"
         vehicle.setStatus(1);
         vehicleRepository.save(vehicle);
+        vehicleCalendarService.evictAfterCommit(vehicle.getId());
+        resourceVersionService.bumpAfterCommit(Resource.ORDERS, Resource.VEHICLES);
+        
+        // 8. 保存订单，提交后开始跟踪取车期限
+        Order saved = orderRepository.save(order);
+        orderDeadlineService.trackAfterCommit(saved);
+        return saved;
+    }
+    
+    /**
+     * 取车
+     * 
+     * 逻辑：
+     * 1. 只有预订状态且未超过取车期限（开始时间 + 宽限期）的订单可以取车
+     * 2. 条件更新订单状态为"使用中"，与取车超时自动取消并发时只有一方成功
+     * 3. 提交后改为跟踪还车期限
+     * 
+     * @param orderId 订单 ID
+     * @return 更新后的订单
+     */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
+    @Transactional
+    public Order pickupVehicle(Integer orderId) {
+        Order order = orderRepository.findWithDetailsById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
         
-        // 8. 保存订单
+        if (order.getStatus() != 0) {
+            throw new BusinessException("只有预订状态的订单可以取车");
+        }
+        if (LocalDateTime.now().isAfter(orderDeadlineService.pickupDeadline(order.getStartTime()))) {
+            throw new BusinessException("已超过取车期限");
+        }
+        if (orderRepository.compareAndSetStatus(orderId, 0, 1) == 0) {
+            throw new BusinessException("订单状态已变更，请刷新后重试");
+        }
+        
+        order.setStatus(1);
+        orderDeadlineService.trackAfterCommit(order);
+        resourceVersionService.bumpAfterCommit(Resource.ORDERS);
         return orderRepository.save(order);
     }
     
@@ -132,6 +193,7 @@ public class OrderService {
      * 还车（核心功能）
      * 
      * 逻辑：
+     * 0. 只有使用中的订单可以还车，条件更新订单状态（1 -> 2），与并发的还车、取消只有一方成功
      * 1. 更新实际还车时间
      * 2. 计算是否逾期及罚金
      * 3. 更新订单状态为"已还车"
@@ -142,10 +204,11 @@ public class OrderService {
      * @param returnStoreId 实际还车门店 ID
      * @return 更新后的订单（包含罚金信息）
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
     public Order returnVehicle(Integer orderId, Integer returnStoreId) {
         // 1. 查询订单
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
         
         // 2. 检查订单状态
@@ -155,30 +218,29 @@ public class OrderService {
         if (order.getStatus() == 3) {
             throw new BusinessException("订单已取消");
         }
+        if (order.getStatus() != 1) {
+            throw new BusinessException("订单尚未取车，无法还车");
+        }
         
         // 3. 查询还车门店
         Store returnStore = storeRepository.findById(returnStoreId)
                 .orElseThrow(() -> new ResourceNotFoundException("还车门店不存在"));
+        if (orderRepository.compareAndSetStatus(orderId, 1, 2) == 0) {
+            throw new BusinessException("订单状态已变更，请刷新后重试");
+        }
         
         // 4. 更新实际还车时间
         LocalDateTime actualReturnTime = LocalDateTime.now();
         order.setActualReturnTime(actualReturnTime);
         
         // 5. 计算逾期罚金（如果逾期）
-        BigDecimal penalty = BigDecimal.ZERO;
-        if (actualReturnTime.isAfter(order.getEndTime())) {
-            long overdueDays = Duration.between(order.getEndTime(), actualReturnTime).toDays();
-            if (overdueDays == 0) {
-                overdueDays = 1; // 至少按1天计算
-            }
-            // 罚金 = 日租金 × 超期天数 × 超期费率（1.5倍）
-            penalty = order.getVehicle().getDailyRate()
-                    .multiply(BigDecimal.valueOf(overdueDays))
-                    .multiply(OVERDUE_RATE);
-            
+        Money penalty = overduePenalty(order.getVehicle().getDailyRate(), order.getEndTime(), actualReturnTime);
+        if (penalty.isPositive()) {
             // 更新订单总金额（加上罚金）
-            order.setTotalAmount(order.getTotalAmount().add(penalty));
+            order.setTotalAmount(order.getTotalAmount().plus(penalty));
         }
+        order.setAccruedPenalty(penalty);
+        order.setPenaltyAccruedAt(actualReturnTime);
         
         // 6. 更新订单状态为"已还车"
         order.setStatus(2);
@@ -192,6 +254,9 @@ public class OrderService {
         // 8. 恢复车辆状态为"空闲"
         vehicle.setStatus(0);
         vehicleRepository.save(vehicle);
+        vehicleCalendarService.evictAfterCommit(vehicle.getId());
+        resourceVersionService.bumpAfterCommit(Resource.ORDERS, Resource.VEHICLES);
+        orderDeadlineService.trackAfterCommit(order);
         
         // 9. 保存订单
         return orderRepository.save(order);
@@ -199,9 +264,12 @@ public class OrderService {
     
     /**
      * 取消订单
+     * 预订、使用中的订单可以取消；按读取到的状态条件更新为已取消，
+     * 与取车超时自动取消、还车等并发时只有一方成功，车辆只释放一次
      * 
      * @param orderId 订单 ID
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
     public void cancelOrder(Integer orderId) {
         Order order = orderRepository.findById(orderId)
@@ -216,25 +284,33 @@ public class OrderService {
         }
         
         // 更新订单状态
+        if (orderRepository.compareAndSetStatus(orderId, order.getStatus(), 3) == 0) {
+            throw new BusinessException("订单状态已变更，请刷新后重试");
+        }
         order.setStatus(3);
         
         // 恢复车辆状态为空闲
         Vehicle vehicle = order.getVehicle();
         vehicle.setStatus(0);
         vehicleRepository.save(vehicle);
+        vehicleCalendarService.evictAfterCommit(vehicle.getId());
+        resourceVersionService.bumpAfterCommit(Resource.ORDERS, Resource.VEHICLES);
+        orderDeadlineService.trackAfterCommit(order);
         
         orderRepository.save(order);
     }
     
     /**
      * 查询用户的所有订单
+     * 各分片分别查询（每次查询在仓库的只读事务中执行），合并后按创建时间倒序
      * 
      * @param userId 用户 ID
      * @return 订单列表
      */
-    @Transactional(readOnly = true)
     public List<Order> getUserOrders(Integer userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        List<Order> orders = new ArrayList<>(shardRouter.scatter(() -> orderRepository.findByUserIdOrderByCreatedAtDesc(userId)));
+        orders.sort(Comparator.comparing(Order::getCreatedAt).reversed());
+        return orders;
     }
     
     /**
@@ -242,20 +318,18 @@ public class OrderService {
      * 
      * @return 所有订单列表
      */
-    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        return shardRouter.scatter(orderRepository::findAllWithDetails);
     }
     
     /**
-     * 根据订单流水号查询订单
+     * 根据订单流水号查询订单（依次查找各分片）
      * 
      * @param orderNo 订单流水号
      * @return 订单信息
      */
-    @Transactional(readOnly = true)
     public Order findByOrderNo(String orderNo) {
-        return orderRepository.findByOrderNo(orderNo)
+        return shardRouter.findAny(() -> orderRepository.findByOrderNo(orderNo))
                 .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
     }
     
@@ -265,12 +339,33 @@ public class OrderService {
      * @param orderId 订单 ID
      * @return 订单信息
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId", readOnly = true)
     @Transactional(readOnly = true)
     public Order findById(Integer orderId) {
-        return orderRepository.findById(orderId)
+        return orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
     }
     
+    /**
+     * 计算逾期罚金（还车时结算，罚金累计任务按同一规则预估）
+     * 罚金 = 日租金 × 超期天数（不足一天按一天）× 超期费率（1.5倍），未超期为 0
+     * 
+     * @param dailyRate 日租金
+     * @param endTime 预计还车时间
+     * @param asOf 实际还车时间或计算时间
+     * @return 逾期罚金
+     */
+    public static Money overduePenalty(Money dailyRate, LocalDateTime endTime, LocalDateTime asOf) {
+        if (!asOf.isAfter(endTime)) {
+            return Money.ZERO;
+        }
+        long overdueDays = Duration.between(endTime, asOf).toDays();
+        if (overdueDays == 0) {
+            overdueDays = 1; // 至少按1天计算
+        }
+        return dailyRate.times(overdueDays).timesRatio(OVERDUE_RATE_NUMERATOR, OVERDUE_RATE_DENOMINATOR);
+    }
+    
     /**
      * 生成订单流水号
      * 使用 UUID 保证唯一性
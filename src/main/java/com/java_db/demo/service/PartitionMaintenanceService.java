@@ -0,0 +1,192 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分区维护服务
+ * 管理 orders（按 created_at）和 payments（按 pay_time）的月度范围分区
+ *
+ * 功能：
+ * 1. 启动时及每日自动创建当前月及未来若干个月的分区
+ * 2. 查询现有分区
+ * 3. 分离（DETACH）早于指定月份的历史分区，分离后的表保留为独立表供归档
+ *
+ * 分区命名规则：{表名}_pYYYYMM，如 orders_p202601
+ *
+ * 多分片时创建、分离分区在每个分片上执行，查询分区以主库为准
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Workload(WorkloadType.BACKGROUND)
+public class PartitionMaintenanceService {
+
+    /**
+     * 分区表（仅限白名单，表名会拼接进 DDL）
+     */
+    private static final List<String> PARTITIONED_TABLES = List.of("orders", "payments");
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardDirectory shardDirectory;
+
+    @Value("${partition.months-ahead:3}")
+    private int monthsAhead;
+
+    /**
+     * 启动时确保未来分区存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureFuturePartitions();
+    }
+
+    /**
+     * 每日凌晨确保未来分区存在
+     */
+    @Scheduled(cron = "${partition.maintenance-cron:0 0 3 * * *}")
+    public void ensureFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        for (String shard : shardDirectory.shardIds()) {
+            ShardRoutingDataSource.runWith(shard, () -> {
+                for (String table : PARTITIONED_TABLES) {
+                    if (!isPartitioned(table)) {
+                        log.warn("分片 {} 的表 {} 不是分区表，跳过分区维护（请执行分区迁移脚本）", shard, table);
+                        continue;
+                    }
+                    for (int i = 0; i <= monthsAhead; i++) {
+                        try {
+                            createPartitionOnCurrentShard(table, current.plusMonths(i));
+                        } catch (DataAccessException e) {
+                            // 通常是默认分区中已有该月数据，需要人工迁移后再创建
+                            log.warn("分片 {} 创建分区 {} 失败", shard, partitionName(table, current.plusMonths(i)), e);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 创建指定月份的分区（已存在则跳过）
+     *
+     * @param table 分区表名
+     * @param month 月份
+     */
+    public void createMonthlyPartition(String table, YearMonth month) {
+        checkTable(table);
+        for (String shard : shardDirectory.shardIds()) {
+            ShardRoutingDataSource.runWith(shard, () -> createPartitionOnCurrentShard(table, month));
+        }
+    }
+
+    /**
+     * 查询所有分区表的分区
+     *
+     * @return 表名 -> 分区名列表（按名称排序）
+     */
+    public Map<String, List<String>> listPartitions() {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String table : PARTITIONED_TABLES) {
+            result.put(table, jdbcTemplate.queryForList(
+                    "SELECT c.relname FROM pg_inherits i " +
+                    "JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "JOIN pg_class p ON p.oid = i.inhparent " +
+                    "WHERE p.relname = ? ORDER BY c.relname",
+                    String.class, table));
+        }
+        return result;
+    }
+
+    /**
+     * 分离早于指定月份的月度分区
+     * 分离后的表不再参与查询，可单独归档或删除
+     *
+     * @param before 截止月份（不含）
+     * @return 已分离的分区名
+     */
+    public List<String> detachPartitionsBefore(YearMonth before) {
+        if (!before.isBefore(YearMonth.now())) {
+            throw new BusinessException("只能分离当前月份之前的分区");
+        }
+        Set<String> detached = new LinkedHashSet<>();
+        for (String shard : shardDirectory.shardIds()) {
+            ShardRoutingDataSource.runWith(shard, () -> listPartitions().forEach((table, partitions) -> {
+                for (String partition : partitions) {
+                    YearMonth month = parseMonth(table, partition);
+                    if (month != null && month.isBefore(before)) {
+                        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                        detached.add(partition);
+                        log.info("已分离分片 {} 的分区 {}", shard, partition);
+                    }
+                }
+            }));
+        }
+        return new ArrayList<>(detached);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void createPartitionOnCurrentShard(String table, YearMonth month) {
+        String partition = partitionName(table, month);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition +
+                " PARTITION OF " + table +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table pt " +
+                "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * 从分区名解析月份，非月度分区（如 default 分区）返回 null
+     */
+    private YearMonth parseMonth(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), SUFFIX_FORMAT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void checkTable(String table) {
+        if (!PARTITIONED_TABLES.contains(table)) {
+            throw new BusinessException("不支持的分区表：" + table);
+        }
+    }
+}
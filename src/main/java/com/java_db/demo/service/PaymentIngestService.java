@@ -0,0 +1,417 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.entity.Payment;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.exception.ResourceNotFoundException;
+import com.java_db.demo.repository.PaymentRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import com.java_db.demo.util.Money;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 支付写入服务（可选的组提交模式）
+ * 默认直接调用 PaymentService，每笔支付一个事务；开启 payment.group-commit.enabled 后：
+ * 1. 请求放入有界无锁队列，调用方等待
+ * 2. 单个写线程攒批（最多 max-batch-size 笔，或首笔入队后最多等待 max-wait-ms），
+ *    用 JDBC 批量更新订单已支付金额、批量插入支付记录，整批一次提交
+ * 3. 提交成功后才通知调用方（支付已持久化），再加载支付记录返回，响应与直接模式一致
+ * 4. 调用方最多等待 submit-timeout-ms，超时按业务异常返回（支付可能仍会写入，需查询后再重试）；
+ *    写线程退出（停止或出错）时，队列中未完成的请求全部失败，之后的请求改用直接模式
+ *
+ * 整批失败时逐笔重试，只有出错的请求失败；订单不存在的请求单独失败，不影响同批其他请求
+ * 调用方已在事务中（如携带 Idempotency-Key，需要与幂等记录同一事务提交）时使用直接模式
+ * 多分片时请求记录调用方所在的分片（订单所在分片），写线程按分片分组，每个分片一个事务
+ *
+ * 指标（/actuator/metrics）：
+ * - payment.group.commit.batch.size：每次提交的批大小
+ * - payment.group.commit.queue.size：队列中等待写入的请求数
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.BOOKING)
+public class PaymentIngestService {
+
+    private static final long DEPOSIT_RATE = 3;
+
+    private static final String UPDATE_PAID_SQL =
+            "UPDATE orders SET paid_amount = paid_amount + ?, updated_at = LOCALTIMESTAMP WHERE id = ?";
+
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (order_id, amount, pay_method, pay_type, pay_time, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final PaymentService paymentService;
+    private final PaymentRepository paymentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersionService resourceVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary batchSizes;
+
+    private final ConcurrentLinkedQueue<PendingPayment> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 队列中的请求数（入队前 CAS 预占，实现有界）
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    @Value("${payment.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${payment.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${payment.group-commit.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${payment.group-commit.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${payment.group-commit.submit-timeout-ms:10000}")
+    private long submitTimeoutMs;
+
+    /**
+     * 待写入的支付（amount 为空表示押金，写入时按日租金计算；shard 为订单所在分片）
+     */
+    private record PendingPayment(String shard, Integer orderId, Money amount, String payType, LocalDateTime payTime,
+                                  CompletableFuture<Integer> result) {
+    }
+
+    public PaymentIngestService(PaymentService paymentService,
+                                PaymentRepository paymentRepository,
+                                JdbcTemplate jdbcTemplate,
+                                ResourceVersionService resourceVersionService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.paymentRepository = paymentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceVersionService = resourceVersionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSizes = DistributionSummary.builder("payment.group.commit.batch.size").register(meterRegistry);
+        Gauge.builder("payment.group.commit.queue.size", queued, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * 启动写线程（仅组提交模式）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("payment-group-commit").daemon(true)
+                .start(() -> WorkloadRoutingDataSource.runWith(WorkloadType.BOOKING, this::writeLoop));
+        log.info("支付组提交已开启：批大小 {}，最长等待 {} ms，队列容量 {}", maxBatchSize, maxWaitMs, queueCapacity);
+    }
+
+    /**
+     * 停止写线程，队列中剩余的请求写入后退出
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread current = writer;
+        if (current == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(current);
+        current.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 创建押金支付记录（押金 = 日租金 × 3）
+     *
+     * @param orderId 订单 ID
+     * @return 押金支付记录
+     */
+    public Payment createDepositPayment(Integer orderId) {
+        if (!useGroupCommit()) {
+            return paymentService.createDepositPayment(orderId);
+        }
+        return submit(orderId, null, "Deposit");
+    }
+
+    /**
+     * 创建尾款支付记录
+     *
+     * @param orderId 订单 ID
+     * @param amount 尾款金额
+     * @return 尾款支付记录
+     */
+    public Payment createFinalPayment(Integer orderId, Money amount) {
+        if (!useGroupCommit()) {
+            return paymentService.createFinalPayment(orderId, amount);
+        }
+        return submit(orderId, amount, "Final");
+    }
+
+    /**
+     * 创建罚金支付记录
+     *
+     * @param orderId 订单 ID
+     * @param penaltyAmount 罚金金额
+     * @return 罚金支付记录
+     */
+    public Payment createPenaltyPayment(Integer orderId, Money penaltyAmount) {
+        if (!useGroupCommit()) {
+            return paymentService.createPenaltyPayment(orderId, penaltyAmount);
+        }
+        return submit(orderId, penaltyAmount, "Penalty");
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private boolean useGroupCommit() {
+        return running && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 入队并等待所在批次提交，返回持久化后的支付记录
+     */
+    private Payment submit(Integer orderId, Money amount, String payType) {
+        PendingPayment pending = new PendingPayment(ShardRoutingDataSource.currentShard(), orderId, amount, payType,
+                LocalDateTime.now(), new CompletableFuture<>());
+        int size;
+        do {
+            size = queued.get();
+            if (size >= queueCapacity) {
+                throw new BusinessException("支付请求过多，请稍后重试");
+            }
+        } while (!queued.compareAndSet(size, size + 1));
+        queue.offer(pending);
+        // 入队后写线程已停止时，请求可能不会再被取出
+        if (!running && queue.remove(pending)) {
+            queued.decrementAndGet();
+            throw new BusinessException("支付服务正在停止，请稍后重试");
+        }
+        LockSupport.unpark(writer);
+
+        Integer paymentId;
+        try {
+            paymentId = pending.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BusinessException("支付处理超时，请查询支付记录后再重试", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("支付处理被中断，请查询支付记录后再重试", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("支付写入失败：" + e.getCause().getMessage(), e.getCause());
+        }
+        return paymentRepository.findWithDetailsById(paymentId)
+                .orElseThrow(() -> new ResourceNotFoundException("支付记录不存在"));
+    }
+
+    /**
+     * 写线程：攒批写入；退出时（停止或出错）未完成的请求全部失败，之后的请求改用直接模式
+     */
+    private void writeLoop() {
+        List<PendingPayment> batch = new ArrayList<>(maxBatchSize);
+        try {
+            writeBatches(batch);
+        } catch (RuntimeException | Error e) {
+            log.error("支付组提交写线程异常退出，改用直接模式", e);
+            throw e;
+        } finally {
+            running = false;
+            BusinessException stopped = new BusinessException("支付服务已停止，请查询支付记录后再重试");
+            batch.forEach(pending -> pending.result().completeExceptionally(stopped));
+            for (PendingPayment pending = poll(); pending != null; pending = poll()) {
+                pending.result().completeExceptionally(stopped);
+            }
+        }
+    }
+
+    private void writeBatches(List<PendingPayment> batch) {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (running || !queue.isEmpty()) {
+            PendingPayment first = poll();
+            if (first == null) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (batch.size() < maxBatchSize) {
+                PendingPayment next = poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            Map<String, List<PendingPayment>> byShard = new TreeMap<>();
+            batch.forEach(pending -> byShard.computeIfAbsent(pending.shard(), shard -> new ArrayList<>()).add(pending));
+            byShard.forEach((shard, payments) -> ShardRoutingDataSource.runWith(shard, () -> flush(payments)));
+            batch.clear();
+        }
+    }
+
+    private PendingPayment poll() {
+        PendingPayment pending = queue.poll();
+        if (pending != null) {
+            queued.decrementAndGet();
+        }
+        return pending;
+    }
+
+    /**
+     * 整批一次提交；失败时逐笔重试，隔离出错的请求
+     */
+    private void flush(List<PendingPayment> batch) {
+        try {
+            Map<PendingPayment, Integer> ids = transactionTemplate.execute(status -> write(batch));
+            complete(batch, ids);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.warn("支付批量写入失败，逐笔重试（{} 笔）", batch.size(), e);
+            for (PendingPayment pending : batch) {
+                flush(List.of(pending));
+            }
+        }
+    }
+
+    private void complete(List<PendingPayment> batch, Map<PendingPayment, Integer> ids) {
+        batchSizes.record(batch.size());
+        if (!ids.isEmpty()) {
+            resourceVersionService.bumpAfterCommit(Resource.PAYMENTS, Resource.ORDERS);
+        }
+        for (PendingPayment pending : batch) {
+            Integer id = ids.get(pending);
+            if (id != null) {
+                pending.result().complete(id);
+            } else {
+                pending.result().completeExceptionally(new ResourceNotFoundException("订单不存在"));
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中写入一批支付：
+     * 1. 一次查询批内订单的日租金（同时校验订单存在）
+     * 2. 按订单 ID 顺序批量累加已支付金额（固定加锁顺序，避免与其他批次死锁）
+     * 3. 批量插入支付记录并取回生成的 ID
+     *
+     * @return 写入成功的请求 -> 支付记录 ID（订单不存在的请求不在其中）
+     */
+    private Map<PendingPayment, Integer> write(List<PendingPayment> batch) {
+        Map<Integer, Money> dailyRates = loadDailyRates(batch);
+        List<PendingPayment> valid = new ArrayList<>(batch.size());
+        Map<PendingPayment, Money> amounts = new HashMap<>();
+        Map<Integer, Money> paidByOrder = new TreeMap<>();
+        for (PendingPayment pending : batch) {
+            Money dailyRate = dailyRates.get(pending.orderId());
+            if (dailyRate == null) {
+                continue;
+            }
+            Money amount = pending.amount() != null ? pending.amount() : dailyRate.times(DEPOSIT_RATE);
+            valid.add(pending);
+            amounts.put(pending, amount);
+            paidByOrder.merge(pending.orderId(), amount, Money::plus);
+        }
+        if (valid.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Map.Entry<Integer, Money>> increments = new ArrayList<>(paidByOrder.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_PAID_SQL, increments, increments.size(), (ps, entry) -> {
+            ps.setBigDecimal(1, entry.getValue().toBigDecimal());
+            ps.setInt(2, entry.getKey());
+        });
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<PendingPayment, Integer>>) connection -> {
+            Map<PendingPayment, Integer> ids = new HashMap<>();
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_PAYMENT_SQL, new String[]{"id"})) {
+                for (PendingPayment pending : valid) {
+                    Timestamp payTime = Timestamp.valueOf(pending.payTime());
+                    ps.setInt(1, pending.orderId());
+                    ps.setBigDecimal(2, amounts.get(pending).toBigDecimal());
+                    ps.setString(3, null);
+                    ps.setString(4, pending.payType());
+                    ps.setTimestamp(5, payTime);
+                    ps.setTimestamp(6, payTime);
+                    ps.setTimestamp(7, payTime);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (PendingPayment pending : valid) {
+                        keys.next();
+                        ids.put(pending, keys.getInt(1));
+                    }
+                }
+            }
+            return ids;
+        });
+    }
+
+    private Map<Integer, Money> loadDailyRates(List<PendingPayment> batch) {
+        Integer[] orderIds = batch.stream().map(PendingPayment::orderId).distinct().toArray(Integer[]::new);
+        return jdbcTemplate.execute((ConnectionCallback<Map<Integer, Money>>) connection -> {
+            Map<Integer, Money> rates = new HashMap<>();
+            Array array = connection.createArrayOf("integer", orderIds);
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT o.id, v.daily_rate FROM orders o JOIN vehicles v ON v.id = o.vehicle_id WHERE o.id = ANY (?)")) {
+                ps.setArray(1, array);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rates.put(rs.getInt(1), Money.of((BigDecimal) rs.getObject(2)));
+                    }
+                }
+            } finally {
+                array.free();
+            }
+            return rates;
+        });
+    }
+}
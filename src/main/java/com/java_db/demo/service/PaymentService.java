@@ -5,11 +5,15 @@ import com.java_db.demo.entity.Payment;
 import com.java_db.demo.exception.ResourceNotFoundException;
 import com.java_db.demo.repository.OrderRepository;
 import com.java_db.demo.repository.PaymentRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,6 +25,11 @@ import java.util.List;
  * 1. 创建订单时 -> 生成押金支付记录（payType='Deposit'）
  * 2. 还车时 -> 生成尾款支付记录（payType='Final'）
  * 3. 逾期/损伤时 -> 生成罚金支付记录（payType='Penalty'）
+ * 
+ * 每笔支付在同一事务中原子累加 orders.paid_amount，订单响应直接带已支付 / 待支付金额，
+ * 查询余额无需汇总支付记录
+ * 
+ * 多分片时支付记录与订单存放在同一分片，支付与累加已支付金额是该分片内的本地事务
  */
 @Service
 @RequiredArgsConstructor
@@ -28,9 +37,11 @@ public class PaymentService {
     
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final ResourceVersionService resourceVersionService;
+    private final ShardRouter shardRouter;
     
     // 押金倍数：日租金的 3 倍
-    private static final BigDecimal DEPOSIT_RATE = new BigDecimal("3.0");
+    private static final long DEPOSIT_RATE = 3;
     
     /**
      * 创建押金支付记录
@@ -39,13 +50,15 @@ public class PaymentService {
      * @param orderId 订单 ID
      * @return 押金支付记录
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
     public Payment createDepositPayment(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
         
         // 计算押金金额：日租金 × 3
-        BigDecimal depositAmount = order.getVehicle().getDailyRate().multiply(DEPOSIT_RATE);
+        Money depositAmount = order.getVehicle().getDailyRate().times(DEPOSIT_RATE);
+        order = addPaidAmount(orderId, depositAmount);
         
         Payment payment = new Payment();
         payment.setOrder(order);
@@ -53,6 +66,7 @@ public class PaymentService {
         payment.setPayType("Deposit"); // 押金
         payment.setPayTime(LocalDateTime.now());
         
+        resourceVersionService.bumpAfterCommit(Resource.PAYMENTS, Resource.ORDERS);
         return paymentRepository.save(payment);
     }
     
@@ -64,10 +78,10 @@ public class PaymentService {
      * @param amount 尾款金额
      * @return 尾款支付记录
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
-    public Payment createFinalPayment(Integer orderId, BigDecimal amount) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
+    public Payment createFinalPayment(Integer orderId, Money amount) {
+        Order order = addPaidAmount(orderId, amount);
         
         Payment payment = new Payment();
         payment.setOrder(order);
@@ -75,6 +89,7 @@ public class PaymentService {
         payment.setPayType("Final"); // 尾款
         payment.setPayTime(LocalDateTime.now());
         
+        resourceVersionService.bumpAfterCommit(Resource.PAYMENTS, Resource.ORDERS);
         return paymentRepository.save(payment);
     }
     
@@ -86,10 +101,10 @@ public class PaymentService {
      * @param penaltyAmount 罚金金额
      * @return 罚金支付记录
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
-    public Payment createPenaltyPayment(Integer orderId, BigDecimal penaltyAmount) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
+    public Payment createPenaltyPayment(Integer orderId, Money penaltyAmount) {
+        Order order = addPaidAmount(orderId, penaltyAmount);
         
         Payment payment = new Payment();
         payment.setOrder(order);
@@ -97,6 +112,7 @@ public class PaymentService {
         payment.setPayType("Penalty"); // 罚金
         payment.setPayTime(LocalDateTime.now());
         
+        resourceVersionService.bumpAfterCommit(Resource.PAYMENTS, Resource.ORDERS);
         return paymentRepository.save(payment);
     }
     
@@ -109,10 +125,10 @@ public class PaymentService {
      * @param payType 支付类型（Deposit, Final, Penalty）
      * @return 支付记录
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId")
     @Transactional
-    public Payment recordPayment(Integer orderId, BigDecimal amount, String payMethod, String payType) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
+    public Payment recordPayment(Integer orderId, Money amount, String payMethod, String payType) {
+        Order order = addPaidAmount(orderId, amount);
         
         Payment payment = new Payment();
         payment.setOrder(order);
@@ -121,6 +137,7 @@ public class PaymentService {
         payment.setPayType(payType);
         payment.setPayTime(LocalDateTime.now());
         
+        resourceVersionService.bumpAfterCommit(Resource.PAYMENTS, Resource.ORDERS);
         return paymentRepository.save(payment);
     }
     
@@ -130,6 +147,7 @@ public class PaymentService {
      * @param orderId 订单 ID
      * @return 支付记录列表
      */
+    @ShardRoute(by = ShardKey.ORDER, key = "#orderId", readOnly = true)
     @Transactional(readOnly = true)
     public List<Payment> getPaymentsByOrder(Integer orderId) {
         return paymentRepository.findByOrderId(orderId);
@@ -137,12 +155,12 @@ public class PaymentService {
     
     /**
      * 查询所有支付记录（管理员功能）
+     * 各分片分别查询后合并
      * 
      * @return 所有支付记录
      */
-    @Transactional(readOnly = true)
     public List<Payment> getAllPayments() {
-        return paymentRepository.findAll();
+        return shardRouter.scatter(paymentRepository::findAllWithDetails);
     }
     
     /**
@@ -151,9 +169,28 @@ public class PaymentService {
      * @param paymentId 支付 ID
      * @return 支付记录
      */
+    @ShardRoute(by = ShardKey.PAYMENT, key = "#paymentId", readOnly = true)
     @Transactional(readOnly = true)
     public Payment findById(Integer paymentId) {
         return paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new ResourceNotFoundException("支付记录不存在"));
     }
+    
+    // ==================== 私有辅助方法 ====================
+    
+    /**
+     * 原子累加订单已支付金额后重新加载订单（含关联，随支付记录返回）
+     * UPDATE 执行后清空持久化上下文，重新加载的订单包含本次累加后的已支付金额
+     * 
+     * @param orderId 订单 ID
+     * @param amount 本次支付金额
+     * @return 订单
+     */
+    private Order addPaidAmount(Integer orderId, Money amount) {
+        if (orderRepository.addPaidAmount(orderId, amount.toBigDecimal()) == 0) {
+            throw new ResourceNotFoundException("订单不存在");
+        }
+        return orderRepository.findWithDetailsById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("订单不存在"));
+    }
 }
@@ -0,0 +1,341 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.dto.PenaltyAccrualResultDTO;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.repository.OrderRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.sharding.ShardRoutingDataSource;
+import com.java_db.demo.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 逾期罚金累计服务
+ * 定期按当前时间预估使用中逾期订单的罚金，写入 orders.accrued_penalty，财务无需等到还车即可看到应收罚金
+ *
+ * 执行方式：
+ * 1. 按车辆 ID 将订单划分为若干区间，各区间在独立线程中并行处理
+ * 2. 区间内按 (end_time, id) 键集分批读取（索引 idx_order_status_end_time），不使用 OFFSET
+ * 3. 每批罚金通过 JDBC 批量更新写入，与检查点在同一事务中提交
+ * 4. 中断（重启、异常）后下一次执行从检查点继续本轮，罚金仍按本轮计算时间计算
+ *
+ * 罚金按计算时间重新计算后覆盖写入（不是累加），重复处理同一订单结果不变
+ * 多分片时每个分片有自己的检查点（penalty_accrual_checkpoints），依次处理
+ *
+ * 多实例部署时各实例的定时任务同时触发：
+ * 1. 开始或继续本轮的判断在一个短事务中进行，由事务级咨询锁认领，未拿到锁的实例跳过该分片
+ * 2. 每批更新的事务锁定本区间的检查点行（SKIP LOCKED），并校验检查点仍停在本线程上次提交的位置，
+ *    进度已被其他实例推进、或本轮已被重置时停止处理该区间
+ * 不在整轮期间占用连接持有锁，实例宕机时事务回滚即释放
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.BACKGROUND)
+public class PenaltyAccrualService {
+
+    /**
+     * 键集起点（早于任何订单的预计还车时间）
+     */
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * 认领一轮罚金累计的咨询锁键（每个分片数据库各自独立）
+     */
+    static final long ACCRUAL_LOCK_KEY = 0x70656e616c7479L;
+
+    private static final String UPDATE_PENALTY_SQL =
+            "UPDATE orders SET accrued_penalty = ?, penalty_accrued_at = ? " +
+            "WHERE id = ? AND created_at = ? AND status = 1";
+
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersionService resourceVersionService;
+    private final ThreadPoolTaskExecutor penaltyAccrualExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
+
+    /**
+     * 同一实例内不并发执行
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 区间数（与线程数一致，已按后台连接池大小封顶，见 PenaltyAccrualConfig）
+     */
+    private final int partitions;
+
+    @Value("${order.penalty.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 单个车辆 ID 区间的检查点
+     */
+    private record Checkpoint(int partitionNo, LocalDateTime asOf, int fromVehicleId, int toVehicleId,
+                              LocalDateTime lastEndTime, int lastOrderId, boolean finished) {
+    }
+
+    /**
+     * 认领到的本轮检查点（resumed：从上一轮未完成的检查点继续）
+     */
+    private record Claim(List<Checkpoint> checkpoints, boolean resumed) {
+    }
+
+    /**
+     * 单个分片的执行结果（skipped：其他实例正在处理该分片）
+     */
+    private record ShardRun(LocalDateTime asOf, boolean resumed, int partitions, int processed, boolean skipped) {
+    }
+
+    public PenaltyAccrualService(OrderRepository orderRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 ResourceVersionService resourceVersionService,
+                                 @Qualifier("penaltyAccrualExecutor") ThreadPoolTaskExecutor penaltyAccrualExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 ShardDirectory shardDirectory,
+                                 ShardRouter shardRouter) {
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceVersionService = resourceVersionService;
+        this.penaltyAccrualExecutor = penaltyAccrualExecutor;
+        this.partitions = penaltyAccrualExecutor.getMaxPoolSize();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardDirectory = shardDirectory;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * 定时执行罚金累计
+     */
+    @Scheduled(cron = "${order.penalty.accrual-cron:0 */15 * * * *}")
+    public void scheduledAccrual() {
+        try {
+            accrue();
+        } catch (BusinessException e) {
+            log.info("跳过本次罚金累计：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一轮罚金累计（上一轮未完成时从检查点继续）
+     * 多分片时各分片依次执行，各自维护检查点
+     *
+     * @return 执行结果（各分片合计）
+     */
+    public PenaltyAccrualResultDTO accrue() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("罚金累计任务正在执行");
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            LocalDateTime asOf = null;
+            boolean resumed = false;
+            int partitionCount = 0;
+            int processed = 0;
+            int skipped = 0;
+            for (String shard : shardDirectory.shardIds()) {
+                ShardRun run = shardRouter.callOnShard(shard, () -> claimAndAccrue(shard));
+                if (run.skipped()) {
+                    skipped++;
+                    continue;
+                }
+                asOf = asOf != null ? asOf : run.asOf();
+                resumed |= run.resumed();
+                partitionCount += run.partitions();
+                processed += run.processed();
+            }
+            if (skipped == shardDirectory.shardIds().size()) {
+                throw new BusinessException("罚金累计任务正在其他实例执行");
+            }
+            if (processed > 0) {
+                resourceVersionService.bumpAfterCommit(Resource.ORDERS);
+            }
+
+            long elapsedMs = System.currentTimeMillis() - startedAt;
+            log.info("罚金累计完成：计算时间 {}，{}个区间，更新订单 {} 个，耗时 {} ms{}",
+                    asOf, partitionCount, processed, elapsedMs, resumed ? "（从检查点继续）" : "");
+            return new PenaltyAccrualResultDTO(asOf, resumed, partitionCount, processed, elapsedMs);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 在当前分片上认领本轮（事务级咨询锁）：在同一事务中读取检查点，本轮已结束时开始新一轮
+     * 锁随事务提交释放，区间任务不持有该锁，各批次由检查点行锁保护
+     */
+    private ShardRun claimAndAccrue(String shard) {
+        Claim claim = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                    Boolean.class, ACCRUAL_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return null;
+            }
+            List<Checkpoint> checkpoints = loadCheckpoints();
+            if (checkpoints.stream().anyMatch(checkpoint -> !checkpoint.finished())) {
+                return new Claim(checkpoints, true);
+            }
+            // 计算时间按数据库精度（微秒）截断，各批次按检查点的 as_of 精确校验
+            return new Claim(startRun(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)), false);
+        });
+        if (claim == null) {
+            log.info("分片 {} 的罚金累计正在其他实例执行，跳过", shard);
+            return new ShardRun(null, false, 0, 0, true);
+        }
+        return accrueOnShard(shard, claim);
+    }
+
+    /**
+     * 在当前分片上执行一轮（或从检查点继续），区间任务在线程池中按同一分片执行
+     */
+    private ShardRun accrueOnShard(String shard, Claim claim) {
+        List<Checkpoint> checkpoints = claim.checkpoints();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (Checkpoint checkpoint : checkpoints) {
+            if (!checkpoint.finished()) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> ShardRoutingDataSource.supplyWith(shard, () -> processPartition(checkpoint)),
+                        penaltyAccrualExecutor));
+            }
+        }
+        int processed = futures.stream().mapToInt(CompletableFuture::join).sum();
+        LocalDateTime asOf = checkpoints.isEmpty() ? null : checkpoints.get(0).asOf();
+        return new ShardRun(asOf, claim.resumed(), checkpoints.size(), processed, false);
+    }
+
+    /**
+     * 开始新一轮：按当前车辆 ID 范围划分区间，重置检查点
+     * 最后一个区间上界不封顶，本轮开始后新增的车辆也能被覆盖
+     */
+    private List<Checkpoint> startRun(LocalDateTime asOf) {
+        Integer[] range = jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM vehicles",
+                (rs, rowNum) -> new Integer[]{(Integer) rs.getObject(1), (Integer) rs.getObject(2)});
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        if (range != null && range[0] != null) {
+            long span = (long) range[1] - range[0] + 1;
+            int count = (int) Math.max(1, Math.min(partitions, span));
+            for (int i = 0; i < count; i++) {
+                int from = (int) (range[0] + span * i / count);
+                int to = i == count - 1 ? Integer.MAX_VALUE : (int) (range[0] + span * (i + 1) / count - 1);
+                checkpoints.add(new Checkpoint(i, asOf, from, to, KEYSET_START, 0, false));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM penalty_accrual_checkpoints");
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO penalty_accrual_checkpoints " +
+                    "(partition_no, as_of, from_vehicle_id, to_vehicle_id, last_end_time, last_order_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)",
+                    checkpoints, checkpoints.size(), (ps, checkpoint) -> {
+                        ps.setInt(1, checkpoint.partitionNo());
+                        ps.setTimestamp(2, Timestamp.valueOf(checkpoint.asOf()));
+                        ps.setInt(3, checkpoint.fromVehicleId());
+                        ps.setInt(4, checkpoint.toVehicleId());
+                        ps.setTimestamp(5, Timestamp.valueOf(checkpoint.lastEndTime()));
+                        ps.setInt(6, checkpoint.lastOrderId());
+                    });
+        });
+        return checkpoints;
+    }
+
+    private List<Checkpoint> loadCheckpoints() {
+        return jdbcTemplate.query(
+                "SELECT partition_no, as_of, from_vehicle_id, to_vehicle_id, last_end_time, last_order_id, finished " +
+                "FROM penalty_accrual_checkpoints ORDER BY partition_no",
+                (rs, rowNum) -> new Checkpoint(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getInt(3), rs.getInt(4), rs.getTimestamp(5).toLocalDateTime(),
+                        rs.getInt(6), rs.getBoolean(7)));
+    }
+
+    /**
+     * 处理一个车辆 ID 区间，每批更新与检查点在同一事务中提交
+     * 提交前锁定检查点行并校验其仍停在本批的起点，否则说明其他实例已接手该区间（或开始了新一轮），停止处理
+     *
+     * @return 更新的订单数
+     */
+    private int processPartition(Checkpoint checkpoint) {
+        LocalDateTime afterEndTime = checkpoint.lastEndTime();
+        int afterId = checkpoint.lastOrderId();
+        int processed = 0;
+        while (true) {
+            List<Object[]> chunk = orderRepository.findOverdueChunk(checkpoint.asOf(),
+                    checkpoint.fromVehicleId(), checkpoint.toVehicleId(), afterEndTime, afterId, chunkSize);
+            Object[] last = chunk.isEmpty() ? null : chunk.get(chunk.size() - 1);
+            LocalDateTime fromEndTime = afterEndTime;
+            int fromOrderId = afterId;
+            LocalDateTime lastEndTime = last != null ? (LocalDateTime) last[2] : afterEndTime;
+            int lastOrderId = last != null ? (Integer) last[0] : afterId;
+            boolean finished = chunk.size() < chunkSize;
+            Boolean committed = transactionTemplate.execute(status -> {
+                if (!lockCheckpoint(checkpoint, fromEndTime, fromOrderId)) {
+                    return false;
+                }
+                if (!chunk.isEmpty()) {
+                    updatePenalties(chunk, checkpoint.asOf());
+                }
+                jdbcTemplate.update("UPDATE penalty_accrual_checkpoints SET last_end_time = ?, last_order_id = ?, " +
+                                "processed = processed + ?, finished = ?, updated_at = LOCALTIMESTAMP WHERE partition_no = ?",
+                        lastEndTime, lastOrderId, chunk.size(), finished, checkpoint.partitionNo());
+                return true;
+            });
+            if (!Boolean.TRUE.equals(committed)) {
+                log.info("罚金累计区间 {} 已由其他实例处理，停止本实例的处理", checkpoint.partitionNo());
+                return processed;
+            }
+            processed += chunk.size();
+            if (finished) {
+                return processed;
+            }
+            afterEndTime = lastEndTime;
+            afterId = lastOrderId;
+        }
+    }
+
+    /**
+     * 锁定区间检查点行（被其他实例锁定时跳过），并确认本轮未被重置、进度仍停在本批起点
+     */
+    private boolean lockCheckpoint(Checkpoint checkpoint, LocalDateTime fromEndTime, int fromOrderId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT partition_no FROM penalty_accrual_checkpoints " +
+                "WHERE partition_no = ? AND as_of = ? AND last_end_time = ? AND last_order_id = ? AND NOT finished " +
+                "FOR UPDATE SKIP LOCKED",
+                Integer.class, checkpoint.partitionNo(), checkpoint.asOf(), fromEndTime, fromOrderId).isEmpty();
+    }
+
+    /**
+     * 批量写入一批订单的罚金（带分区键 created_at，直接定位到月度分区）
+     */
+    private void updatePenalties(List<Object[]> chunk, LocalDateTime asOf) {
+        Timestamp accruedAt = Timestamp.valueOf(asOf);
+        jdbcTemplate.batchUpdate(UPDATE_PENALTY_SQL, chunk, chunk.size(), (ps, row) -> {
+            Money dailyRate = Money.of((BigDecimal) row[3]);
+            Money penalty = OrderService.overduePenalty(dailyRate, (LocalDateTime) row[2], asOf);
+            ps.setBigDecimal(1, penalty.toBigDecimal());
+            ps.setTimestamp(2, accruedAt);
+            ps.setInt(3, (Integer) row[0]);
+            ps.setTimestamp(4, Timestamp.valueOf((LocalDateTime) row[1]));
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.repository.UserRepository;
+import com.java_db.demo.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 注册唯一性布隆过滤器服务
+ * 内存中维护已注册用户名、手机号的布隆过滤器，注册时：
+ * 1. 过滤器判定"一定不存在" -> 跳过数据库检查，直接插入
+ * 2. 过滤器判定"可能存在" -> 查库确认（查库发现不存在即为一次误判）
+ * 最终正确性由 users 表的 UNIQUE 约束保证（见 AuthService.register）
+ *
+ * 指标（/actuator/metrics）：
+ * - registration.bloom.checks{field, result=absent|maybe}：过滤器判定次数
+ * - registration.bloom.false.positives{field}：误判次数
+ * - registration.bloom.false.positive.rate{field}：实测误判率（误判次数 / 判定为可能存在的次数）
+ * - registration.bloom.expected.false.positive.rate{field}：按过滤器置位比例估算的误判率
+ */
+@Slf4j
+@Service
+public class RegistrationFilterService {
+
+    private final UserRepository userRepository;
+    private final FieldFilter usernames;
+    private final FieldFilter phones;
+
+    @Value("${registration.bloom.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${registration.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public RegistrationFilterService(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.usernames = new FieldFilter("username", meterRegistry);
+        this.phones = new FieldFilter("phone", meterRegistry);
+    }
+
+    /**
+     * 启动时从 users 表构建过滤器
+     * 构建完成前所有判定都返回"可能存在"（走数据库检查）；
+     * 构建期间注册的用户可能未进入过滤器，重复注册由唯一约束兜底
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildFilters() {
+        List<Object[]> rows = userRepository.findAllUsernamesAndPhones();
+        long capacity = Math.max(expectedUsers, rows.size() * 2L);
+        BloomFilter usernameFilter = new BloomFilter(capacity, falsePositiveRate);
+        BloomFilter phoneFilter = new BloomFilter(capacity, falsePositiveRate);
+        for (Object[] row : rows) {
+            usernameFilter.put((String) row[0]);
+            if (row[1] != null) {
+                phoneFilter.put((String) row[1]);
+            }
+        }
+        usernames.filter = usernameFilter;
+        phones.filter = phoneFilter;
+        log.info("注册布隆过滤器构建完成，已有用户 {} 个，容量 {}", rows.size(), capacity);
+    }
+
+    /**
+     * 用户名是否可能已存在
+     *
+     * @param username 用户名
+     * @return false 表示一定不存在，可跳过数据库检查
+     */
+    public boolean mightContainUsername(String username) {
+        return usernames.mightContain(username);
+    }
+
+    /**
+     * 手机号是否可能已存在
+     *
+     * @param phone 手机号
+     * @return false 表示一定不存在，可跳过数据库检查
+     */
+    public boolean mightContainPhone(String phone) {
+        return phones.mightContain(phone);
+    }
+
+    /**
+     * 记录用户名误判（过滤器判定可能存在，查库不存在）
+     */
+    public void recordUsernameFalsePositive() {
+        usernames.falsePositives.increment();
+    }
+
+    /**
+     * 记录手机号误判（过滤器判定可能存在，查库不存在）
+     */
+    public void recordPhoneFalsePositive() {
+        phones.falsePositives.increment();
+    }
+
+    /**
+     * 新用户写入后加入过滤器
+     *
+     * @param username 用户名
+     * @param phone 手机号（可为空）
+     */
+    public void addUser(String username, String phone) {
+        usernames.put(username);
+        addPhone(phone);
+    }
+
+    /**
+     * 手机号变更后加入过滤器（旧手机号无法移除，只会增加误判）
+     *
+     * @param phone 手机号（可为空）
+     */
+    public void addPhone(String phone) {
+        if (phone != null) {
+            phones.put(phone);
+        }
+    }
+
+    /**
+     * 单个字段的过滤器及其指标
+     */
+    private static class FieldFilter {
+
+        private volatile BloomFilter filter;
+        private final Counter absent;
+        private final Counter maybe;
+        private final Counter falsePositives;
+
+        FieldFilter(String field, MeterRegistry meterRegistry) {
+            this.absent = Counter.builder("registration.bloom.checks")
+                    .tag("field", field).tag("result", "absent").register(meterRegistry);
+            this.maybe = Counter.builder("registration.bloom.checks")
+                    .tag("field", field).tag("result", "maybe").register(meterRegistry);
+            this.falsePositives = Counter.builder("registration.bloom.false.positives")
+                    .tag("field", field).register(meterRegistry);
+            Gauge.builder("registration.bloom.false.positive.rate", this,
+                            f -> f.maybe.count() == 0 ? 0 : f.falsePositives.count() / f.maybe.count())
+                    .tag("field", field).register(meterRegistry);
+            Gauge.builder("registration.bloom.expected.false.positive.rate", this,
+                            f -> f.filter == null ? 0 : f.filter.expectedFalsePositiveRate())
+                    .tag("field", field).register(meterRegistry);
+        }
+
+        boolean mightContain(String value) {
+            BloomFilter current = filter;
+            if (current == null) {
+                return true;
+            }
+            boolean result = current.mightContain(value);
+            (result ? maybe : absent).increment();
+            return result;
+        }
+
+        void put(String value) {
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.dto.ReportJobDTO;
+import com.java_db.demo.dto.ReportJobRequest;
+import com.java_db.demo.entity.ReportJob;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.exception.ResourceNotFoundException;
+import com.java_db.demo.repository.ReportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 异步报表任务服务
+ * 将耗时报表放到独立线程池中执行，结果以 JSON 持久化到 report_jobs 表
+ *
+ * 流程：
+ * 1. 提交任务 -> 返回任务 ID（相同参数的进行中任务直接复用）
+ * 2. 轮询任务状态和进度
+ * 3. 任务完成后获取持久化的报表结果
+ * 4. 定时清理超过保留期的任务
+ *
+ * 多实例部署：任务记录所属实例，实例定时为自己的未完成任务续期（心跳）；
+ * 启动时和每次续期后，只把心跳超过 report.job.lease-ms 的未完成任务（所属实例已停止）标记为失败
+ */
+@Slf4j
+@Service
+@Workload(WorkloadType.REPORTING)
+public class ReportJobService {
+
+    private final ReportJobRepository reportJobRepository;
+    private final ReportService reportService;
+    private final ThreadPoolTaskExecutor reportJobExecutor;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 进行中任务：去重键 -> 任务 ID
+     */
+    private final Map<String, Integer> inFlightJobs = new ConcurrentHashMap<>();
+
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong() & 0xffffffffffL);
+
+    @Value("${report.job.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${report.job.lease-ms:60000}")
+    private long leaseMs;
+
+    public ReportJobService(ReportJobRepository reportJobRepository,
+                            ReportService reportService,
+                            @Qualifier("reportJobExecutor") ThreadPoolTaskExecutor reportJobExecutor,
+                            ObjectMapper objectMapper) {
+        this.reportJobRepository = reportJobRepository;
+        this.reportService = reportService;
+        this.reportJobExecutor = reportJobExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 提交报表任务
+     * 相同类型、周期、时间范围的任务如果正在排队或执行，直接返回已有任务
+     *
+     * @param request 任务参数
+     * @return 任务状态
+     */
+    public ReportJobDTO submit(ReportJobRequest request) {
+        validate(request);
+
+        String jobKey = request.toJobKey();
+        Integer[] created = new Integer[1];
+        Integer jobId = inFlightJobs.computeIfAbsent(jobKey, key -> {
+            ReportJob job = new ReportJob();
+            job.setJobKey(key);
+            job.setReportType(request.getReportType().name());
+            job.setStatus(0);
+            job.setProgress(0);
+            job.setOwnerInstance(instanceId);
+            job.setHeartbeatAt(LocalDateTime.now());
+            created[0] = reportJobRepository.save(job).getId();
+            return created[0];
+        });
+
+        if (created[0] != null) {
+            try {
+                reportJobExecutor.execute(() -> runJob(jobId, jobKey, request));
+            } catch (TaskRejectedException e) {
+                inFlightJobs.remove(jobKey, jobId);
+                finishJob(jobId, 3, null, "报表任务队列已满");
+                throw new BusinessException("报表任务队列已满，请稍后再试");
+            }
+        }
+
+        return getJob(jobId);
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param jobId 任务 ID
+     * @return 任务状态
+     */
+    @Transactional(readOnly = true)
+    public ReportJobDTO getJob(Integer jobId) {
+        return toDTO(findJob(jobId));
+    }
+
+    /**
+     * 获取任务结果（JSON）
+     *
+     * @param jobId 任务 ID
+     * @return 报表结果 JSON
+     */
+    @Transactional(readOnly = true)
+    public String getResult(Integer jobId) {
+        ReportJob job = findJob(jobId);
+        if (job.getStatus() == 3) {
+            throw new BusinessException("报表任务执行失败：" + job.getErrorMessage());
+        }
+        if (job.getStatus() != 2) {
+            throw new BusinessException("报表任务尚未完成");
+        }
+        return job.getResult();
+    }
+
+    /**
+     * 定时清理超过保留期的已完成/失败任务
+     */
+    @Scheduled(fixedDelayString = "${report.job.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpiredJobs() {
+        int deleted = reportJobRepository.deleteFinishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("清理过期报表任务 {} 个", deleted);
+        }
+    }
+
+    /**
+     * 启动时将心跳已过期的未完成任务（已停止的实例遗留）标记为失败，其他实例正在执行的任务不受影响
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void failOrphanedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = reportJobRepository.failExpiredJobs("所属实例已停止，任务已中断", now,
+                now.minus(Duration.ofMillis(leaseMs)));
+        if (failed > 0) {
+            log.info("已停止实例遗留的报表任务 {} 个标记为失败", failed);
+        }
+    }
+
+    /**
+     * 定时为本实例的未完成任务续期，并清理其他实例停止后遗留的任务
+     */
+    @Scheduled(fixedDelayString = "${report.job.heartbeat-ms:15000}")
+    @Transactional
+    public void renewLeases() {
+        reportJobRepository.renewLease(instanceId, LocalDateTime.now());
+        failOrphanedJobs();
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void runJob(Integer jobId, String jobKey, ReportJobRequest request) {
+        try {
+            ReportJob job = findJob(jobId);
+            job.setStatus(1);
+            job.setProgress(10);
+            job.setStartedAt(LocalDateTime.now());
+            reportJobRepository.save(job);
+
+            Object result = generateReport(request);
+            updateProgress(jobId, 90);
+
+            finishJob(jobId, 2, objectMapper.writeValueAsString(result), null);
+        } catch (Exception e) {
+            log.warn("报表任务 {} 执行失败", jobId, e);
+            finishJob(jobId, 3, null, e.getMessage());
+        } finally {
+            inFlightJobs.remove(jobKey, jobId);
+        }
+    }
+
+    private Object generateReport(ReportJobRequest request) {
+        LocalDateTime start = request.getStartDate();
+        LocalDateTime end = request.getEndDate();
+        return switch (request.getReportType()) {
+            case DASHBOARD -> reportService.getDashboard(start, end);
+            case REVENUE -> reportService.getRevenueStatistics(request.getPeriod(), start, end);
+            case VEHICLE_UTILIZATION -> reportService.getVehicleUtilization(start, end);
+            case MAINTENANCE_COST -> reportService.getMaintenanceCost(start.toLocalDate(), end.toLocalDate());
+            case ORDER_TREND -> reportService.getOrderTrend(request.getPeriod(), start, end);
+            case STORE_REVENUE -> reportService.getStoreRevenue(start, end);
+        };
+    }
+
+    private void validate(ReportJobRequest request) {
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        switch (request.getReportType()) {
+            case REVENUE, ORDER_TREND -> {
+                if (request.getPeriod() == null) {
+                    throw new BusinessException("该报表类型需要指定统计周期");
+                }
+            }
+            default -> request.setPeriod(null); // 其他报表忽略周期，避免影响去重
+        }
+    }
+
+    private void updateProgress(Integer jobId, int progress) {
+        ReportJob job = findJob(jobId);
+        job.setProgress(progress);
+        reportJobRepository.save(job);
+    }
+
+    private void finishJob(Integer jobId, int status, String result, String errorMessage) {
+        ReportJob job = findJob(jobId);
+        job.setStatus(status);
+        job.setProgress(100);
+        job.setResult(result);
+        job.setErrorMessage(errorMessage != null && errorMessage.length() > 500
+                ? errorMessage.substring(0, 500) : errorMessage);
+        job.setFinishedAt(LocalDateTime.now());
+        reportJobRepository.save(job);
+    }
+
+    private ReportJob findJob(Integer jobId) {
+        return reportJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("报表任务不存在"));
+    }
+
+    private ReportJobDTO toDTO(ReportJob job) {
+        return new ReportJobDTO(
+                job.getId(),
+                job.getReportType(),
+                job.getStatus(),
+                job.getProgress(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
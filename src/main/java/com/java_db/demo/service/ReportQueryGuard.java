@@ -0,0 +1,327 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.WorkloadRoutingDataSource;
+import com.java_db.demo.datasource.WorkloadType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.core.BaseConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+/**
+ * 报表查询时限与取消
+ *
+ * 1. 每个报表接口有独立的查询时限（report.query.timeout.{接口}，未配置时取 report.query.timeout-seconds），
+ *    作为报表只读事务的超时时间：Spring 按事务剩余时间设置每条 JPA / JDBC 语句的查询超时，
+ *    同时在事务内 SET LOCAL statement_timeout，由 PostgreSQL 服务端兜底
+ * 2. 报表在 MVC 异步线程中执行；客户端断开连接，或超过时限仍未返回时，
+ *    通过 PostgreSQL 取消请求中止正在执行的语句，连接随事务回滚归还连接池
+ * 3. 超时返回 503 + ProblemDetail，提示缩小查询范围或改用异步报表任务
+ *
+ * 断开检测：Tomcat 在异步请求期间不监听连接的读事件，客户端断开不会触发 onError；
+ * 为请求体注册 ReadListener 后，ServletInputStream.available() 会非阻塞地读取连接，
+ * 读到 EOF 时返回大于 0（报表均为 GET 请求，正常连接上没有待读数据），据此定期探测
+ */
+@Slf4j
+@Service
+public class ReportQueryGuard {
+
+    /**
+     * 查询时限之外留给语句超时自行生效的时间，超过后由请求超时回调主动取消
+     */
+    private static final long CANCEL_GRACE_MILLIS = 1000;
+
+    /**
+     * PostgreSQL 语句被取消（语句超时、取消请求）的 SQLState
+     */
+    private static final String QUERY_CANCELED = "57014";
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskScheduler taskScheduler;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${report.query.timeout-seconds:8}")
+    private int defaultTimeoutSeconds;
+
+    @Value("${report.query.disconnect-check-ms:500}")
+    private long disconnectCheckMillis;
+
+    public ReportQueryGuard(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            TaskScheduler taskScheduler,
+                            Environment environment,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.transactionManager = transactionManager;
+        this.taskScheduler = taskScheduler;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 在查询时限内异步执行报表
+     * 须在请求线程中调用（控制器方法内）
+     *
+     * @param endpoint 报表接口名（对应 report.query.timeout.{endpoint}）
+     * @param report 生成报表响应（在报表只读事务内调用）
+     * @return 异步任务（超时或客户端断开时取消查询）
+     */
+    public WebAsyncTask<ResponseEntity<byte[]>> execute(String endpoint, Supplier<ResponseEntity<byte[]>> report) {
+        int timeoutSeconds = environment.getProperty("report.query.timeout." + endpoint, Integer.class, defaultTimeoutSeconds);
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        RunningQuery query = new RunningQuery(endpoint);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setTimeout(timeoutSeconds);
+
+        Callable<ResponseEntity<byte[]>> task = () -> {
+            ScheduledFuture<?> disconnectCheck = watchDisconnect(request, query);
+            try {
+                return WorkloadRoutingDataSource.callWith(WorkloadType.REPORTING, () -> transactionTemplate.execute(status -> {
+                    query.attach(DataSourceUtils.getConnection(dataSource), timeoutSeconds);
+                    try {
+                        return report.get();
+                    } finally {
+                        query.detach();
+                    }
+                }));
+            } catch (RuntimeException e) {
+                if (!isQueryCanceled(e)) {
+                    throw e;
+                }
+                if (query.abandoned) {
+                    // 客户端已断开，响应不会被发送
+                    return null;
+                }
+                return timeout(endpoint, timeoutSeconds, "statement");
+            } finally {
+                if (disconnectCheck != null) {
+                    disconnectCheck.cancel(false);
+                }
+                query.finish();
+            }
+        };
+
+        WebAsyncTask<ResponseEntity<byte[]>> asyncTask =
+                new WebAsyncTask<>(timeoutSeconds * 1000L + CANCEL_GRACE_MILLIS, task);
+        asyncTask.onTimeout(() -> {
+            query.cancel();
+            return timeout(endpoint, timeoutSeconds, "deadline");
+        });
+        asyncTask.onError(() -> {
+            query.abandon();
+            return ResponseEntity.noContent().build();
+        });
+        return asyncTask;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 注册 ReadListener 并定期探测客户端连接（在异步线程中调用，此时请求已进入异步模式）
+     *
+     * @return 定时探测任务；容器不支持时返回 null，仅依赖查询时限
+     */
+    private ScheduledFuture<?> watchDisconnect(HttpServletRequest request, RunningQuery query) {
+        try {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(query);
+            return taskScheduler.scheduleAtFixedRate(() -> query.probe(input), Duration.ofMillis(disconnectCheckMillis));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("报表请求 {} 无法检测客户端断开: {}", query.endpoint, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查询超时或被取消：Hibernate / Spring 将 SQLState 57014 翻译为 QueryTimeoutException，
+     * 事务剩余时间耗尽时抛出 TransactionTimedOutException，其余情况按 SQLState 判断
+     */
+    private boolean isQueryCanceled(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException
+                    || cause instanceof TransactionTimedOutException
+                    || cause instanceof jakarta.persistence.QueryTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && QUERY_CANCELED.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<byte[]> timeout(String endpoint, int timeoutSeconds, String reason) {
+        log.warn("报表请求 {} 超过查询时限 {} 秒（{}）", endpoint, timeoutSeconds, reason);
+        count(endpoint, reason);
+
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "报表查询超过 " + timeoutSeconds + " 秒，请缩小查询时间范围，或提交异步报表任务（POST /api/reports/jobs）");
+        problem.setTitle("报表查询超时");
+        problem.setProperty("endpoint", endpoint);
+        problem.setProperty("timeoutSeconds", timeoutSeconds);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(objectMapper.writeValueAsBytes(problem));
+    }
+
+    private void count(String endpoint, String reason) {
+        Counter.builder("report.query.cancellations")
+                .description("报表查询因超时或客户端断开被中止的次数")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 正在执行报表的数据库连接，供请求线程、探测线程发送取消请求
+     * PostgreSQL 取消请求经独立的网络连接发送，不占用连接池
+     * attach / detach / cancel 持有同一把锁：detach 等待进行中的取消请求发送完毕，
+     * 连接归还连接池后不会再被取消（否则可能取消其他请求复用该连接执行的语句）
+     */
+    private class RunningQuery implements ReadListener {
+
+        private final String endpoint;
+        private final Object cancelLock = new Object();
+        private BaseConnection connection;
+        private volatile boolean abandoned;
+        private boolean finished;
+
+        RunningQuery(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void attach(Connection connection, int timeoutSeconds) {
+            if (abandoned) {
+                throw new QueryTimeoutException("客户端已断开，不再执行报表查询");
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL statement_timeout = " + timeoutSeconds * 1000L);
+                BaseConnection target = connection.unwrap(BaseConnection.class);
+                synchronized (cancelLock) {
+                    // 设置时限期间客户端断开：abandon 未能取消，此处不再执行
+                    if (abandoned) {
+                        throw new QueryTimeoutException("客户端已断开，不再执行报表查询");
+                    }
+                    this.connection = target;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("设置报表查询时限失败", e);
+            }
+        }
+
+        /**
+         * 报表查询结束、连接归还前调用：等待进行中的取消请求，之后 cancel() 不再生效
+         */
+        void detach() {
+            synchronized (cancelLock) {
+                connection = null;
+            }
+        }
+
+        /**
+         * 报表执行结束（之后请求对象可能被容器回收，不再探测）
+         */
+        synchronized void finish() {
+            finished = true;
+        }
+
+        /**
+         * 探测客户端连接：报表执行结束前，available() 大于 0 说明读到了 EOF
+         */
+        synchronized void probe(ServletInputStream input) {
+            if (finished || abandoned) {
+                return;
+            }
+            try {
+                if (input.available() > 0) {
+                    abandon();
+                }
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        /**
+         * 客户端已断开：取消正在执行的查询，尚未开始的查询不再执行
+         */
+        void abandon() {
+            abandoned = true;
+            if (cancel()) {
+                log.info("报表请求 {} 客户端已断开，已取消查询", endpoint);
+                count(endpoint, "disconnect");
+            }
+        }
+
+        /**
+         * @return 是否向正在执行的查询发送了取消请求
+         */
+        boolean cancel() {
+            synchronized (cancelLock) {
+                if (connection == null) {
+                    return false;
+                }
+                try {
+                    connection.cancelQuery();
+                    return true;
+                } catch (SQLException e) {
+                    log.warn("取消报表查询失败: {}", e.getMessage());
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public void onDataAvailable() {
+            // 报表为 GET 请求，不读取请求体
+        }
+
+        @Override
+        public void onAllDataRead() {
+            // 同上
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            abandon();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.java_db.demo.service;
 
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
 import com.java_db.demo.dto.*;
 import com.java_db.demo.entity.*;
 import com.java_db.demo.repository.*;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,14 +15,19 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * 报表服务实现类
+ *
+ * 多分片时订单、支付、维修记录在每个分片上查询后汇总（分散-汇总），金额合计按分片相加；
+ * 车辆、门店等参考数据读取主库
  */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Workload(WorkloadType.REPORTING)
 public class ReportServiceImpl implements ReportService {
     
     private final OrderRepository orderRepository;
@@ -26,27 +35,28 @@ public class ReportServiceImpl implements ReportService {
     private final PaymentRepository paymentRepository;
     private final MaintenanceRepository maintenanceRepository;
     private final StoreRepository storeRepository;
+    private final ShardRouter shardRouter;
     
     @Override
     public DashboardDTO getDashboard(LocalDateTime startDate, LocalDateTime endDate) {
         DashboardDTO dashboard = new DashboardDTO();
         
         // 关键指标
-        Double totalRevenue = paymentRepository.sumTotalAmountBetweenDates(startDate, endDate);
-        dashboard.setTotalRevenue(totalRevenue != null ? totalRevenue : 0.0);
+        // 金额统计均以分（long）累加，避免 double 精度丢失
+        long totalRevenueCents = sumAcrossShards(() -> paymentRepository.sumTotalAmountBetweenDates(startDate, endDate));
+        Money totalRevenue = Money.ofCents(totalRevenueCents);
+        dashboard.setTotalRevenue(totalRevenue);
         
         LocalDate startLocalDate = startDate.toLocalDate();
         LocalDate endLocalDate = endDate.toLocalDate();
-        Double totalMaintenanceCost = maintenanceRepository.sumTotalCostBetweenDates(startLocalDate, endLocalDate);
-        dashboard.setTotalMaintenanceCost(totalMaintenanceCost != null ? totalMaintenanceCost : 0.0);
+        long totalMaintenanceCostCents = sumAcrossShards(
+            () -> maintenanceRepository.sumTotalCostBetweenDates(startLocalDate, endLocalDate));
+        dashboard.setTotalMaintenanceCost(Money.ofCents(totalMaintenanceCostCents));
         
-        dashboard.setNetProfit(dashboard.getTotalRevenue() - dashboard.getTotalMaintenanceCost());
+        dashboard.setNetProfit(dashboard.getTotalRevenue().minus(dashboard.getTotalMaintenanceCost()));
         
-        // 订单统计
-        List<Order> allOrders = orderRepository.findAll();
-        List<Order> periodOrders = allOrders.stream()
-            .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
-            .collect(Collectors.toList());
+        // 订单统计（按 created_at 范围查询，命中分区裁剪）
+        List<Order> periodOrders = shardRouter.scatter(() -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(startDate, endDate));
         
         dashboard.setTotalOrders(periodOrders.size());
         dashboard.setCompletedOrders((int) periodOrders.stream().filter(o -> o.getStatus() == 2).count());
@@ -60,7 +70,7 @@ public class ReportServiceImpl implements ReportService {
         dashboard.setTransferVehicles((int) allVehicles.stream().filter(v -> v.getStatus() == 3).count());
         
         // 计算平均利用率
-        double avgUtilization = calculateAverageUtilization(allVehicles, startDate, endDate);
+        double avgUtilization = calculateAverageUtilization(allVehicles, periodOrders, startDate, endDate);
         dashboard.setAverageUtilizationRate(avgUtilization);
         
         // 按分类统计车辆
@@ -87,33 +97,34 @@ public class ReportServiceImpl implements ReportService {
         orderByStatus.put("已取消", (int) periodOrders.stream().filter(o -> o.getStatus() == 3).count());
         dashboard.setOrderByStatus(orderByStatus);
         
-        // 按门店统计收入
-        List<Object[]> storeStats = orderRepository.getStoreOrderStatistics(startDate, endDate);
-        Map<String, Double> revenueByStore = new HashMap<>();
+        // 按门店统计收入（各分片的统计按门店累加）
+        List<Object[]> storeStats = shardRouter.scatter(() -> orderRepository.getStoreOrderStatistics(startDate, endDate));
+        Map<Integer, Long> revenueCentsByStore = new HashMap<>();
         for (Object[] stat : storeStats) {
-            Integer storeId = (Integer) stat[0];
-            Double revenue = ((Number) stat[2]).doubleValue();
+            revenueCentsByStore.merge(((Number) stat[0]).intValue(), ((Number) stat[2]).longValue(), Long::sum);
+        }
+        Map<String, Money> revenueByStore = new HashMap<>();
+        revenueCentsByStore.forEach((storeId, cents) -> {
             Store store = storeRepository.findById(storeId).orElse(null);
             if (store != null) {
-                revenueByStore.put(store.getName(), revenue);
+                revenueByStore.put(store.getName(), Money.ofCents(cents));
             }
-        }
+        });
         dashboard.setRevenueByStore(revenueByStore);
         
         // 计算增长率（对比前7天）
         LocalDateTime previousStartDate = startDate.minusDays(7);
-        Double previousRevenue = paymentRepository.sumTotalAmountBetweenDates(previousStartDate, startDate);
-        if (previousRevenue != null && previousRevenue > 0 && totalRevenue != null) {
-            double growth = ((totalRevenue - previousRevenue) / previousRevenue) * 100;
+        long previousRevenueCents = sumAcrossShards(
+            () -> paymentRepository.sumTotalAmountBetweenDates(previousStartDate, startDate));
+        if (previousRevenueCents > 0) {
+            double growth = ((double) (totalRevenue.cents() - previousRevenueCents) / previousRevenueCents) * 100;
             dashboard.setRevenueGrowthRate(Math.round(growth * 100.0) / 100.0);
         } else {
             dashboard.setRevenueGrowthRate(0.0);
         }
         
-        List<Order> previousOrders = allOrders.stream()
-            .filter(o -> o.getCreatedAt().isAfter(previousStartDate) && o.getCreatedAt().isBefore(startDate))
-            .collect(Collectors.toList());
-        int previousOrderCount = previousOrders.size();
+        int previousOrderCount = shardRouter.scatter(
+            () -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(previousStartDate, startDate)).size();
         if (previousOrderCount > 0) {
             double orderGrowth = ((double)(periodOrders.size() - previousOrderCount) / previousOrderCount) * 100;
             dashboard.setOrderGrowthRate(Math.round(orderGrowth * 100.0) / 100.0);
@@ -128,14 +139,11 @@ public class ReportServiceImpl implements ReportService {
     public List<RevenueStatisticsDTO> getRevenueStatistics(ReportPeriod period, LocalDateTime startDate, LocalDateTime endDate) {
         List<RevenueStatisticsDTO> result = new ArrayList<>();
         
-        // 获取所有订单和支付记录
-        List<Order> orders = orderRepository.findAll().stream()
-            .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
-            .collect(Collectors.toList());
+        // 按时间范围获取订单和支付记录（命中分区裁剪）
+        List<Order> orders = shardRouter.scatter(() -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(startDate, endDate));
         
-        List<Payment> payments = paymentRepository.findAll().stream()
-            .filter(p -> p.getPayTime().isAfter(startDate) && p.getPayTime().isBefore(endDate))
-            .collect(Collectors.toList());
+        List<Payment> payments = shardRouter.scatter(
+            () -> paymentRepository.findByPayTimeAfterAndPayTimeBefore(startDate, endDate));
         
         // 按时间周期分组
         Map<String, List<Order>> ordersByPeriod = groupOrdersByPeriod(orders, period);
@@ -159,35 +167,32 @@ public class ReportServiceImpl implements ReportService {
             dto.setCancelledOrderCount((int) periodOrders.stream().filter(o -> o.getStatus() == 3).count());
             
             // 统计收入
-            double totalRevenue = periodPayments.stream()
-                .filter(p -> p.getAmount() != null)
-                .mapToDouble(p -> p.getAmount().doubleValue()).sum();
-            dto.setTotalRevenue(totalRevenue);
-            
-            double depositAmount = periodPayments.stream()
-                .filter(p -> "Deposit".equals(p.getPayType()))
-                .filter(p -> p.getAmount() != null)
-                .mapToDouble(p -> p.getAmount().doubleValue()).sum();
-            dto.setDepositAmount(depositAmount);
-            
-            double finalAmount = periodPayments.stream()
-                .filter(p -> "Final".equals(p.getPayType()))
-                .filter(p -> p.getAmount() != null)
-                .mapToDouble(p -> p.getAmount().doubleValue()).sum();
-            dto.setFinalPaymentAmount(finalAmount);
-            
-            double penaltyAmount = periodPayments.stream()
-                .filter(p -> "Penalty".equals(p.getPayType()))
-                .filter(p -> p.getAmount() != null)
-                .mapToDouble(p -> p.getAmount().doubleValue()).sum();
-            dto.setPenaltyAmount(penaltyAmount);
+            // 单次遍历按支付类型累加（单位：分）
+            long totalRevenue = 0L;
+            long depositAmount = 0L;
+            long finalAmount = 0L;
+            long penaltyAmount = 0L;
+            for (Payment p : periodPayments) {
+                if (p.getAmount() == null) {
+                    continue;
+                }
+                long cents = p.getAmount().cents();
+                totalRevenue += cents;
+                if ("Deposit".equals(p.getPayType())) {
+                    depositAmount += cents;
+                } else if ("Final".equals(p.getPayType())) {
+                    finalAmount += cents;
+                } else if ("Penalty".equals(p.getPayType())) {
+                    penaltyAmount += cents;
+                }
+            }
+            dto.setTotalRevenue(Money.ofCents(totalRevenue));
+            dto.setDepositAmount(Money.ofCents(depositAmount));
+            dto.setFinalPaymentAmount(Money.ofCents(finalAmount));
+            dto.setPenaltyAmount(Money.ofCents(penaltyAmount));
             
             // 平均订单金额
-            double avgAmount = periodOrders.isEmpty() ? 0 : 
-                periodOrders.stream()
-                    .filter(o -> o.getTotalAmount() != null)
-                    .mapToDouble(o -> o.getTotalAmount().doubleValue()).average().orElse(0);
-            dto.setAverageOrderAmount(Math.round(avgAmount * 100.0) / 100.0);
+            dto.setAverageOrderAmount(averageAmount(periodOrders));
             
             result.add(dto);
         }
@@ -200,7 +205,8 @@ public class ReportServiceImpl implements ReportService {
         List<VehicleUtilizationDTO> result = new ArrayList<>();
         
         List<Vehicle> vehicles = vehicleRepository.findAll();
-        List<Order> allOrders = orderRepository.findAll();
+        Map<Integer, List<Order>> ordersByVehicle = groupOrdersByVehicle(
+            shardRouter.scatter(() -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(startDate, endDate)));
         
         for (Vehicle vehicle : vehicles) {
             VehicleUtilizationDTO dto = new VehicleUtilizationDTO();
@@ -212,10 +218,7 @@ public class ReportServiceImpl implements ReportService {
             dto.setStatus(vehicle.getStatus());
             
             // 统计该车辆的订单
-            List<Order> vehicleOrders = allOrders.stream()
-                .filter(o -> o.getVehicle() != null && o.getVehicle().getId().equals(vehicle.getId()))
-                .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
-                .collect(Collectors.toList());
+            List<Order> vehicleOrders = ordersByVehicle.getOrDefault(vehicle.getId(), Collections.emptyList());
             
             dto.setTotalOrders(vehicleOrders.size());
             
@@ -236,11 +239,7 @@ public class ReportServiceImpl implements ReportService {
             dto.setUtilizationRate(Math.round(utilization * 100.0) / 100.0);
             
             // 计算总收入
-            double totalRevenue = vehicleOrders.stream()
-                .filter(o -> o.getTotalAmount() != null)
-                .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                .sum();
-            dto.setTotalRevenue(Math.round(totalRevenue * 100.0) / 100.0);
+            dto.setTotalRevenue(sumOrderAmount(vehicleOrders));
             
             result.add(dto);
         }
@@ -256,8 +255,8 @@ public class ReportServiceImpl implements ReportService {
         List<MaintenanceCostDTO> result = new ArrayList<>();
         
         List<Vehicle> vehicles = vehicleRepository.findAll();
-        List<Maintenance> allMaintenance = maintenanceRepository.findAll();
-        List<Order> allOrders = orderRepository.findAll();
+        List<Maintenance> allMaintenance = shardRouter.scatter(maintenanceRepository::findAll);
+        List<Order> allOrders = shardRouter.scatter(orderRepository::findAll);
         
         for (Vehicle vehicle : vehicles) {
             // 筛选该车辆的维修记录
@@ -281,28 +280,22 @@ public class ReportServiceImpl implements ReportService {
             dto.setServiceCount((int) vehicleMaintenance.stream().filter(m -> "保养".equals(m.getType())).count());
             dto.setInspectionCount((int) vehicleMaintenance.stream().filter(m -> "年检".equals(m.getType())).count());
             
-            double totalCost = vehicleMaintenance.stream()
-                .filter(m -> m.getCost() != null)
-                .mapToDouble(m -> m.getCost().doubleValue()).sum();
-            dto.setTotalCost(Math.round(totalCost * 100.0) / 100.0);
-            
-            double avgCost = vehicleMaintenance.isEmpty() ? 0 : totalCost / vehicleMaintenance.size();
-            dto.setAverageCost(Math.round(avgCost * 100.0) / 100.0);
+            Money totalCost = sumMaintenanceCost(vehicleMaintenance);
+            dto.setTotalCost(totalCost);
+            dto.setAverageCost(totalCost.dividedBy(vehicleMaintenance.size()));
             
             // 计算该车辆的收入
-            double revenue = allOrders.stream()
+            Money revenue = sumOrderAmount(allOrders.stream()
                 .filter(o -> o.getVehicle() != null && o.getVehicle().getId().equals(vehicle.getId()))
-                .filter(o -> o.getTotalAmount() != null)
-                .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                .sum();
+                .collect(Collectors.toList()));
             
-            dto.setRevenueMinusCost(Math.round((revenue - totalCost) * 100.0) / 100.0);
+            dto.setRevenueMinusCost(revenue.minus(totalCost));
             
             result.add(dto);
         }
         
         // 按总成本降序排序
-        result.sort((a, b) -> Double.compare(b.getTotalCost(), a.getTotalCost()));
+        result.sort(Comparator.comparing(MaintenanceCostDTO::getTotalCost).reversed());
         
         return result;
     }
@@ -311,9 +304,7 @@ public class ReportServiceImpl implements ReportService {
     public List<OrderTrendDTO> getOrderTrend(ReportPeriod period, LocalDateTime startDate, LocalDateTime endDate) {
         List<OrderTrendDTO> result = new ArrayList<>();
         
-        List<Order> orders = orderRepository.findAll().stream()
-            .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
-            .collect(Collectors.toList());
+        List<Order> orders = shardRouter.scatter(() -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(startDate, endDate));
         
         Map<String, List<Order>> ordersByPeriod = groupOrdersByPeriod(orders, period);
         
@@ -328,10 +319,7 @@ public class ReportServiceImpl implements ReportService {
             dto.setCompletedOrders((int) periodOrders.stream().filter(o -> o.getStatus() == 2).count());
             dto.setCancelledOrders((int) periodOrders.stream().filter(o -> o.getStatus() == 3).count());
             
-            double totalAmount = periodOrders.stream()
-                .filter(o -> o.getTotalAmount() != null)
-                .mapToDouble(o -> o.getTotalAmount().doubleValue()).sum();
-            dto.setTotalAmount(Math.round(totalAmount * 100.0) / 100.0);
+            dto.setTotalAmount(sumOrderAmount(periodOrders));
             
             double completionRate = periodOrders.isEmpty() ? 0 : 
                 (dto.getCompletedOrders() * 100.0 / periodOrders.size());
@@ -356,8 +344,9 @@ public class ReportServiceImpl implements ReportService {
         
         List<Store> stores = storeRepository.findAll();
         List<Vehicle> allVehicles = vehicleRepository.findAll();
-        List<Order> allOrders = orderRepository.findAll();
-        List<Maintenance> allMaintenance = maintenanceRepository.findAll();
+        List<Order> periodOrders = shardRouter.scatter(() -> orderRepository.findByCreatedAtAfterAndCreatedAtBefore(startDate, endDate));
+        Map<Integer, List<Order>> ordersByVehicle = groupOrdersByVehicle(periodOrders);
+        List<Maintenance> allMaintenance = shardRouter.scatter(maintenanceRepository::findAll);
         
         for (Store store : stores) {
             StoreRevenueDTO dto = new StoreRevenueDTO();
@@ -372,50 +361,99 @@ public class ReportServiceImpl implements ReportService {
             dto.setVehicleCount(storeVehicles.size());
             
             // 该门店的订单（基于取车门店）
-            List<Order> storeOrders = allOrders.stream()
+            List<Order> storeOrders = periodOrders.stream()
                 .filter(o -> o.getPickupStore() != null && o.getPickupStore().getId().equals(store.getId()))
-                .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
                 .collect(Collectors.toList());
             dto.setOrderCount(storeOrders.size());
             
             // 收入统计
-            double totalRevenue = storeOrders.stream()
-                .filter(o -> o.getTotalAmount() != null)
-                .mapToDouble(o -> o.getTotalAmount().doubleValue()).sum();
-            dto.setTotalRevenue(Math.round(totalRevenue * 100.0) / 100.0);
+            Money totalRevenue = sumOrderAmount(storeOrders);
+            dto.setTotalRevenue(totalRevenue);
             
             // 维修成本（该门店所有车辆的维修成本）
             Set<Integer> storeVehicleIds = storeVehicles.stream()
                 .map(Vehicle::getId)
                 .collect(Collectors.toSet());
             
-            double maintenanceCost = allMaintenance.stream()
+            Money maintenanceCost = sumMaintenanceCost(allMaintenance.stream()
                 .filter(m -> m.getVehicle() != null && storeVehicleIds.contains(m.getVehicle().getId()))
                 .filter(m -> !m.getStartDate().isBefore(startDate.toLocalDate()) && 
                             !m.getStartDate().isAfter(endDate.toLocalDate()))
-                .filter(m -> m.getCost() != null)
-                .mapToDouble(m -> m.getCost().doubleValue())
-                .sum();
-            dto.setMaintenanceCost(Math.round(maintenanceCost * 100.0) / 100.0);
+                .collect(Collectors.toList()));
+            dto.setMaintenanceCost(maintenanceCost);
             
             // 净利润
-            dto.setNetProfit(Math.round((totalRevenue - maintenanceCost) * 100.0) / 100.0);
+            dto.setNetProfit(totalRevenue.minus(maintenanceCost));
             
             // 平均利用率
-            double avgUtilization = calculateAverageUtilization(storeVehicles, startDate, endDate);
+            double avgUtilization = calculateAverageUtilization(storeVehicles, ordersByVehicle, startDate, endDate);
             dto.setAverageUtilization(Math.round(avgUtilization * 100.0) / 100.0);
             
             result.add(dto);
         }
         
         // 按收入降序排序
-        result.sort((a, b) -> Double.compare(b.getTotalRevenue(), a.getTotalRevenue()));
+        result.sort(Comparator.comparing(StoreRevenueDTO::getTotalRevenue).reversed());
         
         return result;
     }
     
     // ==================== 私有辅助方法 ====================
     
+    /**
+     * 在每个分片上执行金额合计查询并相加（单位：分，空结果按 0 计）
+     */
+    private long sumAcrossShards(Supplier<Long> query) {
+        long cents = 0L;
+        for (Long shardCents : shardRouter.scatter(() -> Collections.singletonList(query.get()))) {
+            if (shardCents != null) {
+                cents = Math.addExact(cents, shardCents);
+            }
+        }
+        return cents;
+    }
+    
+    /**
+     * 累加订单金额（以分为单位，忽略空金额）
+     */
+    private Money sumOrderAmount(List<Order> orders) {
+        long cents = 0L;
+        for (Order o : orders) {
+            if (o.getTotalAmount() != null) {
+                cents = Math.addExact(cents, o.getTotalAmount().cents());
+            }
+        }
+        return Money.ofCents(cents);
+    }
+    
+    /**
+     * 累加维修成本（以分为单位，忽略空成本）
+     */
+    private Money sumMaintenanceCost(List<Maintenance> maintenances) {
+        long cents = 0L;
+        for (Maintenance m : maintenances) {
+            if (m.getCost() != null) {
+                cents = Math.addExact(cents, m.getCost().cents());
+            }
+        }
+        return Money.ofCents(cents);
+    }
+    
+    /**
+     * 计算平均订单金额（仅统计有金额的订单，HALF_UP 舍入到分）
+     */
+    private Money averageAmount(List<Order> orders) {
+        long cents = 0L;
+        long count = 0L;
+        for (Order o : orders) {
+            if (o.getTotalAmount() != null) {
+                cents = Math.addExact(cents, o.getTotalAmount().cents());
+                count++;
+            }
+        }
+        return count == 0 ? Money.ZERO : Money.ofCents(Money.divideHalfUp(cents, count));
+    }
+    
     private Map<String, List<Order>> groupOrdersByPeriod(List<Order> orders, ReportPeriod period) {
         return orders.stream().collect(Collectors.groupingBy(order -> 
             formatPeriod(order.getCreatedAt(), period)
@@ -444,12 +482,28 @@ public class ReportServiceImpl implements ReportService {
         }
     }
     
-    private double calculateAverageUtilization(List<Vehicle> vehicles, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<Integer, List<Order>> groupOrdersByVehicle(List<Order> orders) {
+        return orders.stream()
+            .filter(o -> o.getVehicle() != null)
+            .collect(Collectors.groupingBy(o -> o.getVehicle().getId()));
+    }
+    
+    private double calculateAverageUtilization(List<Vehicle> vehicles, List<Order> periodOrders,
+                                               LocalDateTime startDate, LocalDateTime endDate) {
+        return calculateAverageUtilization(vehicles, groupOrdersByVehicle(periodOrders), startDate, endDate);
+    }
+    
+    /**
+     * 计算平均利用率
+     * 
+     * @param ordersByVehicle 统计区间内创建的订单（按车辆 ID 分组）
+     */
+    private double calculateAverageUtilization(List<Vehicle> vehicles, Map<Integer, List<Order>> ordersByVehicle,
+                                               LocalDateTime startDate, LocalDateTime endDate) {
         if (vehicles.isEmpty()) {
             return 0.0;
         }
         
-        List<Order> allOrders = orderRepository.findAll();
         long periodDays = ChronoUnit.DAYS.between(startDate, endDate);
         
         if (periodDays <= 0) {
@@ -459,13 +513,8 @@ public class ReportServiceImpl implements ReportService {
         double totalUtilization = 0.0;
         
         for (Vehicle vehicle : vehicles) {
-            List<Order> vehicleOrders = allOrders.stream()
-                .filter(o -> o.getVehicle() != null && o.getVehicle().getId().equals(vehicle.getId()))
-                .filter(o -> o.getCreatedAt().isAfter(startDate) && o.getCreatedAt().isBefore(endDate))
+            long totalDays = ordersByVehicle.getOrDefault(vehicle.getId(), Collections.emptyList()).stream()
                 .filter(o -> o.getStatus() == 1 || o.getStatus() == 2)
-                .collect(Collectors.toList());
-            
-            long totalDays = vehicleOrders.stream()
                 .mapToLong(o -> {
                     LocalDateTime returnTime = o.getActualReturnTime() != null ? 
                         o.getActualReturnTime() : o.getEndTime();
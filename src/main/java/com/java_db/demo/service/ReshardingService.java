@@ -0,0 +1,268 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.dto.ShardMigrationResultDTO;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.exception.ResourceNotFoundException;
+import com.java_db.demo.sharding.ReferenceReplicator;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardDirectory.Entry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 区域分片迁移服务
+ * 把一个区域的订单、支付、维修记录从当前分片搬到目标分片，用于新增分片后重新均衡数据
+ *
+ * 迁移步骤：
+ * 1. 区域标记为迁移中（MIGRATING），该区域的写操作被拒绝；
+ *    等待 sharding.migration.drain-ms（默认为目录刷新间隔的 2 倍），所有实例都看到迁移状态、进行中的事务结束
+ * 2. 全量同步参考数据，目标分片上有订单引用的用户、车辆、门店（此时区域内的车辆仍以原分片为准，目录切换后改由目标分片写入）
+ * 3. 原分片以 SHARE 模式锁定 orders、payments、maintenance（迁移期间原分片只读），
+ *    按 ID 键集分批复制到目标分片，保留原 ID
+ * 4. 核对目标分片的行数后提交目标分片，目录改为目标分片（ACTIVE），再删除原分片的数据并提交
+ *
+ * 目录切换前失败时回滚目标分片并恢复 ACTIVE，区域数据仍在原分片；
+ * 目录切换后删除原分片数据失败时数据已在目标分片，原分片上的残留行需按日志中的区域重新清理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Workload(WorkloadType.BACKGROUND)
+public class ReshardingService {
+
+    /**
+     * 迁移期间锁定的表（原分片）
+     */
+    private static final String LOCKED_TABLES = "orders, payments, maintenance";
+
+    private static final String ORDERS_CONDITION = "pickup_store_id = ANY (?)";
+    private static final String PAYMENTS_CONDITION =
+            "order_id IN (SELECT id FROM orders WHERE pickup_store_id = ANY (?))";
+    private static final String MAINTENANCE_CONDITION =
+            "vehicle_id IN (SELECT id FROM vehicles WHERE store_id = ANY (?))";
+
+    private final ShardDirectory shardDirectory;
+    private final ReferenceReplicator referenceReplicator;
+
+    @Value("${sharding.migration.drain-ms:60000}")
+    private long drainMs;
+
+    @Value("${sharding.migration.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 当前分片目录
+     *
+     * @return 区域 -> 分片
+     */
+    public List<Entry> getDirectory() {
+        return shardDirectory.entries();
+    }
+
+    /**
+     * 立即全量同步参考数据
+     *
+     * @return 复制的行数
+     */
+    public int synchronizeReferenceData() {
+        checkSharded();
+        return referenceReplicator.synchronize(null);
+    }
+
+    /**
+     * 把区域迁移到目标分片
+     *
+     * @param region 区域
+     * @param targetShard 目标分片
+     * @return 迁移结果
+     */
+    public ShardMigrationResultDTO migrateRegion(String region, String targetShard) {
+        checkSharded();
+        if (!shardDirectory.shardIds().contains(targetShard)) {
+            throw new BusinessException("分片不存在：" + targetShard);
+        }
+        Entry entry = shardDirectory.entries().stream()
+                .filter(e -> e.region().equals(region))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("区域不存在"));
+        String sourceShard = entry.shardId();
+        if (sourceShard.equals(targetShard)) {
+            throw new BusinessException("区域 " + region + " 已在分片 " + targetShard);
+        }
+        if (!shardDirectory.markMigrating(region)) {
+            throw new BusinessException("区域 " + region + " 正在迁移");
+        }
+
+        long startedAt = System.currentTimeMillis();
+        boolean switched = false;
+        try {
+            log.info("区域 {} 开始从分片 {} 迁移到 {}，等待 {} ms", region, sourceShard, targetShard, drainMs);
+            sleep(drainMs);
+            referenceReplicator.synchronize(null);
+
+            List<Integer> storeIds = shardDirectory.storesInRegion(region);
+            DataSource source = shardDirectory.jdbcTemplate(sourceShard).getDataSource();
+            DataSource target = shardDirectory.jdbcTemplate(targetShard).getDataSource();
+            try (Connection sourceConnection = source.getConnection();
+                 Connection targetConnection = target.getConnection()) {
+                sourceConnection.setAutoCommit(false);
+                targetConnection.setAutoCommit(false);
+                try (Statement statement = sourceConnection.createStatement()) {
+                    statement.execute("LOCK TABLE " + LOCKED_TABLES + " IN SHARE MODE");
+                }
+
+                Array stores = sourceConnection.createArrayOf("integer", storeIds.toArray());
+                List<Integer> orderIds = copyRows(sourceConnection, targetConnection, "orders", ORDERS_CONDITION, stores);
+                List<Integer> paymentIds = copyRows(sourceConnection, targetConnection, "payments", PAYMENTS_CONDITION, stores);
+                List<Integer> maintenanceIds = copyRows(sourceConnection, targetConnection, "maintenance",
+                        MAINTENANCE_CONDITION, stores);
+                try {
+                    verify(targetConnection, "orders", orderIds);
+                    verify(targetConnection, "payments", paymentIds);
+                    verify(targetConnection, "maintenance", maintenanceIds);
+                    targetConnection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    targetConnection.rollback();
+                    sourceConnection.rollback();
+                    throw e;
+                }
+
+                shardDirectory.update(region, targetShard, ShardDirectory.ACTIVE);
+                switched = true;
+                try {
+                    deleteRows(sourceConnection, "payments", paymentIds);
+                    deleteRows(sourceConnection, "orders", orderIds);
+                    deleteRows(sourceConnection, "maintenance", maintenanceIds);
+                    sourceConnection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    sourceConnection.rollback();
+                    log.error("区域 {} 已切换到分片 {}，但删除原分片 {} 的数据失败，需要重新清理", region, targetShard, sourceShard, e);
+                    throw new BusinessException("区域已切换到目标分片，但清理原分片数据失败：" + e.getMessage(), e);
+                }
+
+                long elapsedMs = System.currentTimeMillis() - startedAt;
+                log.info("区域 {} 已从分片 {} 迁移到 {}：订单 {}，支付 {}，维修 {}，耗时 {} ms",
+                        region, sourceShard, targetShard, orderIds.size(), paymentIds.size(), maintenanceIds.size(), elapsedMs);
+                return new ShardMigrationResultDTO(region, sourceShard, targetShard, storeIds.size(),
+                        orderIds.size(), paymentIds.size(), maintenanceIds.size(), elapsedMs);
+            }
+        } catch (SQLException e) {
+            throw new BusinessException("区域迁移失败：" + e.getMessage(), e);
+        } finally {
+            if (!switched) {
+                shardDirectory.update(region, sourceShard, ShardDirectory.ACTIVE);
+            }
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void checkSharded() {
+        if (!shardDirectory.isSharded()) {
+            throw new BusinessException("未配置其他分片（sharding.shards.*）");
+        }
+    }
+
+    /**
+     * 按 ID 键集分批把满足条件的行从原分片复制到目标分片（先删除目标分片上的同 ID 行）
+     *
+     * @return 复制的行 ID
+     */
+    private List<Integer> copyRows(Connection source, Connection target, String table, String condition, Array stores)
+            throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        int lastId = Integer.MIN_VALUE;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            List<String> columns = new ArrayList<>();
+            try (PreparedStatement select = source.prepareStatement("SELECT * FROM " + table + " WHERE " + condition
+                    + " AND id > ? ORDER BY id LIMIT " + batchSize)) {
+                select.setArray(1, stores);
+                select.setInt(2, lastId);
+                try (ResultSet rs = select.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        columns.add(meta.getColumnName(i));
+                    }
+                    while (rs.next()) {
+                        Object[] row = new Object[columns.size()];
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        rows.add(row);
+                        lastId = rs.getInt("id");
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return ids;
+            }
+
+            List<Integer> batchIds = rows.stream().map(row -> (Integer) row[columns.indexOf("id")]).toList();
+            deleteRows(target, table, batchIds);
+            String insert = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+            try (PreparedStatement statement = target.prepareStatement(insert)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        statement.setObject(i + 1, row[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            ids.addAll(batchIds);
+        }
+    }
+
+    /**
+     * 核对目标分片上复制的行数
+     */
+    private void verify(Connection target, String table, List<Integer> ids) throws SQLException {
+        try (PreparedStatement statement = target.prepareStatement(
+                "SELECT COUNT(*) FROM " + table + " WHERE id = ANY (?)")) {
+            statement.setArray(1, target.createArrayOf("integer", ids.toArray()));
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                if (rs.getLong(1) != ids.size()) {
+                    throw new BusinessException("目标分片 " + table + " 行数核对失败：应为 " + ids.size() + "，实际 " + rs.getLong(1));
+                }
+            }
+        }
+    }
+
+    private void deleteRows(Connection connection, String table, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE id = ANY (?)")) {
+            statement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+            statement.executeUpdate();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("区域迁移被中断", e);
+        }
+    }
+}
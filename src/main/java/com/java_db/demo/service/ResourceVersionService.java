@@ -0,0 +1,96 @@
+package com.java_db.demo.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 资源版本号服务
+ * 为每类资源集合维护单调递增的版本号，写操作提交后递增，用于生成 ETag
+ *
+ * 版本号只在内存中，ETag 中包含启动时间戳，重启后旧 ETag 自然失效；
+ * 多实例部署时递增同时经 CacheInvalidationService 通知其他实例，其他实例收到后递增各自的版本号
+ */
+@Service
+public class ResourceVersionService {
+
+    /**
+     * 资源集合
+     */
+    public enum Resource {
+        STORES, CATEGORIES, VEHICLES, ORDERS, PAYMENTS, MAINTENANCE;
+
+        /**
+         * 跨实例缓存失效消息中的缓存名
+         */
+        public String cacheName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public ResourceVersionService(CacheInvalidationService cacheInvalidationService) {
+        this.cacheInvalidationService = cacheInvalidationService;
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+            cacheInvalidationService.subscribe(resource.cacheName(), keys -> bump(resource));
+        }
+    }
+
+    /**
+     * 在当前事务提交后递增资源版本号（无事务时立即递增）
+     * 提交后才递增，避免并发请求用新版本号缓存提交前的旧数据
+     *
+     * @param resources 被修改的资源集合
+     */
+    public void bumpAfterCommit(Resource... resources) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(resources);
+                }
+            });
+        } else {
+            bump(resources);
+        }
+        for (Resource resource : resources) {
+            cacheInvalidationService.publishAfterCommit(resource.cacheName());
+        }
+    }
+
+    /**
+     * 生成依赖指定资源集合的强 ETag，任一资源版本变化时 ETag 随之变化
+     *
+     * @param resources 依赖的资源集合
+     * @return 带引号的 ETag，如 "18f3a2b4c5d-3.17"
+     */
+    public String etag(Resource... resources) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch).append('-');
+        for (int i = 0; i < resources.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(versions.get(resources[i]).get());
+        }
+        return etag.append('"').toString();
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void bump(Resource... resources) {
+        for (Resource resource : resources) {
+            versions.get(resource).incrementAndGet();
+        }
+    }
+}
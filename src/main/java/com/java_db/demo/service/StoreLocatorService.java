@@ -0,0 +1,91 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.repository.StoreRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.util.KdTree;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 门店空间索引服务
+ * 内存中维护有坐标门店的 k-d 树，用于按坐标查找最近的 K 个门店
+ *
+ * 门店数量少、变更少：启动时构建，门店增删改提交后整体重建（不可变快照，查询无锁），
+ * 其他实例修改门店时收到跨实例失效通知后重建
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoreLocatorService {
+
+    private final StoreRepository storeRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private volatile KdTree<StoreLocation> index = new KdTree<>(List.of(), StoreLocation::latitude, StoreLocation::longitude);
+
+    /**
+     * 门店位置快照（与 JPA 实体解耦，可在线程间共享）
+     */
+    public record StoreLocation(Integer storeId, String name, String address, double latitude, double longitude) {
+    }
+
+    /**
+     * 其他实例修改门店后重建索引
+     */
+    @PostConstruct
+    public void subscribe() {
+        cacheInvalidationService.subscribe(Resource.STORES.cacheName(), keys -> rebuild());
+    }
+
+    /**
+     * 启动时构建空间索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<StoreLocation> locations = storeRepository.findAll().stream()
+                .filter(store -> store.getLatitude() != null && store.getLongitude() != null)
+                .map(store -> new StoreLocation(store.getId(), store.getName(), store.getAddress(),
+                        store.getLatitude(), store.getLongitude()))
+                .toList();
+        index = new KdTree<>(locations, StoreLocation::latitude, StoreLocation::longitude);
+        log.info("门店空间索引已重建，有坐标门店 {} 个", locations.size());
+    }
+
+    /**
+     * 在当前事务提交后重建索引（无事务时立即重建）
+     * 由门店增删改调用，回滚时不会把未提交的数据放入索引
+     */
+    public void rebuildAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * 查询距离指定坐标最近的 k 个门店
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param k 门店数量
+     * @return 按距离从近到远排序的门店
+     */
+    public List<KdTree.Neighbor<StoreLocation>> nearestStores(double latitude, double longitude, int k) {
+        return index.nearest(latitude, longitude, k);
+    }
+}
@@ -2,8 +2,11 @@ package com.java_db.demo.service;
 
 import com.java_db.demo.dto.StoreDTO;
 import com.java_db.demo.entity.Store;
+import com.java_db.demo.exception.BusinessException;
 import com.java_db.demo.exception.ResourceNotFoundException;
 import com.java_db.demo.repository.StoreRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardDirectory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,9 +22,13 @@ import java.util.List;
 public class StoreService {
     
     private final StoreRepository storeRepository;
+    private final StoreLocatorService storeLocatorService;
+    private final ResourceVersionService resourceVersionService;
+    private final ShardDirectory shardDirectory;
     
     /**
      * 添加门店（管理员功能）
+     * 未指定区域时归入 default；新区域自动分配分片
      * 
      * @param storeDTO 门店信息
      * @return 新增的门店
@@ -32,12 +39,22 @@ public class StoreService {
         store.setName(storeDTO.getName());
         store.setAddress(storeDTO.getAddress());
         store.setPhone(storeDTO.getPhone());
+        store.setLatitude(storeDTO.getLatitude());
+        store.setLongitude(storeDTO.getLongitude());
+        if (storeDTO.getRegion() != null && !storeDTO.getRegion().isBlank()) {
+            store.setRegion(storeDTO.getRegion());
+        }
+        shardDirectory.assignRegion(store.getRegion());
         
-        return storeRepository.save(store);
+        Store saved = storeRepository.save(store);
+        storeLocatorService.rebuildAfterCommit();
+        resourceVersionService.bumpAfterCommit(Resource.STORES);
+        return saved;
     }
     
     /**
      * 更新门店信息
+     * 未指定区域时保持不变；区域变更不能使门店换到其他分片（已有订单不会随之搬移，需先迁移区域数据）
      * 
      * @param storeId 门店 ID
      * @param storeDTO 门店信息
@@ -51,8 +68,21 @@ public class StoreService {
         store.setName(storeDTO.getName());
         store.setAddress(storeDTO.getAddress());
         store.setPhone(storeDTO.getPhone());
+        store.setLatitude(storeDTO.getLatitude());
+        store.setLongitude(storeDTO.getLongitude());
+        String region = storeDTO.getRegion();
+        if (region != null && !region.isBlank() && !region.equals(store.getRegion())) {
+            String currentShard = shardDirectory.assignRegion(store.getRegion()).shardId();
+            if (!shardDirectory.assignRegion(region).shardId().equals(currentShard)) {
+                throw new BusinessException("区域 " + region + " 与门店当前区域不在同一分片，请先迁移区域数据");
+            }
+            store.setRegion(region);
+        }
         
-        return storeRepository.save(store);
+        Store saved = storeRepository.save(store);
+        storeLocatorService.rebuildAfterCommit();
+        resourceVersionService.bumpAfterCommit(Resource.STORES);
+        return saved;
     }
     
     /**
@@ -88,5 +118,7 @@ public class StoreService {
     public void deleteStore(Integer storeId) {
         Store store = findById(storeId);
         storeRepository.delete(store);
+        storeLocatorService.rebuildAfterCommit();
+        resourceVersionService.bumpAfterCommit(Resource.STORES);
     }
 }
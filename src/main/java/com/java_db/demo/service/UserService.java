@@ -4,7 +4,6 @@ import com.java_db.demo.entity.User;
 import com.java_db.demo.exception.ResourceNotFoundException;
 import com.java_db.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,13 +12,16 @@ import java.util.List;
 /**
  * 用户管理服务
  * 处理用户信息管理等业务逻辑
+ * 用户实体在二级缓存中，修改后通知其他实例清除该用户的缓存
  */
 @Service
 @RequiredArgsConstructor
 public class UserService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final RegistrationFilterService registrationFilterService;
+    private final CacheInvalidationService cacheInvalidationService;
     
     /**
      * 根据 ID 查询用户
@@ -67,13 +69,29 @@ public class UserService {
         User user = findById(userId);
         
         // 验证旧密码
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new ResourceNotFoundException("旧密码错误");
         }
         
         // 加密新密码
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
+        cacheInvalidationService.publishAfterCommit(CacheInvalidationService.USERS, userId);
+    }
+    
+    /**
+     * 升级密码哈希（登录成功后按新成本因子重新加密）
+     * 仅当存储的哈希仍为旧值时更新，避免覆盖并发修改的密码
+     * 
+     * @param userId 用户 ID
+     * @param oldHash 登录时读取的旧哈希
+     * @param newHash 新哈希
+     */
+    @Transactional
+    public void rehashPassword(Integer userId, String oldHash, String newHash) {
+        if (userRepository.updatePasswordIfUnchanged(userId, oldHash, newHash) > 0) {
+            cacheInvalidationService.publishAfterCommit(CacheInvalidationService.USERS, userId);
+        }
     }
     
     /**
@@ -86,6 +104,9 @@ public class UserService {
     public User updateUserInfo(Integer userId, String phone) {
         User user = findById(userId);
         user.setPhone(phone);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        registrationFilterService.addPhone(phone);
+        cacheInvalidationService.publishAfterCommit(CacheInvalidationService.USERS, userId);
+        return saved;
     }
 }
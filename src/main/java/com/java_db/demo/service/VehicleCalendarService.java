@@ -0,0 +1,191 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.dto.VehicleCalendarDTO;
+import com.java_db.demo.entity.Maintenance;
+import com.java_db.demo.entity.Order;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.exception.ResourceNotFoundException;
+import com.java_db.demo.repository.MaintenanceRepository;
+import com.java_db.demo.repository.OrderRepository;
+import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 车辆可用日历服务
+ * 计算单辆车未来若干天每天的状态（空闲 / 已预订 / 维修），供用户下单前选择日期
+ *
+ * 每辆车按最大天数计算一次，存为两个按天的位图（已预订、维修）并缓存：
+ * - 订单创建、还车、取消，维修创建、完成后，在事务提交后清除该车缓存
+ * - 缓存另有过期时间兜底（其他途径修改订单时最多延迟一个过期周期），跨天自动失效
+ * - 多实例部署时清除同时通知其他实例（CacheInvalidationService.VEHICLE_CALENDAR）
+ * 多分片时在车辆归属分片查询（车辆的进行中订单、维修记录都在该分片）
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleCalendarService {
+
+    private static final int FREE = 0;
+    private static final int BOOKED = 1;
+    private static final int MAINTENANCE = 2;
+
+    private final VehicleRepository vehicleRepository;
+    private final OrderRepository orderRepository;
+    private final MaintenanceRepository maintenanceRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    /**
+     * 车辆 ID -> 缓存的日历
+     */
+    private final Map<Integer, CachedCalendar> cache = new ConcurrentHashMap<>();
+
+    @Value("${vehicle.calendar.max-days:90}")
+    private int maxDays;
+
+    @Value("${vehicle.calendar.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+
+    @Value("${vehicle.calendar.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    private record CachedCalendar(LocalDate startDate, BitSet booked, BitSet maintenance, long expiresAt) {
+    }
+
+    /**
+     * 查询车辆未来 days 天的可用日历（从今天开始）
+     *
+     * @param vehicleId 车辆 ID
+     * @param days 天数（1 ~ vehicle.calendar.max-days）
+     * @return 可用日历
+     */
+    @ShardRoute(by = ShardKey.VEHICLE, key = "#vehicleId", readOnly = true)
+    @Transactional(readOnly = true)
+    public VehicleCalendarDTO getCalendar(Integer vehicleId, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new BusinessException("天数必须在 1 到 " + maxDays + " 之间");
+        }
+
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        CachedCalendar calendar = cache.get(vehicleId);
+        if (calendar == null || calendar.expiresAt() <= now || !calendar.startDate().equals(today)) {
+            calendar = loadCalendar(vehicleId, today, now);
+            putCache(vehicleId, calendar);
+        }
+
+        List<Integer> statuses = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            statuses.add(calendar.maintenance().get(i) ? MAINTENANCE
+                    : calendar.booked().get(i) ? BOOKED : FREE);
+        }
+        return new VehicleCalendarDTO(vehicleId, today, statuses);
+    }
+
+    /**
+     * 订阅其他实例的日历失效
+     */
+    @PostConstruct
+    public void subscribe() {
+        cacheInvalidationService.subscribe(CacheInvalidationService.VEHICLE_CALENDAR, keys -> {
+            if (keys.isEmpty()) {
+                cache.clear();
+            } else {
+                keys.forEach(key -> cache.remove(Integer.valueOf(key)));
+            }
+        });
+    }
+
+    /**
+     * 在当前事务提交后清除车辆日历缓存（无事务时立即清除）
+     * 订单、维修变更时调用，避免提交前被并发请求重新缓存旧数据
+     *
+     * @param vehicleId 车辆 ID
+     */
+    public void evictAfterCommit(Integer vehicleId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(vehicleId);
+                }
+            });
+        } else {
+            cache.remove(vehicleId);
+        }
+        cacheInvalidationService.publishAfterCommit(CacheInvalidationService.VEHICLE_CALENDAR, vehicleId);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 一次查询有效订单、一次查询维修记录，按天置位
+     */
+    private CachedCalendar loadCalendar(Integer vehicleId, LocalDate today, long now) {
+        if (!vehicleRepository.existsById(vehicleId)) {
+            throw new ResourceNotFoundException("车辆不存在");
+        }
+        LocalDate lastDay = today.plusDays(maxDays - 1);
+
+        BitSet booked = new BitSet(maxDays);
+        List<Order> orders = orderRepository.findConflictingOrders(
+                vehicleId, today.atStartOfDay(), lastDay.plusDays(1).atStartOfDay(), List.of(0, 1));
+        for (Order order : orders) {
+            // 结束时间恰为零点时不占用当天
+            LocalDateTime end = order.getEndTime();
+            LocalDate endDay = end.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? end.toLocalDate().minusDays(1) : end.toLocalDate();
+            markDays(booked, today, order.getStartTime().toLocalDate(), endDay);
+        }
+
+        BitSet maintenance = new BitSet(maxDays);
+        for (Maintenance record : maintenanceRepository.findOverlappingMaintenance(vehicleId, today, lastDay)) {
+            // 未完成的维修视为持续到日历结束
+            markDays(maintenance, today, record.getStartDate(),
+                    record.getEndDate() != null ? record.getEndDate() : lastDay);
+        }
+
+        return new CachedCalendar(today, booked, maintenance, now + cacheTtlSeconds * 1000);
+    }
+
+    /**
+     * 将 [from, to] 与日历范围的交集置位
+     */
+    private void markDays(BitSet bits, LocalDate today, LocalDate from, LocalDate to) {
+        long first = Math.max(0, ChronoUnit.DAYS.between(today, from));
+        long last = Math.min(maxDays - 1, ChronoUnit.DAYS.between(today, to));
+        if (first <= last) {
+            bits.set((int) first, (int) last + 1);
+        }
+    }
+
+    /**
+     * 写入缓存，超过容量时先清理过期项，仍然超过则不缓存
+     */
+    private void putCache(Integer vehicleId, CachedCalendar value) {
+        if (cache.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (cache.size() >= cacheMaxEntries) {
+                return;
+            }
+        }
+        cache.put(vehicleId, value);
+    }
+}
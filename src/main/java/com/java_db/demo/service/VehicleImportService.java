@@ -0,0 +1,294 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.datasource.Workload;
+import com.java_db.demo.datasource.WorkloadType;
+import com.java_db.demo.dto.VehicleImportResultDTO;
+import com.java_db.demo.dto.VehicleImportResultDTO.RowError;
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.repository.CategoryRepository;
+import com.java_db.demo.repository.StoreRepository;
+import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ReferenceReplicator;
+import com.java_db.demo.util.Money;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 车辆批量导入服务
+ * 用于整批接入新车队（数万辆），替代逐辆调用 VehicleService.addVehicle
+ *
+ * 流程：
+ * 1. 预加载已有车牌号、门店 ID、分类（一次查询各一次）
+ * 2. 流式读取 CSV，逐行在内存中校验
+ * 3. 合法行通过 PostgreSQL COPY 写入临时暂存表
+ * 4. 一条 INSERT ... SELECT 语句合并到 vehicles 表（多分片时写入主库，提交后复制到其他分片）
+ *
+ * CSV 格式（首行为表头）：
+ * plate_number,model,category_id,store_id,daily_rate
+ * daily_rate 为空时使用分类的基础日租金
+ */
+@Service
+@RequiredArgsConstructor
+@Workload(WorkloadType.BACKGROUND)
+public class VehicleImportService {
+
+    private static final int COLUMN_COUNT = 5;
+    private static final int MAX_PLATE_LENGTH = 20;
+    private static final int MAX_MODEL_LENGTH = 50;
+
+    private final VehicleRepository vehicleRepository;
+    private final StoreRepository storeRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersionService resourceVersionService;
+    private final ReferenceReplicator referenceReplicator;
+
+    /**
+     * 从 CSV 批量导入车辆
+     * 校验失败的行不会中断导入，在结果中逐行返回错误原因
+     *
+     * @param csv CSV 输入流
+     * @return 导入结果（成功数、失败数、逐行错误）
+     */
+    @Transactional
+    public VehicleImportResultDTO importVehicles(InputStream csv) {
+        // 1. 预加载校验所需的数据
+        Set<String> existingPlates = new HashSet<>(vehicleRepository.findAllPlateNumbers());
+        Set<Integer> storeIds = storeRepository.findAll().stream()
+                .map(Store::getId)
+                .collect(Collectors.toSet());
+        Map<Integer, Money> categoryRates = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getBasicRate));
+
+        resourceVersionService.bumpAfterCommit(Resource.VEHICLES);
+        return jdbcTemplate.execute((ConnectionCallback<VehicleImportResultDTO>) connection -> {
+            try {
+                return copyAndMerge(connection, csv, existingPlates, storeIds, categoryRates);
+            } catch (IOException e) {
+                throw new BusinessException("读取导入文件失败", e);
+            }
+        });
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private VehicleImportResultDTO copyAndMerge(Connection connection,
+                                                InputStream csv,
+                                                Set<String> existingPlates,
+                                                Set<Integer> storeIds,
+                                                Map<Integer, Money> categoryRates) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE vehicle_import_staging (" +
+                    "line_number INT NOT NULL, " +
+                    "plate_number VARCHAR(20) NOT NULL, " +
+                    "model VARCHAR(50), " +
+                    "category_id INT NOT NULL, " +
+                    "store_id INT NOT NULL, " +
+                    "daily_rate DECIMAL(10, 2)" +
+                    ") ON COMMIT DROP");
+        }
+
+        List<RowError> errors = new ArrayList<>();
+        Map<Integer, String> stagedPlates = new HashMap<>();
+        Set<String> platesInFile = new HashSet<>();
+        int totalRows = 0;
+
+        // 2. 流式解析 + 校验，合法行写入 COPY 流
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY vehicle_import_staging FROM STDIN WITH (FORMAT csv)");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // 表头
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                totalRows++;
+
+                List<String> fields = parseCsvLine(line);
+                String plate = fields.isEmpty() ? null : fields.get(0).trim();
+                String error = validateRow(fields, plate, existingPlates, platesInFile, storeIds, categoryRates);
+                if (error != null) {
+                    errors.add(new RowError(lineNumber, plate, error));
+                    continue;
+                }
+
+                platesInFile.add(plate);
+                stagedPlates.put(lineNumber, plate);
+
+                Integer categoryId = Integer.valueOf(fields.get(2).trim());
+                String rate = fields.get(4).isBlank()
+                        ? categoryRates.get(categoryId).toString()
+                        : Money.of(fields.get(4).trim()).toString();
+                String row = lineNumber + "," + csvField(plate) + "," + csvField(fields.get(1).trim()) + ","
+                        + categoryId + "," + Integer.valueOf(fields.get(3).trim()) + "," + rate + "\n";
+                byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        // 3. 一条语句合并到 vehicles，并发写入的重复车牌由唯一约束兜底
+        Set<Integer> insertedLines = new HashSet<>();
+        try (PreparedStatement merge = connection.prepareStatement(
+                "INSERT INTO vehicles (plate_number, model, category_id, store_id, status, daily_rate, created_at, updated_at) " +
+                "SELECT s.plate_number, s.model, s.category_id, s.store_id, 0, s.daily_rate, " +
+                "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+                "FROM vehicle_import_staging s ORDER BY s.line_number " +
+                "ON CONFLICT (plate_number) DO NOTHING " +
+                "RETURNING plate_number, id")) {
+            Set<String> insertedPlates = new HashSet<>();
+            List<Integer> insertedIds = new ArrayList<>();
+            try (ResultSet rs = merge.executeQuery()) {
+                while (rs.next()) {
+                    insertedPlates.add(rs.getString(1));
+                    insertedIds.add(rs.getInt(2));
+                }
+            }
+            referenceReplicator.replicateAfterCommit("vehicles", insertedIds);
+            stagedPlates.forEach((lineNumber, plate) -> {
+                if (insertedPlates.contains(plate)) {
+                    insertedLines.add(lineNumber);
+                } else {
+                    errors.add(new RowError(lineNumber, plate, "车牌号已存在"));
+                }
+            });
+        }
+
+        errors.sort(Comparator.comparing(RowError::getLineNumber));
+        return new VehicleImportResultDTO(totalRows, insertedLines.size(), errors.size(), errors);
+    }
+
+    /**
+     * 校验单行数据
+     *
+     * @return 错误原因，合法时返回 null
+     */
+    private String validateRow(List<String> fields,
+                               String plate,
+                               Set<String> existingPlates,
+                               Set<String> platesInFile,
+                               Set<Integer> storeIds,
+                               Map<Integer, Money> categoryRates) {
+        if (fields.size() != COLUMN_COUNT) {
+            return "列数错误，应为 " + COLUMN_COUNT + " 列";
+        }
+        if (plate == null || plate.isEmpty()) {
+            return "车牌号不能为空";
+        }
+        if (plate.length() > MAX_PLATE_LENGTH) {
+            return "车牌号长度不能超过" + MAX_PLATE_LENGTH;
+        }
+        if (existingPlates.contains(plate)) {
+            return "车牌号已存在";
+        }
+        if (platesInFile.contains(plate)) {
+            return "车牌号在文件中重复";
+        }
+        String model = fields.get(1).trim();
+        if (model.isEmpty()) {
+            return "车型不能为空";
+        }
+        if (model.length() > MAX_MODEL_LENGTH) {
+            return "车型长度不能超过" + MAX_MODEL_LENGTH;
+        }
+
+        Integer categoryId = parseId(fields.get(2));
+        if (categoryId == null || !categoryRates.containsKey(categoryId)) {
+            return "分类不存在";
+        }
+        Integer storeId = parseId(fields.get(3));
+        if (storeId == null || !storeIds.contains(storeId)) {
+            return "门店不存在";
+        }
+
+        String rate = fields.get(4).trim();
+        if (!rate.isEmpty()) {
+            try {
+                BigDecimal dailyRate = new BigDecimal(rate);
+                if (dailyRate.compareTo(new BigDecimal("0.01")) < 0) {
+                    return "日租金必须大于0";
+                }
+                if (dailyRate.precision() - dailyRate.scale() > 8) {
+                    return "日租金超出范围";
+                }
+            } catch (NumberFormatException e) {
+                return "日租金格式错误";
+            }
+        }
+        return null;
+    }
+
+    private Integer parseId(String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析一行 CSV（支持双引号包裹和 "" 转义）
+     */
+    private List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * 按 CSV 规则转义字段，写入 COPY 流
+     */
+    private String csvField(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
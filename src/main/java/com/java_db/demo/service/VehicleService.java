@@ -1,5 +1,6 @@
 package com.java_db.demo.service;
 
+import com.java_db.demo.dto.NearbyStoreVehiclesDTO;
 import com.java_db.demo.dto.VehicleDTO;
 import com.java_db.demo.entity.Category;
 import com.java_db.demo.entity.Store;
@@ -9,12 +10,21 @@ import com.java_db.demo.exception.ResourceNotFoundException;
 import com.java_db.demo.repository.CategoryRepository;
 import com.java_db.demo.repository.StoreRepository;
 import com.java_db.demo.repository.VehicleRepository;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import com.java_db.demo.sharding.ShardDirectory;
+import com.java_db.demo.sharding.ShardKey;
+import com.java_db.demo.sharding.ShardRoute;
+import com.java_db.demo.sharding.ShardRouter;
+import com.java_db.demo.util.KdTree;
+import com.java_db.demo.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 车辆管理服务
@@ -27,6 +37,15 @@ public class VehicleService {
     private final VehicleRepository vehicleRepository;
     private final StoreRepository storeRepository;
     private final CategoryRepository categoryRepository;
+    private final StoreLocatorService storeLocatorService;
+    private final ResourceVersionService resourceVersionService;
+    private final ShardDirectory shardDirectory;
+    private final ShardRouter shardRouter;
+    
+    /**
+     * 附近门店搜索的最大门店数
+     */
+    private static final int MAX_NEARBY_STORES = 20;
     
     /**
      * 搜索可用车辆（用户端核心功能）
@@ -42,19 +61,61 @@ public class VehicleService {
      * @param endTime 预计还车时间
      * @return 可用车辆列表
      */
+    @ShardRoute(by = ShardKey.STORE, key = "#storeId", readOnly = true)
     @Transactional(readOnly = true)
     public List<Vehicle> searchAvailableVehicles(Integer storeId, LocalDateTime startTime, LocalDateTime endTime) {
         // 参数验证
-        if (startTime.isAfter(endTime)) {
-            throw new BusinessException("开始时间不能晚于结束时间");
+        validateSearchPeriod(startTime, endTime);
+        
+        // 调用 Repository 的自定义 JPQL 查询
+        return vehicleRepository.findAvailableVehicles(storeId, startTime, endTime);
+    }
+    
+    /**
+     * 搜索附近门店的可用车辆
+     * 在最近的 k 个门店中查询特定时间段内可租赁的车辆，按门店距离从近到远排列
+     * 
+     * 逻辑：
+     * 1. 通过内存中的门店空间索引（k-d 树）找出最近的 k 个有坐标的门店
+     * 2. 一次集合查询取出这些门店的全部可用车辆（多分片时每个分片查询该分片区域内的门店）
+     * 3. 按门店分组，保持距离顺序
+     * 
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param k 门店数量（1 ~ 20）
+     * @param startTime 租赁开始时间
+     * @param endTime 预计还车时间
+     * @return 按距离排序的门店及其可用车辆（包括无可用车辆的门店）
+     */
+    public List<NearbyStoreVehiclesDTO> searchNearbyAvailableVehicles(double latitude, double longitude, int k,
+                                                                      LocalDateTime startTime, LocalDateTime endTime) {
+        validateSearchPeriod(startTime, endTime);
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new BusinessException("坐标超出范围");
+        }
+        if (k < 1 || k > MAX_NEARBY_STORES) {
+            throw new BusinessException("门店数量必须在 1 到 " + MAX_NEARBY_STORES + " 之间");
         }
         
-        if (startTime.isBefore(LocalDateTime.now())) {
-            throw new BusinessException("开始时间不能早于当前时间");
+        List<KdTree.Neighbor<StoreLocatorService.StoreLocation>> stores =
+                storeLocatorService.nearestStores(latitude, longitude, k);
+        if (stores.isEmpty()) {
+            return List.of();
         }
         
-        // 调用 Repository 的自定义 JPQL 查询
-        return vehicleRepository.findAvailableVehicles(storeId, startTime, endTime);
+        List<Integer> storeIds = stores.stream().map(n -> n.value().storeId()).toList();
+        Map<String, List<Integer>> storeIdsByShard = shardDirectory.groupStoresByShard(storeIds);
+        Map<Integer, List<Vehicle>> vehiclesByStore = shardRouter.scatterByShard(shard -> storeIdsByShard.containsKey(shard)
+                        ? vehicleRepository.findAvailableVehiclesInStores(storeIdsByShard.get(shard), startTime, endTime)
+                        : List.<Vehicle>of()).stream()
+                .collect(Collectors.groupingBy(v -> v.getStore().getId()));
+        
+        return stores.stream().map(neighbor -> {
+            StoreLocatorService.StoreLocation store = neighbor.value();
+            List<Vehicle> vehicles = vehiclesByStore.getOrDefault(store.storeId(), List.of());
+            return new NearbyStoreVehiclesDTO(store.storeId(), store.name(), store.address(),
+                    store.latitude(), store.longitude(), neighbor.distanceKm(), vehicles.size(), vehicles);
+        }).toList();
     }
     
     /**
@@ -95,9 +156,10 @@ public class VehicleService {
         vehicle.setModel(vehicleDTO.getModel());
         vehicle.setCategory(category);
         vehicle.setStore(store);
-        vehicle.setDailyRate(vehicleDTO.getDailyRate());
+        vehicle.setDailyRate(vehicleDTO.getDailyRate() != null ? Money.of(vehicleDTO.getDailyRate()) : null);
         vehicle.setStatus(0); // 默认空闲
         
+        resourceVersionService.bumpAfterCommit(Resource.VEHICLES);
         return vehicleRepository.save(vehicle);
     }
     
@@ -108,6 +170,7 @@ public class VehicleService {
      * @param vehicleId 车辆 ID
      * @param newStatus 新状态 (0:空闲, 1:已租, 2:维修, 3:调拨)
      */
+    @ShardRoute(by = ShardKey.VEHICLE, key = "#vehicleId")
     @Transactional
     public void updateVehicleStatus(Integer vehicleId, Integer newStatus) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
@@ -120,6 +183,7 @@ public class VehicleService {
         
         vehicle.setStatus(newStatus);
         vehicleRepository.save(vehicle);
+        resourceVersionService.bumpAfterCommit(Resource.VEHICLES);
     }
     
     /**
@@ -151,7 +215,7 @@ public class VehicleService {
      */
     @Transactional(readOnly = true)
     public List<Vehicle> getAllVehicles() {
-        return vehicleRepository.findAll();
+        return vehicleRepository.findAllWithDetails();
     }
     
     /**
@@ -162,7 +226,22 @@ public class VehicleService {
      */
     @Transactional(readOnly = true)
     public Vehicle findById(Integer vehicleId) {
-        return vehicleRepository.findById(vehicleId)
+        return vehicleRepository.findWithDetailsById(vehicleId)
                 .orElseThrow(() -> new ResourceNotFoundException("车辆不存在"));
     }
+    
+    // ==================== 私有辅助方法 ====================
+    
+    /**
+     * 校验搜索时间段
+     */
+    private void validateSearchPeriod(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime.isAfter(endTime)) {
+            throw new BusinessException("开始时间不能晚于结束时间");
+        }
+        
+        if (startTime.isBefore(LocalDateTime.now())) {
+            throw new BusinessException("开始时间不能早于当前时间");
+        }
+    }
 }
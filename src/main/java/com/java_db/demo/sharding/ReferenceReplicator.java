@@ -0,0 +1,377 @@
+package com.java_db.demo.sharding;
+
+import com.java_db.demo.entity.Category;
+import com.java_db.demo.entity.Store;
+import com.java_db.demo.entity.User;
+import com.java_db.demo.entity.Vehicle;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 参考数据复制（单一权威写入方，单向异步复制）
+ * 订单、支付、维修记录外键引用的门店、分类、用户、车辆在每个分片都有完整副本，每行只有一个权威写入方：
+ * - 门店、分类、用户：主库
+ * - 车辆：车辆的归属分片（主库副本中车辆所在门店区域的分片），车辆状态、所在门店随下单、还车在归属分片修改；
+ *   新增车辆在主库写入（车辆 ID 由主库序列生成），主库只向其他分片补上缺少的行，不覆盖已有的行
+ *
+ * 复制总是从权威写入方覆盖到其他分片，不比较 updated_at：
+ * 1. 通过 JPA 修改后（提交后事件）或 JDBC 批量修改后（{@link #replicateAfterCommit}），
+ *    提交线程只把复制任务放入有界队列，由单个复制线程读取来源分片上的行写入其他分片；
+ *    执行时再判断来源是否仍是权威写入方，区域迁移后旧归属分片排队中的任务不会覆盖新归属分片
+ * 2. 启动时全量同步，之后定时增量同步（按 updated_at），补上队列已满丢弃、复制失败的行
+ * 3. 写入其他分片的语句设置查询超时（sharding.reference-query-timeout-seconds）
+ *
+ * 非权威写入方上的修改不复制，并在下次全量同步时被覆盖；只配置主库时不复制
+ */
+@Slf4j
+@Component
+public class ReferenceReplicator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    /**
+     * 参考数据表（按外键依赖顺序）
+     */
+    private static final Map<Class<?>, String> TABLES = Map.of(
+            Category.class, "categories",
+            Store.class, "stores",
+            User.class, "users",
+            Vehicle.class, "vehicles");
+
+    private static final List<String> SYNC_ORDER = List.of("categories", "stores", "users", "vehicles");
+
+    /**
+     * 按归属分片确定权威写入方的表，其他表以主库为准
+     */
+    private static final String VEHICLES = "vehicles";
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 增量同步时回看的时间，覆盖提交顺序与 updated_at 不一致的行
+     */
+    private static final long SYNC_OVERLAP_MINUTES = 1;
+
+    private final ShardDirectory directory;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 各分片的 JdbcTemplate（设置查询超时）
+     */
+    private final Map<String, JdbcTemplate> jdbcTemplates = new HashMap<>();
+
+    /**
+     * 复制线程（单线程，有界队列，队列满时丢弃任务）
+     */
+    private final ExecutorService replicationExecutor;
+
+    /**
+     * 复制任务与定时同步互斥，避免较早读取的行覆盖较新的行
+     */
+    private final Object copyLock = new Object();
+
+    private volatile LocalDateTime lastSync;
+
+    public ReferenceReplicator(ShardDirectory directory,
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${sharding.reference-queue-capacity:10000}") int queueCapacity,
+                               @Value("${sharding.reference-query-timeout-seconds:10}") int queryTimeoutSeconds) {
+        this.directory = directory;
+        this.entityManagerFactory = entityManagerFactory;
+        for (String shardId : directory.shardIds()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(directory.jdbcTemplate(shardId).getDataSource());
+            jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+            jdbcTemplates.put(shardId, jdbcTemplate);
+        }
+        this.replicationExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("reference-replicator").daemon(true).factory(),
+                (task, executor) -> log.warn("参考数据复制队列已满（{}），丢弃复制任务，等待定时同步", queueCapacity));
+    }
+
+    /**
+     * 注册提交后事件并全量同步（仅多分片）
+     */
+    @PostConstruct
+    public void start() {
+        if (!directory.isSharded()) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getEventListenerRegistry();
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        synchronize(null);
+    }
+
+    /**
+     * 停止复制线程，等待队列中的任务完成
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        replicationExecutor.shutdown();
+        replicationExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 在当前事务提交后，把指定行从当前分片复制到其他分片（JDBC 批量修改参考数据后调用）
+     *
+     * @param table 参考数据表
+     * @param ids 修改的行 ID
+     */
+    public void replicateAfterCommit(String table, Collection<Integer> ids) {
+        if (!directory.isSharded() || ids.isEmpty()) {
+            return;
+        }
+        String source = ShardRoutingDataSource.currentShard();
+        List<Integer> copy = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueueCopy(table, source, copy);
+            }
+        });
+    }
+
+    /**
+     * 定时增量同步
+     */
+    @Scheduled(fixedDelayString = "${sharding.reference-sync-ms:60000}")
+    public void synchronizeRecent() {
+        if (!directory.isSharded() || lastSync == null) {
+            return;
+        }
+        synchronize(lastSync.minusMinutes(SYNC_OVERLAP_MINUTES));
+    }
+
+    /**
+     * 同步参考数据：权威写入方上 updated_at 不早于 since 的行复制到其他分片
+     * 门店、分类、用户只从主库复制；车辆从每个分片复制该分片是归属分片的行，主库另外补上其他分片缺少的行
+     *
+     * @param since 起始时间（null 表示全量）
+     * @return 复制的行数
+     */
+    public int synchronize(LocalDateTime since) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        int copied = 0;
+        synchronized (copyLock) {
+            for (String table : SYNC_ORDER) {
+                List<String> sources = VEHICLES.equals(table) ? directory.shardIds() : List.of(ShardRoutingDataSource.PRIMARY);
+                for (String source : sources) {
+                    copied += copyUpdatedSince(table, source, since);
+                }
+            }
+        }
+        lastSync = startedAt;
+        if (since == null || copied > 0) {
+            log.info("参考数据同步完成：{} 行（{}）", copied, since == null ? "全量" : "增量，自 " + since);
+        }
+        return copied;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        enqueueCopy(tableOf(event.getPersister()), ShardRoutingDataSource.currentShard(), List.of((Integer) event.getId()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        enqueueCopy(tableOf(event.getPersister()), ShardRoutingDataSource.currentShard(), List.of((Integer) event.getId()));
+    }
+
+    /**
+     * 删除只从主库复制（参考数据只在主库删除）
+     */
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        String table = tableOf(event.getPersister());
+        String source = ShardRoutingDataSource.currentShard();
+        Object id = event.getId();
+        if (!ShardRoutingDataSource.PRIMARY.equals(source)) {
+            log.warn("分片 {} 上删除了 {} #{}，参考数据只能在主库删除，不复制", source, table, id);
+            return;
+        }
+        replicationExecutor.execute(() -> {
+            for (String target : directory.shardIds()) {
+                if (target.equals(source)) {
+                    continue;
+                }
+                try {
+                    jdbcTemplates.get(target).update("DELETE FROM " + table + " WHERE id = ?", id);
+                } catch (RuntimeException e) {
+                    log.warn("分片 {} 删除 {} #{} 失败（仍被该分片的记录引用）: {}", target, table, id, e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // 未提交，无需复制
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // 同上
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // 同上
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return TABLES.containsKey(persister.getMappedClass());
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private String tableOf(EntityPersister persister) {
+        return TABLES.get(persister.getMappedClass());
+    }
+
+    /**
+     * 提交后把复制任务放入队列（不在提交线程上访问其他分片）
+     * 门店、分类、用户不是在主库修改时不复制
+     */
+    private void enqueueCopy(String table, String source, List<Integer> ids) {
+        if (!VEHICLES.equals(table) && !ShardRoutingDataSource.PRIMARY.equals(source)) {
+            log.warn("分片 {} 上修改了 {} {}，该表只能在主库修改，不复制", source, table, ids);
+            return;
+        }
+        replicationExecutor.execute(() -> copyRows(table, source, ids));
+    }
+
+    /**
+     * 复制指定行（复制线程执行，失败只记录日志，由定时同步补上）
+     */
+    private void copyRows(String table, String source, List<Integer> ids) {
+        try {
+            synchronized (copyLock) {
+                List<Map<String, Object>> rows = jdbcTemplates.get(source).queryForList(
+                        "SELECT * FROM " + table + " WHERE id = ANY (?)", (Object) ids.toArray(Integer[]::new));
+                replicate(table, source, rows);
+            }
+        } catch (RuntimeException e) {
+            log.warn("复制 {} {} 到其他分片失败，等待定时同步: {}", table, ids, e.getMessage());
+        }
+    }
+
+    /**
+     * 按 ID 顺序分批读取来源分片上的行，写入其他分片
+     */
+    private int copyUpdatedSince(String table, String source, LocalDateTime since) {
+        JdbcTemplate jdbcTemplate = jdbcTemplates.get(source);
+        int copied = 0;
+        int lastId = Integer.MIN_VALUE;
+        while (true) {
+            List<Map<String, Object>> rows = since == null
+                    ? jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE,
+                            lastId)
+                    : jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE id > ? AND updated_at >= ? "
+                            + "ORDER BY id LIMIT " + BATCH_SIZE, lastId, Timestamp.valueOf(since));
+            if (rows.isEmpty()) {
+                return copied;
+            }
+            copied += replicate(table, source, rows);
+            lastId = ((Number) rows.get(rows.size() - 1).get("id")).intValue();
+        }
+    }
+
+    /**
+     * 来源是权威写入方的行覆盖其他分片；车辆的归属分片不是主库时，主库的行只补上其他分片缺少的行
+     *
+     * @return 覆盖写入的行数
+     */
+    private int replicate(String table, String source, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (!VEHICLES.equals(table)) {
+            upsert(table, source, rows, true);
+            return rows.size();
+        }
+        Map<Integer, String> homeShards = homeShards(rows.stream().map(row -> (Integer) row.get("id")).toList());
+        Map<Boolean, List<Map<String, Object>>> owned = rows.stream()
+                .collect(Collectors.partitioningBy(row -> source.equals(homeShards.get((Integer) row.get("id")))));
+        upsert(table, source, owned.get(true), true);
+        if (ShardRoutingDataSource.PRIMARY.equals(source)) {
+            upsert(table, source, owned.get(false), false);
+        }
+        return owned.get(true).size();
+    }
+
+    /**
+     * 车辆的归属分片（按主库副本中车辆所在的门店，与 {@link ShardDirectory#shardForVehicle} 相同）
+     */
+    private Map<Integer, String> homeShards(List<Integer> vehicleIds) {
+        Map<Integer, String> homeShards = new HashMap<>();
+        jdbcTemplates.get(ShardRoutingDataSource.PRIMARY).query(
+                "SELECT id, store_id FROM vehicles WHERE id = ANY (?)",
+                rs -> {
+                    homeShards.put(rs.getInt(1), directory.shardForStore(rs.getInt(2), false));
+                },
+                (Object) vehicleIds.toArray(Integer[]::new));
+        return homeShards;
+    }
+
+    /**
+     * 写入来源分片以外的所有分片
+     *
+     * @param overwrite 是否覆盖已有的行（否则只插入缺少的行）
+     */
+    private void upsert(String table, String source, List<Map<String, Object>> rows, boolean overwrite) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") "
+                + (overwrite
+                        ? "ON CONFLICT (id) DO UPDATE SET " + columns.stream().filter(column -> !column.equals("id"))
+                                .map(column -> column + " = EXCLUDED." + column).collect(Collectors.joining(", "))
+                        : "ON CONFLICT (id) DO NOTHING");
+        for (String target : directory.shardIds()) {
+            if (target.equals(source)) {
+                continue;
+            }
+            jdbcTemplates.get(target).batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+                for (int i = 0; i < columns.size(); i++) {
+                    ps.setObject(i + 1, row.get(columns.get(i)));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.java_db.demo.sharding;
+
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分片目录：区域 -> 分片
+ *
+ * 订单、支付按取车门店所在区域存放，维修记录按车辆所在门店的区域存放；
+ * 目录（shard_directory）与门店区域以主库为准，本地缓存定期刷新，缓存未命中时立即重新加载。
+ * 订单、支付、维修记录的 ID 按 sharding.id-stride 步长分配（见 ShardingConfig），ID 对步长取余即生成它的分片，
+ * 迁移过区域的记录不在该分片时依次查找其他分片
+ *
+ * 只配置主库时所有定位都返回主库，不查询目录
+ */
+@Slf4j
+@Component
+public class ShardDirectory {
+
+    /**
+     * 区域状态：正常
+     */
+    public static final String ACTIVE = "ACTIVE";
+
+    /**
+     * 区域状态：迁移中，拒绝该区域的写操作
+     */
+    public static final String MIGRATING = "MIGRATING";
+
+    /**
+     * 查询记录所属门店（有区域迁移时检查写操作）
+     */
+    private static final Map<ShardKey, String> ROW_STORE_SQL = Map.of(
+            ShardKey.ORDER, "SELECT pickup_store_id FROM orders WHERE id = ?",
+            ShardKey.PAYMENT, "SELECT o.pickup_store_id FROM payments p JOIN orders o ON o.id = p.order_id WHERE p.id = ?",
+            ShardKey.MAINTENANCE, "SELECT v.store_id FROM maintenance m JOIN vehicles v ON v.id = m.vehicle_id WHERE m.id = ?");
+
+    private final ShardRoutingDataSource dataSource;
+    private final Map<String, JdbcTemplate> jdbcTemplates = new HashMap<>();
+
+    @Value("${sharding.id-stride:16}")
+    private int idStride;
+
+    /**
+     * 区域 -> 目录项
+     */
+    private volatile Map<String, Entry> regions;
+
+    /**
+     * 门店 ID -> 区域
+     */
+    private volatile Map<Integer, String> storeRegions;
+
+    /**
+     * 目录项
+     *
+     * @param region 区域
+     * @param shardId 分片
+     * @param status 状态（ACTIVE / MIGRATING）
+     */
+    public record Entry(String region, String shardId, String status) {
+    }
+
+    public ShardDirectory(ShardRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+        for (String shardId : dataSource.getShardIds()) {
+            jdbcTemplates.put(shardId, new JdbcTemplate(dataSource.getShard(shardId)));
+        }
+    }
+
+    /**
+     * 是否配置了多个分片
+     */
+    public boolean isSharded() {
+        return dataSource.isSharded();
+    }
+
+    /**
+     * 所有分片 ID（主库在前）
+     */
+    public List<String> shardIds() {
+        return dataSource.getShardIds();
+    }
+
+    /**
+     * 直接访问分片的 JdbcTemplate（自动提交，不参与当前线程的事务）
+     */
+    public JdbcTemplate jdbcTemplate(String shardId) {
+        JdbcTemplate jdbcTemplate = jdbcTemplates.get(shardId);
+        if (jdbcTemplate == null) {
+            throw new IllegalArgumentException("分片不存在：" + shardId);
+        }
+        return jdbcTemplate;
+    }
+
+    /**
+     * 门店所在区域的分片
+     *
+     * @param storeId 门店 ID
+     * @param write 是否为写操作（区域迁移中时拒绝）
+     * @return 分片 ID
+     */
+    public String shardForStore(Integer storeId, boolean write) {
+        if (!isSharded()) {
+            return ShardRoutingDataSource.PRIMARY;
+        }
+        if (storeId == null) {
+            throw new ResourceNotFoundException(ShardKey.STORE.getNotFoundMessage());
+        }
+        String region = storeRegions().get(storeId);
+        if (region == null) {
+            refresh();
+            region = storeRegions.get(storeId);
+            if (region == null) {
+                throw new ResourceNotFoundException(ShardKey.STORE.getNotFoundMessage());
+            }
+        }
+        Entry entry = regions.get(region);
+        if (entry == null) {
+            entry = assignRegion(region);
+        }
+        if (write && MIGRATING.equals(entry.status())) {
+            throw new BusinessException("门店所在区域正在迁移分片，请稍后重试");
+        }
+        return entry.shardId();
+    }
+
+    /**
+     * 车辆的归属分片（车辆当前所在门店区域的分片）
+     *
+     * @param vehicleId 车辆 ID
+     * @param write 是否为写操作
+     * @return 分片 ID
+     */
+    public String shardForVehicle(Integer vehicleId, boolean write) {
+        if (!isSharded()) {
+            return ShardRoutingDataSource.PRIMARY;
+        }
+        List<Integer> storeIds = jdbcTemplate(ShardRoutingDataSource.PRIMARY)
+                .queryForList("SELECT store_id FROM vehicles WHERE id = ?", Integer.class, vehicleId);
+        if (storeIds.isEmpty()) {
+            throw new ResourceNotFoundException(ShardKey.VEHICLE.getNotFoundMessage());
+        }
+        return shardForStore(storeIds.get(0), write);
+    }
+
+    /**
+     * 按分片键定位分片
+     *
+     * @param key 分片键类型
+     * @param id 分片键取值
+     * @param write 是否为写操作
+     * @return 分片 ID
+     * @throws ResourceNotFoundException 记录不存在
+     */
+    public String locate(ShardKey key, Integer id, boolean write) {
+        return switch (key) {
+            case STORE -> shardForStore(id, write);
+            case VEHICLE -> shardForVehicle(id, write);
+            default -> {
+                String shardId = locateRow(key, id);
+                if (write && isSharded() && regions().values().stream().anyMatch(entry -> MIGRATING.equals(entry.status()))) {
+                    jdbcTemplate(shardId).queryForList(ROW_STORE_SQL.get(key), Integer.class, id)
+                            .forEach(storeId -> shardForStore(storeId, true));
+                }
+                yield shardId;
+            }
+        };
+    }
+
+    /**
+     * 为新区域分配分片（已分配时返回现有目录项）
+     * 选择当前区域数最少的分片
+     *
+     * @param region 区域
+     * @return 目录项
+     */
+    public Entry assignRegion(String region) {
+        Map<String, Entry> current = regions();
+        Entry existing = current.get(region);
+        if (existing != null || !isSharded()) {
+            return existing != null ? existing : new Entry(region, ShardRoutingDataSource.PRIMARY, ACTIVE);
+        }
+        Map<String, Integer> load = new LinkedHashMap<>();
+        shardIds().forEach(shardId -> load.put(shardId, 0));
+        current.values().forEach(entry -> load.merge(entry.shardId(), 1, Integer::sum));
+        String shardId = load.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+        jdbcTemplate(ShardRoutingDataSource.PRIMARY).update(
+                "INSERT INTO shard_directory (region, shard_id) VALUES (?, ?) ON CONFLICT (region) DO NOTHING",
+                region, shardId);
+        refresh();
+        Entry entry = regions.get(region);
+        log.info("新区域 {} 分配到分片 {}", region, entry.shardId());
+        return entry;
+    }
+
+    /**
+     * 门店按分片分组（只读定位，迁移中的区域仍返回原分片）
+     *
+     * @param storeIds 门店 ID
+     * @return 分片 ID -> 门店 ID
+     */
+    public Map<String, List<Integer>> groupStoresByShard(Collection<Integer> storeIds) {
+        Map<String, List<Integer>> groups = new TreeMap<>();
+        for (Integer storeId : storeIds) {
+            groups.computeIfAbsent(shardForStore(storeId, false), shard -> new ArrayList<>()).add(storeId);
+        }
+        return groups;
+    }
+
+    /**
+     * 门店是否归属指定分片
+     * 车辆在每个分片都有副本，但车辆状态和订单只在门店的归属分片上是完整的，按门店统计的分散查询用它过滤各分片的结果
+     *
+     * @param shardId 分片 ID
+     * @param storeId 门店 ID
+     * @return 门店所在区域是否分配给该分片
+     */
+    public boolean ownsStore(String shardId, Integer storeId) {
+        return shardForStore(storeId, false).equals(shardId);
+    }
+
+    /**
+     * 当前目录（直接读取主库）
+     */
+    public List<Entry> entries() {
+        load();
+        return regions.values().stream()
+                .sorted((a, b) -> a.region().compareTo(b.region()))
+                .toList();
+    }
+
+    /**
+     * 区域内的门店 ID
+     */
+    public List<Integer> storesInRegion(String region) {
+        return jdbcTemplate(ShardRoutingDataSource.PRIMARY)
+                .queryForList("SELECT id FROM stores WHERE region = ? ORDER BY id", Integer.class, region);
+    }
+
+    /**
+     * 将区域标记为迁移中（仅当区域当前为 ACTIVE 时，多个实例同时迁移同一区域时只有一个成功）
+     *
+     * @param region 区域
+     * @return 是否标记成功
+     */
+    public boolean markMigrating(String region) {
+        int updated = jdbcTemplate(ShardRoutingDataSource.PRIMARY).update(
+                "UPDATE shard_directory SET status = ?, updated_at = LOCALTIMESTAMP WHERE region = ? AND status = ?",
+                MIGRATING, region, ACTIVE);
+        refresh();
+        return updated > 0;
+    }
+
+    /**
+     * 更新区域的目录项（迁移工具使用）
+     */
+    public void update(String region, String shardId, String status) {
+        jdbcTemplate(ShardRoutingDataSource.PRIMARY).update(
+                "UPDATE shard_directory SET shard_id = ?, status = ?, updated_at = LOCALTIMESTAMP WHERE region = ?",
+                shardId, status, region);
+        refresh();
+    }
+
+    /**
+     * 从主库重新加载目录和门店区域
+     */
+    @Scheduled(fixedDelayString = "${sharding.directory-refresh-ms:30000}")
+    public void refresh() {
+        if (isSharded()) {
+            load();
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void load() {
+        JdbcTemplate primary = jdbcTemplate(ShardRoutingDataSource.PRIMARY);
+        Map<String, Entry> loadedRegions = new HashMap<>();
+        primary.query("SELECT region, shard_id, status FROM shard_directory", rs -> {
+            loadedRegions.put(rs.getString(1), new Entry(rs.getString(1), rs.getString(2), rs.getString(3)));
+        });
+        for (Entry entry : loadedRegions.values()) {
+            if (!jdbcTemplates.containsKey(entry.shardId())) {
+                log.error("分片目录中区域 {} 的分片 {} 未配置（sharding.shards.*）", entry.region(), entry.shardId());
+            }
+        }
+        Map<Integer, String> loadedStores = new HashMap<>();
+        primary.query("SELECT id, region FROM stores", rs -> {
+            loadedStores.put(rs.getInt(1), rs.getString(2));
+        });
+        regions = loadedRegions;
+        storeRegions = loadedStores;
+    }
+
+    private Map<String, Entry> regions() {
+        if (regions == null) {
+            refresh();
+        }
+        return regions;
+    }
+
+    private Map<Integer, String> storeRegions() {
+        if (storeRegions == null) {
+            refresh();
+        }
+        return storeRegions;
+    }
+
+    /**
+     * 先查 ID 对步长取余对应的分片（生成该 ID 的分片），再查其他分片
+     */
+    private String locateRow(ShardKey key, Integer id) {
+        if (!isSharded()) {
+            return ShardRoutingDataSource.PRIMARY;
+        }
+        if (id == null) {
+            throw new ResourceNotFoundException(key.getNotFoundMessage());
+        }
+        int residue = Math.floorMod(id, idStride);
+        List<String> candidates = new ArrayList<>(shardIds());
+        candidates.sort((a, b) -> Boolean.compare(dataSource.getIndex(b) == residue, dataSource.getIndex(a) == residue));
+        String sql = "SELECT EXISTS (SELECT 1 FROM " + key.getTable() + " WHERE id = ?)";
+        for (String shardId : candidates) {
+            if (Boolean.TRUE.equals(jdbcTemplate(shardId).queryForObject(sql, Boolean.class, id))) {
+                return shardId;
+            }
+        }
+        throw new ResourceNotFoundException(key.getNotFoundMessage());
+    }
+}
@@ -0,0 +1,51 @@
+package com.java_db.demo.sharding;
+
+/**
+ * 分片键类型：按什么定位操作所在的分片
+ */
+public enum ShardKey {
+
+    /**
+     * 门店 ID：门店所在区域的分片（下单按取车门店）
+     */
+    STORE(null, "门店不存在"),
+
+    /**
+     * 车辆 ID：车辆当前所在门店区域的分片（车辆的“归属分片”，维修记录、车辆日历）
+     */
+    VEHICLE(null, "车辆不存在"),
+
+    /**
+     * 订单 ID：订单所在的分片
+     */
+    ORDER("orders", "订单不存在"),
+
+    /**
+     * 支付记录 ID：支付记录所在的分片
+     */
+    PAYMENT("payments", "支付记录不存在"),
+
+    /**
+     * 维修记录 ID：维修记录所在的分片
+     */
+    MAINTENANCE("maintenance", "维修记录不存在");
+
+    private final String table;
+    private final String notFoundMessage;
+
+    ShardKey(String table, String notFoundMessage) {
+        this.table = table;
+        this.notFoundMessage = notFoundMessage;
+    }
+
+    /**
+     * 按分片存储的表（门店、车辆为 null，由分片目录定位）
+     */
+    public String getTable() {
+        return table;
+    }
+
+    public String getNotFoundMessage() {
+        return notFoundMessage;
+    }
+}
@@ -0,0 +1,34 @@
+package com.java_db.demo.sharding;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在分片键所在的分片上执行方法（方法内的事务、查询、幂等记录都在该分片）
+ * 只配置主库时不生效
+ *
+ * 例：{@code @ShardRoute(by = ShardKey.ORDER, key = "#orderId")}
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardRoute {
+
+    /**
+     * 分片键类型
+     */
+    ShardKey by();
+
+    /**
+     * 分片键取值（SpEL，可引用方法参数，如 #orderDTO.pickupStoreId）
+     */
+    String key();
+
+    /**
+     * 只读操作：门店所在区域迁移中时仍可执行（写操作返回“稍后重试”）
+     */
+    boolean readOnly() default false;
+}
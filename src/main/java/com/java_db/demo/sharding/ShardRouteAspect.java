@@ -0,0 +1,68 @@
+package com.java_db.demo.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 @ShardRoute 在分片键所在的分片上执行方法
+ * 在连接池选择（WorkloadAspect）之后、事务拦截器之前执行，事务在目标分片上开启
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ShardRouteAspect {
+
+    private final ShardDirectory directory;
+    private final ShardRouter shardRouter;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public ShardRouteAspect(ShardDirectory directory, ShardRouter shardRouter) {
+        this.directory = directory;
+        this.shardRouter = shardRouter;
+    }
+
+    @Around("within(com.java_db.demo..*) && @annotation(route)")
+    public Object route(ProceedingJoinPoint joinPoint, ShardRoute route) throws Throwable {
+        if (!directory.isSharded()) {
+            return joinPoint.proceed();
+        }
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                AopUtils.getTargetClass(joinPoint.getTarget()));
+        Expression expression = expressions.computeIfAbsent(route.key(), parser::parseExpression);
+        Object value = expression.getValue(new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), method, joinPoint.getArgs(), parameterNameDiscoverer));
+        Integer key = value instanceof Number number ? number.intValue() : null;
+        String shard = directory.locate(route.by(), key, !route.readOnly());
+        try {
+            return shardRouter.callOnShard(shard, () -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+}
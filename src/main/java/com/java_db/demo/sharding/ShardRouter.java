@@ -0,0 +1,142 @@
+package com.java_db.demo.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分片执行器
+ *
+ * 1. 单分片操作（{@link #callOnShard}）：下单、支付、取还车等事务只在一个分片内执行，不支持跨分片事务。
+ *    EntityManager 只在事务内绑定（已关闭 OSIV），返回的实体已脱离持久化上下文，响应需要的关联由仓库查询一并获取
+ * 2. 分散-汇总（{@link #scatter}）：列表查询、报表在每个分片上执行后合并结果。
+ *    已在只读事务中（如报表）时，其他分片各用一个新的只读事务查询（继承外层事务剩余的超时时间），
+ *    这些结果在查询后即脱离持久化上下文，只能访问已加载的字段和关联的 ID
+ *
+ * 只配置主库时直接执行，与未分片时相同
+ */
+@Component
+public class ShardRouter {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShardDirectory directory;
+    private final PlatformTransactionManager transactionManager;
+
+    public ShardRouter(EntityManagerFactory entityManagerFactory,
+                       ShardDirectory directory,
+                       PlatformTransactionManager transactionManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.directory = directory;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * 在指定分片上执行操作
+     *
+     * @param shard 分片 ID
+     * @param action 操作（可包含事务）
+     * @return 操作结果
+     * @throws IllegalStateException 当前线程已在其他分片的事务中
+     */
+    public <T> T callOnShard(String shard, Supplier<T> action) {
+        String current = ShardRoutingDataSource.currentShard();
+        if (shard.equals(current)) {
+            return action.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("不支持跨分片事务：当前事务在分片 " + current + "，目标分片 " + shard);
+        }
+        return ShardRoutingDataSource.supplyWith(shard, action);
+    }
+
+    /**
+     * 在每个分片上执行查询并合并结果
+     *
+     * @param query 查询（在每个分片上各调用一次）
+     * @return 各分片结果按分片顺序拼接
+     */
+    public <T> List<T> scatter(Supplier<List<T>> query) {
+        return scatterByShard(shard -> query.get());
+    }
+
+    /**
+     * 在每个分片上执行查询并合并结果（查询可按分片选择参数，如只查询该分片的门店）
+     *
+     * @param query 分片 ID -> 该分片上的查询结果
+     * @return 各分片结果按分片顺序拼接
+     */
+    public <T> List<T> scatterByShard(Function<String, List<T>> query) {
+        if (!directory.isSharded()) {
+            return query.apply(ShardRoutingDataSource.currentShard());
+        }
+        List<T> results = new ArrayList<>();
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (String shard : directory.shardIds()) {
+                results.addAll(callOnShard(shard, () -> query.apply(shard)));
+            }
+            return results;
+        }
+
+        String current = ShardRoutingDataSource.currentShard();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        EntityManagerHolder outer = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        for (String shard : directory.shardIds()) {
+            if (shard.equals(current)) {
+                results.addAll(query.apply(shard));
+                continue;
+            }
+            if (outer != null && outer.hasTimeout()) {
+                transactionTemplate.setTimeout(outer.getTimeToLiveInSeconds());
+            }
+            results.addAll(ShardRoutingDataSource.supplyWith(shard,
+                    () -> transactionTemplate.execute(status -> query.apply(shard))));
+        }
+        return results;
+    }
+
+    /**
+     * 依次在每个分片上执行操作（定时任务等后台线程）
+     *
+     * @param action 分片 ID -> 操作
+     */
+    public void forEachShard(Consumer<String> action) {
+        for (String shard : directory.shardIds()) {
+            callOnShard(shard, () -> {
+                action.accept(shard);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 依次在各分片上查找，返回第一个找到的结果（按唯一业务键查询，如订单流水号）
+     *
+     * @param query 查询
+     * @return 查询结果
+     */
+    public <T> Optional<T> findAny(Supplier<Optional<T>> query) {
+        if (!directory.isSharded()) {
+            return query.get();
+        }
+        for (String shard : directory.shardIds()) {
+            Optional<T> result = callOnShard(shard, query);
+            if (result.isPresent()) {
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+}
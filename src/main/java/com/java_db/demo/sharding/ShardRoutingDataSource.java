@@ -0,0 +1,170 @@
+package com.java_db.demo.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 按分片路由的数据源
+ * 每个分片是一个独立的 PostgreSQL 数据库（各自按负载划分连接池），获取连接时按当前线程的分片选择；
+ * 未指定分片时使用主库（分片 ID {@value #PRIMARY}），只配置主库时与单库部署完全相同
+ *
+ * 业务代码切换分片应使用 {@link ShardRouter}（拒绝跨分片事务），
+ * 自建线程、线程池任务的入口可以直接用 {@link #callWith} / {@link #runWith}
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    /**
+     * 主库的分片 ID（spring.datasource.*），参考数据、分片目录以主库为准
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, DataSource> shards;
+    private final Map<String, Integer> indexes;
+    private final List<String> shardIds;
+
+    /**
+     * @param shards 分片 ID -> 数据源（须包含主库）
+     * @param indexes 分片 ID -> 分片序号（主库为 0，用于 ID 步长的余数）
+     */
+    public ShardRoutingDataSource(Map<String, DataSource> shards, Map<String, Integer> indexes) {
+        this.shards = Map.copyOf(shards);
+        this.indexes = Map.copyOf(indexes);
+        this.shardIds = shards.keySet().stream().sorted(Comparator.comparing(indexes::get)).toList();
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(PRIMARY));
+        setLenientFallback(false);
+    }
+
+    /**
+     * 当前线程的分片，未指定时为 null（主库）
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程的分片，未指定时为主库
+     */
+    public static String currentShard() {
+        String shard = CURRENT.get();
+        return shard != null ? shard : PRIMARY;
+    }
+
+    /**
+     * 在指定分片上执行操作，结束后恢复之前的分片
+     */
+    public static <T> T callWith(String shard, Callable<T> action) throws Exception {
+        String previous = enter(shard);
+        try {
+            return action.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在指定分片上执行操作（不抛出受检异常）
+     */
+    public static <T> T supplyWith(String shard, Supplier<T> action) {
+        String previous = enter(shard);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在指定分片上执行操作（自建线程、线程池任务的入口等）
+     */
+    public static void runWith(String shard, Runnable action) {
+        String previous = enter(shard);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 是否配置了多个分片
+     */
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    /**
+     * 所有分片 ID（按分片序号排序，主库在前）
+     */
+    public List<String> getShardIds() {
+        return shardIds;
+    }
+
+    /**
+     * 分片的数据源（不经过路由，不参与当前线程上 JPA 事务绑定的连接）
+     *
+     * @throws IllegalArgumentException 分片不存在
+     */
+    public DataSource getShard(String shardId) {
+        DataSource dataSource = shards.get(shardId);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("分片不存在：" + shardId);
+        }
+        return dataSource;
+    }
+
+    /**
+     * 分片序号（主库为 0）
+     */
+    public int getIndex(String shardId) {
+        getShard(shardId);
+        return indexes.get(shardId);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 关闭所有分片的连接池
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : shards.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * 设置当前线程的分片，返回之前的分片（用于 {@link #restore} 恢复）
+     */
+    static String enter(String shard) {
+        String previous = CURRENT.get();
+        if (PRIMARY.equals(shard)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.java_db.demo.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 球面 k-d 树（不可变）
+ * 将经纬度转换为单位球面上的三维坐标后建树，三维欧氏距离（弦长）与球面距离单调一致，
+ * 因此按弦长求出的 K 近邻就是按球面距离的 K 近邻，无需处理经度跨越 ±180° 等问题
+ *
+ * 构建 O(n log² n)，K 近邻查询平均 O(log n + k)
+ *
+ * @param <T> 节点携带的数据类型
+ */
+public class KdTree<T> {
+
+    /**
+     * 地球平均半径（千米）
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final int DIMENSIONS = 3;
+
+    private final Node<T> root;
+    private final int size;
+
+    /**
+     * 近邻查询结果
+     *
+     * @param value 节点数据
+     * @param distanceKm 球面距离（千米）
+     */
+    public record Neighbor<T>(T value, double distanceKm) {
+    }
+
+    private record Node<T>(double[] point, T value, int axis, Node<T> left, Node<T> right) {
+    }
+
+    private record Entry<T>(double[] point, T value) {
+    }
+
+    /**
+     * @param values 节点数据
+     * @param latitude 取纬度函数
+     * @param longitude 取经度函数
+     */
+    public KdTree(List<T> values,
+                  ToDoubleFunction<T> latitude,
+                  ToDoubleFunction<T> longitude) {
+        List<Entry<T>> entries = new ArrayList<>(values.size());
+        for (T value : values) {
+            entries.add(new Entry<>(toPoint(latitude.applyAsDouble(value), longitude.applyAsDouble(value)), value));
+        }
+        this.size = entries.size();
+        this.root = build(entries, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 查询距离指定坐标最近的 k 个节点
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param k 数量
+     * @return 按距离从近到远排序的近邻
+     */
+    public List<Neighbor<T>> nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || root == null) {
+            return List.of();
+        }
+        double[] target = toPoint(latitude, longitude);
+        // 大顶堆：堆顶为当前第 k 近（最远）的候选
+        PriorityQueue<Candidate<T>> heap = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate<T> c) -> c.squaredChord).reversed());
+        search(root, target, k, heap);
+
+        List<Candidate<T>> sorted = new ArrayList<>(heap);
+        sorted.sort(Comparator.comparingDouble(c -> c.squaredChord));
+        List<Neighbor<T>> result = new ArrayList<>(sorted.size());
+        for (Candidate<T> candidate : sorted) {
+            result.add(new Neighbor<>(candidate.value, toKilometers(candidate.squaredChord)));
+        }
+        return result;
+    }
+
+    /**
+     * 两个坐标之间的球面距离
+     *
+     * @return 球面距离（千米）
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return toKilometers(squaredDistance(toPoint(latitude1, longitude1), toPoint(latitude2, longitude2)));
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private record Candidate<T>(T value, double squaredChord) {
+    }
+
+    private Node<T> build(List<Entry<T>> entries, int depth) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        int axis = depth % DIMENSIONS;
+        entries.sort(Comparator.comparingDouble(e -> e.point()[axis]));
+        int median = entries.size() / 2;
+        Entry<T> entry = entries.get(median);
+        return new Node<>(entry.point(), entry.value(), axis,
+                build(new ArrayList<>(entries.subList(0, median)), depth + 1),
+                build(new ArrayList<>(entries.subList(median + 1, entries.size())), depth + 1));
+    }
+
+    private void search(Node<T> node, double[] target, int k, PriorityQueue<Candidate<T>> heap) {
+        if (node == null) {
+            return;
+        }
+        double distance = squaredDistance(node.point(), target);
+        if (heap.size() < k) {
+            heap.add(new Candidate<>(node.value(), distance));
+        } else if (distance < heap.peek().squaredChord()) {
+            heap.poll();
+            heap.add(new Candidate<>(node.value(), distance));
+        }
+
+        double delta = target[node.axis()] - node.point()[node.axis()];
+        Node<T> near = delta < 0 ? node.left() : node.right();
+        Node<T> far = delta < 0 ? node.right() : node.left();
+        search(near, target, k, heap);
+        // 分割平面到目标点的距离小于当前第 k 近距离时，另一侧才可能有更近的点
+        if (heap.size() < k || delta * delta < heap.peek().squaredChord()) {
+            search(far, target, k, heap);
+        }
+    }
+
+    private static double[] toPoint(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            double d = a[i] - b[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * 单位球弦长平方 -> 球面距离（千米）
+     */
+    private static double toKilometers(double squaredChord) {
+        double chord = Math.sqrt(squaredChord);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, chord / 2));
+    }
+}
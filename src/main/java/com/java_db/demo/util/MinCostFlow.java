@@ -0,0 +1,146 @@
+package com.java_db.demo.util;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * 最小费用最大流（连续最短路 + Johnson 势函数）
+ * 每轮用 Dijkstra 在残量网络上按约化费用求最短增广路，势函数保证约化费用非负
+ *
+ * 要求初始边费用非负；复杂度 O(F · E log V)，F 为增广次数（不超过总流量）
+ * 非线程安全，每次求解新建实例
+ */
+public class MinCostFlow {
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    private final int nodes;
+    private int edgeCount;
+
+    // 边以数组存储，边 e 的反向边为 e ^ 1
+    private int[] to = new int[16];
+    private int[] next = new int[16];
+    private long[] capacity = new long[16];
+    private long[] cost = new long[16];
+    private final int[] head;
+
+    /**
+     * 求解结果
+     *
+     * @param flow 最大流量
+     * @param cost 最大流量下的最小总费用
+     */
+    public record Result(long flow, long cost) {
+    }
+
+    /**
+     * @param nodes 节点数（节点编号 0 ~ nodes - 1）
+     */
+    public MinCostFlow(int nodes) {
+        this.nodes = nodes;
+        this.head = new int[nodes];
+        Arrays.fill(head, -1);
+    }
+
+    /**
+     * 添加有向边
+     *
+     * @param from 起点
+     * @param to 终点
+     * @param capacity 容量
+     * @param cost 单位流量费用（非负）
+     * @return 边编号，求解后用 {@link #flow(int)} 查询该边的流量
+     */
+    public int addEdge(int from, int to, long capacity, long cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("费用不能为负数");
+        }
+        int edge = edgeCount;
+        link(from, to, capacity, cost);
+        link(to, from, 0, -cost);
+        return edge;
+    }
+
+    /**
+     * 求从 source 到 sink 的最小费用最大流
+     */
+    public Result solve(int source, int sink) {
+        long[] potential = new long[nodes];
+        long[] distance = new long[nodes];
+        int[] previousEdge = new int[nodes];
+        long totalFlow = 0;
+        long totalCost = 0;
+        while (true) {
+            Arrays.fill(distance, INF);
+            Arrays.fill(previousEdge, -1);
+            distance[source] = 0;
+            PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+            queue.add(new long[]{0, source});
+            while (!queue.isEmpty()) {
+                long[] top = queue.poll();
+                int node = (int) top[1];
+                if (top[0] > distance[node]) {
+                    continue;
+                }
+                for (int e = head[node]; e != -1; e = next[e]) {
+                    if (capacity[e] <= 0) {
+                        continue;
+                    }
+                    long reduced = distance[node] + cost[e] + potential[node] - potential[to[e]];
+                    if (reduced < distance[to[e]]) {
+                        distance[to[e]] = reduced;
+                        previousEdge[to[e]] = e;
+                        queue.add(new long[]{reduced, to[e]});
+                    }
+                }
+            }
+            if (distance[sink] == INF) {
+                return new Result(totalFlow, totalCost);
+            }
+            for (int v = 0; v < nodes; v++) {
+                if (distance[v] < INF) {
+                    potential[v] += distance[v];
+                }
+            }
+
+            long augment = INF;
+            for (int v = sink; v != source; v = to[previousEdge[v] ^ 1]) {
+                augment = Math.min(augment, capacity[previousEdge[v]]);
+            }
+            for (int v = sink; v != source; v = to[previousEdge[v] ^ 1]) {
+                int e = previousEdge[v];
+                capacity[e] -= augment;
+                capacity[e ^ 1] += augment;
+                totalCost += augment * cost[e];
+            }
+            totalFlow += augment;
+        }
+    }
+
+    /**
+     * 求解后边上的流量
+     *
+     * @param edge {@link #addEdge} 返回的边编号
+     * @return 流量
+     */
+    public long flow(int edge) {
+        return capacity[edge ^ 1];
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void link(int from, int target, long edgeCapacity, long edgeCost) {
+        if (edgeCount == to.length) {
+            int length = edgeCount * 2;
+            to = Arrays.copyOf(to, length);
+            next = Arrays.copyOf(next, length);
+            capacity = Arrays.copyOf(capacity, length);
+            cost = Arrays.copyOf(cost, length);
+        }
+        to[edgeCount] = target;
+        next[edgeCount] = head[from];
+        capacity[edgeCount] = edgeCapacity;
+        cost[edgeCount] = edgeCost;
+        head[from] = edgeCount++;
+    }
+}
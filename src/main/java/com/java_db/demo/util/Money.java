@@ -0,0 +1,146 @@
+package com.java_db.demo.util;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额值类型
+ * 以 long 存储最小货币单位（分），对应数据库 DECIMAL(10, 2) 列
+ *
+ * 舍入规则：
+ * - 由 BigDecimal 转换时按 HALF_UP 保留两位小数
+ * - 乘以比率、求平均时按 HALF_UP（远离零）舍入到分
+ * - 所有加减乘运算溢出时抛出 ArithmeticException，不会静默截断
+ *
+ * JSON 序列化为普通数字（如 150.00），与原 BigDecimal 字段保持一致
+ * 实现 Serializable：实体进入二级缓存时属性值需可序列化
+ */
+public record Money(long cents) implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0L);
+
+    /**
+     * 由分构造金额
+     *
+     * @param cents 金额（分）
+     * @return 金额
+     */
+    public static Money ofCents(long cents) {
+        return cents == 0L ? ZERO : new Money(cents);
+    }
+
+    /**
+     * 由 BigDecimal 构造金额（按 HALF_UP 保留两位小数）
+     *
+     * @param amount 金额（元）
+     * @return 金额
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * 由字符串构造金额，如 "100.00"
+     *
+     * @param amount 金额（元）
+     * @return 金额
+     */
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    /**
+     * 乘以比率 numerator / denominator，结果按 HALF_UP 舍入到分
+     * 例如超期费率 1.5 倍可表示为 timesRatio(3, 2)
+     *
+     * @param numerator 分子
+     * @param denominator 分母（必须大于 0）
+     * @return 金额
+     */
+    public Money timesRatio(long numerator, long denominator) {
+        return ofCents(divideHalfUp(Math.multiplyExact(cents, numerator), denominator));
+    }
+
+    /**
+     * 平均分摊，结果按 HALF_UP 舍入到分
+     *
+     * @param count 份数（必须大于 0）
+     * @return 每份金额
+     */
+    public Money dividedBy(long count) {
+        return ofCents(divideHalfUp(cents, count));
+    }
+
+    public boolean isPositive() {
+        return cents > 0L;
+    }
+
+    public boolean isZero() {
+        return cents == 0L;
+    }
+
+    /**
+     * 转换为 BigDecimal（两位小数），用于持久化和 JSON 输出
+     *
+     * @return 金额（元）
+     */
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 转换为 double，仅用于计算增长率等非金额比值
+     *
+     * @return 金额（元）
+     */
+    public double toDouble() {
+        return cents / 100.0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * 整数除法，按 HALF_UP（远离零）舍入
+     *
+     * @param dividend 被除数
+     * @param divisor 除数（必须大于 0）
+     * @return 商
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        if (divisor <= 0L) {
+            throw new ArithmeticException("除数必须大于0");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,184 @@
+package com.java_db.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮（线程安全）
+ * 每层 wheelSize 个槽，第 0 层每槽 tickMs，第 n 层每槽为第 n-1 层一整圈；
+ * 超出当前各层范围的任务按需创建上层时间轮，添加 / 取消为 O(1)，推进为每 tick O(1) 摊销
+ *
+ * 到期时间只会晚于截止时间，最多晚一个 tickMs：
+ * - 第 0 层的槽在其时间段结束后才被处理
+ * - 上层的槽在其时间段开始时被处理，槽内任务重新插入下层
+ *
+ * 由调用方定期调用 advance 推进时钟，返回到期任务，回调在锁外执行
+ *
+ * @param <T> 任务类型
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final Level root;
+
+    /**
+     * 当前时间（tickMs 的整数倍）
+     */
+    private long currentTime;
+
+    /**
+     * 已加入的任务句柄，可用于取消
+     */
+    public static final class Timeout<T> {
+
+        private final long deadline;
+        private final T task;
+        private volatile boolean cancelled;
+
+        private Timeout(long deadline, T task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        /**
+         * 取消任务（槽位在处理时跳过已取消的任务）
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * @param tickMs 第 0 层每槽时长（毫秒）
+     * @param wheelSize 每层槽数
+     * @param startMs 起始时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs 必须大于0，wheelSize 必须大于1");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+        this.root = new Level(tickMs);
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param deadlineMs 截止时间（毫秒时间戳）
+     * @param task 任务
+     * @return 任务句柄；截止时间已过的任务也会加入，在下一次 advance 时到期
+     */
+    public synchronized Timeout<T> schedule(long deadlineMs, T task) {
+        Timeout<T> timeout = new Timeout<>(deadlineMs, task);
+        if (deadlineMs <= currentTime) {
+            // 已到期：放入当前槽，下一个 tick 结束时返回
+            root.slot(currentTime).add(timeout);
+        } else {
+            root.add(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * 推进时钟到指定时间，返回期间到期且未取消的任务
+     *
+     * @param nowMs 当前时间（毫秒时间戳）
+     * @return 到期任务（按槽顺序）
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMs <= nowMs) {
+            long previous = currentTime;
+            currentTime += tickMs;
+            // 先取出第 0 层刚结束的槽，再把上层在 currentTime 开始的槽降级：
+            // 降级任务可能落在与刚结束的槽同一位置（下一圈），不能被一起取出
+            for (Timeout<T> timeout : root.drain(previous)) {
+                if (!timeout.cancelled) {
+                    expired.add(timeout.task);
+                }
+            }
+            if (root.overflow != null) {
+                root.overflow.cascade(currentTime);
+            }
+        }
+        return expired;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 时间轮的一层
+     */
+    private final class Level {
+
+        private final long slotMs;
+        private final List<List<Timeout<T>>> slots;
+        private Level overflow;
+
+        private Level(long slotMs) {
+            this.slotMs = slotMs;
+            this.slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * 放入能覆盖截止时间的最低层
+         */
+        private void add(Timeout<T> timeout) {
+            long levelStart = currentTime - Math.floorMod(currentTime, slotMs);
+            if (timeout.deadline < levelStart + slotMs * wheelSize) {
+                slot(timeout.deadline).add(timeout);
+            } else {
+                if (overflow == null) {
+                    overflow = new Level(slotMs * wheelSize);
+                }
+                overflow.add(timeout);
+            }
+        }
+
+        private List<Timeout<T>> slot(long time) {
+            return slots.get((int) Math.floorMod(Math.floorDiv(time, slotMs), (long) wheelSize));
+        }
+
+        private List<Timeout<T>> drain(long time) {
+            List<Timeout<T>> slot = slot(time);
+            List<Timeout<T>> drained = new ArrayList<>(slot);
+            slot.clear();
+            return drained;
+        }
+
+        /**
+         * 在本层槽开始时把槽内任务重新插入下层（从根开始）
+         */
+        private void cascade(long time) {
+            if (Math.floorMod(time, slotMs) != 0) {
+                return;
+            }
+            if (overflow != null) {
+                overflow.cascade(time);
+            }
+            for (Timeout<T> timeout : drain(time)) {
+                if (!timeout.cancelled) {
+                    root.add(timeout);
+                }
+            }
+        }
+    }
+}
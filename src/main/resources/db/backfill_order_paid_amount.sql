@@ -0,0 +1,20 @@
+-- 车辆租贷管理系统 - orders.paid_amount 回填脚本 (PostgreSQL)
+-- 已支付金额由 PaymentService 在创建支付记录时累加，升级前已有的支付记录需回填一次
+-- 新建数据库无需执行本脚本
+--
+-- 使用方法（建议在停机窗口执行，执行期间不应有新的支付写入）:
+--   psql -h localhost -U postgres -d vehicle_rental -f src/main/resources/db/backfill_order_paid_amount.sql
+
+BEGIN;
+
+UPDATE orders o
+SET paid_amount = p.total
+FROM (
+    SELECT order_id, SUM(amount) AS total
+    FROM payments
+    GROUP BY order_id
+) p
+WHERE o.id = p.order_id
+  AND o.paid_amount <> p.total;
+
+COMMIT;
@@ -0,0 +1,213 @@
+-- 车辆租贷管理系统数据库迁移 V1：基线表结构 (PostgreSQL)
+-- 由原 schema.sql 转换，对应迁移引入前的最终表结构
+-- 已有数据库（迁移引入前由 schema.sql 建表）按 spring.flyway.baseline-version=1 直接登记为基线，不执行本脚本；
+-- 语句保留 IF NOT EXISTS，基线登记前手工执行也不会出错
+-- 已发布的迁移脚本不能再修改（Flyway 校验和），表结构变更请新增 V{n}__xxx.sql
+
+-- ============================================
+-- 1. 基础信息模块
+-- ============================================
+
+-- 1.1 门店表 (stores)
+CREATE TABLE IF NOT EXISTS stores (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    address VARCHAR(255),
+    phone VARCHAR(20),
+    latitude DECIMAL(9, 6),   -- 纬度（WGS84），用于就近门店搜索
+    longitude DECIMAL(9, 6),  -- 经度（WGS84）
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 1.2 分类表 (categories)
+CREATE TABLE IF NOT EXISTS categories (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(50) NOT NULL,
+    basic_rate DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 1.3 用户表 (users)
+CREATE TABLE IF NOT EXISTS users (
+    id SERIAL PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(20) UNIQUE,
+    role INT DEFAULT 0,  -- 0:客户, 1:管理员, 2:门店员工
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- ============================================
+-- 2. 核心资产模块
+-- ============================================
+
+-- 2.1 车辆表 (vehicles)
+CREATE TABLE IF NOT EXISTS vehicles (
+    id SERIAL PRIMARY KEY,
+    plate_number VARCHAR(20) UNIQUE NOT NULL,
+    model VARCHAR(50),
+    category_id INT NOT NULL,
+    store_id INT NOT NULL,
+    status INT DEFAULT 0,  -- 0:空闲, 1:已租, 2:维修, 3:调拨中
+    daily_rate DECIMAL(10, 2),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_vehicle_category FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_vehicle_store FOREIGN KEY (store_id) REFERENCES stores(id) ON DELETE RESTRICT
+);
+
+-- 2.2 维修记录表 (maintenance)
+CREATE TABLE IF NOT EXISTS maintenance (
+    id SERIAL PRIMARY KEY,
+    vehicle_id INT NOT NULL,
+    type VARCHAR(20),  -- 维修/保养/年检
+    start_date DATE,
+    end_date DATE,
+    cost DECIMAL(10, 2),
+    description TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_maintenance_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicles(id) ON DELETE CASCADE
+);
+
+-- ============================================
+-- 3. 业务交易模块
+-- ============================================
+
+-- 3.1 订单表 (orders)
+-- 按 created_at 月度范围分区（PARTITION BY RANGE），报表按时间范围查询时只扫描相关月份
+-- 分区表的主键/唯一约束必须包含分区键，因此主键为 (id, created_at)
+-- 月度分区由应用启动时和每日定时任务自动创建（PartitionMaintenanceService）
+CREATE TABLE IF NOT EXISTS orders (
+    id SERIAL,
+    order_no VARCHAR(64) NOT NULL,
+    user_id INT NOT NULL,
+    vehicle_id INT NOT NULL,
+    pickup_store_id INT NOT NULL,
+    return_store_id INT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    actual_return_time TIMESTAMP,
+    overdue_at TIMESTAMP,  -- 逾期标记时间（超过预计还车时间未还车）
+    total_amount DECIMAL(10, 2),
+    paid_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,  -- 已支付金额（支付记录合计，PaymentService 维护）
+    accrued_penalty DECIMAL(10, 2) DEFAULT 0,  -- 已累计逾期罚金
+    penalty_accrued_at TIMESTAMP,              -- 罚金累计的计算时间
+    status INT DEFAULT 0,  -- 0:预订, 1:使用中, 2:已还车, 3:已取消
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_orders PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_order_no UNIQUE (order_no, created_at),
+    CONSTRAINT fk_order_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicles(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_pickup_store FOREIGN KEY (pickup_store_id) REFERENCES stores(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_return_store FOREIGN KEY (return_store_id) REFERENCES stores(id) ON DELETE RESTRICT
+) PARTITION BY RANGE (created_at);
+
+-- 默认分区：兜底存放尚未创建月度分区的数据
+CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+
+-- 3.2 支付记录表 (payments)
+-- 按 pay_time 月度范围分区，主键为 (id, pay_time)
+-- 注意：分区表 orders 的主键包含 created_at，payments.order_id 无法再建外键，
+--       订单存在性由 PaymentService 在写入前校验
+CREATE TABLE IF NOT EXISTS payments (
+    id SERIAL,
+    order_id INT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    pay_method VARCHAR(20),  -- Alipay/WeChat/Card
+    pay_type VARCHAR(20),    -- Deposit:押金, Final:尾款, Penalty:罚金
+    pay_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_payments PRIMARY KEY (id, pay_time)
+) PARTITION BY RANGE (pay_time);
+
+CREATE TABLE IF NOT EXISTS payments_default PARTITION OF payments DEFAULT;
+
+-- ============================================
+-- 4. 系统任务模块
+-- ============================================
+
+-- 4.1 异步报表任务表 (report_jobs)
+CREATE TABLE IF NOT EXISTS report_jobs (
+    id SERIAL PRIMARY KEY,
+    job_key VARCHAR(255) NOT NULL,
+    report_type VARCHAR(30) NOT NULL,
+    status INT DEFAULT 0,  -- 0:排队中, 1:执行中, 2:已完成, 3:失败
+    progress INT DEFAULT 0,
+    result TEXT,
+    error_message VARCHAR(500),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 4.2 罚金累计任务检查点表 (penalty_accrual_checkpoints)
+-- 每个车辆 ID 区间一行，记录本轮计算时间和已处理到的键集位置，任务中断后从检查点继续
+CREATE TABLE IF NOT EXISTS penalty_accrual_checkpoints (
+    partition_no INT PRIMARY KEY,
+    as_of TIMESTAMP NOT NULL,            -- 本轮计算时间（罚金按该时间计算）
+    from_vehicle_id INT NOT NULL,
+    to_vehicle_id INT NOT NULL,
+    last_end_time TIMESTAMP NOT NULL,    -- 键集位置：已处理的最后一个订单的 (end_time, id)
+    last_order_id INT NOT NULL DEFAULT 0,
+    processed INT NOT NULL DEFAULT 0,
+    finished BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 4.3 幂等键表 (idempotency_keys)
+-- 保存携带 Idempotency-Key 的下单、支付请求的首次响应，过期记录定时清理
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    operation VARCHAR(100) NOT NULL,     -- 接口，如 POST /api/orders
+    request_hash CHAR(64) NOT NULL,      -- 请求参数 SHA-256 摘要
+    response_status INT NOT NULL,
+    response_body TEXT,                  -- 首次响应体（JSON）
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- ============================================
+-- 5. 索引优化
+-- ============================================
+
+-- 索引变更后需通过 QueryPlanRegressionTest（src/test）验证各查询的执行计划
+
+-- 车辆表索引
+CREATE INDEX IF NOT EXISTS idx_vehicle_category ON vehicles(category_id);
+-- 门店 + 状态复合索引：findByStoreIdAndStatus、findAvailableVehicles，同时覆盖 findByStoreId
+CREATE INDEX IF NOT EXISTS idx_vehicle_store_status ON vehicles(store_id, status);
+CREATE INDEX IF NOT EXISTS idx_vehicle_status ON vehicles(status);
+
+-- 订单表索引（在分区表上创建，自动应用到所有分区）
+-- 用户 + 创建时间复合索引：用户订单历史按时间倒序，无需额外排序
+CREATE INDEX IF NOT EXISTS idx_order_user_created ON orders(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_order_vehicle ON orders(vehicle_id);
+CREATE INDEX IF NOT EXISTS idx_order_status ON orders(status);
+CREATE INDEX IF NOT EXISTS idx_order_start_time ON orders(start_time);
+CREATE INDEX IF NOT EXISTS idx_order_pickup_store ON orders(pickup_store_id);
+CREATE INDEX IF NOT EXISTS idx_order_return_store ON orders(return_store_id);
+-- 进行中订单（预订、使用中）部分索引：可租车辆查询的时间冲突子查询
+-- 进行中订单只占极少数，索引远小于全量索引
+CREATE INDEX IF NOT EXISTS idx_order_active_period ON orders(start_time, end_time) WHERE status IN (0, 1);
+-- 状态 + 预计还车时间复合索引：罚金累计任务按 (end_time, id) 键集分批读取逾期的使用中订单
+CREATE INDEX IF NOT EXISTS idx_order_status_end_time ON orders(status, end_time);
+
+-- 维修记录表索引
+CREATE INDEX IF NOT EXISTS idx_maintenance_vehicle ON maintenance(vehicle_id);
+CREATE INDEX IF NOT EXISTS idx_maintenance_start_date ON maintenance(start_date);
+
+-- 支付记录表索引（在分区表上创建，自动应用到所有分区）
+CREATE INDEX IF NOT EXISTS idx_payment_order ON payments(order_id);
+
+-- 报表任务表索引
+CREATE INDEX IF NOT EXISTS idx_report_job_finished_at ON report_jobs(finished_at);
+
+-- 幂等键表索引
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires_at ON idempotency_keys(expires_at);
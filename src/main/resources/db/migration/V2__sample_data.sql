@@ -0,0 +1,31 @@
+-- 车辆租贷管理系统数据库迁移 V2：示例数据
+-- 原 schema.sql 每次启动都会执行插入，门店、分类没有唯一约束，重启一次就多一组重复数据；
+-- 迁移只执行一次，且表中已有数据时不再插入（已有数据库登记基线后也会执行本脚本）
+
+-- 插入示例门店
+INSERT INTO stores (name, address, phone, latitude, longitude)
+SELECT v.name, v.address, v.phone, v.latitude, v.longitude
+FROM (VALUES
+    ('北京朝阳店', '北京市朝阳区建国路1号', '010-12345678', 39.908700, 116.460500),
+    ('天津河西店', '天津市河西区解放南路100号', '022-87654321', 39.109700, 117.223600),
+    ('上海浦东店', '上海市浦东新区世纪大道888号', '021-66666666', 31.235200, 121.505500)
+) AS v(name, address, phone, latitude, longitude)
+WHERE NOT EXISTS (SELECT 1 FROM stores);
+
+-- 插入示例分类
+INSERT INTO categories (name, basic_rate)
+SELECT v.name, v.basic_rate
+FROM (VALUES
+    ('经济型', 100.00),
+    ('舒适型', 150.00),
+    ('豪华型', 250.00)
+) AS v(name, basic_rate)
+WHERE NOT EXISTS (SELECT 1 FROM categories);
+
+-- 插入示例用户（用户名、手机号唯一，已存在时跳过）
+INSERT INTO users (username, password, phone, role) VALUES
+('admin', '$2a$10$CNOhc9tOHBvpQ.65y93pVuXVktqzUp8QHgkOamfoZxc/TwjY34N0u', '13900000001', 1),
+('user001', '$2a$10$YfFTdOvlqbPJIlIcBTFEwuf0evb595A8nwf0b6e2lL9O65mDoZ5qq', '13900000002', 0),
+('user002', '$2a$10$YfFTdOvlqbPJIlIcBTFEwuf0evb595A8nwf0b6e2lL9O65mDoZ5qq', '13900000003', 0),
+('store_staff', '$2a$10$QYWnndrs8chX5nB.WW6FS.5MpEHCyCKqE7VKJPlkBoVQPgSnQUGtO', '13900000004', 2)
+ON CONFLICT DO NOTHING;
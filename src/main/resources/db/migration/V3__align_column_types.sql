@@ -0,0 +1,9 @@
+-- 车辆租贷管理系统数据库迁移 V3：统一列类型
+-- 迁移引入前部分表（或列）先由 Hibernate ddl-auto=update 创建，类型与 schema.sql 不一致：
+--   stores.latitude / longitude 为 DOUBLE PRECISION，idempotency_keys.request_hash 为 VARCHAR(64)
+-- 统一为基线脚本中的类型，使 ddl-auto=validate 在新建库和已有库上结果一致（类型已一致时不改写表）
+
+ALTER TABLE stores ALTER COLUMN latitude TYPE DECIMAL(9, 6);
+ALTER TABLE stores ALTER COLUMN longitude TYPE DECIMAL(9, 6);
+
+ALTER TABLE idempotency_keys ALTER COLUMN request_hash TYPE CHAR(64);
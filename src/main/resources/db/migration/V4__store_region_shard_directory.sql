@@ -0,0 +1,31 @@
+-- 车辆租贷管理系统数据库迁移 V4：门店区域与分片目录
+-- 订单、支付、维修记录按取车门店（维修按车辆所在门店）的区域分布到多个数据库（分片）
+-- 每个分片执行相同的迁移；shard_directory 只以主库中的记录为准，其他分片中的同名表不使用
+
+-- 门店所属区域（城市），已有门店取地址中“市”之前的部分，无法识别的归入 default
+ALTER TABLE stores ADD COLUMN IF NOT EXISTS region VARCHAR(50);
+
+UPDATE stores SET region = substring(address FROM '^(.+?)市')
+WHERE region IS NULL AND address ~ '^.+?市';
+
+UPDATE stores SET region = 'default' WHERE region IS NULL;
+
+ALTER TABLE stores ALTER COLUMN region SET DEFAULT 'default';
+ALTER TABLE stores ALTER COLUMN region SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_store_region ON stores(region);
+
+-- 分片目录：区域 -> 分片
+-- status: ACTIVE 正常；MIGRATING 迁移中（拒绝该区域的新预订、新维修记录）
+CREATE TABLE IF NOT EXISTS shard_directory (
+    region VARCHAR(50) PRIMARY KEY,
+    shard_id VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 已有区域的数据都在主库（分片 ID primary）
+INSERT INTO shard_directory (region, shard_id)
+SELECT DISTINCT region, 'primary' FROM stores
+ON CONFLICT (region) DO NOTHING;
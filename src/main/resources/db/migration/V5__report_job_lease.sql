@@ -0,0 +1,8 @@
+-- 车辆租贷管理系统数据库迁移 V5：报表任务租约
+-- 多实例部署时任务记录所属实例和最近一次心跳，实例启动时只把心跳已过期的未完成任务标记为失败，
+-- 不影响其他实例正在执行的任务
+ALTER TABLE report_jobs ADD COLUMN IF NOT EXISTS owner_instance VARCHAR(32);
+ALTER TABLE report_jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP;
+
+-- 心跳续期、过期检查只查询未完成的任务
+CREATE INDEX IF NOT EXISTS idx_report_job_unfinished ON report_jobs(owner_instance) WHERE status IN (0, 1);
@@ -0,0 +1,137 @@
+-- 车辆租贷管理系统 - orders / payments 分区迁移脚本 (PostgreSQL 13+)
+-- 用于将已有的普通表 orders、payments 转换为按月范围分区表
+-- 新建数据库由 Flyway 迁移（db/migration）建表即可，无需执行本脚本
+--
+-- 使用方法（建议在停机窗口执行）:
+--   psql -h localhost -U postgres -d vehicle_rental -f src/main/resources/db/partition_orders_payments.sql
+--
+-- 注意:
+-- 1. 分区表主键必须包含分区键：orders 主键变为 (id, created_at)，payments 主键变为 (id, pay_time)
+-- 2. payments.order_id 无法再引用分区表 orders，外键 fk_payment_order 被移除
+-- 3. 原表重命名为 orders_legacy / payments_legacy，确认数据无误后手动删除
+
+BEGIN;
+
+-- ============================================
+-- 1. 重命名原表
+-- ============================================
+
+ALTER TABLE payments RENAME TO payments_legacy;
+ALTER TABLE orders RENAME TO orders_legacy;
+
+ALTER TABLE payments_legacy DROP CONSTRAINT IF EXISTS fk_payment_order;
+
+-- 原表上的索引名与新表冲突，先重命名
+ALTER INDEX IF EXISTS idx_order_user RENAME TO idx_order_user_legacy;
+ALTER INDEX IF EXISTS idx_order_vehicle RENAME TO idx_order_vehicle_legacy;
+ALTER INDEX IF EXISTS idx_order_status RENAME TO idx_order_status_legacy;
+ALTER INDEX IF EXISTS idx_order_start_time RENAME TO idx_order_start_time_legacy;
+ALTER INDEX IF EXISTS idx_payment_order RENAME TO idx_payment_order_legacy;
+
+-- 原表上的外键约束名与新表冲突，先删除
+ALTER TABLE orders_legacy DROP CONSTRAINT IF EXISTS fk_order_user;
+ALTER TABLE orders_legacy DROP CONSTRAINT IF EXISTS fk_order_vehicle;
+ALTER TABLE orders_legacy DROP CONSTRAINT IF EXISTS fk_order_pickup_store;
+ALTER TABLE orders_legacy DROP CONSTRAINT IF EXISTS fk_order_return_store;
+
+-- 空值无法路由到分区，补齐分区键
+UPDATE orders_legacy SET created_at = COALESCE(updated_at, start_time) WHERE created_at IS NULL;
+UPDATE payments_legacy SET pay_time = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE pay_time IS NULL;
+
+-- ============================================
+-- 2. 创建分区表（与 db/migration/V1__baseline_schema.sql 保持一致）
+-- ============================================
+
+CREATE TABLE orders (
+    id INT NOT NULL DEFAULT nextval('orders_id_seq'),
+    order_no VARCHAR(64) NOT NULL,
+    user_id INT NOT NULL,
+    vehicle_id INT NOT NULL,
+    pickup_store_id INT NOT NULL,
+    return_store_id INT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    actual_return_time TIMESTAMP,
+    total_amount DECIMAL(10, 2),
+    status INT DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_orders PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_order_no UNIQUE (order_no, created_at),
+    CONSTRAINT fk_order_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_vehicle FOREIGN KEY (vehicle_id) REFERENCES vehicles(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_pickup_store FOREIGN KEY (pickup_store_id) REFERENCES stores(id) ON DELETE RESTRICT,
+    CONSTRAINT fk_order_return_store FOREIGN KEY (return_store_id) REFERENCES stores(id) ON DELETE RESTRICT
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+CREATE TABLE payments (
+    id INT NOT NULL DEFAULT nextval('payments_id_seq'),
+    order_id INT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    pay_method VARCHAR(20),
+    pay_type VARCHAR(20),
+    pay_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_payments PRIMARY KEY (id, pay_time)
+) PARTITION BY RANGE (pay_time);
+
+CREATE TABLE payments_default PARTITION OF payments DEFAULT;
+
+-- 序列归属新表，删除旧表时不会连带删除
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+ALTER SEQUENCE payments_id_seq OWNED BY payments.id;
+
+-- ============================================
+-- 3. 按历史数据范围创建月度分区（含未来 3 个月）
+-- ============================================
+
+DO $$
+DECLARE
+    t RECORD;
+    m DATE;
+    last_month DATE;
+BEGIN
+    FOR t IN
+        SELECT 'orders' AS parent, date_trunc('month', MIN(created_at))::date AS first_month FROM orders_legacy
+        UNION ALL
+        SELECT 'payments', date_trunc('month', MIN(pay_time))::date FROM payments_legacy
+    LOOP
+        m := COALESCE(t.first_month, date_trunc('month', CURRENT_DATE)::date);
+        last_month := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+        WHILE m <= last_month LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           t.parent || '_p' || to_char(m, 'YYYYMM'), t.parent, m, (m + INTERVAL '1 month')::date);
+            m := (m + INTERVAL '1 month')::date;
+        END LOOP;
+    END LOOP;
+END $$;
+
+-- ============================================
+-- 4. 迁移数据
+-- ============================================
+
+INSERT INTO orders SELECT id, order_no, user_id, vehicle_id, pickup_store_id, return_store_id,
+    start_time, end_time, actual_return_time, total_amount, status, created_at, updated_at
+FROM orders_legacy;
+
+INSERT INTO payments SELECT id, order_id, amount, pay_method, pay_type, pay_time, created_at, updated_at
+FROM payments_legacy;
+
+-- ============================================
+-- 5. 索引（在分区表上创建，自动应用到所有分区）
+-- ============================================
+
+CREATE INDEX IF NOT EXISTS idx_order_user_created ON orders(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_order_vehicle ON orders(vehicle_id);
+CREATE INDEX IF NOT EXISTS idx_order_status ON orders(status);
+CREATE INDEX IF NOT EXISTS idx_order_start_time ON orders(start_time);
+CREATE INDEX IF NOT EXISTS idx_payment_order ON payments(order_id);
+
+COMMIT;
+
+-- 更新统计信息
+ANALYZE orders;
+ANALYZE payments;
@@ -0,0 +1,122 @@
+package com.java_db.demo;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以独立进程启动打包后的应用（可执行 jar、AOT + CDS、原生镜像），供启动基准测试和原生镜像集成测试使用
+ */
+class ApplicationProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private final List<String> command;
+    private final Process process;
+    private final long startedAt;
+    private final int port;
+
+    private ApplicationProcess(List<String> command, int port) throws IOException {
+        this.command = command;
+        this.port = port;
+        this.startedAt = System.nanoTime();
+        this.process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    /**
+     * 启动应用进程（随机端口）
+     *
+     * @param launch 启动命令（可执行文件及 JVM 参数）
+     * @param args 应用参数
+     */
+    static ApplicationProcess start(List<String> launch, List<String> args) throws IOException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(launch);
+        command.addAll(args);
+        command.add("--server.port=" + port);
+        return new ApplicationProcess(command, port);
+    }
+
+    /**
+     * 当前 JVM 的 java 可执行文件
+     */
+    static String java() {
+        return ProcessHandle.current().info().command().orElse("java");
+    }
+
+    /**
+     * 轮询直到 GET path 返回 200
+     *
+     * @return 从进程启动到首个请求成功的耗时（毫秒）
+     */
+    long awaitFirstRequest(String path) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(5)).build();
+        while (System.nanoTime() - startedAt < STARTUP_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("应用进程退出，退出码 " + process.exitValue() + "：" + command);
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return (System.nanoTime() - startedAt) / 1_000_000;
+                }
+            } catch (IOException e) {
+                // 端口尚未监听
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("应用启动超时：" + command);
+    }
+
+    /**
+     * 发送请求，返回字符串响应体
+     */
+    HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    /**
+     * 进程常驻内存（RSS，KB），读取 /proc/{pid}/status，非 Linux 返回 -1
+     */
+    long residentSetKb() throws IOException {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.java_db.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 基于嵌入式 PostgreSQL 的集成测试基类
+ * 整个测试进程共用一个嵌入式数据库，启动时由 Flyway 迁移（含示例数据）；
+ * 子类的配置相同时共用同一个 Spring 上下文，测试数据由各测试自行准备和清理
+ */
+@SpringBootTest
+public abstract class EmbeddedPostgresTestSupport {
+
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void dataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // 进程退出时尽力关闭
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException("启动嵌入式 PostgreSQL 失败", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.java_db.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 首个请求响应时间基准测试
+ * 以独立进程启动打包后的应用，测量从进程启动到首个业务请求（GET /api/stores）成功返回的耗时，对比：
+ * 1. 可执行 jar（嵌套 jar，java -jar target/demo-0.0.1-SNAPSHOT.jar）
+ * 2. 解压后的 jar（target/application）
+ * 3. 解压后的 jar + AOT + CDS 归档
+ *
+ * 依赖 AOT 构建产物，先执行 mvn -Paot package -DskipTests，
+ * 再运行：mvn test -Pbenchmark -Dtest=FirstRequestBenchmarkTest
+ */
+@Tag("benchmark")
+class FirstRequestBenchmarkTest {
+
+    private static final int ROUNDS = 5;
+    private static final Path TARGET = Path.of("target");
+    private static final String JAR = "demo-0.0.1-SNAPSHOT.jar";
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        Path extracted = TARGET.resolve("application");
+        Assumptions.assumeTrue(Files.exists(extracted.resolve("application.jsa")), "未找到 AOT + CDS 构建产物，先执行 mvn -Paot package");
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            List<String> common = List.of(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres");
+
+            Map<String, List<String>> modes = new LinkedHashMap<>();
+            modes.put("可执行 jar", List.of(ApplicationProcess.java(), "-jar", TARGET.resolve(JAR).toString()));
+            modes.put("解压后的 jar", List.of(ApplicationProcess.java(), "-jar", extracted.resolve(JAR).toString()));
+            modes.put("解压后的 jar + AOT + CDS", List.of(ApplicationProcess.java(),
+                    "-XX:SharedArchiveFile=" + extracted.resolve("application.jsa"),
+                    "-Dspring.aot.enabled=true",
+                    "-jar", extracted.resolve(JAR).toString()));
+
+            // 首次启动执行迁移
+            long firstBoot = firstRequest(modes.get("可执行 jar"), common);
+            System.out.printf("首次启动（执行迁移）: %d ms%n", firstBoot);
+
+            Map<String, List<Long>> results = new LinkedHashMap<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                    results.computeIfAbsent(mode.getKey(), key -> new ArrayList<>()).add(firstRequest(mode.getValue(), common));
+                }
+            }
+            results.forEach((mode, times) -> {
+                List<Long> sorted = times.stream().sorted().toList();
+                System.out.printf("%s: 中位数 %d ms, 最短 %d ms, 最长 %d ms%n",
+                        mode, sorted.get(sorted.size() / 2), sorted.get(0), sorted.get(sorted.size() - 1));
+            });
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 启动应用进程，返回首个 GET /api/stores 成功的耗时（毫秒）后结束进程
+     */
+    private long firstRequest(List<String> launch, List<String> common) throws Exception {
+        try (ApplicationProcess app = ApplicationProcess.start(launch, common)) {
+            return app.awaitFirstRequest("/api/stores");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.java_db.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 原生镜像集成测试
+ * 启动 target/demo 原生可执行文件，经 HTTP 验证搜索、下单等面向用户的接口，
+ * 覆盖 Hibernate 实体、jjwt、springdoc 等依赖反射的路径；并与 JVM 可执行 jar 对比启动耗时和内存
+ *
+ * 运行：mvn -Pnative verify（原生编译后由 failsafe 执行）
+ */
+class NativeImageIT {
+
+    private static final Path NATIVE_BINARY = Path.of("target", "demo");
+    private static final Path JAR = Path.of("target", "demo-0.0.1-SNAPSHOT.jar");
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().build();
+
+    private static EmbeddedPostgres postgres;
+    private static List<String> common;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        Assumptions.assumeTrue(Files.isExecutable(NATIVE_BINARY), "未找到原生可执行文件，先执行 mvn -Pnative package");
+        postgres = EmbeddedPostgres.builder().start();
+        common = List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void searchAndBooking() throws Exception {
+        try (ApplicationProcess app = ApplicationProcess.start(List.of(NATIVE_BINARY.toString()), common)) {
+            app.awaitFirstRequest("/api/stores");
+
+            // 注册、登录（jjwt 签发 Token）
+            String username = "native" + UUID.randomUUID().toString().substring(0, 8);
+            assertEquals(200, post(app, "/api/auth/register",
+                    "{\"username\":\"" + username + "\",\"password\":\"secret123\"}").statusCode());
+            JsonNode login = json(post(app, "/api/auth/login",
+                    "{\"username\":\"" + username + "\",\"password\":\"secret123\"}"));
+            assertFalse(login.path("token").asString().isEmpty());
+            int userId = login.path("userId").asInt();
+
+            // 门店、分类列表（手动序列化 + 二级缓存）
+            assertTrue(json(get(app, "/api/stores")).size() > 0);
+            assertTrue(json(get(app, "/api/categories")).size() > 0);
+
+            // 新增车辆后搜索可用车辆
+            JsonNode vehicle = json(post(app, "/api/vehicles",
+                    "{\"plateNumber\":\"N-" + username + "\",\"model\":\"Native\",\"categoryId\":1,\"storeId\":1,\"dailyRate\":199.00}"));
+            int vehicleId = vehicle.path("id").asInt();
+            LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime end = start.plusDays(2);
+            JsonNode available = json(get(app, "/api/vehicles?storeId=1&start=" + start + "&end=" + end));
+            assertTrue(available.valueStream().anyMatch(v -> v.path("id").asInt() == vehicleId));
+
+            // 下单（幂等键路径，手动序列化 Order）
+            String order = "{\"userId\":" + userId + ",\"vehicleId\":" + vehicleId
+                    + ",\"pickupStoreId\":1,\"returnStoreId\":1,\"startTime\":\"" + start + "\",\"endTime\":\"" + end + "\"}";
+            HttpResponse<String> created = app.send(HttpRequest.newBuilder(app.uri("/api/orders"))
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.ofString(order)));
+            assertEquals(200, created.statusCode(), created.body());
+            int orderId = json(created).path("id").asInt();
+            assertEquals(200, post(app, "/api/payments/deposit?orderId=" + orderId, "").statusCode());
+            assertTrue(json(get(app, "/api/orders/my?userId=" + userId)).size() > 0);
+
+            // 接口文档（springdoc）
+            assertEquals(200, get(app, "/v3/api-docs").statusCode());
+        }
+    }
+
+    @Test
+    void startupAndMemoryComparedWithJvm() throws Exception {
+        long[] nativeResult = measure(List.of(NATIVE_BINARY.toString()));
+        long[] jvmResult = measure(List.of(ApplicationProcess.java(), "-jar", JAR.toString()));
+        System.out.printf("原生镜像: 首个请求 %d ms, RSS %d MB%n", nativeResult[0], nativeResult[1] / 1024);
+        System.out.printf("JVM 可执行 jar: 首个请求 %d ms, RSS %d MB%n", jvmResult[0], jvmResult[1] / 1024);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 启动到首个请求成功的耗时（毫秒）及此时的 RSS（KB）
+     */
+    private long[] measure(List<String> launch) throws Exception {
+        try (ApplicationProcess app = ApplicationProcess.start(launch, common)) {
+            long millis = app.awaitFirstRequest("/api/stores");
+            return new long[]{millis, app.residentSetKb()};
+        }
+    }
+
+    private HttpResponse<String> get(ApplicationProcess app, String path) throws Exception {
+        return app.send(HttpRequest.newBuilder(app.uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(ApplicationProcess app, String path, String body) throws Exception {
+        return app.send(HttpRequest.newBuilder(app.uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private JsonNode json(HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), response.body());
+        return MAPPER.readTree(response.body());
+    }
+}
@@ -0,0 +1,34 @@
+package com.java_db.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * 基于两个嵌入式 PostgreSQL 的分片集成测试基类
+ * 主库（primary）之外配置一个分片 east（序号 1），启动时两个库都由 Flyway 迁移（含示例数据，示例门店的区域都在主库）；
+ * 定时同步间隔设得很长，复制只由提交后的复制任务和测试显式调用的同步触发，区域迁移不等待其他实例刷新目录
+ */
+@SpringBootTest(properties = {
+        "sharding.reference-sync-ms=3600000",
+        "sharding.migration.drain-ms=0"
+})
+public abstract class ShardedEmbeddedPostgresTestSupport {
+
+    protected static final String EAST = "east";
+
+    private static final EmbeddedPostgres PRIMARY_POSTGRES = EmbeddedPostgresTestSupport.start();
+    private static final EmbeddedPostgres EAST_POSTGRES = EmbeddedPostgresTestSupport.start();
+
+    @DynamicPropertySource
+    static void dataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> PRIMARY_POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("sharding.shards.east.url", () -> EAST_POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("sharding.shards.east.username", () -> "postgres");
+        registry.add("sharding.shards.east.password", () -> "");
+        registry.add("sharding.shards.east.index", () -> "1");
+    }
+}
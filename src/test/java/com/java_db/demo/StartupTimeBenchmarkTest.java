@@ -0,0 +1,85 @@
+package com.java_db.demo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 启动时间基准测试
+ * 在嵌入式 PostgreSQL 上反复启动应用，对比三种方式的启动耗时：
+ * 1. 原方式：每次启动执行全部建表脚本和示例数据（spring.sql.init），Hibernate ddl-auto=update
+ * 2. Flyway 迁移：只执行未执行过的迁移，Hibernate ddl-auto=validate
+ * 3. fastboot profile：Flyway 迁移，跳过 Hibernate 表结构校验和 JDBC 元数据读取
+ *
+ * 首次启动完成迁移并预热类加载，之后各方式轮流启动，减少 JIT、缓存对结果的影响
+ * 默认不执行，运行：mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * 提前创建的月度分区数，模拟生产库中积累的分区
+     */
+    private static final int PARTITION_MONTHS = 36;
+
+    @Test
+    void startupTime() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            String[] common = {
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--server.port=0",
+                    "--partition.months-ahead=" + PARTITION_MONTHS
+            };
+            Map<String, String[]> modes = new LinkedHashMap<>();
+            modes.put("原方式（每次执行建表脚本 + ddl-auto=update）", new String[]{
+                    "--spring.flyway.enabled=false",
+                    "--spring.sql.init.mode=always",
+                    "--spring.sql.init.schema-locations=classpath:db/migration/V1__baseline_schema.sql",
+                    "--spring.sql.init.data-locations=classpath:db/migration/V2__sample_data.sql",
+                    "--spring.jpa.hibernate.ddl-auto=update"
+            });
+            modes.put("Flyway 迁移 + ddl-auto=validate", new String[0]);
+            modes.put("fastboot profile", new String[]{"--spring.profiles.active=fastboot"});
+
+            long firstBoot = boot(common, new String[0]);
+            System.out.printf("首次启动（执行迁移）: %d ms%n", firstBoot);
+
+            Map<String, List<Long>> results = new LinkedHashMap<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (Map.Entry<String, String[]> mode : modes.entrySet()) {
+                    results.computeIfAbsent(mode.getKey(), key -> new ArrayList<>()).add(boot(common, mode.getValue()));
+                }
+            }
+            results.forEach((mode, times) -> {
+                List<Long> sorted = times.stream().sorted().toList();
+                System.out.printf("%s: 中位数 %d ms, 最短 %d ms, 最长 %d ms%n",
+                        mode, sorted.get(sorted.size() / 2), sorted.get(0), sorted.get(sorted.size() - 1));
+            });
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 启动应用直到就绪，返回耗时（毫秒）后关闭
+     */
+    private long boot(String[] common, String[] extra) {
+        String[] args = Stream.concat(Stream.of(common), Stream.of(extra)).toArray(String[]::new);
+        long startedAt = System.nanoTime();
+        try (ConfigurableApplicationContext context = SpringApplication.run(DemoApplication.class, args)) {
+            return (System.nanoTime() - startedAt) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.java_db.demo.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategySnakeCaseImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 查询计划回归测试
+ * 在嵌入式 PostgreSQL 中执行 Flyway 迁移（db/migration）并灌入大数据量（query_plan_seed.sql），
+ * 通过 Spring Data 创建真实的 repository，逐个调用每个 @Query 和方法名派生查询（事务中执行后回滚），
+ * 在 JDBC 层记录 Hibernate 实际发出的 SQL 及绑定参数，再对这些语句执行 EXPLAIN (FORMAT JSON)，断言：
+ * 1. 大表（行数 >= LARGE_TABLE_ROWS）上没有顺序扫描（全表聚合查询显式声明 FULL_SCAN 的除外）
+ * 2. 没有内表为大表顺序扫描的嵌套循环
+ * 3. 按时间范围查询的分区表只扫描范围内的月度分区
+ *
+ * 实体映射或 JPQL 变化导致生成的 SQL 改变时，检查的是新的 SQL
+ * 新增 repository 查询方法时必须在 planCases() 中补充调用，否则 everyRepositoryQueryHasPlanCase 失败
+ */
+class QueryPlanRegressionTest {
+
+    /**
+     * 行数达到该值的表（含分区）视为大表，不允许顺序扫描
+     */
+    private static final long LARGE_TABLE_ROWS = 5000;
+
+    /**
+     * 测试数据覆盖的月份范围，与 query_plan_seed.sql 一致
+     */
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    private static final YearMonth LAST_MONTH = YearMonth.of(2025, 12);
+
+    /**
+     * 报表查询使用的时间范围（单月）
+     */
+    private static final YearMonth REPORT_MONTH = YearMonth.of(2025, 3);
+    private static final LocalDateTime RANGE_START = REPORT_MONTH.atDay(1).atStartOfDay();
+    private static final LocalDateTime RANGE_END = REPORT_MONTH.atEndOfMonth().atTime(23, 59, 59);
+
+    /**
+     * 执行查询时最多读取的行数（只为捕获 SQL，避免大结果集实体化）
+     */
+    private static final int MAX_ROWS = 100;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static EmbeddedPostgres postgres;
+    private static Connection connection;
+    private static EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 当前用例执行过的语句
+     */
+    private static final List<RecordedStatement> recorded = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 大表（含分区）名称
+     */
+    private static final Set<String> largeRelations = new HashSet<>();
+
+    /**
+     * 分区名 -> 分区表名
+     */
+    private static final Map<String, String> partitionParents = new HashMap<>();
+
+    /**
+     * 扫描策略
+     */
+    enum ScanPolicy {
+        /** 大表只允许索引扫描 */
+        INDEX,
+        /** 分区表只扫描范围内的分区（分区内可顺序扫描），其他大表同 INDEX */
+        PRUNED,
+        /** 全表聚合，顺序扫描即最优计划 */
+        FULL_SCAN
+    }
+
+    record PlanCase(String query, ScanPolicy policy, Class<?> repository, Function<Object, ?> call) {
+        @Override
+        public String toString() {
+            return query;
+        }
+    }
+
+    /**
+     * Hibernate 执行的语句及参数绑定调用（PreparedStatement.setXxx）
+     */
+    record RecordedStatement(String sql, List<Binding> bindings) {
+    }
+
+    record Binding(Method setter, Object[] args) {
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        connection = postgres.getPostgresDatabase().getConnection();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+        createMonthlyPartitions();
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("query_plan_seed.sql"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT relname FROM pg_class WHERE relkind = 'r' AND reltuples >= " + LARGE_TABLE_ROWS)) {
+                while (rs.next()) {
+                    largeRelations.add(rs.getString(1));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT c.relname, p.relname FROM pg_inherits i " +
+                    "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                    "WHERE c.relkind = 'r'")) {
+                while (rs.next()) {
+                    partitionParents.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(recording(postgres.getPostgresDatabase()));
+        factoryBean.setPackagesToScan("com.java_db.demo.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // 与 Spring Boot 默认的命名策略一致
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", PhysicalNamingStrategySnakeCaseImpl.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName(),
+                "hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    static Stream<PlanCase> planCases() {
+        return Stream.of(
+                // ==================== OrderRepository ====================
+                index("OrderRepository.findByUserIdOrderByCreatedAtDesc", OrderRepository.class,
+                        r -> r.findByUserIdOrderByCreatedAtDesc(1234)),
+                index("OrderRepository.findByUserId", OrderRepository.class, r -> r.findByUserId(1234)),
+                index("OrderRepository.findByVehicleIdAndStatusIn", OrderRepository.class,
+                        r -> r.findByVehicleIdAndStatusIn(4321, List.of(0, 1))),
+                index("OrderRepository.findByOrderNo", OrderRepository.class, r -> r.findByOrderNo("ORD0000123456")),
+                index("OrderRepository.findWithDetailsById", OrderRepository.class, r -> r.findWithDetailsById(123456)),
+                fullScan("OrderRepository.findAllWithDetails", OrderRepository.class, OrderRepository::findAllWithDetails),
+                index("OrderRepository.findByStatus", OrderRepository.class, r -> r.findByStatus(1)),
+                index("OrderRepository.findConflictingOrders", OrderRepository.class,
+                        r -> r.findConflictingOrders(4321, RANGE_START, RANGE_END, List.of(0, 1))),
+                index("OrderRepository.findByPickupStoreId", OrderRepository.class, r -> r.findByPickupStoreId(42)),
+                index("OrderRepository.findByReturnStoreId", OrderRepository.class, r -> r.findByReturnStoreId(42)),
+                index("OrderRepository.addPaidAmount", OrderRepository.class,
+                        r -> r.addPaidAmount(1234, new BigDecimal("300.00"))),
+                index("OrderRepository.findActiveOrderDeadlines", OrderRepository.class,
+                        OrderRepository::findActiveOrderDeadlines),
+                index("OrderRepository.compareAndSetStatus", OrderRepository.class,
+                        r -> r.compareAndSetStatus(1234, 0, 3)),
+                index("OrderRepository.findOverdueChunk", OrderRepository.class,
+                        r -> r.findOverdueChunk(RANGE_END, 1, 5000, RANGE_START, 0, 500)),
+                index("OrderRepository.markOverdue", OrderRepository.class, r -> r.markOverdue(1234, RANGE_START)),
+                // 只扫描窗口内的订单分区；需要全部车辆的分类，vehicles 顺序扫描后哈希连接
+                fullScan("OrderRepository.countBookingsByPickupStoreAndCategory", OrderRepository.class,
+                        r -> r.countBookingsByPickupStoreAndCategory(RANGE_START, RANGE_END)),
+                // 订单走 idx_order_status_end_time / idx_order_active_period 位图扫描，vehicles 同上
+                fullScan("OrderRepository.countPendingByStoreAndCategory", OrderRepository.class,
+                        r -> r.countPendingByStoreAndCategory(RANGE_START)),
+                pruned("OrderRepository.findByCreatedAtAfterAndCreatedAtBefore", OrderRepository.class,
+                        r -> r.findByCreatedAtAfterAndCreatedAtBefore(RANGE_START, RANGE_END)),
+                pruned("OrderRepository.countOrdersByStatusBetweenDates", OrderRepository.class,
+                        r -> r.countOrdersByStatusBetweenDates(RANGE_START, RANGE_END)),
+                pruned("OrderRepository.sumTotalAmountBetweenDates", OrderRepository.class,
+                        r -> r.sumTotalAmountBetweenDates(RANGE_START, RANGE_END)),
+                pruned("OrderRepository.getVehicleOrderStatistics", OrderRepository.class,
+                        r -> r.getVehicleOrderStatistics(RANGE_START, RANGE_END)),
+                pruned("OrderRepository.getStoreOrderStatistics", OrderRepository.class,
+                        r -> r.getStoreOrderStatistics(RANGE_START, RANGE_END)),
+                fullScan("OrderRepository.countOrdersByVehicle", OrderRepository.class,
+                        OrderRepository::countOrdersByVehicle),
+
+                // ==================== VehicleRepository ====================
+                index("VehicleRepository.findByStoreIdAndStatus", VehicleRepository.class,
+                        r -> r.findByStoreIdAndStatus(42, 0)),
+                index("VehicleRepository.findByCategoryId", VehicleRepository.class, r -> r.findByCategoryId(7)),
+                index("VehicleRepository.findByPlateNumber", VehicleRepository.class,
+                        r -> r.findByPlateNumber("P0012345")),
+                index("VehicleRepository.findAvailableVehicles", VehicleRepository.class,
+                        r -> r.findAvailableVehicles(42, RANGE_START, RANGE_END)),
+                index("VehicleRepository.findAvailableVehiclesInStores", VehicleRepository.class,
+                        r -> r.findAvailableVehiclesInStores(List.of(42, 43, 44, 45, 46), RANGE_START, RANGE_END)),
+                index("VehicleRepository.findByStoreId", VehicleRepository.class, r -> r.findByStoreId(42)),
+                index("VehicleRepository.findWithDetailsById", VehicleRepository.class, r -> r.findWithDetailsById(4321)),
+                fullScan("VehicleRepository.findAllWithDetails", VehicleRepository.class,
+                        VehicleRepository::findAllWithDetails),
+                fullScan("VehicleRepository.findAllPlateNumbers", VehicleRepository.class,
+                        VehicleRepository::findAllPlateNumbers),
+                fullScan("VehicleRepository.findRebalanceFleet", VehicleRepository.class,
+                        VehicleRepository::findRebalanceFleet),
+                fullScan("VehicleRepository.countVehiclesByStatus", VehicleRepository.class,
+                        VehicleRepository::countVehiclesByStatus),
+                fullScan("VehicleRepository.countVehiclesByCategory", VehicleRepository.class,
+                        VehicleRepository::countVehiclesByCategory),
+                fullScan("VehicleRepository.countVehiclesByStore", VehicleRepository.class,
+                        VehicleRepository::countVehiclesByStore),
+                // 全部空闲车辆参与统计，vehicles 顺序扫描；冲突订单走 idx_order_active_period 后哈希反连接
+                fullScan("VehicleRepository.countAvailableVehiclesByStoreAndCategory", VehicleRepository.class,
+                        r -> r.countAvailableVehiclesByStoreAndCategory(RANGE_START, RANGE_END)),
+
+                // ==================== PaymentRepository ====================
+                index("PaymentRepository.findByOrderId", PaymentRepository.class, r -> r.findByOrderId(123456)),
+                index("PaymentRepository.findWithDetailsById", PaymentRepository.class,
+                        r -> r.findWithDetailsById(123456)),
+                fullScan("PaymentRepository.findAllWithDetails", PaymentRepository.class,
+                        PaymentRepository::findAllWithDetails),
+                pruned("PaymentRepository.findByPayTimeAfterAndPayTimeBefore", PaymentRepository.class,
+                        r -> r.findByPayTimeAfterAndPayTimeBefore(RANGE_START, RANGE_END)),
+                pruned("PaymentRepository.sumAmountByPayTypeBetweenDates", PaymentRepository.class,
+                        r -> r.sumAmountByPayTypeBetweenDates(RANGE_START, RANGE_END)),
+                pruned("PaymentRepository.sumTotalAmountBetweenDates", PaymentRepository.class,
+                        r -> r.sumTotalAmountBetweenDates(RANGE_START, RANGE_END)),
+                pruned("PaymentRepository.sumAmountByPayMethodBetweenDates", PaymentRepository.class,
+                        r -> r.sumAmountByPayMethodBetweenDates(RANGE_START, RANGE_END)),
+
+                // ==================== MaintenanceRepository ====================
+                index("MaintenanceRepository.findByVehicleId", MaintenanceRepository.class,
+                        r -> r.findByVehicleId(4321)),
+                index("MaintenanceRepository.findWithDetailsById", MaintenanceRepository.class,
+                        r -> r.findWithDetailsById(1234)),
+                fullScan("MaintenanceRepository.findAllWithDetails", MaintenanceRepository.class,
+                        MaintenanceRepository::findAllWithDetails),
+                index("MaintenanceRepository.findOverlappingMaintenance", MaintenanceRepository.class,
+                        r -> r.findOverlappingMaintenance(4321, RANGE_START.toLocalDate(), RANGE_END.toLocalDate())),
+                fullScan("MaintenanceRepository.getVehicleMaintenanceStatistics", MaintenanceRepository.class,
+                        MaintenanceRepository::getVehicleMaintenanceStatistics),
+                fullScan("MaintenanceRepository.getVehicleMaintenanceCountByType", MaintenanceRepository.class,
+                        MaintenanceRepository::getVehicleMaintenanceCountByType),
+                index("MaintenanceRepository.sumTotalCostBetweenDates", MaintenanceRepository.class,
+                        r -> r.sumTotalCostBetweenDates(RANGE_START.toLocalDate(), RANGE_END.toLocalDate())),
+                index("MaintenanceRepository.sumCostByTypeBetweenDates", MaintenanceRepository.class,
+                        r -> r.sumCostByTypeBetweenDates(RANGE_START.toLocalDate(), RANGE_END.toLocalDate())),
+
+                // ==================== UserRepository ====================
+                index("UserRepository.findByUsername", UserRepository.class, r -> r.findByUsername("plan_user1234")),
+                index("UserRepository.existsByPhone", UserRepository.class, r -> r.existsByPhone("13800001234")),
+                index("UserRepository.existsByUsername", UserRepository.class,
+                        r -> r.existsByUsername("plan_user1234")),
+                fullScan("UserRepository.findAllUsernamesAndPhones", UserRepository.class,
+                        UserRepository::findAllUsernamesAndPhones),
+                index("UserRepository.updatePasswordIfUnchanged", UserRepository.class,
+                        r -> r.updatePasswordIfUnchanged(1234, "x", "new")),
+
+                // ==================== ReportJobRepository ====================
+                // report_jobs 由保留期清理保持为小表，这里只保证语句可规划
+                index("ReportJobRepository.deleteFinishedBefore", ReportJobRepository.class,
+                        r -> r.deleteFinishedBefore(RANGE_START)),
+                index("ReportJobRepository.renewLease", ReportJobRepository.class,
+                        r -> r.renewLease("0123456789", RANGE_START)),
+                index("ReportJobRepository.failExpiredJobs", ReportJobRepository.class,
+                        r -> r.failExpiredJobs("服务重启，任务已中断", RANGE_END, RANGE_START)),
+
+                // ==================== IdempotencyRecordRepository ====================
+                // 过期记录定时清理，表大小与保留期内的请求量成正比
+                index("IdempotencyRecordRepository.insertIfAbsent", IdempotencyRecordRepository.class,
+                        r -> r.insertIfAbsent("key-1", "POST /api/orders", "0".repeat(64), 200, "{}",
+                                RANGE_START, RANGE_END)),
+                index("IdempotencyRecordRepository.deleteExpired", IdempotencyRecordRepository.class,
+                        r -> r.deleteExpired(RANGE_START)),
+
+                // ==================== StoreRepository / CategoryRepository ====================
+                // 参考数据小表，列表查询走查询缓存
+                fullScan("StoreRepository.findAll", StoreRepository.class, StoreRepository::findAll),
+                fullScan("CategoryRepository.findAll", CategoryRepository.class, CategoryRepository::findAll)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("planCases")
+    void queryPlanAvoidsLargeTableScans(PlanCase planCase) throws Exception {
+        Map<String, RecordedStatement> statements = execute(planCase);
+        assertThat(statements).as("%s: 未捕获到 SQL", planCase).isNotEmpty();
+        for (RecordedStatement statement : statements.values()) {
+            assertPlan(planCase, explain(statement));
+        }
+    }
+
+    private void assertPlan(PlanCase planCase, JsonNode plan) {
+        List<JsonNode> nodes = new ArrayList<>();
+        collectNodes(plan, nodes);
+
+        for (JsonNode node : nodes) {
+            String nodeType = node.path("Node Type").asString("");
+            String relation = node.path("Relation Name").asString("");
+
+            if (planCase.policy() == ScanPolicy.PRUNED && partitionParents.containsKey(relation)) {
+                assertThat(relation)
+                        .as("%s: 只应扫描 %s 月的分区%n%s", planCase, REPORT_MONTH, plan)
+                        .isEqualTo(partitionName(partitionParents.get(relation), REPORT_MONTH));
+            } else if ("Seq Scan".equals(nodeType) && planCase.policy() != ScanPolicy.FULL_SCAN) {
+                assertThat(largeRelations)
+                        .as("%s: 大表 %s 上出现顺序扫描%n%s", planCase, relation, plan)
+                        .doesNotContain(relation);
+            }
+
+            if ("Nested Loop".equals(nodeType)) {
+                List<JsonNode> inner = new ArrayList<>();
+                collectNodes(node.path("Plans").get(1), inner);
+                assertThat(inner)
+                        .as("%s: 嵌套循环内表不能是大表顺序扫描%n%s", planCase, plan)
+                        .noneMatch(n -> "Seq Scan".equals(n.path("Node Type").asString(""))
+                                && largeRelations.contains(n.path("Relation Name").asString("")));
+            }
+        }
+    }
+
+    @Test
+    void everyRepositoryQueryHasPlanCase() throws ClassNotFoundException {
+        Set<String> repositoryQueries = new TreeSet<>();
+        for (Class<?> repository : findRepositories()) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!method.isDefault() && !method.isSynthetic()
+                        && !java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
+                    repositoryQueries.add(repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        Set<String> covered = planCases().map(PlanCase::query).collect(Collectors.toCollection(TreeSet::new));
+
+        assertThat(covered).as("每个 repository 查询方法都需要查询计划用例").containsAll(repositoryQueries);
+        assertThat(repositoryQueries).as("查询计划用例对应的方法已不存在").containsAll(covered);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private static <R> PlanCase index(String query, Class<R> repository, Function<R, ?> call) {
+        return planCase(query, ScanPolicy.INDEX, repository, call);
+    }
+
+    private static <R> PlanCase pruned(String query, Class<R> repository, Function<R, ?> call) {
+        return planCase(query, ScanPolicy.PRUNED, repository, call);
+    }
+
+    private static <R> PlanCase fullScan(String query, Class<R> repository, Function<R, ?> call) {
+        return planCase(query, ScanPolicy.FULL_SCAN, repository, call);
+    }
+
+    private static <R> PlanCase planCase(String query, ScanPolicy policy, Class<R> repository, Function<R, ?> call) {
+        return new PlanCase(query, policy, repository, r -> call.apply(repository.cast(r)));
+    }
+
+    /**
+     * 在事务中调用 repository 方法后回滚，返回执行过的语句（按 SQL 去重）
+     */
+    private static Map<String, RecordedStatement> execute(PlanCase planCase) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        recorded.clear();
+        try {
+            entityManager.getTransaction().begin();
+            planCase.call().apply(new JpaRepositoryFactory(entityManager).getRepository(planCase.repository()));
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+        Map<String, RecordedStatement> statements = new LinkedHashMap<>();
+        synchronized (recorded) {
+            recorded.forEach(statement -> statements.putIfAbsent(statement.sql(), statement));
+        }
+        return statements;
+    }
+
+    private JsonNode explain(RecordedStatement recordedStatement) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "EXPLAIN (FORMAT JSON) " + recordedStatement.sql())) {
+            for (Binding binding : recordedStatement.bindings()) {
+                binding.setter().invoke(statement, binding.args());
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return OBJECT_MAPPER.readTree(rs.getString(1)).get(0).get("Plan");
+            }
+        }
+    }
+
+    private static void collectNodes(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collectNodes(child, nodes);
+        }
+    }
+
+    private static List<Class<?>> findRepositories() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(org.springframework.data.repository.Repository.class));
+
+        List<Class<?>> repositories = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(QueryPlanRegressionTest.class.getPackageName())) {
+            repositories.add(Class.forName(candidate.getBeanClassName()));
+        }
+        return repositories;
+    }
+
+    /**
+     * 包装数据源，记录 Hibernate 通过 PreparedStatement 执行的 SQL 和参数绑定
+     */
+    private static DataSource recording(DataSource target) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return method.getName().equals("getConnection") ? recording((Connection) result) : result;
+        });
+    }
+
+    private static Connection recording(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("prepareStatement")) {
+                return recording((PreparedStatement) result, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement recording(PreparedStatement target, String sql) {
+        List<Binding> bindings = new ArrayList<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bindings.add(new Binding(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if ((name.startsWith("execute") || name.equals("addBatch")) && args == null) {
+                recorded.add(new RecordedStatement(sql, List.copyOf(bindings)));
+                if (target.getMaxRows() == 0) {
+                    target.setMaxRows(MAX_ROWS);
+                }
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(QueryPlanRegressionTest.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void createMonthlyPartitions() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : List.of("orders", "payments")) {
+                for (YearMonth month = FIRST_MONTH; !month.isAfter(LAST_MONTH); month = month.plusMonths(1)) {
+                    statement.execute("CREATE TABLE " + partitionName(table, month) + " PARTITION OF " + table +
+                            " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                }
+            }
+        }
+    }
+
+    private static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
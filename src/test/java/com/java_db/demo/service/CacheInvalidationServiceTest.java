@@ -0,0 +1,170 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.EmbeddedPostgresTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 跨实例缓存失效测试
+ * 覆盖消息经 NOTIFY 往返、忽略本实例发出的消息、超过长度上限时去掉键、监听连接重连后清除全部缓存
+ */
+class CacheInvalidationServiceTest extends EmbeddedPostgresTestSupport {
+
+    private static final String CHANNEL = "cache_invalidation";
+
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final BlockingQueue<Set<String>> evicted = new LinkedBlockingQueue<>();
+
+    /**
+     * 测试连接收到的本测试缓存的消息（同一批发送的消息一次收到）
+     */
+    private final Queue<String> received = new ArrayDeque<>();
+
+    private String cache;
+
+    @BeforeEach
+    void subscribeToNewCache() {
+        cache = "test-" + UUID.randomUUID();
+        cacheInvalidationService.subscribe(cache, evicted::add);
+    }
+
+    @Test
+    void publishedMessageRoundTrips() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            listen(connection);
+            cacheInvalidationService.publishAfterCommit(cache, 3, 4);
+            cacheInvalidationService.publishAfterCommit(cache);
+
+            String keyed = nextPayload(connection);
+            String wholeCache = nextPayload(connection);
+            assertThat(keyed).isEqualTo(cacheInvalidationService.instanceId() + "|" + cache + ":3,4");
+            assertThat(wholeCache).isEqualTo(cacheInvalidationService.instanceId() + "|" + cache);
+
+            cacheInvalidationService.receive(fromOtherInstance(keyed));
+            cacheInvalidationService.receive(fromOtherInstance(wholeCache));
+            assertThat(evicted.poll(5, TimeUnit.SECONDS)).containsExactlyInAnyOrder("3", "4");
+            assertThat(evicted.poll(5, TimeUnit.SECONDS)).isEmpty();
+        }
+    }
+
+    @Test
+    void ignoresOwnMessages() throws Exception {
+        Map<String, Set<String>> invalidations = Map.of(cache, Set.of("7"));
+        cacheInvalidationService.receive(CacheInvalidationService.encode(cacheInvalidationService.instanceId(), invalidations));
+        assertThat(evicted).isEmpty();
+
+        // 其他实例经数据库发来的消息由监听线程处理
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL,
+                CacheInvalidationService.encode("other", invalidations));
+        assertThat(evicted.poll(10, TimeUnit.SECONDS)).containsExactly("7");
+    }
+
+    @Test
+    void oversizedPayloadFallsBackToWholeCache() throws Exception {
+        Object[] keys = IntStream.range(0, 3000).boxed().toArray();
+        Map<String, Set<String>> invalidations = new LinkedHashMap<>();
+        invalidations.put(cache, IntStream.range(0, 3000).mapToObj(String::valueOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        invalidations.put("users", Set.of("1"));
+        String encoded = CacheInvalidationService.encode("other", invalidations);
+        assertThat(encoded).isEqualTo("other|" + cache + "|users");
+
+        try (Connection connection = dataSource.getConnection()) {
+            listen(connection);
+            cacheInvalidationService.publishAfterCommit(cache, keys);
+            String payload = nextPayload(connection);
+            assertThat(payload.getBytes(StandardCharsets.UTF_8).length)
+                    .isLessThanOrEqualTo(CacheInvalidationService.MAX_PAYLOAD_BYTES);
+            assertThat(payload).isEqualTo(cacheInvalidationService.instanceId() + "|" + cache);
+
+            cacheInvalidationService.receive(fromOtherInstance(payload));
+            assertThat(evicted.poll(5, TimeUnit.SECONDS)).isEmpty();
+        }
+    }
+
+    @Test
+    void evictsEverythingAfterListenerReconnects() throws Exception {
+        awaitListener();
+        jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+                CacheInvalidationService.LISTENER_NAME);
+
+        // 重连间隔之后重新 LISTEN，断线期间的通知已丢失，清除全部缓存
+        assertThat(evicted.poll(20, TimeUnit.SECONDS)).isEmpty();
+        awaitListener();
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void listen(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+    }
+
+    /**
+     * 等待本实例发往通道的下一条消息（忽略其他测试的消息）
+     */
+    private String nextPayload(Connection connection) throws Exception {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (!received.isEmpty()) {
+                return received.poll();
+            }
+            PGNotification[] notifications = pgConnection.getNotifications(200);
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                if (notification.getParameter().contains(cache)) {
+                    received.add(notification.getParameter());
+                }
+            }
+        }
+        throw new AssertionError("等待缓存失效通知超时");
+    }
+
+    private String fromOtherInstance(String payload) {
+        return "other" + payload.substring(payload.indexOf('|'));
+    }
+
+    private void awaitListener() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        String sql = "SELECT COUNT(*) FROM pg_stat_activity WHERE application_name = ? AND query LIKE 'LISTEN%'";
+        while (jdbcTemplate.queryForObject(sql, Integer.class, CacheInvalidationService.LISTENER_NAME) == 0) {
+            assertThat(System.currentTimeMillis()).as("等待缓存失效监听连接超时").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.EmbeddedPostgresTestSupport;
+import com.java_db.demo.service.ResourceVersionService.Resource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 条件请求测试
+ * 覆盖 If-None-Match 命中返回 304、同一版本复用序列化结果、缓存达到上限后新的键仍可缓存
+ */
+class ConditionalResponseServiceTest extends EmbeddedPostgresTestSupport {
+
+    @Autowired
+    private ConditionalResponseService conditionalResponseService;
+
+    private final AtomicInteger serializations = new AtomicInteger();
+
+    @Test
+    void matchingEtagReturnsNotModified() {
+        ResponseEntity<byte[]> first = respond(null, "etag-" + System.nanoTime());
+        ResponseEntity<byte[]> second = respond(first.getHeaders().getETag(), "etag-" + System.nanoTime());
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(serializations).hasValue(1);
+    }
+
+    @Test
+    void newKeysAreCachedAfterReachingTheLimit() {
+        // 报表的缓存键含日期参数：大量一次性的键不能让之后的键无法缓存
+        String prefix = "report-" + System.nanoTime() + "-";
+        for (int i = 0; i < 500; i++) {
+            respond(null, prefix + i);
+        }
+        serializations.set(0);
+
+        String key = prefix + "latest";
+        respond(null, key);
+        respond(null, key);
+
+        assertThat(serializations).hasValue(1);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private ResponseEntity<byte[]> respond(String ifNoneMatch, String cacheKey) {
+        return conditionalResponseService.respond(ifNoneMatch, cacheKey,
+                () -> Map.of("serialization", serializations.incrementAndGet()), Resource.STORES);
+    }
+}
@@ -0,0 +1,126 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.EmbeddedPostgresTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 幂等请求测试
+ * 覆盖重放首次响应、并发重复请求 409、幂等键用于其他请求 422、过期后重新使用
+ */
+class IdempotencyServiceTest extends EmbeddedPostgresTestSupport {
+
+    private static final String OPERATION = "POST /api/orders";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private String key;
+
+    @BeforeEach
+    void newKey() {
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void replaysStoredResponse() {
+        ResponseEntity<byte[]> first = idempotencyService.execute(key, OPERATION, List.of(1, "a"), this::createOrder);
+        ResponseEntity<byte[]> second = idempotencyService.execute(key, OPERATION, List.of(1, "a"), this::createOrder);
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(body(second)).isEqualTo(body(first)).isEqualTo("{\"execution\":1}");
+    }
+
+    @Test
+    void concurrentDuplicateGetsConflict() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<byte[]>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(key, OPERATION, List.of(1, "a"), () -> {
+                    started.countDown();
+                    await(release);
+                    return createOrder();
+                }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        ResponseEntity<byte[]> duplicate = idempotencyService.execute(key, OPERATION, List.of(1, "a"), this::createOrder);
+        release.countDown();
+
+        assertThat(duplicate.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(duplicate.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(first.get(10, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute(key, OPERATION, List.of(1, "a"), this::createOrder);
+
+        ResponseEntity<byte[]> otherBody = idempotencyService.execute(key, OPERATION, List.of(2, "a"), this::createOrder);
+        ResponseEntity<byte[]> otherOperation = idempotencyService.execute(key, "POST /api/payments", List.of(1, "a"),
+                this::createOrder);
+
+        assertThat(otherBody.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT);
+        assertThat(otherOperation.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_CONTENT);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void expiredKeyCanBeReused() {
+        idempotencyService.execute(key, OPERATION, List.of(1, "a"), this::createOrder);
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = LOCALTIMESTAMP - INTERVAL '1 minute' " +
+                "WHERE idempotency_key = ?", key);
+
+        ResponseEntity<byte[]> reused = idempotencyService.execute(key, OPERATION, List.of(2, "b"), this::createOrder);
+        ResponseEntity<byte[]> replayed = idempotencyService.execute(key, OPERATION, List.of(2, "b"), this::createOrder);
+
+        assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(reused.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isNull();
+        assertThat(body(reused)).isEqualTo("{\"execution\":2}");
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(body(replayed)).isEqualTo(body(reused));
+        assertThat(executions).hasValue(2);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private Object createOrder() {
+        return Map.of("execution", executions.incrementAndGet());
+    }
+
+    private String body(ResponseEntity<byte[]> response) {
+        return new String(response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
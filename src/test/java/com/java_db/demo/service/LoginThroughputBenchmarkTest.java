@@ -0,0 +1,163 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.exception.BusinessException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 登录吞吐量基准测试
+ * 模拟早高峰登录风暴与下单请求同时到达：
+ * 1. 请求线程直接执行 BCrypt（原实现）
+ * 2. 请求线程把 BCrypt 交给有界密码哈希线程池（PasswordHashingService）
+ * 对比两种方式下的登录吞吐量和下单请求延迟（p50 / p99）
+ *
+ * 默认不执行，运行：mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class LoginThroughputBenchmarkTest {
+
+    private static final int REQUEST_THREADS = 200;
+    private static final int LOGIN_CLIENTS = 64;
+    private static final int BOOKING_CLIENTS = 8;
+    private static final long DURATION_SECONDS = 10;
+
+    /**
+     * 模拟一次下单请求的 CPU 工作量（约 1 毫秒）
+     */
+    private static long bookingWorkIterations;
+
+    @Test
+    void loginStormAlongsideBookingLoad() throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
+        String hash = encoder.encode("password123");
+        bookingWorkIterations = calibrateBookingWork();
+
+        System.out.printf("CPU 核数: %d, 请求线程: %d, 登录客户端: %d, 下单客户端: %d, 每轮 %d 秒%n",
+                Runtime.getRuntime().availableProcessors(), REQUEST_THREADS, LOGIN_CLIENTS, BOOKING_CLIENTS,
+                DURATION_SECONDS);
+
+        run("请求线程直接执行 BCrypt", () -> encoder.matches("password123", hash));
+
+        ThreadPoolTaskExecutor hashExecutor = new ThreadPoolTaskExecutor();
+        hashExecutor.setCorePoolSize(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        hashExecutor.setMaxPoolSize(hashExecutor.getCorePoolSize());
+        hashExecutor.setQueueCapacity(100);
+        hashExecutor.initialize();
+        PasswordHashingService hashingService = new PasswordHashingService(encoder, hashExecutor, 3000);
+        try {
+            run("有界密码哈希线程池", () -> hashingService.matches("password123", hash));
+        } finally {
+            hashExecutor.shutdown();
+        }
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private void run(String name, BooleanSupplier login) throws InterruptedException {
+        ExecutorService requestPool = Executors.newFixedThreadPool(REQUEST_THREADS);
+        ExecutorService clients = Executors.newFixedThreadPool(LOGIN_CLIENTS + BOOKING_CLIENTS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong logins = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<Long> bookingLatencies = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < LOGIN_CLIENTS; i++) {
+            clients.execute(() -> {
+                while (running.get()) {
+                    try {
+                        requestPool.submit(() -> {
+                            try {
+                                login.getAsBoolean();
+                                logins.incrementAndGet();
+                            } catch (BusinessException e) {
+                                rejected.incrementAndGet();
+                            }
+                        }).get();
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < BOOKING_CLIENTS; i++) {
+            clients.execute(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    try {
+                        requestPool.submit(LoginThroughputBenchmarkTest::simulateBooking).get();
+                        bookingLatencies.add(System.nanoTime() - start);
+                        TimeUnit.MILLISECONDS.sleep(5);
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        TimeUnit.SECONDS.sleep(DURATION_SECONDS);
+        running.set(false);
+        clients.shutdown();
+        clients.awaitTermination(30, TimeUnit.SECONDS);
+        requestPool.shutdown();
+        requestPool.awaitTermination(30, TimeUnit.SECONDS);
+
+        List<Long> latencies = new ArrayList<>(bookingLatencies);
+        Collections.sort(latencies);
+        System.out.printf("[%s] 登录 %.1f 次/秒, 拒绝 %d 次, 下单 %d 次, 下单延迟 p50 %.2f ms, p99 %.2f ms%n",
+                name,
+                logins.get() / (double) DURATION_SECONDS,
+                rejected.get(),
+                latencies.size(),
+                percentile(latencies, 50) / 1_000_000.0,
+                percentile(latencies, 99) / 1_000_000.0);
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    /**
+     * 测算单线程下约 1 毫秒的计算量
+     */
+    private static long calibrateBookingWork() {
+        long iterations = 100_000;
+        while (true) {
+            long start = System.nanoTime();
+            spin(iterations);
+            if (System.nanoTime() - start >= 1_000_000) {
+                return iterations;
+            }
+            iterations *= 2;
+        }
+    }
+
+    private static void simulateBooking() {
+        spin(bookingWorkIterations);
+    }
+
+    private static long sink;
+
+    private static void spin(long iterations) {
+        long value = 0;
+        for (long i = 0; i < iterations; i++) {
+            value += i * 31 ^ (value >>> 3);
+        }
+        sink = value;
+    }
+}
@@ -0,0 +1,140 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.EmbeddedPostgresTestSupport;
+import com.java_db.demo.dto.PenaltyAccrualResultDTO;
+import com.java_db.demo.exception.BusinessException;
+import com.java_db.demo.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 逾期罚金累计测试
+ * 覆盖从未完成的检查点继续本轮（沿用本轮计算时间、只处理检查点之后的订单）、其他实例持有咨询锁时跳过，
+ * 以及区间数按后台连接池大小封顶
+ */
+class PenaltyAccrualServiceTest extends EmbeddedPostgresTestSupport {
+
+    private static final BigDecimal DAILY_RATE = new BigDecimal("100.00");
+
+    @Autowired
+    private PenaltyAccrualService penaltyAccrualService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("penaltyAccrualExecutor")
+    private ThreadPoolTaskExecutor penaltyAccrualExecutor;
+
+    @Value("${workload.pool.background.maximum-pool-size}")
+    private int backgroundPoolSize;
+
+    private int vehicleId;
+
+    @BeforeEach
+    void seedVehicle() {
+        jdbcTemplate.update("DELETE FROM penalty_accrual_checkpoints");
+        vehicleId = jdbcTemplate.queryForObject(
+                "INSERT INTO vehicles (plate_number, model, category_id, store_id, status, daily_rate) " +
+                "VALUES (?, 'Test', 1, 1, 1, ?) RETURNING id",
+                Integer.class, "P" + System.nanoTime() % 100_000_000L, DAILY_RATE);
+    }
+
+    @Test
+    void resumesFromCheckpointWithItsAsOf() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        int first = insertOverdueOrder(now.minusDays(5));
+        int second = insertOverdueOrder(now.minusDays(3));
+        int third = insertOverdueOrder(now.minusDays(2));
+
+        // 上一轮在处理完第一个订单后中断
+        LocalDateTime asOf = now.minusHours(1);
+        jdbcTemplate.update("INSERT INTO penalty_accrual_checkpoints " +
+                        "(partition_no, as_of, from_vehicle_id, to_vehicle_id, last_end_time, last_order_id, processed) " +
+                        "VALUES (0, ?, ?, ?, ?, ?, 1)",
+                asOf, vehicleId, vehicleId, endTimeOf(first), first);
+
+        PenaltyAccrualResultDTO result = penaltyAccrualService.accrue();
+
+        assertThat(result.getResumed()).isTrue();
+        assertThat(result.getAsOf()).isEqualTo(asOf);
+        assertThat(result.getPartitions()).isEqualTo(1);
+        assertThat(result.getProcessedOrders()).isEqualTo(2);
+
+        assertThat(penaltyAccruedAt(first)).isNull();
+        for (int orderId : List.of(second, third)) {
+            assertThat(penaltyAccruedAt(orderId)).isEqualTo(asOf);
+            assertThat(accruedPenalty(orderId)).isEqualByComparingTo(
+                    OrderService.overduePenalty(Money.of(DAILY_RATE), endTimeOf(orderId), asOf).toBigDecimal());
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT processed FROM penalty_accrual_checkpoints WHERE partition_no = 0 AND finished",
+                Integer.class)).isEqualTo(3);
+
+        // 本轮结束后再次执行开始新一轮，按新的计算时间覆盖（数据库时间精度为微秒，按四舍五入保存）
+        PenaltyAccrualResultDTO next = penaltyAccrualService.accrue();
+        assertThat(next.getResumed()).isFalse();
+        assertThat(next.getAsOf()).isAfter(asOf);
+        assertThat(penaltyAccruedAt(first)).isCloseTo(next.getAsOf(), within(1, ChronoUnit.MICROS));
+    }
+
+    @Test
+    void skipsWhenAnotherInstanceHoldsTheRun() throws Exception {
+        try (Connection other = dataSource.getConnection(); Statement statement = other.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + PenaltyAccrualService.ACCRUAL_LOCK_KEY + ")");
+            assertThatThrownBy(() -> penaltyAccrualService.accrue())
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("其他实例");
+            statement.execute("SELECT pg_advisory_unlock(" + PenaltyAccrualService.ACCRUAL_LOCK_KEY + ")");
+        }
+        assertThat(penaltyAccrualService.accrue().getAsOf()).isNotNull();
+    }
+
+    @Test
+    void partitionsLeaveABackgroundConnectionFree() {
+        assertThat(penaltyAccrualExecutor.getMaxPoolSize()).isBetween(1, backgroundPoolSize - 1);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private int insertOverdueOrder(LocalDateTime endTime) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO orders (order_no, user_id, vehicle_id, pickup_store_id, return_store_id, " +
+                "start_time, end_time, total_amount, accrued_penalty, status) " +
+                "VALUES (?, 1, ?, 1, 1, ?, ?, 100.00, 0, 1) RETURNING id",
+                Integer.class, "PA" + System.nanoTime(), vehicleId, endTime.minusDays(1), endTime);
+    }
+
+    private LocalDateTime endTimeOf(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT end_time FROM orders WHERE id = ?", LocalDateTime.class, orderId);
+    }
+
+    private LocalDateTime penaltyAccruedAt(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT penalty_accrued_at FROM orders WHERE id = ?",
+                LocalDateTime.class, orderId);
+    }
+
+    private BigDecimal accruedPenalty(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT accrued_penalty FROM orders WHERE id = ?", BigDecimal.class, orderId);
+    }
+}
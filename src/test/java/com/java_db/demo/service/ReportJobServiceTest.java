@@ -0,0 +1,77 @@
+package com.java_db.demo.service;
+
+import com.java_db.demo.EmbeddedPostgresTestSupport;
+import com.java_db.demo.repository.ReportJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 异步报表任务测试
+ * 覆盖启动清理只标记心跳已过期的未完成任务，不影响其他实例正在执行（已续期）、已完成的任务
+ */
+class ReportJobServiceTest extends EmbeddedPostgresTestSupport {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ReportJobRepository reportJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void failsOnlyJobsWithExpiredLease() {
+        LocalDateTime now = LocalDateTime.now();
+        int running = insertJob("other", 1, now.minusSeconds(5));
+        int queued = insertJob("other", 0, now.minusSeconds(5));
+        int expired = insertJob("stopped", 1, now.minusMinutes(10));
+        int legacy = insertJob(null, 0, null);
+        jdbcTemplate.update("UPDATE report_jobs SET created_at = ? WHERE id = ?", now.minusMinutes(10), legacy);
+        int finished = insertJob("stopped", 2, now.minusMinutes(10));
+
+        reportJobService.failOrphanedJobs();
+
+        assertThat(status(running)).isEqualTo(1);
+        assertThat(status(queued)).isZero();
+        assertThat(status(expired)).isEqualTo(3);
+        assertThat(status(legacy)).isEqualTo(3);
+        assertThat(status(finished)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT error_message FROM report_jobs WHERE id = ?", String.class, expired))
+                .contains("实例已停止");
+    }
+
+    @Test
+    void renewedJobIsNotFailed() {
+        String owner = "renew" + System.nanoTime() % 100_000L;
+        int jobId = insertJob(owner, 1, LocalDateTime.now().minusMinutes(10));
+
+        // 所属实例续期后，其他实例启动时不会标记它
+        transactionTemplate.executeWithoutResult(status -> reportJobRepository.renewLease(owner, LocalDateTime.now()));
+        reportJobService.failOrphanedJobs();
+
+        assertThat(status(jobId)).isEqualTo(1);
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private int insertJob(String owner, int status, LocalDateTime heartbeatAt) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO report_jobs (job_key, report_type, status, owner_instance, heartbeat_at) " +
+                "VALUES (?, 'DASHBOARD', ?, ?, ?) RETURNING id",
+                Integer.class, "job-" + System.nanoTime(), status, owner, heartbeatAt);
+    }
+
+    private int status(int jobId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM report_jobs WHERE id = ?", Integer.class, jobId);
+    }
+}
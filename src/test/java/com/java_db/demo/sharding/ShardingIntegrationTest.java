@@ -0,0 +1,205 @@
+package com.java_db.demo.sharding;
+
+import com.java_db.demo.ShardedEmbeddedPostgresTestSupport;
+import com.java_db.demo.dto.OrderDTO;
+import com.java_db.demo.dto.StoreDTO;
+import com.java_db.demo.dto.VehicleDTO;
+import com.java_db.demo.entity.Order;
+import com.java_db.demo.repository.OrderRepository;
+import com.java_db.demo.service.OrderService;
+import com.java_db.demo.service.ReshardingService;
+import com.java_db.demo.service.StoreService;
+import com.java_db.demo.service.VehicleService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static com.java_db.demo.sharding.ShardRoutingDataSource.PRIMARY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分片集成测试（主库 + 分片 east）
+ * 覆盖按区域路由、分散-汇总、参考数据从权威写入方单向复制（不按 updated_at 比较）、区域迁移后车辆改由新归属分片写入
+ */
+class ShardingIntegrationTest extends ShardedEmbeddedPostgresTestSupport {
+
+    private static final int ADMIN_USER_ID = 1;
+    private static final int BEIJING_STORE_ID = 1;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ReferenceReplicator referenceReplicator;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReshardingService reshardingService;
+
+    @Test
+    void routesByRegionOfStoreAndVehicle() {
+        int store = eastStore("路由");
+        assertThat(shardDirectory.shardForStore(store, true)).isEqualTo(EAST);
+        assertThat(shardDirectory.shardForStore(BEIJING_STORE_ID, true)).isEqualTo(PRIMARY);
+
+        // 车辆在主库新增，补到归属分片后按所在门店路由到 east
+        int vehicle = addVehicle(store);
+        await(() -> vehicleStatus(EAST, vehicle) != null);
+        assertThat(shardDirectory.shardForVehicle(vehicle, true)).isEqualTo(EAST);
+
+        Order order = orderService.createOrder(orderFor(vehicle, store));
+        assertThat(count(EAST, "orders", order.getId())).isOne();
+        assertThat(count(PRIMARY, "orders", order.getId())).isZero();
+        assertThat(Math.floorMod(order.getId(), 16)).isEqualTo(1);
+        assertThat(shardDirectory.locate(ShardKey.ORDER, order.getId(), false)).isEqualTo(EAST);
+
+        // 下单在归属分片修改车辆状态，复制回主库
+        await(() -> Integer.valueOf(1).equals(vehicleStatus(PRIMARY, vehicle)));
+    }
+
+    @Test
+    void scatterMergesOrdersFromAllShards() {
+        int store = eastStore("汇总");
+        int eastVehicle = addVehicle(store);
+        int primaryVehicle = addVehicle(BEIJING_STORE_ID);
+        await(() -> vehicleStatus(EAST, eastVehicle) != null);
+
+        Order eastOrder = orderService.createOrder(orderFor(eastVehicle, store));
+        Order primaryOrder = orderService.createOrder(orderFor(primaryVehicle, BEIJING_STORE_ID));
+
+        List<Integer> ids = shardRouter.scatter(orderRepository::findAll).stream().map(Order::getId).toList();
+        assertThat(ids).contains(eastOrder.getId(), primaryOrder.getId()).doesNotHaveDuplicates();
+        assertThat(orderService.getAllOrders()).extracting(Order::getId)
+                .contains(eastOrder.getId(), primaryOrder.getId());
+    }
+
+    @Test
+    void replicatesOneWayFromTheAuthoritativeWriter() {
+        int store = eastStore("复制");
+        await(() -> count(EAST, "stores", store) == 1);
+
+        // 门店以主库为准：主库的修改复制到分片，分片上较新的改写在同步时被覆盖
+        StoreDTO rename = new StoreDTO();
+        rename.setName("复制门店-改名");
+        rename.setAddress("测试地址");
+        storeService.updateStore(store, rename);
+        await(() -> "复制门店-改名".equals(storeName(EAST, store)));
+        jdbc(EAST).update("UPDATE stores SET name = '分片改写', updated_at = LOCALTIMESTAMP + INTERVAL '1 day' " +
+                "WHERE id = ?", store);
+        referenceReplicator.synchronize(null);
+        assertThat(storeName(EAST, store)).isEqualTo("复制门店-改名");
+
+        // 车辆以归属分片为准：主库上较新的改写在同步时被归属分片覆盖，主库新增车辆时不覆盖分片已有的行
+        int vehicle = addVehicle(store);
+        await(() -> vehicleStatus(EAST, vehicle) != null);
+        vehicleService.updateVehicleStatus(vehicle, 2);
+        await(() -> Integer.valueOf(2).equals(vehicleStatus(PRIMARY, vehicle)));
+        jdbc(PRIMARY).update("UPDATE vehicles SET status = 0, updated_at = LOCALTIMESTAMP + INTERVAL '1 day' " +
+                "WHERE id = ?", vehicle);
+        referenceReplicator.synchronize(null);
+        assertThat(vehicleStatus(PRIMARY, vehicle)).isEqualTo(2);
+        assertThat(vehicleStatus(EAST, vehicle)).isEqualTo(2);
+    }
+
+    @Test
+    void migratesRegionAndMovesVehicleAuthority() {
+        int store = jdbc(PRIMARY).queryForObject("SELECT id FROM stores WHERE region = '上海'", Integer.class);
+        assertThat(shardDirectory.shardForStore(store, true)).isEqualTo(PRIMARY);
+        int vehicle = addVehicle(store);
+        Order order = orderService.createOrder(orderFor(vehicle, store));
+        assertThat(count(PRIMARY, "orders", order.getId())).isOne();
+
+        reshardingService.migrateRegion("上海", EAST);
+
+        assertThat(shardDirectory.shardForStore(store, true)).isEqualTo(EAST);
+        assertThat(count(EAST, "orders", order.getId())).isOne();
+        assertThat(count(PRIMARY, "orders", order.getId())).isZero();
+        assertThat(shardDirectory.locate(ShardKey.ORDER, order.getId(), true)).isEqualTo(EAST);
+        assertThat(vehicleStatus(EAST, vehicle)).isEqualTo(1);
+
+        // 迁移后车辆归属 east，在 east 的修改复制回主库
+        assertThat(shardDirectory.shardForVehicle(vehicle, true)).isEqualTo(EAST);
+        vehicleService.updateVehicleStatus(vehicle, 2);
+        assertThat(vehicleStatus(EAST, vehicle)).isEqualTo(2);
+        await(() -> Integer.valueOf(2).equals(vehicleStatus(PRIMARY, vehicle)));
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 在分配给 east 的新区域中新增门店
+     */
+    private int eastStore(String name) {
+        String region = name + System.nanoTime();
+        jdbc(PRIMARY).update("INSERT INTO shard_directory (region, shard_id) VALUES (?, ?)", region, EAST);
+        shardDirectory.refresh();
+        StoreDTO store = new StoreDTO();
+        store.setName(name + "门店");
+        store.setAddress("测试地址");
+        store.setRegion(region);
+        return storeService.addStore(store).getId();
+    }
+
+    private int addVehicle(int storeId) {
+        VehicleDTO vehicle = new VehicleDTO("T" + System.nanoTime() % 100_000_000L, "Test", 1, storeId,
+                new BigDecimal("100.00"));
+        return vehicleService.addVehicle(vehicle).getId();
+    }
+
+    private OrderDTO orderFor(int vehicleId, int storeId) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return new OrderDTO(ADMIN_USER_ID, vehicleId, storeId, storeId, start, start.plusDays(2));
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return shardDirectory.jdbcTemplate(shard);
+    }
+
+    private int count(String shard, String table, int id) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+
+    private Integer vehicleStatus(String shard, int vehicleId) {
+        return jdbc(shard).queryForList("SELECT status FROM vehicles WHERE id = ?", Integer.class, vehicleId)
+                .stream().findFirst().orElse(null);
+    }
+
+    private String storeName(String shard, int storeId) {
+        return jdbc(shard).queryForObject("SELECT name FROM stores WHERE id = ?", String.class, storeId);
+    }
+
+    /**
+     * 等待异步复制完成（最多 10 秒）
+     */
+    private void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("等待参考数据复制超时").isLessThan(deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
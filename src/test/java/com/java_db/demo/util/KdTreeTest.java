@@ -0,0 +1,96 @@
+package com.java_db.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 球面 k-d 树测试
+ * 随机点集上的最近邻、K 近邻结果与暴力搜索一致（含跨越 ±180° 经线的查询）
+ */
+class KdTreeTest {
+
+    record Point(int id, double latitude, double longitude) {
+    }
+
+    @Test
+    void nearestMatchesBruteForce() {
+        Random random = new Random(42);
+        List<Point> points = randomPoints(random, 2000);
+        KdTree<Point> tree = new KdTree<>(points, Point::latitude, Point::longitude);
+        assertThat(tree.size()).isEqualTo(points.size());
+
+        for (int i = 0; i < 200; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            for (int k : new int[]{1, 5, 20}) {
+                List<KdTree.Neighbor<Point>> actual = tree.nearest(latitude, longitude, k);
+                List<Point> expected = bruteForce(points, latitude, longitude, k);
+                assertThat(actual).hasSize(k);
+                for (int j = 0; j < k; j++) {
+                    // 距离相同时顺序可能不同，比较距离
+                    Point point = expected.get(j);
+                    assertThat(actual.get(j).distanceKm())
+                            .isCloseTo(KdTree.distanceKm(latitude, longitude, point.latitude(), point.longitude()),
+                                    within(1e-6));
+                }
+                assertThat(actual.get(0).value().id()).isEqualTo(expected.get(0).id());
+            }
+        }
+    }
+
+    @Test
+    void nearestAcrossAntimeridian() {
+        List<Point> points = List.of(
+                new Point(1, 0, 179.9),
+                new Point(2, 0, -179.9),
+                new Point(3, 0, 170));
+        KdTree<Point> tree = new KdTree<>(points, Point::latitude, Point::longitude);
+
+        List<KdTree.Neighbor<Point>> result = tree.nearest(0, -179.95, 2);
+        assertThat(result).extracting(n -> n.value().id()).containsExactly(2, 1);
+        assertThat(result.get(1).distanceKm()).isLessThan(20);
+    }
+
+    @Test
+    void kLargerThanSizeAndEmptyTree() {
+        List<Point> points = List.of(new Point(1, 39.9, 116.4), new Point(2, 31.2, 121.5));
+        KdTree<Point> tree = new KdTree<>(points, Point::latitude, Point::longitude);
+        assertThat(tree.nearest(30, 120, 10)).extracting(n -> n.value().id()).containsExactly(2, 1);
+        assertThat(tree.nearest(30, 120, 0)).isEmpty();
+
+        KdTree<Point> empty = new KdTree<>(List.of(), Point::latitude, Point::longitude);
+        assertThat(empty.nearest(30, 120, 3)).isEmpty();
+    }
+
+    @Test
+    void distanceKmMatchesKnownValue() {
+        // 北京 - 上海约 1068 千米
+        assertThat(KdTree.distanceKm(39.9042, 116.4074, 31.2304, 121.4737)).isCloseTo(1068, within(5.0));
+        assertThat(KdTree.distanceKm(10, 20, 10, 20)).isCloseTo(0, within(1e-9));
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private static List<Point> randomPoints(Random random, int count) {
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        return points;
+    }
+
+    private static List<Point> bruteForce(List<Point> points, double latitude, double longitude, int k) {
+        return points.stream()
+                .sorted(Comparator.comparingDouble(
+                        p -> KdTree.distanceKm(latitude, longitude, p.latitude(), p.longitude())))
+                .limit(k)
+                .toList();
+    }
+}
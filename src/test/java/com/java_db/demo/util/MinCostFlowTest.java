@@ -0,0 +1,111 @@
+package com.java_db.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 最小费用最大流测试
+ * 手工求解的调拨实例（贪心取最便宜的边不是最优，需要经反向边改道）以及供给超过可运送量的情况
+ */
+class MinCostFlowTest {
+
+    // 节点：0 源点，1 汇点，2、3 调出门店 A、B，4、5 调入门店 X、Y
+    private static final int SOURCE = 0;
+    private static final int SINK = 1;
+    private static final int A = 2;
+    private static final int B = 3;
+    private static final int X = 4;
+    private static final int Y = 5;
+
+    @Test
+    void findsOptimalAssignmentThatGreedyMisses() {
+        // A、B 各富余 1 辆，X、Y 各缺 1 辆；A→X 1，A→Y 2，B→X 2，B→Y 100
+        // 贪心先走 A→X，只能再走 B→Y，费用 101；最优为 A→Y + B→X，费用 4
+        MinCostFlow network = new MinCostFlow(6);
+        network.addEdge(SOURCE, A, 1, 0);
+        network.addEdge(SOURCE, B, 1, 0);
+        network.addEdge(X, SINK, 1, 0);
+        network.addEdge(Y, SINK, 1, 0);
+        int ax = network.addEdge(A, X, 1, 1);
+        int ay = network.addEdge(A, Y, 1, 2);
+        int bx = network.addEdge(B, X, 1, 2);
+        int by = network.addEdge(B, Y, 1, 100);
+
+        MinCostFlow.Result result = network.solve(SOURCE, SINK);
+
+        assertThat(result).isEqualTo(new MinCostFlow.Result(2, 4));
+        assertThat(network.flow(ax)).isZero();
+        assertThat(network.flow(ay)).isEqualTo(1);
+        assertThat(network.flow(bx)).isEqualTo(1);
+        assertThat(network.flow(by)).isZero();
+    }
+
+    @Test
+    void splitsSupplyAcrossDestinations() {
+        // A 富余 3，B 富余 2；X 缺 2，Y 缺 3
+        // 费用 A→X 4，A→Y 6，B→X 5，B→Y 3；设 A→X 为 a，总费用 28 - 4a，a = 2 时最小为 20
+        MinCostFlow network = new MinCostFlow(6);
+        network.addEdge(SOURCE, A, 3, 0);
+        network.addEdge(SOURCE, B, 2, 0);
+        network.addEdge(X, SINK, 2, 0);
+        network.addEdge(Y, SINK, 3, 0);
+        int ax = network.addEdge(A, X, 3, 4);
+        int ay = network.addEdge(A, Y, 3, 6);
+        int bx = network.addEdge(B, X, 2, 5);
+        int by = network.addEdge(B, Y, 2, 3);
+
+        MinCostFlow.Result result = network.solve(SOURCE, SINK);
+
+        assertThat(result).isEqualTo(new MinCostFlow.Result(5, 20));
+        assertThat(network.flow(ax)).isEqualTo(2);
+        assertThat(network.flow(ay)).isEqualTo(1);
+        assertThat(network.flow(bx)).isZero();
+        assertThat(network.flow(by)).isEqualTo(2);
+    }
+
+    @Test
+    void supplyBeyondReachableDemandIsLeftUnrouted() {
+        // A 富余 5，但只有 X 缺 2 辆可达；Y 缺 3 辆没有可达的调出门店（超出调拨距离）
+        MinCostFlow network = new MinCostFlow(6);
+        int supplyA = network.addEdge(SOURCE, A, 5, 0);
+        network.addEdge(X, SINK, 2, 0);
+        int demandY = network.addEdge(Y, SINK, 3, 0);
+        int ax = network.addEdge(A, X, 5, 7);
+
+        MinCostFlow.Result result = network.solve(SOURCE, SINK);
+
+        assertThat(result).isEqualTo(new MinCostFlow.Result(2, 14));
+        assertThat(network.flow(supplyA)).isEqualTo(2);
+        assertThat(network.flow(ax)).isEqualTo(2);
+        assertThat(network.flow(demandY)).isZero();
+    }
+
+    @Test
+    void noPathGivesEmptyResult() {
+        MinCostFlow network = new MinCostFlow(6);
+        network.addEdge(SOURCE, A, 4, 0);
+        network.addEdge(X, SINK, 4, 0);
+
+        assertThat(network.solve(SOURCE, SINK)).isEqualTo(new MinCostFlow.Result(0, 0));
+    }
+
+    @Test
+    void rejectsNegativeCost() {
+        MinCostFlow network = new MinCostFlow(2);
+        assertThatThrownBy(() -> network.addEdge(0, 1, 1, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void growsEdgeStorage() {
+        // 超过初始容量（16 条，含反向边）后扩容：源点经 20 个中间节点到汇点，中间边费用为 i
+        int middle = 20;
+        MinCostFlow network = new MinCostFlow(middle + 2);
+        for (int i = 0; i < middle; i++) {
+            network.addEdge(SOURCE, 2 + i, 1, i);
+            network.addEdge(2 + i, SINK, 1, 0);
+        }
+        assertThat(network.solve(SOURCE, SINK)).isEqualTo(new MinCostFlow.Result(middle, middle * (middle - 1) / 2));
+    }
+}
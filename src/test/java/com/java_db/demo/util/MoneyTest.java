@@ -0,0 +1,85 @@
+package com.java_db.demo.util;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 金额值类型测试
+ * 覆盖 HALF_UP 舍入（含负数远离零）、溢出检查和 JSON 往返
+ */
+class MoneyTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void ofRoundsHalfUpToCents() {
+        assertThat(Money.of("1.005").cents()).isEqualTo(101L);
+        assertThat(Money.of("1.004").cents()).isEqualTo(100L);
+        assertThat(Money.of("-1.005").cents()).isEqualTo(-101L);
+        assertThat(Money.of("-1.004").cents()).isEqualTo(-100L);
+        assertThat(Money.of(new BigDecimal("150")).cents()).isEqualTo(15000L);
+        assertThat(Money.of("0.00")).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void timesRatioRoundsHalfUp() {
+        // 1.5 倍：0.03 × 1.5 = 0.045 -> 0.05
+        assertThat(Money.ofCents(3).timesRatio(3, 2).cents()).isEqualTo(5L);
+        // 0.01 × 1 / 3 = 0.0033 -> 0.00
+        assertThat(Money.ofCents(1).timesRatio(1, 3).cents()).isEqualTo(0L);
+        // 负数远离零：-0.03 × 1.5 = -0.045 -> -0.05
+        assertThat(Money.ofCents(-3).timesRatio(3, 2).cents()).isEqualTo(-5L);
+    }
+
+    @Test
+    void dividedByRoundsHalfUp() {
+        assertThat(Money.ofCents(100).dividedBy(3).cents()).isEqualTo(33L);
+        assertThat(Money.ofCents(200).dividedBy(3).cents()).isEqualTo(67L);
+        assertThat(Money.ofCents(5).dividedBy(2).cents()).isEqualTo(3L);
+        assertThat(Money.ofCents(-5).dividedBy(2).cents()).isEqualTo(-3L);
+        assertThat(Money.ofCents(-100).dividedBy(3).cents()).isEqualTo(-33L);
+    }
+
+    @Test
+    void divideHalfUpRejectsNonPositiveDivisor() {
+        assertThat(Money.divideHalfUp(7, 2)).isEqualTo(4L);
+        assertThat(Money.divideHalfUp(-7, 2)).isEqualTo(-4L);
+        assertThat(Money.divideHalfUp(6, 4)).isEqualTo(2L);
+        assertThat(Money.divideHalfUp(5, 4)).isEqualTo(1L);
+        assertThatThrownBy(() -> Money.divideHalfUp(1, 0)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.divideHalfUp(1, -2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void arithmeticOverflowThrows() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        assertThatThrownBy(() -> max.plus(Money.ofCents(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofCents(Long.MIN_VALUE).minus(Money.ofCents(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of("1e30")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void negativeValues() {
+        Money refund = Money.of("10.00").minus(Money.of("12.50"));
+        assertThat(refund.cents()).isEqualTo(-250L);
+        assertThat(refund.isPositive()).isFalse();
+        assertThat(refund.toString()).isEqualTo("-2.50");
+        assertThat(refund.compareTo(Money.ZERO)).isNegative();
+    }
+
+    @Test
+    void jsonRoundTrip() {
+        String json = OBJECT_MAPPER.writeValueAsString(Money.of("150.00"));
+        assertThat(json).isEqualTo("150.00");
+        assertThat(OBJECT_MAPPER.readValue(json, Money.class)).isEqualTo(Money.ofCents(15000));
+        assertThat(OBJECT_MAPPER.readValue("-0.015", Money.class)).isEqualTo(Money.ofCents(-2));
+        assertThat(OBJECT_MAPPER.readValue("\"99.9\"", Money.class)).isEqualTo(Money.ofCents(9990));
+    }
+}
@@ -0,0 +1,95 @@
+package com.java_db.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分层时间轮测试
+ * tickMs = 10、wheelSize = 8：第 0 层覆盖 80 ms，第 1 层 640 ms，第 2 层 5120 ms，更远的任务进入第 3 层
+ */
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void deadlinesCascadeAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(20_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        // 各层边界
+        for (long deadline : new long[]{79, 80, 81, 639, 640, 641, 5119, 5120, 5121, 20_000}) {
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        Map<Long, Integer> fired = new HashMap<>();
+        for (long now = TICK_MS; now <= 20_100; now += TICK_MS) {
+            for (long deadline : wheel.advance(now)) {
+                // 在截止时间之后、最多晚一个 tick 到期
+                assertThat(now).as("deadline %d", deadline).isGreaterThan(deadline).isLessThanOrEqualTo(deadline + TICK_MS);
+                fired.merge(deadline, 1, Integer::sum);
+            }
+        }
+        Map<Long, Integer> expected = new HashMap<>();
+        deadlines.forEach(deadline -> expected.merge(deadline, 1, Integer::sum));
+        assertThat(fired).isEqualTo(expected);
+    }
+
+    @Test
+    void advanceInOneJumpReturnsAllDueTasks() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        wheel.schedule(5, "a");
+        wheel.schedule(700, "b");
+        wheel.schedule(6000, "c");
+
+        assertThat(wheel.advance(700)).containsExactly("a");
+        assertThat(wheel.advance(6010)).containsExactly("b", "c");
+        assertThat(wheel.advance(100_000)).isEmpty();
+    }
+
+    @Test
+    void cancelledTasksDoNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        TimingWheel.Timeout<String> near = wheel.schedule(30, "near");
+        TimingWheel.Timeout<String> far = wheel.schedule(3000, "far");
+        wheel.schedule(3000, "kept");
+        near.cancel();
+        assertThat(wheel.advance(1000)).isEmpty();
+        // 已降级到下层后取消
+        far.cancel();
+        assertThat(far.isCancelled()).isTrue();
+        assertThat(wheel.advance(4000)).containsExactly("kept");
+    }
+
+    @Test
+    void pastDueTasksFireOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 1005);
+        wheel.advance(2000);
+        TimingWheel.Timeout<String> timeout = wheel.schedule(500, "late");
+        assertThat(timeout.deadline()).isEqualTo(500);
+        wheel.schedule(2000, "now");
+
+        assertThat(wheel.advance(2000)).isEmpty();
+        assertThat(wheel.advance(2010)).containsExactlyInAnyOrder("late", "now");
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new TimingWheel<>(0, 8, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel<>(10, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
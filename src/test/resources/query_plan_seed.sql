@@ -0,0 +1,65 @@
+-- 查询计划回归测试数据（QueryPlanRegressionTest 使用）
+-- 数据规模按线上量级估算：门店 200、分类 20、用户 5 万、车辆 2 万、
+-- 订单 24 万（created_at 均匀分布在 2024-01-01 ~ 2025-12-31）、支付 36 万、维修 4 万
+-- 订单状态分布：预订 1%、使用中 1%、已取消 8%、已还车 90%
+
+INSERT INTO stores (name, address, phone)
+SELECT '测试门店' || g, '测试地址' || g, '010-' || lpad(g::text, 8, '0')
+FROM generate_series(1, 200) g;
+
+INSERT INTO categories (name, basic_rate)
+SELECT '测试分类' || g, 100 + g * 10
+FROM generate_series(1, 20) g;
+
+INSERT INTO users (username, password, phone, role)
+SELECT 'plan_user' || g, 'x', '138' || lpad(g::text, 8, '0'), 0
+FROM generate_series(1, 50000) g;
+
+INSERT INTO vehicles (plate_number, model, category_id, store_id, status, daily_rate)
+SELECT 'P' || lpad(g::text, 7, '0'),
+       '车型' || (g % 50),
+       1 + g % 20,
+       1 + g % 200,
+       CASE WHEN g % 100 < 85 THEN 0 WHEN g % 100 < 95 THEN 1 WHEN g % 100 < 99 THEN 2 ELSE 3 END,
+       100 + g % 400
+FROM generate_series(1, 20000) g;
+
+INSERT INTO orders (order_no, user_id, vehicle_id, pickup_store_id, return_store_id,
+                    start_time, end_time, total_amount, status, created_at, updated_at)
+SELECT 'ORD' || lpad(g::text, 10, '0'),
+       1 + g % 50000,
+       1 + (g * 31) % 20000,
+       1 + g % 200,
+       1 + (g * 7) % 200,
+       t.created + INTERVAL '1 day',
+       t.created + (2 + g % 7) * INTERVAL '1 day',
+       100 + g % 900,
+       CASE WHEN g % 100 = 0 THEN 0 WHEN g % 100 = 1 THEN 1 WHEN g % 100 < 10 THEN 3 ELSE 2 END,
+       t.created,
+       t.created
+FROM generate_series(1, 240000) g
+CROSS JOIN LATERAL (
+    SELECT TIMESTAMP '2024-01-01' + (g % 731) * INTERVAL '1 day' + (g % 1380) * INTERVAL '1 minute' AS created
+) t;
+
+INSERT INTO payments (order_id, amount, pay_method, pay_type, pay_time)
+SELECT o.id, o.total_amount,
+       CASE o.id % 3 WHEN 0 THEN 'Alipay' WHEN 1 THEN 'WeChat' ELSE 'Card' END,
+       'Final', o.created_at + INTERVAL '30 minutes'
+FROM orders o;
+
+INSERT INTO payments (order_id, amount, pay_method, pay_type, pay_time)
+SELECT o.id, o.total_amount * 3,
+       CASE o.id % 3 WHEN 0 THEN 'Alipay' WHEN 1 THEN 'WeChat' ELSE 'Card' END,
+       'Deposit', o.created_at + INTERVAL '10 minutes'
+FROM orders o
+WHERE o.id % 2 = 0;
+
+INSERT INTO maintenance (vehicle_id, type, start_date, end_date, cost, description)
+SELECT 1 + (g * 13) % 20000,
+       CASE g % 3 WHEN 0 THEN '维修' WHEN 1 THEN '保养' ELSE '年检' END,
+       DATE '2024-01-01' + g % 731,
+       DATE '2024-01-01' + g % 731 + 2,
+       200 + g % 3000,
+       '测试维修记录'
+FROM generate_series(1, 40000) g;
@@ -0,0 +1,87 @@
+-- 车辆租贷管理系统 - 分区裁剪验证脚本
+-- 验证报表查询只扫描时间范围内的月度分区
+--
+-- 使用方法:
+--   psql -h localhost -U postgres -d vehicle_rental -f verify_partition_pruning.sql
+--
+-- 预期结果: 每个执行计划中只出现 2025-01 对应的分区（orders_p202501 / payments_p202501），
+--           不出现其他月份分区；使用绑定参数时（JDBC PreparedStatement）可能显示
+--           "Subplans Removed: N"，表示执行期裁剪了 N 个分区
+
+-- ============================================
+-- 1. 查看分区
+-- ============================================
+
+SELECT p.relname AS parent, c.relname AS partition, pg_get_expr(c.relpartbound, c.oid) AS bound
+FROM pg_inherits i
+JOIN pg_class c ON c.oid = i.inhrelid
+JOIN pg_class p ON p.oid = i.inhparent
+WHERE p.relname IN ('orders', 'payments')
+ORDER BY p.relname, c.relname;
+
+-- 确保测试月份分区存在
+CREATE TABLE IF NOT EXISTS orders_p202501 PARTITION OF orders FOR VALUES FROM ('2025-01-01') TO ('2025-02-01');
+CREATE TABLE IF NOT EXISTS payments_p202501 PARTITION OF payments FOR VALUES FROM ('2025-01-01') TO ('2025-02-01');
+
+-- ============================================
+-- 2. OrderRepository 报表查询
+-- ============================================
+
+-- findByCreatedAtAfterAndCreatedAtBefore（ReportServiceImpl 各报表）
+EXPLAIN (COSTS OFF) SELECT * FROM orders o
+WHERE o.created_at > '2025-01-01 00:00:00' AND o.created_at < '2025-01-31 23:59:59';
+
+-- countOrdersByStatusBetweenDates
+EXPLAIN (COSTS OFF) SELECT o.status, COUNT(*) FROM orders o
+WHERE o.created_at BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59'
+GROUP BY o.status;
+
+-- sumTotalAmountBetweenDates
+EXPLAIN (COSTS OFF) SELECT CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) FROM orders o
+WHERE o.created_at BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59';
+
+-- getVehicleOrderStatistics
+EXPLAIN (COSTS OFF) SELECT o.vehicle_id, COUNT(*), CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) FROM orders o
+WHERE o.created_at BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59'
+GROUP BY o.vehicle_id;
+
+-- getStoreOrderStatistics
+EXPLAIN (COSTS OFF) SELECT o.pickup_store_id, COUNT(*), CAST(COALESCE(SUM(o.total_amount), 0) * 100 AS BIGINT) FROM orders o
+WHERE o.created_at BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59'
+GROUP BY o.pickup_store_id;
+
+-- ============================================
+-- 3. PaymentRepository 报表查询
+-- ============================================
+
+-- findByPayTimeAfterAndPayTimeBefore（收入统计报表）
+EXPLAIN (COSTS OFF) SELECT * FROM payments p
+WHERE p.pay_time > '2025-01-01 00:00:00' AND p.pay_time < '2025-01-31 23:59:59';
+
+-- sumAmountByPayTypeBetweenDates
+EXPLAIN (COSTS OFF) SELECT p.pay_type, CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) FROM payments p
+WHERE p.pay_time BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59'
+GROUP BY p.pay_type;
+
+-- sumTotalAmountBetweenDates
+EXPLAIN (COSTS OFF) SELECT CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) FROM payments p
+WHERE p.pay_time BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59';
+
+-- sumAmountByPayMethodBetweenDates
+EXPLAIN (COSTS OFF) SELECT p.pay_method, CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) FROM payments p
+WHERE p.pay_time BETWEEN '2025-01-01 00:00:00' AND '2025-01-31 23:59:59'
+GROUP BY p.pay_method;
+
+-- ============================================
+-- 4. 绑定参数（与 JDBC 一致）的执行期裁剪
+-- ============================================
+
+PREPARE revenue_by_range(timestamp, timestamp) AS
+SELECT CAST(COALESCE(SUM(p.amount), 0) * 100 AS BIGINT) FROM payments p
+WHERE p.pay_time BETWEEN $1 AND $2;
+
+SET plan_cache_mode = force_generic_plan;
+EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF)
+EXECUTE revenue_by_range('2025-01-01 00:00:00', '2025-01-31 23:59:59');
+RESET plan_cache_mode;
+DEALLOCATE revenue_by_range;